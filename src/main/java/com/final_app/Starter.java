@@ -1,8 +1,13 @@
 package com.final_app;
 
+import com.final_app.db.DatabaseManager;
+import com.final_app.db.WriteBehindQueue;
 import com.final_app.factories.RepositoryFactory;
 import com.final_app.globals.GlobalVariables;
 import com.final_app.models.User;
+import com.final_app.repositories.firebase.FirestoreOutboxWorker;
+import com.final_app.repositories.firebase.FirestoreReferenceStore;
+import com.final_app.repositories.firebase.utils.FirestoreFutureUtils;
 import com.final_app.scopes.ChatScope;
 import com.final_app.services.AppService;
 import com.final_app.services.DataSynchronizeService;
@@ -27,9 +32,14 @@ import javafx.scene.control.*;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.GridPane;
 import javafx.stage.Stage;
+import javafx.stage.Window;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class Starter extends Application {
     @Override
@@ -161,13 +171,70 @@ public class Starter extends Application {
     }
 
 
+    // Longest wait for the final synchronization when the application closes
+    private static final long EXIT_SYNC_TIMEOUT_MS = Long.getLong("lingualeap.sync.exitTimeoutMs", 30_000);
+    private static boolean servicesShutDown = false;
+
     @Override
     public void stop(){
+        // The windows close right away, the final synchronization keeps the JVM alive until it is done
+        new ArrayList<>(Window.getWindows()).forEach(Window::hide);
         User currentUser = AppService.getInstance().getCurrentUser();
-        AppService.getInstance().getDataSynchronizeService().synchronizeDB(currentUser, DataSynchronizeService.SyncType.LOCAL_TO_ONLINE);
+        Thread exitSync = new Thread(() -> finalSynchronization(currentUser), "exit-sync");
+        exitSync.setDaemon(false);
+        exitSync.start();
+    }
+
+    /**
+     * Send the local changes and shut the services down, waiting at most {@link #EXIT_SYNC_TIMEOUT_MS} in total
+     */
+    private static void finalSynchronization(User currentUser) {
+        long deadline = System.currentTimeMillis() + EXIT_SYNC_TIMEOUT_MS;
+        try {
+            // The outbox rows of queued writes are committed with them
+            WriteBehindQueue.getInstance().flush();
+            // With watermarks this drains the outbox, without it pushes everything, so the outbox needs no second drain
+            AppService.getInstance().getDataSynchronizeService().synchronizeDB(currentUser, DataSynchronizeService.SyncType.LOCAL_TO_ONLINE)
+                    .get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.err.println("Final synchronization did not finish within " + EXIT_SYNC_TIMEOUT_MS + " ms, the rest is sent after the next start");
+        } catch (ExecutionException e) {
+            System.err.println("Final synchronization failed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("Final synchronization failed: " + e.getMessage());
+        }
+        shutdownServices(false, deadline);
+    }
+
+    /**
+     * Remove the Firestore listeners, commit the queued local writes and close the pool. Runs once, after the final
+     * synchronization or from the shutdown hook when the JVM exits without it; the hook waits for a shutdown that is
+     * running.
+     *
+     * @param drainOutbox send the outbox first, for an exit without the final synchronization
+     * @param deadline time (ms) after which the outbox is no longer waited for
+     */
+    private static synchronized void shutdownServices(boolean drainOutbox, long deadline) {
+        if (servicesShutDown) {
+            return;
+        }
+        servicesShutDown = true;
+        FirestoreReferenceStore.shutdown();
+        if (drainOutbox && RepositoryFactory.getInstance().getState() == RepositoryFactory.State.ONLINE) {
+            // The outbox rows of queued writes are committed with them, send them all before the pool closes
+            WriteBehindQueue.getInstance().flush();
+            FirestoreOutboxWorker.flush(Math.max(0, deadline - System.currentTimeMillis()));
+        }
+        FirestoreOutboxWorker.shutdown(Math.max(0, deadline - System.currentTimeMillis()));
+        FirestoreFutureUtils.shutdown();
+        DatabaseManager.shutdown();
     }
 
     public static void main(String[] args) {
+        // The write-behind and outbox threads are daemons, without this a JVM exit that skips stop() loses queued writes
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdownServices(true, System.currentTimeMillis() + EXIT_SYNC_TIMEOUT_MS), "shutdown-services"));
         launch(args);
     }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.final_app.db;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor for the blocking JDBC reads of the Local* repositories, so they no longer run on the common ForkJoinPool.
+ * <p>
+ * Every task gets its own virtual thread, at most {@link DatabaseManager#getMaximumPoolSize()} of them run at the
+ * same time so tasks wait here instead of inside the connection pool. The statistics separate the time a task
+ * waited for a slot (pool saturation) from the time it ran (slow SQL).
+ */
+public class DatabaseExecutor implements Executor {
+    private static final DatabaseExecutor instance = new DatabaseExecutor(DatabaseManager.getMaximumPoolSize());
+
+    private final ExecutorService threads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("h2-read-", 0).factory());
+    private final Semaphore slots;
+
+    private final AtomicLong tasks = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong runNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    private DatabaseExecutor(int maxConcurrency) {
+        this.slots = new Semaphore(maxConcurrency, true);
+    }
+
+    public static DatabaseExecutor getInstance() {
+        return instance;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        long submittedAt = System.nanoTime();
+        threads.execute(() -> {
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a database slot", e);
+            }
+
+            long startedAt = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                slots.release();
+                record(startedAt - submittedAt, System.nanoTime() - startedAt);
+            }
+        });
+    }
+
+    private void record(long waited, long ran) {
+        tasks.incrementAndGet();
+        waitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        runNanos.addAndGet(ran);
+        maxRunNanos.accumulateAndGet(ran, Math::max);
+    }
+
+    public long getTaskCount() {
+        return tasks.get();
+    }
+
+    /**
+     * Tasks waiting for a slot right now
+     */
+    public int getQueueLength() {
+        return slots.getQueueLength();
+    }
+
+    /**
+     * Queue wait versus query time, e.g. "database reads: 120 tasks, wait avg 0.1 ms / max 3.0 ms, query avg 2.5 ms / max 40.2 ms"
+     */
+    public String getStatistics() {
+        long count = Math.max(1, tasks.get());
+        return String.format("database reads: %d tasks, wait avg %.1f ms / max %.1f ms, query avg %.1f ms / max %.1f ms",
+                tasks.get(),
+                waitNanos.get() / count / 1_000_000.0, maxWaitNanos.get() / 1_000_000.0,
+                runNanos.get() / count / 1_000_000.0, maxRunNanos.get() / 1_000_000.0);
+    }
+}
@@ -4,18 +4,23 @@ import com.final_app.models.Language;
 import com.final_app.tools.TranslationManager;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 
 /**
  * Singleton class responsible for managing database connections
  * and initializing the database schema.
  */
 public class DatabaseManager {
-    private static final String DB_URL = "jdbc:h2:./data/lingualeap;AUTO_SERVER=TRUE;";
+    private static final Logger log = LoggerFactory.getLogger(DatabaseManager.class);
+    // Can be overridden with -Dlingualeap.db.url, e.g. to point benchmarks at a scratch database
+    private static final String DB_URL = System.getProperty("lingualeap.db.url", "jdbc:h2:./data/lingualeap;AUTO_SERVER=TRUE;");
     //private static final String DB_URL = "jdbc:sqlite:lingualeap.db";
     //private static final String DB_URL = "jdbc:sqlite:lingualeap.db?cache=shared&busy_timeout=5000";
     private static DatabaseManager instance;
@@ -23,25 +28,91 @@ public class DatabaseManager {
     private static HikariDataSource dataSource;
 
     private static final int THREAD_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final int MAXIMUM_POOL_SIZE = THREAD_COUNT + 2;
 
     static {
         HikariConfig config = new HikariConfig();
         config.setJdbcUrl(DB_URL); // same URL you were using
         config.setUsername("sa");
         config.setPassword("");
-        config.setMaximumPoolSize(THREAD_COUNT + 2); // for embedded, 4-8 is optimal
+        config.setMaximumPoolSize(MAXIMUM_POOL_SIZE); // for embedded, 4-8 is optimal
         config.setConnectionTestQuery("SELECT 1");
         config.setPoolName("Hikari-H2-Pool");
 
         dataSource = new HikariDataSource(config);
     }
 
+    // Connection of the transaction opened by runInTransaction on the current thread
+    private static final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
+
+    /**
+     * Work executed inside a transaction, see {@link #runInTransaction(TransactionWork)}
+     */
+    @FunctionalInterface
+    public interface TransactionWork {
+        void execute() throws SQLException;
+    }
+
+    public static int getMaximumPoolSize() {
+        return MAXIMUM_POOL_SIZE;
+    }
+
     public static Connection getConnection() throws SQLException {
+        Connection bound = transactionConnection.get();
+        if (bound != null) {
+            return TransactionBoundConnection.wrap(bound);
+        }
         return dataSource.getConnection();
     }
 
+    /**
+     * Run the work in a single transaction. Every DAO call made by the work on this thread gets the
+     * same connection, their own commit/close calls are ignored until the whole work is committed.
+     */
+    public static void runInTransaction(TransactionWork work) throws SQLException {
+        if (transactionConnection.get() != null) {
+            // Already inside a transaction, join it
+            work.execute();
+            return;
+        }
+
+        Connection conn = dataSource.getConnection();
+        try {
+            conn.setAutoCommit(false);
+            transactionConnection.set(conn);
+            work.execute();
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            throw e;
+        } finally {
+            transactionConnection.remove();
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     public static void shutdown() {
+        // Commit everything still waiting in the write-behind queue before the pool closes
+        WriteBehindQueue.getInstance().shutdown();
+        ReferenceDataCache.getInstance().getStatistics().forEach(statistic -> log.debug("{}", statistic));
+        log.debug(DatabaseExecutor.getInstance().getStatistics());
         if (dataSource != null) {
+            try (Connection conn = dataSource.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                // Force the committed data to disk
+                stmt.execute("CHECKPOINT SYNC");
+            } catch (SQLException e) {
+                System.err.println("Failed to checkpoint database: " + e.getMessage());
+            }
             dataSource.close();
         }
     }
@@ -76,10 +147,44 @@ public class DatabaseManager {
 
 
     /**
-     * Initialize the database by creating all necessary tables
+     * Ordered schema migrations, each applied once and recorded in schema_version.
+     * Version 1 is the schema as it was before versioning, its IF NOT EXISTS DDL also adopts existing databases.
+     */
+    private List<SchemaMigrator.Migration> migrations() {
+        return List.of(
+                new SchemaMigrator.Migration(1, "Baseline schema", this::createBaselineSchema),
+                new SchemaMigrator.Migration(2, "Default data seed marker", this::createDataSeedTable),
+                new SchemaMigrator.Migration(3, "Translation versions", this::createTranslationVersionsTable),
+                new SchemaMigrator.Migration(4, "Sync watermarks", this::createSyncWatermarksTable),
+                new SchemaMigrator.Migration(5, "Sync outbox", this::createSyncOutboxTable),
+                new SchemaMigrator.Migration(6, "Sync content hashes", this::createSyncContentHashesTable),
+                new SchemaMigrator.Migration(7, "Sync checkpoints", this::createSyncCheckpointTables),
+                new SchemaMigrator.Migration(8, "Translation memory", this::createTranslationMemoryTable)
+        );
+    }
+
+    /**
+     * Bring the schema up to date, returns the number of applied migrations (0 on a warm start)
+     */
+    public int migrateSchema() throws SQLException {
+        try (Connection conn = getConnection()) {
+            return new SchemaMigrator(migrations()).migrate(conn);
+        }
+    }
+
+    /**
+     * Initialize the database by applying the pending schema migrations
      */
     private void initializeDatabase(Connection conn) throws Exception {
+        new SchemaMigrator(migrations()).migrate(conn);
 
+        // Insert initial data if needed
+        insertInitialData(conn);
+        // Translation manager init
+        TranslationManager.init(dataSource, new Language(null, "English", "en", "#000000", 1000));
+    }
+
+    private void createBaselineSchema(Connection conn) throws SQLException {
         // user tables
         createUsersTable(conn);
         createUserStatsTable(conn);
@@ -112,11 +217,16 @@ public class DatabaseManager {
 
         // Translations table
         createSystemComponentsTable(conn);
+    }
 
-        // Insert initial data if needed
-        insertInitialData(conn);
-        // Translation manager init
-        TranslationManager.init(dataSource, new Language(null, "English", "en", "#000000", 1000));
+    private void createDataSeedTable(Connection conn) throws SQLException {
+        // Single row, written by DataService once the default data is in place
+        String sql = "CREATE TABLE IF NOT EXISTS data_seed (" +
+                "id INTEGER PRIMARY KEY CHECK (id = 1)," +
+                "seed_version INTEGER NOT NULL," +
+                "seeded_at TIMESTAMP NOT NULL" +
+                ");";
+        conn.createStatement().execute(sql);
     }
 
     private void createUsersTable(Connection conn) throws SQLException {
@@ -258,6 +368,8 @@ public class DatabaseManager {
         // Create indexes
         conn.createStatement().execute("CREATE INDEX IF NOT EXISTS idx_user_conversations_user_id ON user_conversations(user_id);");
         conn.createStatement().execute("CREATE INDEX IF NOT EXISTS idx_user_conversations_conversation_id ON user_conversations(conversation_id);");
+        // Keyset pagination of the conversation history
+        conn.createStatement().execute("CREATE INDEX IF NOT EXISTS idx_user_conversations_user_updated ON user_conversations(user_id, updated_at, id);");
     }
 
     private void createMessagesTable(Connection conn) throws SQLException {
@@ -274,6 +386,8 @@ public class DatabaseManager {
 
         // Create index
         conn.createStatement().execute("CREATE INDEX IF NOT EXISTS idx_messages_user_conversation_id ON messages(user_conversation_id);");
+        // Keyset pagination of the chat transcript
+        conn.createStatement().execute("CREATE INDEX IF NOT EXISTS idx_messages_user_conversation_index ON messages(user_conversation_id, message_index);");
     }
 
     private void createEvaluationsTable(Connection conn) throws SQLException {
@@ -408,6 +522,9 @@ public class DatabaseManager {
                 "FOREIGN KEY (test_id) REFERENCES speaking_tests(id) ON DELETE CASCADE" +
                 ");";
         conn.createStatement().execute(sql);
+
+        // Used by the dashboard counts
+        conn.createStatement().execute("CREATE INDEX IF NOT EXISTS idx_user_speaking_tests_user_id ON user_speaking_tests(user_id);");
     }
 
     /**
@@ -471,6 +588,93 @@ public class DatabaseManager {
         conn.createStatement().execute(sql);
     }
 
+    private void createTranslationVersionsTable(Connection conn) throws SQLException {
+        // Change counter per locale, lets TranslationManager reuse its on-disk bundle cache while it is unchanged
+        String sql = "CREATE TABLE IF NOT EXISTS translation_versions (" +
+                "locale VARCHAR(10) PRIMARY KEY," +
+                "version BIGINT NOT NULL" +
+                ");";
+        conn.createStatement().execute(sql);
+    }
+
+    private void createSyncWatermarksTable(Connection conn) throws SQLException {
+        // High-water mark per user, collection and sync direction, lets DataSynchronizeService transfer only the changes
+        String sql = "CREATE TABLE IF NOT EXISTS sync_watermarks (" +
+                "user_id VARCHAR(255) NOT NULL," +
+                "collection_name VARCHAR(100) NOT NULL," +
+                "direction VARCHAR(20) NOT NULL," +
+                "watermark TIMESTAMP NOT NULL," +
+                "PRIMARY KEY (user_id, collection_name, direction)" +
+                ");";
+        conn.createStatement().execute(sql);
+    }
+
+    private void createSyncOutboxTable(Connection conn) throws SQLException {
+        // Newest unsent local change per entity, written in the transaction of the change and drained to Firestore
+        conn.createStatement().execute("CREATE SEQUENCE IF NOT EXISTS sync_outbox_version;");
+        String sql = "CREATE TABLE IF NOT EXISTS sync_outbox (" +
+                "entity_type VARCHAR(50) NOT NULL," +
+                "entity_id VARCHAR(255) NOT NULL," +
+                "operation VARCHAR(10) NOT NULL," +
+                "version BIGINT NOT NULL," +
+                "changed_at TIMESTAMP NOT NULL," +
+                "attempts INTEGER DEFAULT 0," +
+                "PRIMARY KEY (entity_type, entity_id)" +
+                ");";
+        conn.createStatement().execute(sql);
+        conn.createStatement().execute("CREATE INDEX IF NOT EXISTS idx_sync_outbox_version ON sync_outbox(version);");
+    }
+
+    private void createSyncContentHashesTable(Connection conn) throws SQLException {
+        // Content hash of each Firestore document as this device last read or wrote it
+        String sql = "CREATE TABLE IF NOT EXISTS sync_content_hashes (" +
+                "entity_type VARCHAR(50) NOT NULL," +
+                "entity_id VARCHAR(255) NOT NULL," +
+                "content_hash VARCHAR(64) NOT NULL," +
+                "PRIMARY KEY (entity_type, entity_id)" +
+                ");";
+        conn.createStatement().execute(sql);
+    }
+
+    private void createTranslationMemoryTable(Connection conn) throws SQLException {
+        // Machine translations that were made before, keyed by the hash of the source text (and instructions)
+        String sql = "CREATE TABLE IF NOT EXISTS translation_memory (" +
+                "source_hash VARCHAR(64) NOT NULL," +
+                "source_language VARCHAR(100) NOT NULL," +
+                "target_language VARCHAR(100) NOT NULL," +
+                "model VARCHAR(100) NOT NULL," +
+                "source_text TEXT NOT NULL," +
+                "translated_text TEXT NOT NULL," +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                "PRIMARY KEY (source_hash, source_language, target_language, model)" +
+                ");";
+        conn.createStatement().execute(sql);
+    }
+
+    private void createSyncCheckpointTables(Connection conn) throws SQLException {
+        // Full synchronization that has not finished yet, per user and sync direction
+        String sql = "CREATE TABLE IF NOT EXISTS sync_runs (" +
+                "user_id VARCHAR(255) NOT NULL," +
+                "direction VARCHAR(20) NOT NULL," +
+                "started_at TIMESTAMP NOT NULL," +
+                "outbox_version BIGINT NOT NULL," +
+                "PRIMARY KEY (user_id, direction)" +
+                ");";
+        conn.createStatement().execute(sql);
+        // Progress of each stage of that synchronization, the writes up to the cursor are done
+        sql = "CREATE TABLE IF NOT EXISTS sync_checkpoints (" +
+                "user_id VARCHAR(255) NOT NULL," +
+                "direction VARCHAR(20) NOT NULL," +
+                "stage_name VARCHAR(100) NOT NULL," +
+                "cursor_id VARCHAR(255)," +
+                "written INTEGER DEFAULT 0," +
+                "completed BOOLEAN DEFAULT FALSE," +
+                "updated_at TIMESTAMP NOT NULL," +
+                "PRIMARY KEY (user_id, direction, stage_name)" +
+                ");";
+        conn.createStatement().execute(sql);
+    }
+
     private void createSystemComponentsTable(Connection conn) throws SQLException{
         String sql = "CREATE TABLE IF NOT EXISTS translations (" +
         "translation_key VARCHAR(100) NOT NULL,"+
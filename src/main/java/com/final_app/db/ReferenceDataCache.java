@@ -0,0 +1,236 @@
+package com.final_app.db;
+
+import com.final_app.models.Language;
+import com.final_app.models.LanguageLevel;
+import com.final_app.models.LanguageLevelSystem;
+import com.final_app.models.Scenario;
+import com.final_app.models.ScenarioKeyPoint;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Process-wide, read-through identity map for the rarely changing reference tables
+ * (languages, language_levels, language_systems, scenarios and scenario_key_points).
+ * <p>
+ * Every DAO shares this cache, so a reference entity is read from the database once instead of once per row
+ * that points to it. The DAO write paths and the data synchronization invalidate the affected entries.
+ * Callers get their own copies, so mapping or editing what they read never changes the cached entity.
+ */
+public class ReferenceDataCache {
+    private static final ReferenceDataCache instance = new ReferenceDataCache();
+
+    private final EntityCache<Language> languages = new EntityCache<>("languages", Language::new);
+    private final EntityCache<LanguageLevel> languageLevels = new EntityCache<>("language_levels", LanguageLevel::new);
+    private final EntityCache<LanguageLevelSystem> languageSystems = new EntityCache<>("language_systems", LanguageLevelSystem::new);
+    private final EntityCache<Scenario> scenarios = new EntityCache<>("scenarios", Scenario::new);
+    // Keyed by scenario ID
+    private final EntityCache<List<ScenarioKeyPoint>> scenarioKeyPoints = new EntityCache<>("scenario_key_points",
+            keyPoints -> keyPoints.stream().map(ScenarioKeyPoint::new).collect(Collectors.toCollection(ArrayList::new)));
+
+    private ReferenceDataCache() {
+    }
+
+    public static ReferenceDataCache getInstance() {
+        return instance;
+    }
+
+    public EntityCache<Language> languages() {
+        return languages;
+    }
+
+    public EntityCache<LanguageLevel> languageLevels() {
+        return languageLevels;
+    }
+
+    public EntityCache<LanguageLevelSystem> languageSystems() {
+        return languageSystems;
+    }
+
+    public EntityCache<Scenario> scenarios() {
+        return scenarios;
+    }
+
+    public EntityCache<List<ScenarioKeyPoint>> scenarioKeyPoints() {
+        return scenarioKeyPoints;
+    }
+
+    /**
+     * Drop every cached entity, used after bulk changes like a synchronization
+     */
+    public void invalidateAll() {
+        languages.invalidateAll();
+        languageLevels.invalidateAll();
+        languageSystems.invalidateAll();
+        scenarios.invalidateAll();
+        scenarioKeyPoints.invalidateAll();
+    }
+
+    /**
+     * Hit/miss counters of all caches, e.g. "languages: 120 hits / 8 misses"
+     */
+    public List<String> getStatistics() {
+        List<String> statistics = new ArrayList<>();
+        for (EntityCache<?> cache : List.of(languages, languageLevels, languageSystems, scenarios, scenarioKeyPoints)) {
+            statistics.add(cache.toString());
+        }
+        return statistics;
+    }
+
+    /**
+     * Loads a single entity from the database, may return null when it does not exist
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load(String id) throws SQLException;
+    }
+
+    /**
+     * Loads several entities from the database, keyed by ID
+     */
+    @FunctionalInterface
+    public interface BatchLoader<T> {
+        Map<String, T> load(Collection<String> ids) throws SQLException;
+    }
+
+    /**
+     * Cache of a single table with hit/miss counters.
+     * <p>
+     * Every invalidation starts a new generation. A load that started in an earlier generation may have read
+     * the row before the change that caused the invalidation, so its result is returned but not cached.
+     */
+    public static class EntityCache<T> {
+        private final String name;
+        private final UnaryOperator<T> copier;
+        private final Map<String, T> entries = new ConcurrentHashMap<>();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        // Guarded by this, like the writes to entries
+        private long generation;
+
+        private EntityCache(String name, UnaryOperator<T> copier) {
+            this.name = name;
+            this.copier = copier;
+        }
+
+        /**
+         * Return a copy of the cached entity or load and cache it. Missing entities are not cached.
+         */
+        public T get(String id, Loader<T> loader) throws SQLException {
+            if (id == null) {
+                return null;
+            }
+
+            T cached = entries.get(id);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return copier.apply(cached);
+            }
+
+            misses.incrementAndGet();
+            long loadGeneration = generation();
+            T loaded = loader.load(id);
+            if (loaded != null) {
+                return copier.apply(store(id, loaded, loadGeneration));
+            }
+            return null;
+        }
+
+        /**
+         * Return the cached entities and load all missing ones with a single call to the batch loader
+         */
+        public Map<String, T> getAll(Collection<String> ids, BatchLoader<T> loader) throws SQLException {
+            Map<String, T> result = new HashMap<>();
+            List<String> missing = new ArrayList<>();
+
+            for (String id : new LinkedHashSet<>(ids)) {
+                if (id == null) continue;
+                T cached = entries.get(id);
+                if (cached != null) {
+                    hits.incrementAndGet();
+                    result.put(id, copier.apply(cached));
+                } else {
+                    misses.incrementAndGet();
+                    missing.add(id);
+                }
+            }
+
+            if (!missing.isEmpty()) {
+                long loadGeneration = generation();
+                loader.load(missing).forEach((id, loaded) -> {
+                    if (loaded != null) {
+                        result.put(id, copier.apply(store(id, loaded, loadGeneration)));
+                    }
+                });
+            }
+            return result;
+        }
+
+        /**
+         * Store a copy of an entity that was loaded through another query (e.g. findAll). Pass the
+         * {@link #generation()} read before that query, the entity is dropped when an invalidation came between.
+         */
+        public void put(String id, T entity, long loadGeneration) {
+            if (id != null && entity != null) {
+                store(id, copier.apply(entity), loadGeneration);
+            }
+        }
+
+        /**
+         * The current generation, read it before a query whose results are put into the cache
+         */
+        public synchronized long generation() {
+            return generation;
+        }
+
+        /**
+         * Cache the loaded entity unless the cache was invalidated since the load started. Returns the
+         * entity to hand out: the one cached first when another load was faster.
+         */
+        private synchronized T store(String id, T loaded, long loadGeneration) {
+            if (loadGeneration != generation) {
+                return loaded;
+            }
+            T existing = entries.putIfAbsent(id, loaded);
+            return existing != null ? existing : loaded;
+        }
+
+        public synchronized void invalidate(String id) {
+            if (id != null) {
+                generation++;
+                entries.remove(id);
+            }
+        }
+
+        public synchronized void invalidateAll() {
+            generation++;
+            entries.clear();
+        }
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + hits.get() + " hits / " + misses.get() + " misses (" + entries.size() + " cached)";
+        }
+    }
+}
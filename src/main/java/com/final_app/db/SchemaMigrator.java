@@ -0,0 +1,120 @@
+package com.final_app.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Applies ordered schema migrations and records each applied version in the schema_version table.
+ * A database that is up to date costs one query, so a warm start skips all DDL.
+ */
+public class SchemaMigrator {
+    /**
+     * Schema change applied by a migration, runs inside the migration's transaction
+     */
+    @FunctionalInterface
+    public interface MigrationStep {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * A single schema version. Never change a released migration, add one with the next version instead.
+     */
+    public static class Migration {
+        private final int version;
+        private final String description;
+        private final MigrationStep step;
+
+        public Migration(int version, String description, MigrationStep step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(List<Migration> migrations) {
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::getVersion));
+    }
+
+    /**
+     * Apply every migration newer than the current schema version, each in its own transaction
+     *
+     * @return the number of applied migrations, 0 on a warm start
+     */
+    public int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INTEGER PRIMARY KEY," +
+                    "description VARCHAR(255) NOT NULL," +
+                    "applied_at TIMESTAMP NOT NULL" +
+                    ");");
+        }
+
+        int current = findCurrentVersion(conn);
+        int applied = 0;
+        boolean autoCommit = conn.getAutoCommit();
+
+        try {
+            for (Migration migration : migrations) {
+                if (migration.getVersion() <= current) {
+                    continue;
+                }
+
+                conn.setAutoCommit(false);
+                try {
+                    migration.step.apply(conn);
+                    recordVersion(conn, migration);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw new SQLException("Schema migration " + migration.getVersion() + " (" + migration.getDescription() + ") failed", e);
+                }
+
+                System.out.println("Applied schema migration " + migration.getVersion() + ": " + migration.getDescription());
+                applied++;
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        return applied;
+    }
+
+    /**
+     * Highest applied schema version, 0 for a new database
+     */
+    public int findCurrentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void recordVersion(Connection conn, Migration migration) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, migration.getVersion());
+            pstmt.setString(2, migration.getDescription());
+            pstmt.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            pstmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.final_app.db;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Small helpers for building set-based queries (IN (...) lists) in the DAOs.
+ */
+public final class SqlUtils {
+    /**
+     * Maximum amount of parameters bound in a single IN (...) clause
+     */
+    public static final int IN_CLAUSE_CHUNK_SIZE = 500;
+
+    private SqlUtils() {
+    }
+
+    /**
+     * Build a comma separated list of '?' placeholders
+     */
+    public static String placeholders(int count) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < count; i++) {
+            joiner.add("?");
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Remove null and duplicate ids and split them in chunks of at most {@link #IN_CLAUSE_CHUNK_SIZE}
+     */
+    public static List<List<String>> chunkIds(Collection<String> ids) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.removeIf(Objects::isNull);
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += IN_CLAUSE_CHUNK_SIZE) {
+            chunks.add(distinct.subList(i, Math.min(i + IN_CLAUSE_CHUNK_SIZE, distinct.size())));
+        }
+        return chunks;
+    }
+}
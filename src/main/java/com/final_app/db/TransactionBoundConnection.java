@@ -0,0 +1,53 @@
+package com.final_app.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+/**
+ * Connection handed to DAOs while a {@link DatabaseManager#runInTransaction} transaction is open.
+ * Transaction control and close calls are ignored, so the DAOs' own try-with-resources and
+ * commit/rollback handling join the enclosing transaction instead of ending it.
+ */
+final class TransactionBoundConnection implements InvocationHandler {
+    private final Connection target;
+
+    private TransactionBoundConnection(Connection target) {
+        this.target = target;
+    }
+
+    static Connection wrap(Connection target) {
+        return (Connection) Proxy.newProxyInstance(
+                TransactionBoundConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new TransactionBoundConnection(target));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "close":
+            case "commit":
+            case "setAutoCommit":
+                return null;
+            case "rollback":
+                // A failing DAO rethrows its exception, the enclosing transaction rolls back as a whole
+                if (args == null || args.length == 0) {
+                    return null;
+                }
+                break;
+            case "getAutoCommit":
+                return false;
+            default:
+                break;
+        }
+
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.final_app.db;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Optional write-behind mode for the Local* repositories, enabled with -Dlingualeap.db.writeBehind=true.
+ * <p>
+ * Writes are queued in submission order and executed by a single writer thread, which commits up to
+ * {@link #MAX_BATCH_SIZE} of them in one transaction. A queued write with an entity key replaces the
+ * previous queued write of the same entity, so only the newest state is written. The returned futures
+ * complete once the write is committed. When the mode is disabled the write runs on the caller's thread.
+ */
+public class WriteBehindQueue {
+    private static final boolean ENABLED = Boolean.getBoolean("lingualeap.db.writeBehind");
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long SHUTDOWN_TIMEOUT_MS = 30_000;
+
+    private static final WriteBehindQueue instance = new WriteBehindQueue();
+
+    private final Object lock = new Object();
+    private final LinkedList<PendingWrite> queue = new LinkedList<>();
+    // Queued (not yet started) writes that can still be replaced, keyed by entity
+    private final Map<String, PendingWrite> queuedByEntity = new HashMap<>();
+    private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+    private Thread writer;
+    private boolean shutdown;
+
+    private WriteBehindQueue() {
+    }
+
+    public static WriteBehindQueue getInstance() {
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Queue a write, it is executed after every write submitted before it
+     */
+    public CompletableFuture<Void> submit(DatabaseManager.TransactionWork write) {
+        return submit(null, write);
+    }
+
+    /**
+     * Queue a write of the entity with the given key (e.g. "messages:" + id).
+     * A write of the same entity that is still waiting in the queue is dropped in favour of this one.
+     */
+    public CompletableFuture<Void> submit(String entityKey, DatabaseManager.TransactionWork write) {
+        synchronized (lock) {
+            if (ENABLED && !shutdown) {
+                PendingWrite pending = new PendingWrite(entityKey, write);
+
+                if (entityKey != null) {
+                    PendingWrite replaced = queuedByEntity.put(entityKey, pending);
+                    if (replaced != null) {
+                        queue.remove(replaced);
+                        pending.future.whenComplete((v, ex) -> {
+                            if (ex != null) replaced.future.completeExceptionally(ex);
+                            else replaced.future.complete(null);
+                        });
+                    }
+                }
+
+                queue.addLast(pending);
+                lastWrite = pending.future;
+                startWriter();
+                lock.notifyAll();
+                return pending.future;
+            }
+        }
+
+        // Write-behind disabled: write synchronously like before
+        try {
+            write.execute();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Block until every write submitted so far is committed (or failed).
+     * Reads call this first, so they always see the caller's own writes.
+     */
+    public void flush() {
+        CompletableFuture<Void> last;
+        synchronized (lock) {
+            if (Thread.currentThread() == writer) {
+                return;
+            }
+            last = lastWrite;
+        }
+        last.handle((v, ex) -> null).join();
+    }
+
+    /**
+     * Commit all queued writes and stop the writer. Later writes run synchronously.
+     */
+    public void shutdown() {
+        Thread writerToJoin;
+        synchronized (lock) {
+            shutdown = true;
+            writerToJoin = writer;
+            lock.notifyAll();
+        }
+
+        if (writerToJoin != null) {
+            try {
+                writerToJoin.join(SHUTDOWN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (writerToJoin.isAlive()) {
+                System.err.println("Write-behind queue did not drain within " + SHUTDOWN_TIMEOUT_MS + " ms");
+            }
+        }
+    }
+
+    private void startWriter() {
+        if (writer == null) {
+            writer = new Thread(this::runWriter, "h2-write-behind");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            List<PendingWrite> batch = new ArrayList<>();
+            synchronized (lock) {
+                while (queue.isEmpty() && !shutdown) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // Keep draining, the queue is only stopped through shutdown()
+                    }
+                }
+                if (queue.isEmpty()) {
+                    return;
+                }
+                while (!queue.isEmpty() && batch.size() < MAX_BATCH_SIZE) {
+                    PendingWrite pending = queue.removeFirst();
+                    if (pending.entityKey != null) {
+                        queuedByEntity.remove(pending.entityKey, pending);
+                    }
+                    batch.add(pending);
+                }
+            }
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<PendingWrite> batch) {
+        try {
+            DatabaseManager.runInTransaction(() -> {
+                for (PendingWrite pending : batch) {
+                    pending.write.execute();
+                }
+            });
+            batch.forEach(pending -> pending.future.complete(null));
+        } catch (SQLException | RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch.getFirst(), e);
+                return;
+            }
+            // One write failed the whole batch, retry them one by one so only the failing write is lost
+            for (PendingWrite pending : batch) {
+                try {
+                    DatabaseManager.runInTransaction(pending.write);
+                    pending.future.complete(null);
+                } catch (SQLException | RuntimeException ex) {
+                    fail(pending, ex);
+                }
+            }
+        }
+    }
+
+    private void fail(PendingWrite pending, Exception e) {
+        System.err.println("Write-behind write failed: " + e.getMessage());
+        e.printStackTrace();
+        pending.future.completeExceptionally(e);
+    }
+
+    private static class PendingWrite {
+        private final String entityKey;
+        private final DatabaseManager.TransactionWork write;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingWrite(String entityKey, DatabaseManager.TransactionWork write) {
+            this.entityKey = entityKey;
+            this.write = write;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.final_app.db.dao;
 
 import com.final_app.db.DatabaseManager;
+import com.final_app.db.SqlUtils;
 import com.final_app.models.Conversation;
 import com.final_app.models.Language;
 import com.final_app.models.LanguageLevel;
@@ -9,38 +10,109 @@ import com.final_app.tools.PerformanceTimer;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public class ConversationDAO {
     private final LanguageDAO languageDAO = new LanguageDAO();
     private final LanguageLevelDAO languageLevelDAO = new LanguageLevelDAO();
     private final ScenarioDAO scenarioDAO = new ScenarioDAO();
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
 
     public void insert(Conversation conversation) throws SQLException {
-        String sql = "INSERT INTO conversations (id, title, description, language_id, language_from_id, level_id, scenario_id, start_prompt, model) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO conversations (id, title, description, language_id, language_from_id, level_id, scenario_id, start_prompt, model) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-        if (conversation.getId() == null || conversation.getId().isEmpty()) {
-            conversation.setId(UUID.randomUUID().toString());
-        }
+            if (conversation.getId() == null || conversation.getId().isEmpty()) {
+                conversation.setId(UUID.randomUUID().toString());
+            }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, conversation.getId());
-            pstmt.setString(2, conversation.getTitle());
-            pstmt.setString(3, conversation.getDescription());
-            pstmt.setString(4, conversation.getLanguageId());
-            pstmt.setString(5, conversation.getLanguageFromId());
-            pstmt.setString(6, conversation.getLevelId());
-            pstmt.setString(7, conversation.getScenarioId());
-            pstmt.setString(8, conversation.getStartPrompt());
-            pstmt.setString(9, conversation.getModel());
-
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, conversation.getId());
+                pstmt.setString(2, conversation.getTitle());
+                pstmt.setString(3, conversation.getDescription());
+                pstmt.setString(4, conversation.getLanguageId());
+                pstmt.setString(5, conversation.getLanguageFromId());
+                pstmt.setString(6, conversation.getLevelId());
+                pstmt.setString(7, conversation.getScenarioId());
+                pstmt.setString(8, conversation.getStartPrompt());
+                pstmt.setString(9, conversation.getModel());
+
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.CONVERSATIONS, conversation.getId());
+        });
+    }
+
+    /**
+     * Insert several conversations with a single JDBC batch in one transaction
+     */
+    public void insertAll(List<Conversation> conversations) throws SQLException {
+        DatabaseManager.runInTransaction(() -> {
+            if (conversations == null || conversations.isEmpty()) {
+                return;
+            }
+
+            String sql = "INSERT INTO conversations (id, title, description, language_id, language_from_id, level_id, scenario_id, start_prompt, model) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+            Connection conn = null;
+
+            try {
+                conn = DatabaseManager.getInstance().getConnection();
+                conn.setAutoCommit(false);
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (Conversation conversation : conversations) {
+                        if (conversation.getId() == null || conversation.getId().isEmpty()) {
+                            conversation.setId(UUID.randomUUID().toString());
+                        }
+
+                        pstmt.setString(1, conversation.getId());
+                        pstmt.setString(2, conversation.getTitle());
+                        pstmt.setString(3, conversation.getDescription());
+                        pstmt.setString(4, conversation.getLanguageId());
+                        pstmt.setString(5, conversation.getLanguageFromId());
+                        pstmt.setString(6, conversation.getLevelId());
+                        pstmt.setString(7, conversation.getScenarioId());
+                        pstmt.setString(8, conversation.getStartPrompt());
+                        pstmt.setString(9, conversation.getModel());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                if (conn != null) {
+                    try {
+                        conn.rollback();
+                    } catch (SQLException ex) {
+                        ex.printStackTrace();
+                    }
+                }
+                throw e;
+            } finally {
+                if (conn != null) {
+                    try {
+                        conn.setAutoCommit(true);
+                        conn.close();
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            outboxDAO.recordAll(SyncOutboxDAO.CONVERSATIONS, conversations.stream().map(Conversation::getId).toList(), SyncOutboxDAO.Operation.UPSERT);
+        });
     }
 
     public Conversation findById(String id) throws SQLException {
@@ -62,6 +134,39 @@ public class ConversationDAO {
         }
     }
 
+    /**
+     * Find several conversations at once with their language, level and scenario, keyed by ID
+     */
+    public Map<String, Conversation> findByIds(Collection<String> ids) throws SQLException {
+        List<Conversation> conversations = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            for (List<String> chunk : SqlUtils.chunkIds(ids)) {
+                String sql = "SELECT * FROM conversations WHERE id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            conversations.add(mapResultSetToConversation(rs));
+                        }
+                    }
+                }
+            }
+        }
+
+        loadRelatedObjects(conversations);
+
+        Map<String, Conversation> conversationsById = new HashMap<>();
+        for (Conversation conversation : conversations) {
+            conversationsById.put(conversation.getId(), conversation);
+        }
+        return conversationsById;
+    }
+
     public List<Conversation> findAll() throws SQLException {
         PerformanceTimer.start("Dao: ConversationDAO.findAll");
         String sql = "SELECT * FROM conversations";
@@ -72,12 +177,33 @@ public class ConversationDAO {
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                Conversation conversation = mapResultSetToConversation(rs);
-                loadRelatedObjects(conversation);
-                conversations.add(conversation);
+                conversations.add(mapResultSetToConversation(rs));
+            }
+        }
+        loadRelatedObjects(conversations);
+        PerformanceTimer.stop("Dao: ConversationDAO.findAll");
+        return conversations;
+    }
+
+    /**
+     * Find the conversations changed after the given time, used by the delta synchronization
+     */
+    public List<Conversation> findUpdatedSince(Date since) throws SQLException {
+        String sql = "SELECT * FROM conversations WHERE last_updated > ?";
+        List<Conversation> conversations = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setTimestamp(1, new Timestamp(since.getTime()));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    conversations.add(mapResultSetToConversation(rs));
+                }
             }
-            PerformanceTimer.stop("Dao: ConversationDAO.findAll");
         }
+        loadRelatedObjects(conversations);
         return conversations;
     }
 
@@ -137,47 +263,52 @@ public class ConversationDAO {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    Conversation conversation = mapResultSetToConversation(rs);
-                    loadRelatedObjects(conversation);
-                    conversations.add(conversation);
+                    conversations.add(mapResultSetToConversation(rs));
                 }
             }
         }
 
+        loadRelatedObjects(conversations);
         return conversations;
     }
 
     public void update(Conversation conversation) throws SQLException {
-        String sql = "UPDATE conversations SET title = ?, description = ?, language_id = ?, language_from_id = ?, " +
-                "level_id = ?, scenario_id = ?, start_prompt = ?, model = ?, last_updated = ? WHERE id = ?";
-
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, conversation.getTitle());
-            pstmt.setString(2, conversation.getDescription());
-            pstmt.setString(3, conversation.getLanguageId());
-            pstmt.setString(4, conversation.getLanguageFromId());
-            pstmt.setString(5, conversation.getLevelId());
-            pstmt.setString(6, conversation.getScenarioId());
-            pstmt.setString(7, conversation.getStartPrompt());
-            pstmt.setString(8, conversation.getModel());
-            pstmt.setTimestamp(9, new Timestamp(System.currentTimeMillis()));
-            pstmt.setString(10, conversation.getId());
-
-            pstmt.executeUpdate();
-        }
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE conversations SET title = ?, description = ?, language_id = ?, language_from_id = ?, " +
+                    "level_id = ?, scenario_id = ?, start_prompt = ?, model = ?, last_updated = ? WHERE id = ?";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, conversation.getTitle());
+                pstmt.setString(2, conversation.getDescription());
+                pstmt.setString(3, conversation.getLanguageId());
+                pstmt.setString(4, conversation.getLanguageFromId());
+                pstmt.setString(5, conversation.getLevelId());
+                pstmt.setString(6, conversation.getScenarioId());
+                pstmt.setString(7, conversation.getStartPrompt());
+                pstmt.setString(8, conversation.getModel());
+                pstmt.setTimestamp(9, new Timestamp(System.currentTimeMillis()));
+                pstmt.setString(10, conversation.getId());
+
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.CONVERSATIONS, conversation.getId());
+        });
     }
 
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM conversations WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "DELETE FROM conversations WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordDelete(SyncOutboxDAO.CONVERSATIONS, id);
+        });
     }
 
     private Conversation mapResultSetToConversation(ResultSet rs) throws SQLException {
@@ -208,5 +339,36 @@ public class ConversationDAO {
         Scenario scenario = scenarioDAO.findById(conversation.getScenarioId());
         conversation.setScenario(scenario);
     }
+
+    /**
+     * Load the related objects for a list of conversations with one query per related table,
+     * shared languages, levels and scenarios are only materialized once.
+     */
+    private void loadRelatedObjects(List<Conversation> conversations) throws SQLException {
+        if (conversations.isEmpty()) {
+            return;
+        }
+
+        Set<String> languageIds = new HashSet<>();
+        Set<String> levelIds = new HashSet<>();
+        Set<String> scenarioIds = new HashSet<>();
+        for (Conversation conversation : conversations) {
+            languageIds.add(conversation.getLanguageId());
+            languageIds.add(conversation.getLanguageFromId());
+            levelIds.add(conversation.getLevelId());
+            scenarioIds.add(conversation.getScenarioId());
+        }
+
+        Map<String, Language> languages = languageDAO.findByIds(languageIds);
+        Map<String, LanguageLevel> levels = languageLevelDAO.findByIds(levelIds);
+        Map<String, Scenario> scenarios = scenarioDAO.findByIds(scenarioIds);
+
+        for (Conversation conversation : conversations) {
+            conversation.setLanguage(languages.get(conversation.getLanguageId()));
+            conversation.setLanguageFrom(languages.get(conversation.getLanguageFromId()));
+            conversation.setLanguageLevel(levels.get(conversation.getLevelId()));
+            conversation.setScenario(scenarios.get(conversation.getScenarioId()));
+        }
+    }
 }
 
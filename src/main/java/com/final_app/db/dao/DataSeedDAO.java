@@ -0,0 +1,39 @@
+package com.final_app.db.dao;
+
+import com.final_app.db.DatabaseManager;
+
+import java.sql.*;
+
+/**
+ * Data Access Object for the single row data_seed table, which records the version of the seeded default data
+ */
+public class DataSeedDAO {
+    /**
+     * Version of the seeded default data, 0 when the defaults were never seeded
+     */
+    public int findSeedVersion() throws SQLException {
+        String sql = "SELECT seed_version FROM data_seed WHERE id = 1";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            return rs.next() ? rs.getInt("seed_version") : 0;
+        }
+    }
+
+    /**
+     * Record that the default data of the given version is in place
+     */
+    public void markSeeded(int seedVersion) throws SQLException {
+        String sql = "MERGE INTO data_seed (id, seed_version, seeded_at) KEY (id) VALUES (1, ?, ?)";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, seedVersion);
+            pstmt.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+            pstmt.executeUpdate();
+        }
+    }
+}
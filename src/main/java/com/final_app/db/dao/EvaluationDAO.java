@@ -1,44 +1,55 @@
 package com.final_app.db.dao;
 
 import com.final_app.db.DatabaseManager;
+import com.final_app.db.SqlUtils;
 import com.final_app.models.Evaluation;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * Data Access Object for the evaluations table
  */
 public class EvaluationDAO {
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
+
     /**
      * Insert a new evaluation into the database
      */
     public void insert(Evaluation evaluation) throws SQLException {
-        String sql = "INSERT INTO evaluations (id, user_conversation_id, score, max_score, vocab, grammar, feedback, correctness, duration, purpose) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO evaluations (id, user_conversation_id, score, max_score, vocab, grammar, feedback, correctness, duration, purpose) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-        if(evaluation.getId() == null) {
-            evaluation.setId(UUID.randomUUID().toString());
-        }
+            if(evaluation.getId() == null) {
+                evaluation.setId(UUID.randomUUID().toString());
+            }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            pstmt.setString(1, evaluation.getId());
-            pstmt.setString(2, evaluation.getUserConversationId());
-            pstmt.setInt(3, evaluation.getScore());
-            pstmt.setInt(4, evaluation.getMaxScore());
-            pstmt.setInt(5, evaluation.getVocab());
-            pstmt.setInt(6, evaluation.getGrammar());
-            pstmt.setString(7, evaluation.getFeedback());
-            pstmt.setInt(8, evaluation.getCorrectness());
-            pstmt.setInt(9, evaluation.getDuration());
-            pstmt.setInt(10, evaluation.getPurpose());
-
-            pstmt.executeUpdate();
-        }
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+                pstmt.setString(1, evaluation.getId());
+                pstmt.setString(2, evaluation.getUserConversationId());
+                pstmt.setInt(3, evaluation.getScore());
+                pstmt.setInt(4, evaluation.getMaxScore());
+                pstmt.setInt(5, evaluation.getVocab());
+                pstmt.setInt(6, evaluation.getGrammar());
+                pstmt.setString(7, evaluation.getFeedback());
+                pstmt.setInt(8, evaluation.getCorrectness());
+                pstmt.setInt(9, evaluation.getDuration());
+                pstmt.setInt(10, evaluation.getPurpose());
+
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.EVALUATIONS, evaluation.getId());
+            // Embedded in the user conversation document
+            outboxDAO.recordUpsert(SyncOutboxDAO.USER_CONVERSATIONS, evaluation.getUserConversationId());
+        });
     }
 
     /**
@@ -81,6 +92,34 @@ public class EvaluationDAO {
         }
     }
 
+    /**
+     * Find the evaluations for a set of user conversations, keyed by user conversation ID
+     */
+    public Map<String, Evaluation> findByUserConversationIds(Collection<String> userConversationIds) throws SQLException {
+        Map<String, Evaluation> evaluationsByUserConversation = new HashMap<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            for (List<String> chunk : SqlUtils.chunkIds(userConversationIds)) {
+                String sql = "SELECT * FROM evaluations WHERE user_conversation_id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Evaluation evaluation = mapResultSetToEvaluation(rs);
+                            evaluationsByUserConversation.put(evaluation.getUserConversationId(), evaluation);
+                        }
+                    }
+                }
+            }
+        }
+
+        return evaluationsByUserConversation;
+    }
+
     /**
      * Get all evaluations from the database
      */
@@ -104,53 +143,67 @@ public class EvaluationDAO {
      * Update an existing evaluation
      */
     public void update(Evaluation evaluation) throws SQLException {
-        String sql = "UPDATE evaluations SET user_conversation_id = ?, score = ?, max_score = ?, " +
-                "vocab = ?, grammar = ?, feedback = ?, correctness = ?, duration = ?, purpose = ? WHERE id = ?";
-
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, evaluation.getUserConversationId());
-            pstmt.setInt(2, evaluation.getScore());
-            pstmt.setInt(3, evaluation.getMaxScore());
-            pstmt.setInt(4, evaluation.getVocab());
-            pstmt.setInt(5, evaluation.getGrammar());
-            pstmt.setString(6, evaluation.getFeedback());
-            pstmt.setString(7, evaluation.getId());
-            pstmt.setInt(8, evaluation.getCorrectness());
-            pstmt.setInt(9, evaluation.getDuration());
-            pstmt.setInt(10, evaluation.getPurpose());
-
-            pstmt.executeUpdate();
-        }
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE evaluations SET user_conversation_id = ?, score = ?, max_score = ?, " +
+                    "vocab = ?, grammar = ?, feedback = ?, correctness = ?, duration = ?, purpose = ? WHERE id = ?";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, evaluation.getUserConversationId());
+                pstmt.setInt(2, evaluation.getScore());
+                pstmt.setInt(3, evaluation.getMaxScore());
+                pstmt.setInt(4, evaluation.getVocab());
+                pstmt.setInt(5, evaluation.getGrammar());
+                pstmt.setString(6, evaluation.getFeedback());
+                pstmt.setString(7, evaluation.getId());
+                pstmt.setInt(8, evaluation.getCorrectness());
+                pstmt.setInt(9, evaluation.getDuration());
+                pstmt.setInt(10, evaluation.getPurpose());
+
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.EVALUATIONS, evaluation.getId());
+            // Embedded in the user conversation document
+            outboxDAO.recordUpsert(SyncOutboxDAO.USER_CONVERSATIONS, evaluation.getUserConversationId());
+        });
     }
 
     /**
      * Delete an evaluation by ID
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM evaluations WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            outboxDAO.recordDelete(SyncOutboxDAO.EVALUATIONS, id);
+            // Embedded in the user conversation document
+            outboxDAO.recordWhere(SyncOutboxDAO.USER_CONVERSATIONS, SyncOutboxDAO.Operation.UPSERT, "user_conversation_id", "evaluations", "id", id);
+            String sql = "DELETE FROM evaluations WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+        });
     }
 
     /**
      * Delete an evaluation by user conversation ID
      */
     public void deleteByUserConversationId(String userConversationId) throws SQLException {
-        String sql = "DELETE FROM evaluations WHERE user_conversation_id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            outboxDAO.recordWhere(SyncOutboxDAO.EVALUATIONS, SyncOutboxDAO.Operation.DELETE, "id", "evaluations", "user_conversation_id", userConversationId);
+            outboxDAO.recordUpsert(SyncOutboxDAO.USER_CONVERSATIONS, userConversationId);
+            String sql = "DELETE FROM evaluations WHERE user_conversation_id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, userConversationId);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, userConversationId);
+                pstmt.executeUpdate();
+            }
+        });
     }
 
     /**
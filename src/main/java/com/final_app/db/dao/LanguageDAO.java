@@ -1,13 +1,19 @@
 package com.final_app.db.dao;
 
 import com.final_app.db.DatabaseManager;
+import com.final_app.db.ReferenceDataCache;
+import com.final_app.db.SqlUtils;
 import com.final_app.models.Language;
 import com.final_app.models.LanguageLevelSystem;
 import com.final_app.services.AppService;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,28 +22,33 @@ import java.util.UUID;
  */
 public class LanguageDAO {
     private LanguageLevelSystemDAO languageLevelSystemDAO = new LanguageLevelSystemDAO();
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
     /**
      * Insert a new language into the database
      */
     public void insert(Language language) throws SQLException {
-        String sql = "INSERT INTO languages (id, system_id, name, iso, color, max_xp) VALUES (?, ?, ?, ?, ?, ?)";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO languages (id, system_id, name, iso, color, max_xp) VALUES (?, ?, ?, ?, ?, ?)";
 
-        if(language.getId() == null || language.getId().isEmpty()) {
-            language.setId(UUID.randomUUID().toString());
-        }
+            if(language.getId() == null || language.getId().isEmpty()) {
+                language.setId(UUID.randomUUID().toString());
+            }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setString(1, language.getId());
-            pstmt.setString(2, language.getSystemId());
-            pstmt.setString(3, language.getName());
-            pstmt.setString(4, language.getIso());
-            pstmt.setString(5, language.getColor());
-            pstmt.setLong(6, language.getMaxXp());
+                pstmt.setString(1, language.getId());
+                pstmt.setString(2, language.getSystemId());
+                pstmt.setString(3, language.getName());
+                pstmt.setString(4, language.getIso());
+                pstmt.setString(5, language.getColor());
+                pstmt.setLong(6, language.getMaxXp());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            ReferenceDataCache.getInstance().languages().invalidate(language.getId());
+            outboxDAO.recordUpsert(SyncOutboxDAO.LANGUAGES, language.getId());
+        });
     }
     /**
      * Saves (creates or updates) a Language and returns the persisted instance.
@@ -73,9 +84,13 @@ public class LanguageDAO {
     }
 
     /**
-     * Find a language by ID
+     * Find a language by ID, served from the shared reference cache when possible
      */
     public Language findById(String id) throws SQLException {
+        return ReferenceDataCache.getInstance().languages().get(id, this::loadById);
+    }
+
+    private Language loadById(String id) throws SQLException {
         String sql = "SELECT * FROM languages WHERE id = ?";
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
@@ -91,6 +106,38 @@ public class LanguageDAO {
             }
         }
     }
+    /**
+     * Find several languages at once, keyed by ID
+     */
+    public Map<String, Language> findByIds(Collection<String> ids) throws SQLException {
+        return ReferenceDataCache.getInstance().languages().getAll(ids, this::loadByIds);
+    }
+
+    private Map<String, Language> loadByIds(Collection<String> ids) throws SQLException {
+        Map<String, Language> languages = new HashMap<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            for (List<String> chunk : SqlUtils.chunkIds(ids)) {
+                String sql = "SELECT * FROM languages WHERE id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Language language = mapResultSetToLanguage(rs);
+                            languages.put(language.getId(), language);
+                        }
+                    }
+                }
+            }
+        }
+
+        return languages;
+    }
+
     /**
      * Finds a Language by its unique ISO code.
      */
@@ -133,6 +180,7 @@ public class LanguageDAO {
      */
     public List<Language> findAll() throws SQLException {
         String sql = "SELECT * FROM languages";
+        long cacheGeneration = ReferenceDataCache.getInstance().languages().generation();
         List<Language> languages = new ArrayList<>();
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
@@ -140,7 +188,9 @@ public class LanguageDAO {
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                languages.add(mapResultSetToLanguage(rs));
+                Language language = mapResultSetToLanguage(rs);
+                ReferenceDataCache.getInstance().languages().put(language.getId(), language, cacheGeneration);
+                languages.add(language);
             }
         }
 
@@ -148,37 +198,70 @@ public class LanguageDAO {
     }
 
     /**
-     * Update an existing language
+     * Find the languages changed after the given time, used by the delta synchronization
      */
-    public void update(Language language) throws SQLException {
-        String sql = "UPDATE languages SET system_id = ?, name = ?, color = ?, max_xp = ?, last_updated = ? WHERE id = ?";
+    public List<Language> findUpdatedSince(Date since) throws SQLException {
+        String sql = "SELECT * FROM languages WHERE last_updated > ?";
+        long cacheGeneration = ReferenceDataCache.getInstance().languages().generation();
+        List<Language> languages = new ArrayList<>();
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, language.getSystemId());
-            pstmt.setString(2, language.getName());
-            pstmt.setString(3, language.getColor());
-            pstmt.setLong(4, language.getMaxXp());
-            pstmt.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
-            pstmt.setString(6, language.getId());
+            pstmt.setTimestamp(1, new Timestamp(since.getTime()));
 
-            pstmt.executeUpdate();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Language language = mapResultSetToLanguage(rs);
+                    ReferenceDataCache.getInstance().languages().put(language.getId(), language, cacheGeneration);
+                    languages.add(language);
+                }
+            }
         }
+
+        return languages;
+    }
+
+    /**
+     * Update an existing language
+     */
+    public void update(Language language) throws SQLException {
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE languages SET system_id = ?, name = ?, color = ?, max_xp = ?, last_updated = ? WHERE id = ?";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, language.getSystemId());
+                pstmt.setString(2, language.getName());
+                pstmt.setString(3, language.getColor());
+                pstmt.setLong(4, language.getMaxXp());
+                pstmt.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+                pstmt.setString(6, language.getId());
+
+                pstmt.executeUpdate();
+            }
+            ReferenceDataCache.getInstance().languages().invalidate(language.getId());
+            outboxDAO.recordUpsert(SyncOutboxDAO.LANGUAGES, language.getId());
+        });
     }
 
     /**
      * Delete a language by ID
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM languages WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "DELETE FROM languages WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+            ReferenceDataCache.getInstance().languages().invalidate(id);
+            outboxDAO.recordDelete(SyncOutboxDAO.LANGUAGES, id);
+        });
     }
 
     /**
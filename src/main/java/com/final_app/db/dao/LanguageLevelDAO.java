@@ -1,11 +1,17 @@
 package com.final_app.db.dao;
 
 import com.final_app.db.DatabaseManager;
+import com.final_app.db.ReferenceDataCache;
+import com.final_app.db.SqlUtils;
 import com.final_app.models.LanguageLevel;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,26 +19,32 @@ import java.util.UUID;
  * Data Access Object for the language_levels table
  */
 public class LanguageLevelDAO {
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
+
     /**
      * Insert a new language level into the database
      */
     public void insert(LanguageLevel languageLevel) throws SQLException {
-        String sql = "INSERT INTO language_levels (id, system_id, name, \"value\") VALUES (?, ?, ?, ?)";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO language_levels (id, system_id, name, \"value\") VALUES (?, ?, ?, ?)";
 
-        if(languageLevel.getId() == null || languageLevel.getId().isEmpty()) {
-            languageLevel.setId(UUID.randomUUID().toString());
-        }
+            if(languageLevel.getId() == null || languageLevel.getId().isEmpty()) {
+                languageLevel.setId(UUID.randomUUID().toString());
+            }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setString(1, languageLevel.getId());
-            pstmt.setString(2, languageLevel.getSystemId());
-            pstmt.setString(3, languageLevel.getName());
-            pstmt.setInt(4, languageLevel.getValue());
+                pstmt.setString(1, languageLevel.getId());
+                pstmt.setString(2, languageLevel.getSystemId());
+                pstmt.setString(3, languageLevel.getName());
+                pstmt.setInt(4, languageLevel.getValue());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            invalidateCache(languageLevel.getId());
+            outboxDAO.recordUpsert(SyncOutboxDAO.LANGUAGE_LEVELS, languageLevel.getId());
+        });
     }
 
     /**
@@ -67,9 +79,13 @@ public class LanguageLevelDAO {
     }
 
     /**
-     * Find a language level by ID
+     * Find a language level by ID, served from the shared reference cache when possible
      */
     public Optional<LanguageLevel> findById(String id) throws SQLException {
+        return Optional.ofNullable(ReferenceDataCache.getInstance().languageLevels().get(id, this::loadById));
+    }
+
+    private LanguageLevel loadById(String id) throws SQLException {
         String sql = "SELECT * FROM language_levels WHERE id = ?";
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
@@ -79,14 +95,46 @@ public class LanguageLevelDAO {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapResultSetToLanguageLevel(rs));
+                    return mapResultSetToLanguageLevel(rs);
                 }
-                return Optional.empty();
+                return null;
             }
         }
     }
 
 
+    /**
+     * Find several language levels at once, keyed by ID
+     */
+    public Map<String, LanguageLevel> findByIds(Collection<String> ids) throws SQLException {
+        return ReferenceDataCache.getInstance().languageLevels().getAll(ids, this::loadByIds);
+    }
+
+    private Map<String, LanguageLevel> loadByIds(Collection<String> ids) throws SQLException {
+        Map<String, LanguageLevel> languageLevels = new HashMap<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            for (List<String> chunk : SqlUtils.chunkIds(ids)) {
+                String sql = "SELECT * FROM language_levels WHERE id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            LanguageLevel languageLevel = mapResultSetToLanguageLevel(rs);
+                            languageLevels.put(languageLevel.getId(), languageLevel);
+                        }
+                    }
+                }
+            }
+        }
+
+        return languageLevels;
+    }
+
     /**
      * Finds a LanguageLevel by its unique name.
      */
@@ -134,6 +182,7 @@ public class LanguageLevelDAO {
      */
     public List<LanguageLevel> findAll() throws SQLException {
         String sql = "SELECT * FROM language_levels ORDER BY \"value\"";
+        long cacheGeneration = ReferenceDataCache.getInstance().languageLevels().generation();
         List<LanguageLevel> languageLevels = new ArrayList<>();
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
@@ -141,7 +190,9 @@ public class LanguageLevelDAO {
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                languageLevels.add(mapResultSetToLanguageLevel(rs));
+                LanguageLevel languageLevel = mapResultSetToLanguageLevel(rs);
+                ReferenceDataCache.getInstance().languageLevels().put(languageLevel.getId(), languageLevel, cacheGeneration);
+                languageLevels.add(languageLevel);
             }
         }
 
@@ -149,32 +200,75 @@ public class LanguageLevelDAO {
     }
 
     /**
-     * Updates an existing LanguageLevel record.
+     * Find the language levels changed after the given time, used by the delta synchronization
      */
-    private void update(LanguageLevel level) throws SQLException {
-        String sql = "UPDATE language_levels SET system_id = ?, name = ?, \"value\" = ? WHERE id = ?";
+    public List<LanguageLevel> findUpdatedSince(Date since) throws SQLException {
+        String sql = "SELECT * FROM language_levels WHERE last_updated > ? ORDER BY \"value\"";
+        long cacheGeneration = ReferenceDataCache.getInstance().languageLevels().generation();
+        List<LanguageLevel> languageLevels = new ArrayList<>();
+
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, level.getSystemId());
-            pstmt.setString(2, level.getName());
-            pstmt.setInt(3, level.getValue());
-            pstmt.setString(4, level.getId());
-            pstmt.executeUpdate();
+
+            pstmt.setTimestamp(1, new Timestamp(since.getTime()));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    LanguageLevel languageLevel = mapResultSetToLanguageLevel(rs);
+                    ReferenceDataCache.getInstance().languageLevels().put(languageLevel.getId(), languageLevel, cacheGeneration);
+                    languageLevels.add(languageLevel);
+                }
+            }
         }
+
+        return languageLevels;
+    }
+
+    /**
+     * Updates an existing LanguageLevel record.
+     */
+    private void update(LanguageLevel level) throws SQLException {
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE language_levels SET system_id = ?, name = ?, \"value\" = ? WHERE id = ?";
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, level.getSystemId());
+                pstmt.setString(2, level.getName());
+                pstmt.setInt(3, level.getValue());
+                pstmt.setString(4, level.getId());
+                pstmt.executeUpdate();
+            }
+            invalidateCache(level.getId());
+            outboxDAO.recordUpsert(SyncOutboxDAO.LANGUAGE_LEVELS, level.getId());
+        });
     }
 
     /**
      * Delete a language level by ID
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM language_levels WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "DELETE FROM language_levels WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+            invalidateCache(id);
+            outboxDAO.recordDelete(SyncOutboxDAO.LANGUAGE_LEVELS, id);
+        });
+    }
+
+    /**
+     * Language systems (and the languages that embed them) carry their levels, so they are dropped as well
+     */
+    private void invalidateCache(String id) {
+        ReferenceDataCache cache = ReferenceDataCache.getInstance();
+        cache.languageLevels().invalidate(id);
+        cache.languageSystems().invalidateAll();
+        cache.languages().invalidateAll();
     }
 
     /**
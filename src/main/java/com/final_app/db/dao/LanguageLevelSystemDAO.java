@@ -1,37 +1,45 @@
 package com.final_app.db.dao;
 
 import com.final_app.db.DatabaseManager;
+import com.final_app.db.ReferenceDataCache;
 import com.final_app.models.LanguageLevel;
 import com.final_app.models.LanguageLevelSystem;
 import com.final_app.services.AppService;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 
 public class LanguageLevelSystemDAO {
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
+
     /**
      * Insert a new language system into the database
      */
     public void insert(LanguageLevelSystem languageLevelSystem) throws SQLException {
-        String sql = "INSERT INTO language_systems (id, name, description) VALUES (?, ?, ?)";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO language_systems (id, name, description) VALUES (?, ?, ?)";
 
-        if(languageLevelSystem.getId() == null || languageLevelSystem.getId().isEmpty()) {
-            languageLevelSystem.setId(UUID.randomUUID().toString());
-        }
+            if(languageLevelSystem.getId() == null || languageLevelSystem.getId().isEmpty()) {
+                languageLevelSystem.setId(UUID.randomUUID().toString());
+            }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setString(1, languageLevelSystem.getId());
-            pstmt.setString(2, languageLevelSystem.getName());
-            pstmt.setString(3, languageLevelSystem.getDescription());
+                pstmt.setString(1, languageLevelSystem.getId());
+                pstmt.setString(2, languageLevelSystem.getName());
+                pstmt.setString(3, languageLevelSystem.getDescription());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            invalidateCache();
+            outboxDAO.recordUpsert(SyncOutboxDAO.LANGUAGE_SYSTEMS, languageLevelSystem.getId());
+        });
     }
 
 // Inside your LanguageLevelSystemDAO or LocalLanguageRepository
@@ -79,9 +87,13 @@ public class LanguageLevelSystemDAO {
     }
 
     /**
-     * Find a language system by ID
+     * Find a language system by ID, served from the shared reference cache when possible
      */
     public LanguageLevelSystem findById(String id) throws SQLException {
+        return ReferenceDataCache.getInstance().languageSystems().get(id, this::loadById);
+    }
+
+    private LanguageLevelSystem loadById(String id) throws SQLException {
         String sql = "SELECT * FROM language_systems WHERE id = ?";
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
@@ -131,6 +143,7 @@ public class LanguageLevelSystemDAO {
      */
     public List<LanguageLevelSystem> findAll() throws SQLException {
         String sql = "SELECT * FROM language_systems ORDER BY name";
+        long cacheGeneration = ReferenceDataCache.getInstance().languageSystems().generation();
         List<LanguageLevelSystem> languageLevelSystems = new ArrayList<>();
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
@@ -138,7 +151,9 @@ public class LanguageLevelSystemDAO {
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                languageLevelSystems.add(mapResultSetToLanguageLevelSystem(rs));
+                LanguageLevelSystem languageLevelSystem = mapResultSetToLanguageLevelSystem(rs);
+                ReferenceDataCache.getInstance().languageSystems().put(languageLevelSystem.getId(), languageLevelSystem, cacheGeneration);
+                languageLevelSystems.add(languageLevelSystem);
             }
         } catch (ExecutionException e) {
             throw new RuntimeException(e);
@@ -150,35 +165,80 @@ public class LanguageLevelSystemDAO {
     }
 
     /**
-     * Update an existing language system
+     * Find the language systems changed after the given time, used by the delta synchronization
      */
-    public void update(LanguageLevelSystem languageLevelSystem) throws SQLException {
-        String sql = "UPDATE language_systems SET name = ?, description = ?, last_updated = ? WHERE id = ?";
+    public List<LanguageLevelSystem> findUpdatedSince(Date since) throws SQLException {
+        String sql = "SELECT * FROM language_systems WHERE last_updated > ? ORDER BY name";
+        long cacheGeneration = ReferenceDataCache.getInstance().languageSystems().generation();
+        List<LanguageLevelSystem> languageLevelSystems = new ArrayList<>();
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, languageLevelSystem.getName());
-            pstmt.setString(2, languageLevelSystem.getDescription());
-            pstmt.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
-            pstmt.setString(4, languageLevelSystem.getId());
+            pstmt.setTimestamp(1, new Timestamp(since.getTime()));
 
-            pstmt.executeUpdate();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    LanguageLevelSystem languageLevelSystem = mapResultSetToLanguageLevelSystem(rs);
+                    ReferenceDataCache.getInstance().languageSystems().put(languageLevelSystem.getId(), languageLevelSystem, cacheGeneration);
+                    languageLevelSystems.add(languageLevelSystem);
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
         }
+
+        return languageLevelSystems;
+    }
+
+    /**
+     * Update an existing language system
+     */
+    public void update(LanguageLevelSystem languageLevelSystem) throws SQLException {
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE language_systems SET name = ?, description = ?, last_updated = ? WHERE id = ?";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, languageLevelSystem.getName());
+                pstmt.setString(2, languageLevelSystem.getDescription());
+                pstmt.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+                pstmt.setString(4, languageLevelSystem.getId());
+
+                pstmt.executeUpdate();
+            }
+            invalidateCache();
+            outboxDAO.recordUpsert(SyncOutboxDAO.LANGUAGE_SYSTEMS, languageLevelSystem.getId());
+        });
     }
 
     /**
      * Delete a language system by ID
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM language_systems WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "DELETE FROM language_systems WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+            invalidateCache();
+            outboxDAO.recordDelete(SyncOutboxDAO.LANGUAGE_SYSTEMS, id);
+        });
+    }
+
+    /**
+     * Languages embed their language system, so they are dropped together with the systems
+     */
+    private void invalidateCache() {
+        ReferenceDataCache.getInstance().languageSystems().invalidateAll();
+        ReferenceDataCache.getInstance().languages().invalidateAll();
     }
 
     /**
@@ -1,46 +1,109 @@
 package com.final_app.db.dao;
 
 import com.final_app.db.DatabaseManager;
+import com.final_app.db.SqlUtils;
 import com.final_app.models.Message;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * Data Access Object for the messages table
  */
 public class MessageDAO {
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
+
     /**
      * Insert a new message into the database
      */
     public void insert(Message message) throws SQLException {
-        String sql = "INSERT INTO messages (id, message_index, user_conversation_id, text, sender, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO messages (id, message_index, user_conversation_id, text, sender, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
 
-        if(message.getId() == null || message.getId().isEmpty()) {
-            message.setId(UUID.randomUUID().toString());
-        }
+            if(message.getId() == null || message.getId().isEmpty()) {
+                message.setId(UUID.randomUUID().toString());
+            }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            pstmt.setString(1, message.getId());
-            pstmt.setInt(2, message.getIndex());
-            pstmt.setString(3, message.getUserConversationId());
-            pstmt.setString(4, message.getText());
-            pstmt.setString(5, message.getSender());
-
-            // Convert Java LocalDateTime to SQL Timestamp
-            if (message.getTimestamp() != null) {
-                pstmt.setTimestamp(6, new Timestamp(message.getTimestamp().getTime()));
-            } else {
-                pstmt.setTimestamp(6, Timestamp.valueOf(LocalDateTime.now()));
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+                pstmt.setString(1, message.getId());
+                pstmt.setInt(2, message.getIndex());
+                pstmt.setString(3, message.getUserConversationId());
+                pstmt.setString(4, message.getText());
+                pstmt.setString(5, message.getSender());
+
+                // Convert Java LocalDateTime to SQL Timestamp
+                if (message.getTimestamp() != null) {
+                    pstmt.setTimestamp(6, new Timestamp(message.getTimestamp().getTime()));
+                } else {
+                    pstmt.setTimestamp(6, Timestamp.valueOf(LocalDateTime.now()));
+                }
+
+                pstmt.executeUpdate();
             }
+            outboxDAO.recordUpsert(SyncOutboxDAO.MESSAGES, message.getId());
+            touchUserConversation(message.getUserConversationId());
+        });
+    }
 
-            pstmt.executeUpdate();
+    /**
+     * Insert several messages with a single JDBC batch in one transaction
+     */
+    public void insertAll(List<Message> messages) throws SQLException {
+        String sql = "INSERT INTO messages (id, message_index, user_conversation_id, text, sender, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+        executeBatch(sql, messages);
+    }
+
+    /**
+     * Insert or update several messages (matched on ID) with a single JDBC batch in one transaction
+     */
+    public void upsertAll(List<Message> messages) throws SQLException {
+        String sql = "MERGE INTO messages (id, message_index, user_conversation_id, text, sender, timestamp) KEY (id) VALUES (?, ?, ?, ?, ?, ?)";
+        executeBatch(sql, messages);
+    }
+
+    /**
+     * Helper method to run an insert/merge statement for all messages as one batch
+     */
+    private void executeBatch(String sql, List<Message> messages) throws SQLException {
+        if (messages == null || messages.isEmpty()) {
+            return;
         }
+
+        // The batch and its outbox entries commit together
+        DatabaseManager.runInTransaction(() -> {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                for (Message message : messages) {
+                    if (message.getId() == null || message.getId().isEmpty()) {
+                        message.setId(UUID.randomUUID().toString());
+                    }
+
+                    pstmt.setString(1, message.getId());
+                    pstmt.setInt(2, message.getIndex());
+                    pstmt.setString(3, message.getUserConversationId());
+                    pstmt.setString(4, message.getText());
+                    pstmt.setString(5, message.getSender());
+                    if (message.getTimestamp() != null) {
+                        pstmt.setTimestamp(6, new Timestamp(message.getTimestamp().getTime()));
+                    } else {
+                        pstmt.setTimestamp(6, Timestamp.valueOf(LocalDateTime.now()));
+                    }
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            outboxDAO.recordAll(SyncOutboxDAO.MESSAGES, messages.stream().map(Message::getId).toList(), SyncOutboxDAO.Operation.UPSERT);
+        });
     }
 
     /**
@@ -85,6 +148,69 @@ public class MessageDAO {
         return messages;
     }
 
+    /**
+     * Find one page of messages of a user conversation, oldest first.
+     * Keyset paginated on message_index: returns the last pageSize messages before beforeIndex,
+     * or the newest page when beforeIndex is null.
+     */
+    public List<Message> findPageByUserConversationId(String userConversationId, Integer beforeIndex, int pageSize) throws SQLException {
+        String sql = "SELECT * FROM messages WHERE user_conversation_id = ?" +
+                (beforeIndex != null ? " AND message_index < ?" : "") +
+                " ORDER BY message_index DESC LIMIT ?";
+        List<Message> messages = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int parameter = 1;
+            pstmt.setString(parameter++, userConversationId);
+            if (beforeIndex != null) {
+                pstmt.setInt(parameter++, beforeIndex);
+            }
+            pstmt.setInt(parameter, pageSize);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    messages.add(mapResultSetToMessage(rs));
+                }
+            }
+        }
+
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    /**
+     * Find all messages for a set of user conversations, grouped by user conversation ID.
+     * Runs one query per {@link SqlUtils#IN_CLAUSE_CHUNK_SIZE} ids instead of one per conversation.
+     */
+    public Map<String, List<Message>> findByUserConversationIds(Collection<String> userConversationIds) throws SQLException {
+        Map<String, List<Message>> messagesByUserConversation = new HashMap<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            for (List<String> chunk : SqlUtils.chunkIds(userConversationIds)) {
+                String sql = "SELECT * FROM messages WHERE user_conversation_id IN (" + SqlUtils.placeholders(chunk.size()) + ") ORDER BY timestamp";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Message message = mapResultSetToMessage(rs);
+                            messagesByUserConversation
+                                    .computeIfAbsent(message.getUserConversationId(), k -> new ArrayList<>())
+                                    .add(message);
+                        }
+                    }
+                }
+            }
+        }
+
+        return messagesByUserConversation;
+    }
+
     /**
      * Get all messages from the database
      */
@@ -108,48 +234,87 @@ public class MessageDAO {
      * Update an existing message
      */
     public void update(Message message) throws SQLException {
-        String sql = "UPDATE messages SET message_index = ?, user_conversation_id = ?, text = ?, sender = ?, timestamp = ? WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE messages SET message_index = ?, user_conversation_id = ?, text = ?, sender = ?, timestamp = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setInt(1, message.getIndex());
-            pstmt.setString(2, message.getUserConversationId());
-            pstmt.setString(3, message.getText());
-            pstmt.setString(4, message.getSender());
-            pstmt.setTimestamp(5, new Timestamp(message.getTimestamp().getTime()));
-            pstmt.setString(6, message.getId());
+                pstmt.setInt(1, message.getIndex());
+                pstmt.setString(2, message.getUserConversationId());
+                pstmt.setString(3, message.getText());
+                pstmt.setString(4, message.getSender());
+                pstmt.setTimestamp(5, new Timestamp(message.getTimestamp().getTime()));
+                pstmt.setString(6, message.getId());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.MESSAGES, message.getId());
+            touchUserConversation(message.getUserConversationId());
+        });
     }
 
     /**
      * Delete a message by ID
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM messages WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(
+                         "UPDATE user_conversations SET updated_at = ? WHERE id = (SELECT user_conversation_id FROM messages WHERE id = ?)")) {
+
+                pstmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+                pstmt.setString(2, id);
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordWhere(SyncOutboxDAO.USER_CONVERSATIONS, SyncOutboxDAO.Operation.UPSERT, "user_conversation_id", "messages", "id", id);
+            String sql = "DELETE FROM messages WHERE id = ?";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordDelete(SyncOutboxDAO.MESSAGES, id);
+        });
+    }
+
+    /**
+     * Move the change time of the user conversation a message was written to, call it inside the transaction of
+     * the write. The other devices pull the messages together with their user conversation.
+     */
+    private void touchUserConversation(String userConversationId) throws SQLException {
+        if (userConversationId == null) {
+            return;
+        }
+        String sql = "UPDATE user_conversations SET updated_at = ? WHERE id = ?";
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
+            pstmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            pstmt.setString(2, userConversationId);
             pstmt.executeUpdate();
         }
+        outboxDAO.recordUpsert(SyncOutboxDAO.USER_CONVERSATIONS, userConversationId);
     }
 
     /**
      * Delete all messages for a specific user conversation
      */
     public void deleteByUserConversationId(String userConversationId) throws SQLException {
-        String sql = "DELETE FROM messages WHERE user_conversation_id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            outboxDAO.recordWhere(SyncOutboxDAO.MESSAGES, SyncOutboxDAO.Operation.DELETE, "id", "messages", "user_conversation_id", userConversationId);
+            String sql = "DELETE FROM messages WHERE user_conversation_id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, userConversationId);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, userConversationId);
+                pstmt.executeUpdate();
+            }
+        });
     }
 
     /**
@@ -1,12 +1,18 @@
 package com.final_app.db.dao;
 
 import com.final_app.db.DatabaseManager;
+import com.final_app.db.ReferenceDataCache;
+import com.final_app.db.SqlUtils;
 import com.final_app.models.Scenario;
 import com.final_app.models.ScenarioKeyPoint;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -14,71 +20,80 @@ import java.util.UUID;
  */
 public class ScenarioDAO {
     private final ScenarioKeyPointDAO keyPointDAO = new ScenarioKeyPointDAO();
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
 
     /**
      * Insert a new scenario into the database
      */
     public void insert(Scenario scenario) throws SQLException {
-        Connection conn = null;
+        DatabaseManager.runInTransaction(() -> {
+            Connection conn = null;
 
-        try {
-            //System.out.println("Start function");
-            conn = DatabaseManager.getInstance().getConnection();
-            conn.setAutoCommit(false);
+            try {
+                //System.out.println("Start function");
+                conn = DatabaseManager.getInstance().getConnection();
+                conn.setAutoCommit(false);
 
-            //System.out.println("Database conn: " + conn);
+                //System.out.println("Database conn: " + conn);
 
-            // Insert scenario
-            String sql = "INSERT INTO scenarios (id, description, role) VALUES (?, ?, ?)";
+                // Insert scenario
+                String sql = "INSERT INTO scenarios (id, description, role) VALUES (?, ?, ?)";
 
-            if(scenario.getId() == null || scenario.getId().isEmpty()) {
-                // Generate a new UUID if the ID is not provided
-                scenario.setId(UUID.randomUUID().toString());
-            }
+                if(scenario.getId() == null || scenario.getId().isEmpty()) {
+                    // Generate a new UUID if the ID is not provided
+                    scenario.setId(UUID.randomUUID().toString());
+                }
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                pstmt.setString(1, scenario.getId());
-                pstmt.setString(2, scenario.getDescription());
-                pstmt.setString(3, scenario.getRole());
+                try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setString(1, scenario.getId());
+                    pstmt.setString(2, scenario.getDescription());
+                    pstmt.setString(3, scenario.getRole());
 
-                pstmt.executeUpdate();
+                    pstmt.executeUpdate();
 
-            }
+                }
 
-            // Insert key points
-            if (scenario.getKeyPoints() != null && !scenario.getKeyPoints().isEmpty()) {
-                for (String keyPoint : scenario.getKeyPoints()) {
-                    ScenarioKeyPoint keyPointObj = new ScenarioKeyPoint(scenario.getId(), keyPoint);
-                    keyPointDAO.insert(conn, keyPointObj);
+                // Insert key points
+                if (scenario.getKeyPoints() != null && !scenario.getKeyPoints().isEmpty()) {
+                    for (String keyPoint : scenario.getKeyPoints()) {
+                        ScenarioKeyPoint keyPointObj = new ScenarioKeyPoint(scenario.getId(), keyPoint);
+                        keyPointDAO.insert(conn, keyPointObj);
+                    }
                 }
-            }
 
-            conn.commit();
-        } catch (SQLException e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
+                conn.commit();
+                invalidateCache(scenario.getId());
+            } catch (SQLException e) {
+                if (conn != null) {
+                    try {
+                        conn.rollback();
+                    } catch (SQLException ex) {
+                        ex.printStackTrace();
+                    }
                 }
-            }
-            throw e;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
+                throw e;
+            } finally {
+                if (conn != null) {
+                    try {
+                        conn.setAutoCommit(true);
+                        conn.close();
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
                 }
             }
-        }
+            outboxDAO.recordUpsert(SyncOutboxDAO.SCENARIOS, scenario.getId());
+        });
     }
 
     /**
-     * Find a scenario by ID with all its key points
+     * Find a scenario by ID with all its key points, served from the shared reference cache when possible
      */
     public Scenario findById(String id) throws SQLException {
+        return ReferenceDataCache.getInstance().scenarios().get(id, this::loadById);
+    }
+
+    private Scenario loadById(String id) throws SQLException {
         String sql = "SELECT * FROM scenarios WHERE id = ?";
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
@@ -103,11 +118,53 @@ public class ScenarioDAO {
         }
     }
 
+    /**
+     * Find several scenarios at once with their key points, keyed by ID.
+     * Key points are loaded with a single set-based query instead of one per scenario.
+     */
+    public Map<String, Scenario> findByIds(Collection<String> ids) throws SQLException {
+        return ReferenceDataCache.getInstance().scenarios().getAll(ids, this::loadByIds);
+    }
+
+    private Map<String, Scenario> loadByIds(Collection<String> ids) throws SQLException {
+        Map<String, Scenario> scenarios = new HashMap<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            for (List<String> chunk : SqlUtils.chunkIds(ids)) {
+                String sql = "SELECT * FROM scenarios WHERE id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Scenario scenario = mapResultSetToScenario(rs);
+                            scenarios.put(scenario.getId(), scenario);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Load key points
+        Map<String, List<ScenarioKeyPoint>> keyPoints = keyPointDAO.findByScenarioIds(scenarios.keySet());
+        for (Scenario scenario : scenarios.values()) {
+            for (ScenarioKeyPoint keyPoint : keyPoints.getOrDefault(scenario.getId(), List.of())) {
+                scenario.addKeyPoint(keyPoint.getKeyPoint());
+            }
+        }
+
+        return scenarios;
+    }
+
     /**
      * Get all scenarios from the database
      */
     public List<Scenario> findAll() throws SQLException {
         String sql = "SELECT * FROM scenarios";
+        long cacheGeneration = ReferenceDataCache.getInstance().scenarios().generation();
         List<Scenario> scenarios = new ArrayList<>();
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
@@ -123,6 +180,7 @@ public class ScenarioDAO {
                     scenario.addKeyPoint(keyPoint.getKeyPoint());
                 }
 
+                ReferenceDataCache.getInstance().scenarios().put(scenario.getId(), scenario, cacheGeneration);
                 scenarios.add(scenario);
             }
         }
@@ -130,59 +188,95 @@ public class ScenarioDAO {
         return scenarios;
     }
 
+    /**
+     * Find the scenarios changed after the given time, used by the delta synchronization
+     */
+    public List<Scenario> findUpdatedSince(Date since) throws SQLException {
+        String sql = "SELECT * FROM scenarios WHERE last_updated > ?";
+        long cacheGeneration = ReferenceDataCache.getInstance().scenarios().generation();
+        List<Scenario> scenarios = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setTimestamp(1, new Timestamp(since.getTime()));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Scenario scenario = mapResultSetToScenario(rs);
+
+                    // Load key points
+                    List<ScenarioKeyPoint> keyPoints = keyPointDAO.findByScenarioId(scenario.getId());
+                    for (ScenarioKeyPoint keyPoint : keyPoints) {
+                        scenario.addKeyPoint(keyPoint.getKeyPoint());
+                    }
+
+                    ReferenceDataCache.getInstance().scenarios().put(scenario.getId(), scenario, cacheGeneration);
+                    scenarios.add(scenario);
+                }
+            }
+        }
+
+        return scenarios;
+    }
+
     /**
      * Update an existing scenario and its key points
      */
     public void update(Scenario scenario) throws SQLException {
-        Connection conn = null;
+        DatabaseManager.runInTransaction(() -> {
+            Connection conn = null;
 
-        try {
-            conn = DatabaseManager.getInstance().getConnection();
-            conn.setAutoCommit(false);
+            try {
+                conn = DatabaseManager.getInstance().getConnection();
+                conn.setAutoCommit(false);
 
-            // Update scenario
-            String sql = "UPDATE scenarios SET description = ?, role = ?, last_updated = ? WHERE id = ?";
+                // Update scenario
+                String sql = "UPDATE scenarios SET description = ?, role = ?, last_updated = ? WHERE id = ?";
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, scenario.getDescription());
-                pstmt.setString(2, scenario.getRole());
-                pstmt.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
-                pstmt.setString(4, scenario.getId());
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, scenario.getDescription());
+                    pstmt.setString(2, scenario.getRole());
+                    pstmt.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+                    pstmt.setString(4, scenario.getId());
 
-                pstmt.executeUpdate();
-            }
+                    pstmt.executeUpdate();
+                }
 
-            // Delete existing key points
-            keyPointDAO.deleteByScenarioId(conn, scenario.getId());
+                // Delete existing key points
+                keyPointDAO.deleteByScenarioId(conn, scenario.getId());
 
-            // Insert new key points
-            if (scenario.getKeyPoints() != null && !scenario.getKeyPoints().isEmpty()) {
-                for (String keyPoint : scenario.getKeyPoints()) {
-                    ScenarioKeyPoint keyPointObj = new ScenarioKeyPoint(scenario.getId(), keyPoint);
-                    keyPointDAO.insert(conn, keyPointObj);
+                // Insert new key points
+                if (scenario.getKeyPoints() != null && !scenario.getKeyPoints().isEmpty()) {
+                    for (String keyPoint : scenario.getKeyPoints()) {
+                        ScenarioKeyPoint keyPointObj = new ScenarioKeyPoint(scenario.getId(), keyPoint);
+                        keyPointDAO.insert(conn, keyPointObj);
+                    }
                 }
-            }
 
-            conn.commit();
-        } catch (SQLException e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
+                conn.commit();
+                invalidateCache(scenario.getId());
+            } catch (SQLException e) {
+                if (conn != null) {
+                    try {
+                        conn.rollback();
+                    } catch (SQLException ex) {
+                        ex.printStackTrace();
+                    }
                 }
-            }
-            throw e;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
+                throw e;
+            } finally {
+                if (conn != null) {
+                    try {
+                        conn.setAutoCommit(true);
+                        conn.close();
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
                 }
             }
-        }
+            outboxDAO.recordUpsert(SyncOutboxDAO.SCENARIOS, scenario.getId());
+        });
     }
 
     /**
@@ -190,14 +284,23 @@ public class ScenarioDAO {
      * This will also delete all associated key points due to the ON DELETE CASCADE constraint
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM scenarios WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "DELETE FROM scenarios WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+            invalidateCache(id);
+            outboxDAO.recordDelete(SyncOutboxDAO.SCENARIOS, id);
+        });
+    }
+
+    private void invalidateCache(String id) {
+        ReferenceDataCache.getInstance().scenarios().invalidate(id);
+        ReferenceDataCache.getInstance().scenarioKeyPoints().invalidate(id);
     }
 
     /**
@@ -1,11 +1,16 @@
 package com.final_app.db.dao;
 
 import com.final_app.db.DatabaseManager;
+import com.final_app.db.ReferenceDataCache;
+import com.final_app.db.SqlUtils;
 import com.final_app.models.ScenarioKeyPoint;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -30,6 +35,7 @@ public class ScenarioKeyPointDAO {
 
             pstmt.executeUpdate();
         }
+        invalidateCache(keyPoint.getScenarioId());
     }
 
     /**
@@ -62,9 +68,14 @@ public class ScenarioKeyPointDAO {
     }
 
     /**
-     * Find all key points for a specific scenario
+     * Find all key points for a specific scenario, served from the shared reference cache when possible
      */
     public List<ScenarioKeyPoint> findByScenarioId(String scenarioId) throws SQLException {
+        List<ScenarioKeyPoint> keyPoints = ReferenceDataCache.getInstance().scenarioKeyPoints().get(scenarioId, this::loadByScenarioId);
+        return keyPoints != null ? keyPoints : new ArrayList<>();
+    }
+
+    private List<ScenarioKeyPoint> loadByScenarioId(String scenarioId) throws SQLException {
         String sql = "SELECT * FROM scenario_key_points WHERE scenario_id = ?";
         List<ScenarioKeyPoint> keyPoints = new ArrayList<>();
 
@@ -83,6 +94,44 @@ public class ScenarioKeyPointDAO {
         return keyPoints;
     }
 
+    /**
+     * Find the key points for a set of scenarios, grouped by scenario ID
+     */
+    public Map<String, List<ScenarioKeyPoint>> findByScenarioIds(Collection<String> scenarioIds) throws SQLException {
+        return ReferenceDataCache.getInstance().scenarioKeyPoints().getAll(scenarioIds, this::loadByScenarioIds);
+    }
+
+    private Map<String, List<ScenarioKeyPoint>> loadByScenarioIds(Collection<String> scenarioIds) throws SQLException {
+        Map<String, List<ScenarioKeyPoint>> keyPointsByScenario = new HashMap<>();
+        // Scenarios without key points get an empty list, so they are cached as well
+        for (String scenarioId : scenarioIds) {
+            keyPointsByScenario.put(scenarioId, new ArrayList<>());
+        }
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            for (List<String> chunk : SqlUtils.chunkIds(scenarioIds)) {
+                String sql = "SELECT * FROM scenario_key_points WHERE scenario_id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            ScenarioKeyPoint keyPoint = mapResultSetToScenarioKeyPoint(rs);
+                            keyPointsByScenario
+                                    .computeIfAbsent(keyPoint.getScenarioId(), k -> new ArrayList<>())
+                                    .add(keyPoint);
+                        }
+                    }
+                }
+            }
+        }
+
+        return keyPointsByScenario;
+    }
+
     /**
      * Get all scenario key points from the database
      */
@@ -118,6 +167,7 @@ public class ScenarioKeyPointDAO {
 
             pstmt.executeUpdate();
         }
+        invalidateCache(keyPoint.getScenarioId());
     }
 
     /**
@@ -132,6 +182,9 @@ public class ScenarioKeyPointDAO {
             pstmt.setString(1, id);
             pstmt.executeUpdate();
         }
+        // The scenario of this key point is unknown here
+        ReferenceDataCache.getInstance().scenarioKeyPoints().invalidateAll();
+        ReferenceDataCache.getInstance().scenarios().invalidateAll();
     }
 
     /**
@@ -145,6 +198,7 @@ public class ScenarioKeyPointDAO {
             pstmt.setString(1, scenarioId);
             pstmt.executeUpdate();
         }
+        invalidateCache(scenarioId);
     }
 
     /**
@@ -156,6 +210,11 @@ public class ScenarioKeyPointDAO {
         }
     }
 
+    private void invalidateCache(String scenarioId) {
+        ReferenceDataCache.getInstance().scenarioKeyPoints().invalidate(scenarioId);
+        ReferenceDataCache.getInstance().scenarios().invalidate(scenarioId);
+    }
+
     /**
      * Helper method to map ResultSet to ScenarioKeyPoint
      */
@@ -16,26 +16,31 @@ import java.util.UUID;
  * Data Access Object for the messages table
  */
 public class SettingsDAO {
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
+
     /**
      * Insert a new message into the database
      */
     public void insert(Settings settings) throws SQLException {
-        String sql = "INSERT INTO settings (id, language_id, selected_languages, user_id) VALUES (?, ?, ?, ?)";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO settings (id, language_id, selected_languages, user_id) VALUES (?, ?, ?, ?)";
 
-        if(settings.getId() == null || settings.getId().isEmpty()){
-            settings.setId(UUID.randomUUID().toString());
-        }
+            if(settings.getId() == null || settings.getId().isEmpty()){
+                settings.setId(UUID.randomUUID().toString());
+            }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setString(1, settings.getId());
-            pstmt.setString(2, settings.getLanguageId());
-            pstmt.setString(3, String.join(",", settings.getSelectedLanguages()));
-            pstmt.setString(4, settings.getUserId());
+                pstmt.setString(1, settings.getId());
+                pstmt.setString(2, settings.getLanguageId());
+                pstmt.setString(3, String.join(",", settings.getSelectedLanguages()));
+                pstmt.setString(4, settings.getUserId());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.SETTINGS, settings.getId());
+        });
     }
 
     /**
@@ -79,47 +84,56 @@ public class SettingsDAO {
      * Update an existing message
      */
     public void update(Settings settings) throws SQLException {
-        String sql = "UPDATE settings SET language_id = ?, selected_languages = ?, user_id = ?, last_updated = ? WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE settings SET language_id = ?, selected_languages = ?, user_id = ?, last_updated = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, settings.getLanguageId());
-            pstmt.setString(2, String.join(",", settings.getSelectedLanguages()));
-            pstmt.setString(3, settings.getUserId());
-            pstmt.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
-            pstmt.setString(5, settings.getId());
+                pstmt.setString(1, settings.getLanguageId());
+                pstmt.setString(2, String.join(",", settings.getSelectedLanguages()));
+                pstmt.setString(3, settings.getUserId());
+                pstmt.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+                pstmt.setString(5, settings.getId());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.SETTINGS, settings.getId());
+        });
     }
 
     /**
      * Delete a message by ID
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM settings WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "DELETE FROM settings WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordDelete(SyncOutboxDAO.SETTINGS, id);
+        });
     }
 
     /**
      * Delete all messages for a specific user conversation
      */
     public void deleteByUserId(String userId) throws SQLException {
-        String sql = "DELETE FROM settings WHERE user_id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            outboxDAO.recordWhere(SyncOutboxDAO.SETTINGS, SyncOutboxDAO.Operation.DELETE, "id", "settings", "user_id", userId);
+            String sql = "DELETE FROM settings WHERE user_id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, userId);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, userId);
+                pstmt.executeUpdate();
+            }
+        });
     }
 
     /**
@@ -6,6 +6,7 @@ import com.final_app.models.LanguageLevel;
 import com.final_app.models.SpeakingTest;
 import com.final_app.models.SpeakingTestQuestion;
 
+import java.util.Date;
 import javax.swing.text.html.Option;
 import java.sql.*;
 import java.util.ArrayList;
@@ -20,42 +21,46 @@ public class SpeakingTestDAO {
     private final LanguageDAO languageDAO = new LanguageDAO();
     private final LanguageLevelDAO languageLevelDAO = new LanguageLevelDAO();
     private final SpeakingTestQuestionDAO questionDAO = new SpeakingTestQuestionDAO();
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
 
     /**
      * Insert a new speaking test into the database
      */
     public void insert(SpeakingTest speakingTest) throws SQLException {
-        String sql = "INSERT INTO speaking_tests (id, title, description, explanation, language_id, language_from_id, level_id, " +
-                "grammar_focus, vocabulary_theme) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO speaking_tests (id, title, description, explanation, language_id, language_from_id, level_id, " +
+                    "grammar_focus, vocabulary_theme) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-        if(speakingTest.getId() == null || speakingTest.getId().isEmpty()) {
-            // Generate a new UUID for the speaking test
-            speakingTest.setId(UUID.randomUUID().toString());
-        }
+            if(speakingTest.getId() == null || speakingTest.getId().isEmpty()) {
+                // Generate a new UUID for the speaking test
+                speakingTest.setId(UUID.randomUUID().toString());
+            }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            pstmt.setString(1, speakingTest.getId());
-            pstmt.setString(2, speakingTest.getTitle());
-            pstmt.setString(3, speakingTest.getDescription());
-            pstmt.setString(4, speakingTest.getExplanation());
-            pstmt.setString(5, speakingTest.getLanguageId());
-            pstmt.setString(6, speakingTest.getLanguageFromId());
-            pstmt.setString(7, speakingTest.getLevelId());
-            pstmt.setString(8, speakingTest.getGrammarFocus());
-            pstmt.setString(9, speakingTest.getVocabularyTheme());
-
-            pstmt.executeUpdate();
-
-            // Insert any associated questions
-            if (speakingTest.getQuestions() != null && !speakingTest.getQuestions().isEmpty()) {
-                for (SpeakingTestQuestion question : speakingTest.getQuestions()) {
-                    question.setTestId(speakingTest.getId());
-                    questionDAO.insert(question);
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+                pstmt.setString(1, speakingTest.getId());
+                pstmt.setString(2, speakingTest.getTitle());
+                pstmt.setString(3, speakingTest.getDescription());
+                pstmt.setString(4, speakingTest.getExplanation());
+                pstmt.setString(5, speakingTest.getLanguageId());
+                pstmt.setString(6, speakingTest.getLanguageFromId());
+                pstmt.setString(7, speakingTest.getLevelId());
+                pstmt.setString(8, speakingTest.getGrammarFocus());
+                pstmt.setString(9, speakingTest.getVocabularyTheme());
+
+                pstmt.executeUpdate();
+
+                // Insert any associated questions
+                if (speakingTest.getQuestions() != null && !speakingTest.getQuestions().isEmpty()) {
+                    for (SpeakingTestQuestion question : speakingTest.getQuestions()) {
+                        question.setTestId(speakingTest.getId());
+                        questionDAO.insert(question);
+                    }
                 }
             }
-        }
+            outboxDAO.recordUpsert(SyncOutboxDAO.SPEAKING_TESTS, speakingTest.getId());
+        });
     }
 
     /**
@@ -198,73 +203,100 @@ public class SpeakingTestDAO {
     }
 
     /**
-     * Update an existing speaking test
+     * Find the speaking tests changed after the given time, used by the delta synchronization
      */
-    public void update(SpeakingTest speakingTest) throws SQLException {
-        Connection conn = null;
-        try {
-            conn = DatabaseManager.getInstance().getConnection();
-            conn.setAutoCommit(false);
-
-            // Update the speaking test
-            String sql = "UPDATE speaking_tests SET title = ?, description = ?, language_id = ?, " +
-                    "level_id = ?, grammar_focus = ?, vocabulary_theme = ?, explanation = ?, last_updated = ? WHERE id = ?";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, speakingTest.getTitle());
-                pstmt.setString(2, speakingTest.getDescription());
-                pstmt.setString(3, speakingTest.getLanguageId());
-                pstmt.setString(4, speakingTest.getLevelId());
-                pstmt.setString(5, speakingTest.getGrammarFocus());
-                pstmt.setString(6, speakingTest.getVocabularyTheme());
-                pstmt.setString(7, speakingTest.getExplanation());
-                pstmt.setTimestamp(8, new Timestamp(System.currentTimeMillis()));
-                pstmt.setString(9, speakingTest.getId());
+    public List<SpeakingTest> findUpdatedSince(Date since) throws SQLException {
+        String sql = "SELECT * FROM speaking_tests WHERE last_updated > ?";
+        List<SpeakingTest> speakingTests = new ArrayList<>();
 
-                pstmt.executeUpdate();
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setTimestamp(1, new Timestamp(since.getTime()));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    SpeakingTest speakingTest = mapResultSetToSpeakingTest(rs);
+                    loadRelatedObjects(speakingTest);
+                    speakingTests.add(speakingTest);
+                }
             }
+        }
 
-            // Update associated questions
-            if (speakingTest.getQuestions() != null) {
-                // Delete questions not in the updated list
-                List<String> currentQuestionIds = new ArrayList<>();
-                for (SpeakingTestQuestion question : speakingTest.getQuestions()) {
-                    if (question.getId() != null) {
-                        currentQuestionIds.add(question.getId());
-                    }
+        return speakingTests;
+    }
+
+    /**
+     * Update an existing speaking test
+     */
+    public void update(SpeakingTest speakingTest) throws SQLException {
+        DatabaseManager.runInTransaction(() -> {
+            Connection conn = null;
+            try {
+                conn = DatabaseManager.getInstance().getConnection();
+                conn.setAutoCommit(false);
+
+                // Update the speaking test
+                String sql = "UPDATE speaking_tests SET title = ?, description = ?, language_id = ?, " +
+                        "level_id = ?, grammar_focus = ?, vocabulary_theme = ?, explanation = ?, last_updated = ? WHERE id = ?";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, speakingTest.getTitle());
+                    pstmt.setString(2, speakingTest.getDescription());
+                    pstmt.setString(3, speakingTest.getLanguageId());
+                    pstmt.setString(4, speakingTest.getLevelId());
+                    pstmt.setString(5, speakingTest.getGrammarFocus());
+                    pstmt.setString(6, speakingTest.getVocabularyTheme());
+                    pstmt.setString(7, speakingTest.getExplanation());
+                    pstmt.setTimestamp(8, new Timestamp(System.currentTimeMillis()));
+                    pstmt.setString(9, speakingTest.getId());
+
+                    pstmt.executeUpdate();
                 }
 
-                // Update or insert questions
-                for (SpeakingTestQuestion question : speakingTest.getQuestions()) {
-                    question.setTestId(speakingTest.getId());
-                    if (question.getId() != null) {
-                        questionDAO.update(question);
-                    } else {
-                        questionDAO.insert(question);
+                // Update associated questions
+                if (speakingTest.getQuestions() != null) {
+                    // Delete questions not in the updated list
+                    List<String> currentQuestionIds = new ArrayList<>();
+                    for (SpeakingTestQuestion question : speakingTest.getQuestions()) {
+                        if (question.getId() != null) {
+                            currentQuestionIds.add(question.getId());
+                        }
+                    }
+
+                    // Update or insert questions
+                    for (SpeakingTestQuestion question : speakingTest.getQuestions()) {
+                        question.setTestId(speakingTest.getId());
+                        if (question.getId() != null) {
+                            questionDAO.update(question);
+                        } else {
+                            questionDAO.insert(question);
+                        }
                     }
                 }
-            }
 
-            conn.commit();
-        } catch (SQLException e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
+                conn.commit();
+            } catch (SQLException e) {
+                if (conn != null) {
+                    try {
+                        conn.rollback();
+                    } catch (SQLException ex) {
+                        ex.printStackTrace();
+                    }
                 }
-            }
-            throw e;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
+                throw e;
+            } finally {
+                if (conn != null) {
+                    try {
+                        conn.setAutoCommit(true);
+                        conn.close();
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
                 }
             }
-        }
+            outboxDAO.recordUpsert(SyncOutboxDAO.SPEAKING_TESTS, speakingTest.getId());
+        });
     }
 
     /**
@@ -272,14 +304,17 @@ public class SpeakingTestDAO {
      * This will also delete all associated questions due to the ON DELETE CASCADE constraint
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM speaking_tests WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "DELETE FROM speaking_tests WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordDelete(SyncOutboxDAO.SPEAKING_TESTS, id);
+        });
     }
 
     /**
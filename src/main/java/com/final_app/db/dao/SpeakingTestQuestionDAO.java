@@ -6,6 +6,7 @@ import com.final_app.models.SpeakingTestQuestion;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -14,39 +15,44 @@ import java.util.stream.Collectors;
  * Data Access Object for the speaking_test_questions table
  */
 public class SpeakingTestQuestionDAO {
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
+
     /**
      * Insert a new speaking test question into the database
      */
     public void insert(SpeakingTestQuestion question) throws SQLException {
-        String sql = "INSERT INTO speaking_test_questions (id, test_id, question_text, expected_response_pattern, " +
-                "expected_response_language_iso, required_vocabulary, difficulty_level, order_index) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-
-        if(question.getId() == null || question.getId().isEmpty()) {
-            // Generate a new UUID if the ID is not provided
-            question.setId(UUID.randomUUID().toString());
-        }
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO speaking_test_questions (id, test_id, question_text, expected_response_pattern, " +
+                    "expected_response_language_iso, required_vocabulary, difficulty_level, order_index) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            pstmt.setString(1, question.getId());
-            pstmt.setString(2, question.getTestId());
-            pstmt.setString(3, question.getQuestionText());
-            pstmt.setString(4, question.getExpectedResponsePattern());
-            pstmt.setString(5, question.getExpectedResponseLanguageIso());
-
-            // Convert list of required vocabulary to comma-separated string
-            String vocabularyStr = null;
-            if (question.getRequiredVocabulary() != null && !question.getRequiredVocabulary().isEmpty()) {
-                vocabularyStr = String.join(",", question.getRequiredVocabulary());
+            if(question.getId() == null || question.getId().isEmpty()) {
+                // Generate a new UUID if the ID is not provided
+                question.setId(UUID.randomUUID().toString());
             }
-            pstmt.setString(6, vocabularyStr);
 
-            pstmt.setInt(7, question.getDifficultyLevel());
-            pstmt.setInt(8, question.getOrderIndex());
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, question.getId());
+                pstmt.setString(2, question.getTestId());
+                pstmt.setString(3, question.getQuestionText());
+                pstmt.setString(4, question.getExpectedResponsePattern());
+                pstmt.setString(5, question.getExpectedResponseLanguageIso());
+
+                // Convert list of required vocabulary to comma-separated string
+                String vocabularyStr = null;
+                if (question.getRequiredVocabulary() != null && !question.getRequiredVocabulary().isEmpty()) {
+                    vocabularyStr = String.join(",", question.getRequiredVocabulary());
+                }
+                pstmt.setString(6, vocabularyStr);
+
+                pstmt.setInt(7, question.getDifficultyLevel());
+                pstmt.setInt(8, question.getOrderIndex());
+
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.SPEAKING_TEST_QUESTIONS, question.getId());
+        });
     }
 
     /**
@@ -133,63 +139,94 @@ public class SpeakingTestQuestionDAO {
     }
 
     /**
-     * Update an existing speaking test question
+     * Find the speaking test questions changed after the given time, used by the delta synchronization
      */
-    public void update(SpeakingTestQuestion question) throws SQLException {
-        String sql = "UPDATE speaking_test_questions SET test_id = ?, question_text = ?, " +
-                "expected_response_pattern = ?, expected_response_language_iso = ?, required_vocabulary = ?, difficulty_level = ?, " +
-                "order_index = ?, last_updated = ? WHERE id = ?";
+    public List<SpeakingTestQuestion> findUpdatedSince(Date since) throws SQLException {
+        String sql = "SELECT * FROM speaking_test_questions WHERE last_updated > ?";
+        List<SpeakingTestQuestion> questions = new ArrayList<>();
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, question.getTestId());
-            pstmt.setString(2, question.getQuestionText());
-            pstmt.setString(3, question.getExpectedResponsePattern());
-            pstmt.setString(4, question.getExpectedResponseLanguageIso());
+            pstmt.setTimestamp(1, new Timestamp(since.getTime()));
 
-            // Convert list of required vocabulary to comma-separated string
-            String vocabularyStr = null;
-            if (question.getRequiredVocabulary() != null && !question.getRequiredVocabulary().isEmpty()) {
-                vocabularyStr = String.join(",", question.getRequiredVocabulary());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    questions.add(mapResultSetToSpeakingTestQuestion(rs));
+                }
             }
-            pstmt.setString(5, vocabularyStr);
+        }
 
-            pstmt.setInt(6, question.getDifficultyLevel());
-            pstmt.setInt(7, question.getOrderIndex());
-            pstmt.setTimestamp(8, new Timestamp(System.currentTimeMillis()));
-            pstmt.setString(9, question.getId());
+        return questions;
+    }
 
-            pstmt.executeUpdate();
-        }
+    /**
+     * Update an existing speaking test question
+     */
+    public void update(SpeakingTestQuestion question) throws SQLException {
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE speaking_test_questions SET test_id = ?, question_text = ?, " +
+                    "expected_response_pattern = ?, expected_response_language_iso = ?, required_vocabulary = ?, difficulty_level = ?, " +
+                    "order_index = ?, last_updated = ? WHERE id = ?";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, question.getTestId());
+                pstmt.setString(2, question.getQuestionText());
+                pstmt.setString(3, question.getExpectedResponsePattern());
+                pstmt.setString(4, question.getExpectedResponseLanguageIso());
+
+                // Convert list of required vocabulary to comma-separated string
+                String vocabularyStr = null;
+                if (question.getRequiredVocabulary() != null && !question.getRequiredVocabulary().isEmpty()) {
+                    vocabularyStr = String.join(",", question.getRequiredVocabulary());
+                }
+                pstmt.setString(5, vocabularyStr);
+
+                pstmt.setInt(6, question.getDifficultyLevel());
+                pstmt.setInt(7, question.getOrderIndex());
+                pstmt.setTimestamp(8, new Timestamp(System.currentTimeMillis()));
+                pstmt.setString(9, question.getId());
+
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.SPEAKING_TEST_QUESTIONS, question.getId());
+        });
     }
 
     /**
      * Delete a speaking test question by ID
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM speaking_test_questions WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "DELETE FROM speaking_test_questions WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordDelete(SyncOutboxDAO.SPEAKING_TEST_QUESTIONS, id);
+        });
     }
 
     /**
      * Delete all questions for a specific test
      */
     public void deleteByTestId(String testId) throws SQLException {
-        String sql = "DELETE FROM speaking_test_questions WHERE test_id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            outboxDAO.recordWhere(SyncOutboxDAO.SPEAKING_TEST_QUESTIONS, SyncOutboxDAO.Operation.DELETE, "id", "speaking_test_questions", "test_id", testId);
+            String sql = "DELETE FROM speaking_test_questions WHERE test_id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, testId);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, testId);
+                pstmt.executeUpdate();
+            }
+        });
     }
 
     /**
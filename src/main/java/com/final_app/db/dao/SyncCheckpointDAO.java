@@ -0,0 +1,159 @@
+package com.final_app.db.dao;
+
+import com.final_app.db.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DAO for the sync_runs and sync_checkpoints tables: the full synchronizations that did not finish yet and
+ * how far each of their stages got, so the next start resumes them.
+ */
+public class SyncCheckpointDAO {
+    private static final String SQL_UPSERT_RUN =
+            "MERGE INTO sync_runs (user_id, direction, started_at, outbox_version) KEY (user_id, direction) VALUES (?, ?, ?, ?)";
+    private static final String SQL_UPSERT_CHECKPOINT =
+            "MERGE INTO sync_checkpoints (user_id, direction, stage_name, cursor_id, written, completed, updated_at) " +
+            "KEY (user_id, direction, stage_name) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * The unfinished run of the user in that direction, null when there is none
+     */
+    public Run findRun(String userId, String direction) throws SQLException {
+        String sql = "SELECT started_at, outbox_version FROM sync_runs WHERE user_id = ? AND direction = ?";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, userId);
+            pstmt.setString(2, direction);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? new Run(rs.getTimestamp("started_at"), rs.getLong("outbox_version")) : null;
+            }
+        }
+    }
+
+    public void saveRun(String userId, String direction, Run run) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_UPSERT_RUN)) {
+
+            pstmt.setString(1, userId);
+            pstmt.setString(2, direction);
+            pstmt.setTimestamp(3, new Timestamp(run.getStartedAt().getTime()));
+            pstmt.setLong(4, run.getOutboxVersion());
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * The checkpoints of the unfinished run, keyed by stage name
+     */
+    public Map<String, Checkpoint> findCheckpoints(String userId, String direction) throws SQLException {
+        String sql = "SELECT stage_name, cursor_id, written, completed FROM sync_checkpoints WHERE user_id = ? AND direction = ?";
+        Map<String, Checkpoint> checkpoints = new HashMap<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, userId);
+            pstmt.setString(2, direction);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    checkpoints.put(rs.getString("stage_name"), new Checkpoint(
+                            rs.getString("cursor_id"),
+                            rs.getInt("written"),
+                            rs.getBoolean("completed")));
+                }
+            }
+        }
+        return checkpoints;
+    }
+
+    public void saveCheckpoint(String userId, String direction, String stageName, Checkpoint checkpoint) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_UPSERT_CHECKPOINT)) {
+
+            pstmt.setString(1, userId);
+            pstmt.setString(2, direction);
+            pstmt.setString(3, stageName);
+            pstmt.setString(4, checkpoint.getCursor());
+            pstmt.setInt(5, checkpoint.getWritten());
+            pstmt.setBoolean(6, checkpoint.isCompleted());
+            pstmt.setTimestamp(7, new Timestamp(System.currentTimeMillis()));
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Remove the run and its checkpoints once it finished
+     */
+    public void deleteRun(String userId, String direction) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement deleteCheckpoints = conn.prepareStatement("DELETE FROM sync_checkpoints WHERE user_id = ? AND direction = ?");
+             PreparedStatement deleteRun = conn.prepareStatement("DELETE FROM sync_runs WHERE user_id = ? AND direction = ?")) {
+
+            deleteCheckpoints.setString(1, userId);
+            deleteCheckpoints.setString(2, direction);
+            deleteCheckpoints.executeUpdate();
+            deleteRun.setString(1, userId);
+            deleteRun.setString(2, direction);
+            deleteRun.executeUpdate();
+        }
+    }
+
+    /**
+     * A full synchronization: when it started and the outbox version its local reads covered
+     */
+    public static class Run {
+        private final Date startedAt;
+        private final long outboxVersion;
+
+        public Run(Date startedAt, long outboxVersion) {
+            this.startedAt = startedAt;
+            this.outboxVersion = outboxVersion;
+        }
+
+        public Date getStartedAt() {
+            return startedAt;
+        }
+
+        public long getOutboxVersion() {
+            return outboxVersion;
+        }
+    }
+
+    /**
+     * How far a stage got: every keyed write up to the cursor is done, all of them when it completed
+     */
+    public static class Checkpoint {
+        private final String cursor;
+        private final int written;
+        private final boolean completed;
+
+        public Checkpoint(String cursor, int written, boolean completed) {
+            this.cursor = cursor;
+            this.written = written;
+            this.completed = completed;
+        }
+
+        public String getCursor() {
+            return cursor;
+        }
+
+        public int getWritten() {
+            return written;
+        }
+
+        public boolean isCompleted() {
+            return completed;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.final_app.db.dao;
+
+import com.final_app.db.DatabaseManager;
+import com.final_app.db.SqlUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DAO for the sync_content_hashes table: the content hash of each Firestore document as this device last read
+ * or wrote it. An online change with the same hash is not a change, whatever its change time says.
+ * Entity types are the ones of {@link SyncOutboxDAO}.
+ */
+public class SyncContentHashDAO {
+    private static final String SQL_UPSERT =
+            "MERGE INTO sync_content_hashes (entity_type, entity_id, content_hash) KEY (entity_type, entity_id) VALUES (?, ?, ?)";
+
+    /**
+     * The known hashes of the given entities, keyed by ID. Entities without a known hash are left out.
+     */
+    public Map<String, String> find(String entityType, Collection<String> entityIds) throws SQLException {
+        Map<String, String> hashes = new HashMap<>();
+
+        for (List<String> chunk : SqlUtils.chunkIds(entityIds)) {
+            String sql = "SELECT entity_id, content_hash FROM sync_content_hashes WHERE entity_type = ? AND entity_id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, entityType);
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 2, chunk.get(i));
+                }
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        hashes.put(rs.getString("entity_id"), rs.getString("content_hash"));
+                    }
+                }
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Store the hashes (ID to hash) that differ from the known ones, with a single JDBC batch
+     */
+    public void save(String entityType, Map<String, String> contentHashes) throws SQLException {
+        if (contentHashes.isEmpty()) {
+            return;
+        }
+        Map<String, String> known = find(entityType, contentHashes.keySet());
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_UPSERT)) {
+
+            int changed = 0;
+            for (Map.Entry<String, String> entry : contentHashes.entrySet()) {
+                if (entry.getValue() == null || entry.getValue().equals(known.get(entry.getKey()))) continue;
+                pstmt.setString(1, entityType);
+                pstmt.setString(2, entry.getKey());
+                pstmt.setString(3, entry.getValue());
+                pstmt.addBatch();
+                changed++;
+            }
+            if (changed > 0) {
+                pstmt.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Forget the hashes of deleted documents
+     */
+    public void delete(String entityType, Collection<String> entityIds) throws SQLException {
+        for (List<String> chunk : SqlUtils.chunkIds(entityIds)) {
+            String sql = "DELETE FROM sync_content_hashes WHERE entity_type = ? AND entity_id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, entityType);
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 2, chunk.get(i));
+                }
+                pstmt.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.final_app.db.dao;
+
+import com.final_app.db.DatabaseManager;
+import com.final_app.db.SqlUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DAO for the sync_outbox table: the newest local change per entity that still has to reach Firestore.
+ * <p>
+ * The DAO write paths record their change in the same transaction as the change itself. A later change of
+ * the same entity replaces the row with a higher version, so the outbox never grows beyond one row per entity.
+ */
+public class SyncOutboxDAO {
+    // Entity types, named after the local tables
+    public static final String LANGUAGE_SYSTEMS = "language_systems";
+    public static final String LANGUAGES = "languages";
+    public static final String LANGUAGE_LEVELS = "language_levels";
+    public static final String SPEAKING_TEST_QUESTIONS = "speaking_test_questions";
+    public static final String SPEAKING_TESTS = "speaking_tests";
+    public static final String CONVERSATIONS = "conversations";
+    public static final String SCENARIOS = "scenarios";
+    public static final String USER_LANGUAGES = "user_languages";
+    public static final String USER_CONVERSATIONS = "user_conversations";
+    public static final String MESSAGES = "messages";
+    public static final String EVALUATIONS = "evaluations";
+    public static final String USERS = "users";
+    // Keyed by user ID, like the Firestore documents
+    public static final String USER_STATS = "user_stats";
+    public static final String SETTINGS = "settings";
+
+    public enum Operation {
+        UPSERT,
+        DELETE
+    }
+
+    private static final String SQL_RECORD =
+            "MERGE INTO sync_outbox (entity_type, entity_id, operation, version, changed_at, attempts) KEY (entity_type, entity_id) " +
+            "VALUES (?, ?, ?, NEXT VALUE FOR sync_outbox_version, ?, 0)";
+
+    /**
+     * Record a change of an entity, call it inside the transaction of the change
+     */
+    public void record(String entityType, String entityId, Operation operation) throws SQLException {
+        if (entityId == null) {
+            return;
+        }
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_RECORD)) {
+
+            pstmt.setString(1, entityType);
+            pstmt.setString(2, entityId);
+            pstmt.setString(3, operation.name());
+            pstmt.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            pstmt.executeUpdate();
+        }
+    }
+
+    public void recordUpsert(String entityType, String entityId) throws SQLException {
+        record(entityType, entityId, Operation.UPSERT);
+    }
+
+    public void recordDelete(String entityType, String entityId) throws SQLException {
+        record(entityType, entityId, Operation.DELETE);
+    }
+
+    /**
+     * Record the same change of several entities with a single JDBC batch
+     */
+    public void recordAll(String entityType, Collection<String> entityIds, Operation operation) throws SQLException {
+        if (entityIds == null || entityIds.isEmpty()) {
+            return;
+        }
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_RECORD)) {
+
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            for (String entityId : entityIds) {
+                if (entityId == null) continue;
+                pstmt.setString(1, entityType);
+                pstmt.setString(2, entityId);
+                pstmt.setString(3, operation.name());
+                pstmt.setTimestamp(4, now);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Record the same change of every row of a table matching the condition, call it before deleting the rows
+     *
+     * @param idColumn    the column holding the entity ID (e.g. user_id for user_stats)
+     * @param table       one of the synchronized tables, never user input
+     * @param whereColumn the column compared with the value
+     */
+    public void recordWhere(String entityType, Operation operation, String idColumn, String table, String whereColumn, String value) throws SQLException {
+        String sql = "MERGE INTO sync_outbox (entity_type, entity_id, operation, version, changed_at, attempts) KEY (entity_type, entity_id) " +
+                "SELECT ?, " + idColumn + ", ?, NEXT VALUE FOR sync_outbox_version, ?, 0 FROM " + table + " WHERE " + whereColumn + " = ?";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, entityType);
+            pstmt.setString(2, operation.name());
+            pstmt.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            pstmt.setString(4, value);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * The oldest pending changes, skipping the ones that failed maxAttempts times
+     */
+    public List<Entry> findPending(int limit, int maxAttempts) throws SQLException {
+        String sql = "SELECT * FROM sync_outbox WHERE attempts < ? ORDER BY version LIMIT ?";
+        List<Entry> entries = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, maxAttempts);
+            pstmt.setInt(2, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(mapResultSetToEntry(rs));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Remove the delivered changes. A row whose entity changed again in the meantime has a newer version and stays.
+     */
+    public void deleteDelivered(Collection<Entry> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        String sql = "DELETE FROM sync_outbox WHERE entity_type = ? AND entity_id = ? AND version = ?";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            for (Entry entry : entries) {
+                pstmt.setString(1, entry.getEntityType());
+                pstmt.setString(2, entry.getEntityId());
+                pstmt.setLong(3, entry.getVersion());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Count a failed delivery of the changes
+     */
+    public void markFailed(Collection<Entry> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE sync_outbox SET attempts = attempts + 1 WHERE entity_type = ? AND entity_id = ? AND version = ?";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            for (Entry entry : entries) {
+                pstmt.setString(1, entry.getEntityType());
+                pstmt.setString(2, entry.getEntityId());
+                pstmt.setLong(3, entry.getVersion());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Highest version recorded so far, 0 when the outbox was never used
+     */
+    public long findCurrentVersion() throws SQLException {
+        String sql = "SELECT COALESCE(MAX(version), 0) AS current_version FROM sync_outbox";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            return rs.next() ? rs.getLong("current_version") : 0;
+        }
+    }
+
+    /**
+     * Drop the changes recorded after the given version for entities that were just written by a pull from
+     * Firestore, they are online already. Local changes recorded before the pull are kept.
+     */
+    public void discardPulled(String entityType, Collection<String> entityIds, long afterVersion) throws SQLException {
+        for (List<String> chunk : SqlUtils.chunkIds(entityIds)) {
+            String sql = "DELETE FROM sync_outbox WHERE entity_type = ? AND version > ? AND entity_id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, entityType);
+                pstmt.setLong(2, afterVersion);
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 3, chunk.get(i));
+                }
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Drop every change up to the given version, used after a full synchronization compared everything
+     */
+    public void deleteUpTo(long version) throws SQLException {
+        String sql = "DELETE FROM sync_outbox WHERE version <= ?";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, version);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Number of changes waiting for delivery
+     */
+    public int count() throws SQLException {
+        String sql = "SELECT COUNT(*) AS pending FROM sync_outbox";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            return rs.next() ? rs.getInt("pending") : 0;
+        }
+    }
+
+    private Entry mapResultSetToEntry(ResultSet rs) throws SQLException {
+        return new Entry(
+                rs.getString("entity_type"),
+                rs.getString("entity_id"),
+                Operation.valueOf(rs.getString("operation")),
+                rs.getLong("version"),
+                rs.getInt("attempts"));
+    }
+
+    /**
+     * A pending change: what happened to which entity, and the version it happened at
+     */
+    public static class Entry {
+        private final String entityType;
+        private final String entityId;
+        private final Operation operation;
+        private final long version;
+        private final int attempts;
+
+        public Entry(String entityType, String entityId, Operation operation, long version, int attempts) {
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.operation = operation;
+            this.version = version;
+            this.attempts = attempts;
+        }
+
+        public String getEntityType() {
+            return entityType;
+        }
+
+        public String getEntityId() {
+            return entityId;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+}
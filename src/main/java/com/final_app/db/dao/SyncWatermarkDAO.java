@@ -0,0 +1,115 @@
+package com.final_app.db.dao;
+
+import com.final_app.db.DatabaseManager;
+import com.final_app.db.SqlUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DAO for the sync_watermarks table: the newest change transferred per user, collection and sync direction
+ */
+public class SyncWatermarkDAO {
+    private static final String SQL_FIND =
+            "SELECT watermark FROM sync_watermarks WHERE user_id = ? AND collection_name = ? AND direction = ?";
+    private static final String SQL_UPSERT =
+            "MERGE INTO sync_watermarks (user_id, collection_name, direction, watermark) KEY(user_id, collection_name, direction) VALUES (?, ?, ?, ?);";
+
+    /**
+     * Find the watermark, null when the collection was never synchronized in that direction
+     */
+    public Date find(String userId, String collection, String direction) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_FIND)) {
+
+            pstmt.setString(1, userId);
+            pstmt.setString(2, collection);
+            pstmt.setString(3, direction);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getTimestamp("watermark") : null;
+            }
+        }
+    }
+
+    /**
+     * Insert or move the watermark
+     */
+    public void save(String userId, String collection, String direction, Date watermark) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_UPSERT)) {
+
+            pstmt.setString(1, userId);
+            pstmt.setString(2, collection);
+            pstmt.setString(3, direction);
+            pstmt.setTimestamp(4, new Timestamp(watermark.getTime()));
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Last change time of the given rows of a local table, keyed by ID. Rows that do not exist are left out,
+     * so the synchronization can tell inserts from updates without loading the entities.
+     *
+     * @param table  one of the synchronized tables, never user input
+     * @param column the change time column, last_updated or updated_at
+     */
+    public Map<String, Date> findLastUpdates(String table, String column, Collection<String> ids) throws SQLException {
+        Map<String, Date> lastUpdates = new HashMap<>();
+
+        for (List<String> chunk : SqlUtils.chunkIds(ids)) {
+            String sql = "SELECT id, " + column + " FROM " + table + " WHERE id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 1, chunk.get(i));
+                }
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        lastUpdates.put(rs.getString("id"), rs.getTimestamp(column));
+                    }
+                }
+            }
+        }
+        return lastUpdates;
+    }
+
+    /**
+     * The given IDs that exist in a local table without a change time column (e.g. evaluations)
+     */
+    public Set<String> findExistingIds(String table, Collection<String> ids) throws SQLException {
+        Set<String> existing = new HashSet<>();
+
+        for (List<String> chunk : SqlUtils.chunkIds(ids)) {
+            String sql = "SELECT id FROM " + table + " WHERE id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 1, chunk.get(i));
+                }
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(rs.getString("id"));
+                    }
+                }
+            }
+        }
+        return existing;
+    }
+}
@@ -18,6 +18,11 @@ public class TranslationDAO {
             "SELECT translation_key, text FROM translations WHERE locale = ?";
     private static final String SQL_UPSERT =
             "MERGE INTO translations (translation_key, locale, text) KEY(translation_key, locale) VALUES (?, ?, ?);";
+    private static final String SQL_LOAD_VERSION =
+            "SELECT version FROM translation_versions WHERE locale = ?";
+    private static final String SQL_BUMP_VERSION =
+            "MERGE INTO translation_versions (locale, version) KEY(locale) " +
+            "SELECT ?, COALESCE(MAX(version), 0) + 1 FROM translation_versions WHERE locale = ?;";
 
     public TranslationDAO(DataSource dataSource) {
         this.dataSource = dataSource;
@@ -41,15 +46,76 @@ public class TranslationDAO {
     }
 
     /**
-     * Add or update a single translation.
+     * Version of the translations of the given language, increased by every change. 0 when it has none.
      */
-    public void addOrUpdateTranslation(Language language, String key, String text) throws Exception {
+    public long loadVersion(Language language) throws Exception {
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(SQL_UPSERT)) {
-            ps.setString(1, key);
-            ps.setString(2, language.getIso());
-            ps.setString(3, text);
-            ps.executeUpdate();
+             PreparedStatement ps = conn.prepareStatement(SQL_LOAD_VERSION)) {
+            ps.setString(1, language.getIso());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong("version") : 0;
+            }
+        }
+    }
+
+    /**
+     * Add or update a single translation and bump the version of its locale in the same transaction.
+     */
+    public void addOrUpdateTranslation(Language language, String key, String text) throws Exception {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(SQL_UPSERT);
+                 PreparedStatement versionPs = conn.prepareStatement(SQL_BUMP_VERSION)) {
+                ps.setString(1, key);
+                ps.setString(2, language.getIso());
+                ps.setString(3, text);
+                ps.executeUpdate();
+
+                versionPs.setString(1, language.getIso());
+                versionPs.setString(2, language.getIso());
+                versionPs.executeUpdate();
+
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Add or update several translations of one language in a single transaction with a single version bump.
+     */
+    public void addOrUpdateTranslations(Language language, Map<String, String> texts) throws Exception {
+        if (texts.isEmpty()) {
+            return;
+        }
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(SQL_UPSERT);
+                 PreparedStatement versionPs = conn.prepareStatement(SQL_BUMP_VERSION)) {
+                for (Map.Entry<String, String> entry : texts.entrySet()) {
+                    ps.setString(1, entry.getKey());
+                    ps.setString(2, language.getIso());
+                    ps.setString(3, entry.getValue());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                versionPs.setString(1, language.getIso());
+                versionPs.setString(2, language.getIso());
+                versionPs.executeUpdate();
+
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
     }
 }
@@ -0,0 +1,93 @@
+package com.final_app.db.dao;
+
+import com.final_app.db.DatabaseManager;
+import com.final_app.db.SqlUtils;
+import com.final_app.models.TranslationMemoryEntry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DAO for the translation_memory table: machine translations keyed by source hash, source language, target
+ * language and model, so the same text is never sent to the model twice.
+ */
+public class TranslationMemoryDAO {
+    private static final String SQL_UPSERT =
+            "MERGE INTO translation_memory (source_hash, source_language, target_language, model, source_text, translated_text, created_at) " +
+            "KEY (source_hash, source_language, target_language, model) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * The remembered translations of the given source hashes, keyed by source hash. Hashes without one are left out.
+     */
+    public Map<String, TranslationMemoryEntry> find(Collection<String> sourceHashes, String sourceLanguage, String targetLanguage, String model) throws SQLException {
+        Map<String, TranslationMemoryEntry> entries = new HashMap<>();
+
+        for (List<String> chunk : SqlUtils.chunkIds(sourceHashes)) {
+            String sql = "SELECT * FROM translation_memory WHERE source_language = ? AND target_language = ? AND model = ? " +
+                    "AND source_hash IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, sourceLanguage);
+                pstmt.setString(2, targetLanguage);
+                pstmt.setString(3, model);
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 4, chunk.get(i));
+                }
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        TranslationMemoryEntry entry = mapResultSetToEntry(rs);
+                        entries.put(entry.getSourceHash(), entry);
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Store the entries with a single JDBC batch, replacing earlier translations of the same key
+     */
+    public void save(Collection<TranslationMemoryEntry> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_UPSERT)) {
+
+            for (TranslationMemoryEntry entry : entries) {
+                pstmt.setString(1, entry.getSourceHash());
+                pstmt.setString(2, entry.getSourceLanguage());
+                pstmt.setString(3, entry.getTargetLanguage());
+                pstmt.setString(4, entry.getModel());
+                pstmt.setString(5, entry.getSourceText());
+                pstmt.setString(6, entry.getTranslatedText());
+                pstmt.setTimestamp(7, new Timestamp(entry.getCreatedAt() != null ? entry.getCreatedAt().getTime() : System.currentTimeMillis()));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private TranslationMemoryEntry mapResultSetToEntry(ResultSet rs) throws SQLException {
+        TranslationMemoryEntry entry = new TranslationMemoryEntry();
+        entry.setSourceHash(rs.getString("source_hash"));
+        entry.setSourceLanguage(rs.getString("source_language"));
+        entry.setTargetLanguage(rs.getString("target_language"));
+        entry.setModel(rs.getString("model"));
+        entry.setSourceText(rs.getString("source_text"));
+        entry.setTranslatedText(rs.getString("translated_text"));
+        entry.setCreatedAt(rs.getTimestamp("created_at"));
+        return entry;
+    }
+}
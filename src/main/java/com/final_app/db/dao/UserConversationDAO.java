@@ -1,13 +1,19 @@
 package com.final_app.db.dao;
 
 import com.final_app.db.DatabaseManager;
+import com.final_app.globals.FetchPlan;
 import com.final_app.models.*;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * Data Access Object for the user_conversations table
@@ -17,36 +23,47 @@ public class UserConversationDAO {
     private final ConversationDAO conversationDAO = new ConversationDAO();
     private final MessageDAO messageDAO = new MessageDAO();
     private final EvaluationDAO evaluationDAO = new EvaluationDAO();
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
 
     /**
      * Insert a new user conversation into the database
      */
     public void insert(UserConversation userConversation) throws SQLException {
-        String sql = "INSERT INTO user_conversations (id, user_id, conversation_id, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO user_conversations (id, user_id, conversation_id, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)";
 
-        if(userConversation.getId() == null || userConversation.getId().isEmpty()) {
-            // Generate a new UUID if the ID is not provided
-            userConversation.setId(UUID.randomUUID().toString());
-        }
+            if(userConversation.getId() == null || userConversation.getId().isEmpty()) {
+                // Generate a new UUID if the ID is not provided
+                userConversation.setId(UUID.randomUUID().toString());
+            }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setString(1, userConversation.getId());
-            pstmt.setString(2, userConversation.getUserId());
-            pstmt.setString(3, userConversation.getConversationId());
-            pstmt.setString(4, userConversation.getStatus());
-            pstmt.setTimestamp(5, new Timestamp(userConversation.getCreatedAt().getTime()));
-            pstmt.setTimestamp(6, new Timestamp(userConversation.getUpdatedAt().getTime()));
+                pstmt.setString(1, userConversation.getId());
+                pstmt.setString(2, userConversation.getUserId());
+                pstmt.setString(3, userConversation.getConversationId());
+                pstmt.setString(4, userConversation.getStatus());
+                pstmt.setTimestamp(5, new Timestamp(userConversation.getCreatedAt().getTime()));
+                pstmt.setTimestamp(6, new Timestamp(userConversation.getUpdatedAt().getTime()));
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.USER_CONVERSATIONS, userConversation.getId());
+        });
     }
 
     /**
      * Find a user conversation by ID with all related objects loaded
      */
     public UserConversation findById(String id) throws SQLException {
+        return findById(id, FetchPlan.FULL);
+    }
+
+    /**
+     * Find a user conversation by ID, loading messages and evaluation according to the fetch plan
+     */
+    public UserConversation findById(String id, FetchPlan fetchPlan) throws SQLException {
         String sql = "SELECT * FROM user_conversations WHERE id = ?";
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
@@ -57,7 +74,7 @@ public class UserConversationDAO {
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
                     UserConversation userConversation = mapResultSetToUserConversation(rs);
-                    loadRelatedObjects(userConversation);
+                    loadRelatedObjects(List.of(userConversation), fetchPlan);
                     return userConversation;
                 }
                 return null;
@@ -69,6 +86,13 @@ public class UserConversationDAO {
      * Find all user conversations for a specific user
      */
     public List<UserConversation> findByUserId(String userId) throws SQLException {
+        return findByUserId(userId, FetchPlan.FULL);
+    }
+
+    /**
+     * Find all user conversations for a specific user, loading messages and evaluation according to the fetch plan
+     */
+    public List<UserConversation> findByUserId(String userId, FetchPlan fetchPlan) throws SQLException {
         String sql = "SELECT * FROM user_conversations WHERE user_id = ?";
         List<UserConversation> userConversations = new ArrayList<>();
 
@@ -79,16 +103,117 @@ public class UserConversationDAO {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    UserConversation userConversation = mapResultSetToUserConversation(rs);
-                    loadRelatedObjects(userConversation);
-                    userConversations.add(userConversation);
+                    userConversations.add(mapResultSetToUserConversation(rs));
+                }
+            }
+        }
+
+        loadRelatedObjects(userConversations, fetchPlan);
+
+        return userConversations;
+    }
+
+    /**
+     * Find the user conversations of a user changed after the given time, used by the delta synchronization
+     */
+    public List<UserConversation> findByUserIdUpdatedSince(String userId, Date since, FetchPlan fetchPlan) throws SQLException {
+        String sql = "SELECT * FROM user_conversations WHERE user_id = ? AND updated_at > ?";
+        List<UserConversation> userConversations = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, userId);
+            pstmt.setTimestamp(2, new Timestamp(since.getTime()));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    userConversations.add(mapResultSetToUserConversation(rs));
                 }
             }
         }
 
+        loadRelatedObjects(userConversations, fetchPlan);
+
         return userConversations;
     }
 
+    /**
+     * Find one page of user conversations of a user, most recently updated first.
+     * Keyset paginated on (updated_at, id): pass the last user conversation of the previous page as cursor,
+     * or null for the first page. With a conversation ID only the attempts of that conversation are paged.
+     */
+    public List<UserConversation> findPageByUserId(String userId, String conversationId, UserConversation after, int pageSize, FetchPlan fetchPlan) throws SQLException {
+        String sql = "SELECT * FROM user_conversations WHERE user_id = ?" +
+                (conversationId != null ? " AND conversation_id = ?" : "") +
+                (after != null ? " AND (updated_at < ? OR (updated_at = ? AND id < ?))" : "") +
+                " ORDER BY updated_at DESC, id DESC LIMIT ?";
+        List<UserConversation> userConversations = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int parameter = 1;
+            pstmt.setString(parameter++, userId);
+            if (conversationId != null) {
+                pstmt.setString(parameter++, conversationId);
+            }
+            if (after != null) {
+                Timestamp updatedAt = new Timestamp(after.getUpdatedAt().getTime());
+                pstmt.setTimestamp(parameter++, updatedAt);
+                pstmt.setTimestamp(parameter++, updatedAt);
+                pstmt.setString(parameter++, after.getId());
+            }
+            pstmt.setInt(parameter, pageSize);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    userConversations.add(mapResultSetToUserConversation(rs));
+                }
+            }
+        }
+
+        loadRelatedObjects(userConversations, fetchPlan);
+        return userConversations;
+    }
+
+    /**
+     * Per conversation the user attempted, the most recent attempt (with its evaluation) and the attempt totals.
+     * The totals are computed by the database, only one row per conversation is read.
+     */
+    public List<UserConversationGroup> findGroupsByUserId(String userId) throws SQLException {
+        String sql = "SELECT * FROM (" +
+                "SELECT uc.*, " +
+                "ROW_NUMBER() OVER (PARTITION BY uc.conversation_id ORDER BY uc.updated_at DESC, uc.id DESC) AS attempt_rank, " +
+                "COUNT(*) OVER (PARTITION BY uc.conversation_id) AS attempt_count, " +
+                "SUM(CASE WHEN uc.status = 'COMPLETED' THEN 1 ELSE 0 END) OVER (PARTITION BY uc.conversation_id) AS completed_count, " +
+                "AVG(CASE WHEN uc.status = 'COMPLETED' AND e.max_score > 0 THEN e.score * 100.0 / e.max_score END) " +
+                "OVER (PARTITION BY uc.conversation_id) AS average_score " +
+                "FROM user_conversations uc LEFT JOIN evaluations e ON e.user_conversation_id = uc.id " +
+                "WHERE uc.user_id = ?) attempts " +
+                "WHERE attempt_rank = 1 ORDER BY updated_at DESC, id DESC";
+        List<UserConversation> latest = new ArrayList<>();
+        List<UserConversationGroup> groups = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, userId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    UserConversation userConversation = mapResultSetToUserConversation(rs);
+                    latest.add(userConversation);
+                    groups.add(new UserConversationGroup(userConversation, rs.getInt("attempt_count"), rs.getInt("completed_count"),
+                            (int) rs.getDouble("average_score")));
+                }
+            }
+        }
+
+        loadRelatedObjects(latest, FetchPlan.EVALUATIONS);
+        return groups;
+    }
+
     /**
      * Find all user conversations for a specific conversation
      */
@@ -103,13 +228,13 @@ public class UserConversationDAO {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    UserConversation userConversation = mapResultSetToUserConversation(rs);
-                    loadRelatedObjects(userConversation);
-                    userConversations.add(userConversation);
+                    userConversations.add(mapResultSetToUserConversation(rs));
                 }
             }
         }
 
+        loadRelatedObjects(userConversations, FetchPlan.FULL);
+
         return userConversations;
     }
 
@@ -117,6 +242,13 @@ public class UserConversationDAO {
      * Find a user conversation by user ID and conversation ID
      */
     public List<UserConversation> findByUserIdAndConversationId(String userId, String conversationId) throws SQLException {
+        return findByUserIdAndConversationId(userId, conversationId, FetchPlan.FULL);
+    }
+
+    /**
+     * Find a user conversation by user ID and conversation ID, loading messages and evaluation according to the fetch plan
+     */
+    public List<UserConversation> findByUserIdAndConversationId(String userId, String conversationId, FetchPlan fetchPlan) throws SQLException {
         String sql = "SELECT * FROM user_conversations WHERE user_id = ? AND conversation_id = ?";
 
         List<UserConversation> userConversations = new ArrayList<>();
@@ -128,12 +260,12 @@ public class UserConversationDAO {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    UserConversation userConversation = mapResultSetToUserConversation(rs);
-                    loadRelatedObjects(userConversation);
-                    userConversations.add(userConversation);
+                    userConversations.add(mapResultSetToUserConversation(rs));
                 }
             }
         }
+
+        loadRelatedObjects(userConversations, fetchPlan);
         return userConversations;
     }
 
@@ -149,12 +281,12 @@ public class UserConversationDAO {
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                UserConversation userConversation = mapResultSetToUserConversation(rs);
-                loadRelatedObjects(userConversation);
-                userConversations.add(userConversation);
+                userConversations.add(mapResultSetToUserConversation(rs));
             }
         }
 
+        loadRelatedObjects(userConversations, FetchPlan.FULL);
+
         return userConversations;
     }
 
@@ -162,57 +294,63 @@ public class UserConversationDAO {
      * Update an existing user conversation
      */
     public void update(UserConversation userConversation) throws SQLException {
-        String sql = "UPDATE user_conversations SET user_id = ?, conversation_id = ?, status = ?, updated_at = ?, completed_at = ? WHERE id = ?";
-
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE user_conversations SET user_id = ?, conversation_id = ?, status = ?, updated_at = ?, completed_at = ? WHERE id = ?";
+
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, userConversation.getUserId());
+                pstmt.setString(2, userConversation.getConversationId());
+                pstmt.setString(3, userConversation.getStatus());
+                pstmt.setTimestamp(4, new Timestamp(userConversation.getUpdatedAt().getTime()));
+
+                // Handle null completedAt
+                if (userConversation.getCompletedAt() != null) {
+                    pstmt.setTimestamp(5, new Timestamp(userConversation.getCompletedAt().getTime()));
+                } else {
+                    pstmt.setNull(5, Types.TIMESTAMP);
+                }
 
-            pstmt.setString(1, userConversation.getUserId());
-            pstmt.setString(2, userConversation.getConversationId());
-            pstmt.setString(3, userConversation.getStatus());
-            pstmt.setTimestamp(4, new Timestamp(userConversation.getUpdatedAt().getTime()));
+                pstmt.setString(6, userConversation.getId());
 
-            // Handle null completedAt
-            if (userConversation.getCompletedAt() != null) {
-                pstmt.setTimestamp(5, new Timestamp(userConversation.getCompletedAt().getTime()));
-            } else {
-                pstmt.setNull(5, Types.TIMESTAMP);
+                pstmt.executeUpdate();
             }
-
-            pstmt.setString(6, userConversation.getId());
-
-            pstmt.executeUpdate();
-        }
+            outboxDAO.recordUpsert(SyncOutboxDAO.USER_CONVERSATIONS, userConversation.getId());
+        });
     }
 
     /**
      * Update only the status of a user conversation
      */
     public void updateStatus(String id, String status) throws SQLException {
-        String sql = "UPDATE user_conversations SET status = ?, updated_at = ?";
-
-        // If status is COMPLETED, also update completed_at
-        if (status.equals("COMPLETED")) {
-            sql += ", completed_at = ? WHERE id = ?";
-        } else {
-            sql += " WHERE id = ?";
-        }
-
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, status);
-            pstmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE user_conversations SET status = ?, updated_at = ?";
 
+            // If status is COMPLETED, also update completed_at
             if (status.equals("COMPLETED")) {
-                pstmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
-                pstmt.setString(4, id);
+                sql += ", completed_at = ? WHERE id = ?";
             } else {
-                pstmt.setString(3, id);
+                sql += " WHERE id = ?";
             }
 
-            pstmt.executeUpdate();
-        }
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, status);
+                pstmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+
+                if (status.equals("COMPLETED")) {
+                    pstmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                    pstmt.setString(4, id);
+                } else {
+                    pstmt.setString(3, id);
+                }
+
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.USER_CONVERSATIONS, id);
+        });
     }
 
     /**
@@ -220,28 +358,34 @@ public class UserConversationDAO {
      * This will also delete all associated messages and evaluations due to the ON DELETE CASCADE constraint
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM user_conversations WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "DELETE FROM user_conversations WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordDelete(SyncOutboxDAO.USER_CONVERSATIONS, id);
+        });
     }
 
     /**
      * Delete all user conversations for a specific user
      */
     public void deleteByUserId(String userId) throws SQLException {
-        String sql = "DELETE FROM user_conversations WHERE user_id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            outboxDAO.recordWhere(SyncOutboxDAO.USER_CONVERSATIONS, SyncOutboxDAO.Operation.DELETE, "id", "user_conversations", "user_id", userId);
+            String sql = "DELETE FROM user_conversations WHERE user_id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, userId);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, userId);
+                pstmt.executeUpdate();
+            }
+        });
     }
 
     /**
@@ -274,28 +418,84 @@ public class UserConversationDAO {
     }
 
     /**
-     * Load related objects for a user conversation
+     * Load related objects for a list of user conversations.
+     * Users, conversations, messages and evaluations are each fetched with set-based IN (...) queries
+     * and stitched together in memory, so the amount of queries does not grow with the amount of rows.
+     * With {@link FetchPlan#LAZY} messages and evaluations are only fetched on first access, with
+     * {@link FetchPlan#EVALUATIONS} only the messages.
      */
-    private void loadRelatedObjects(UserConversation userConversation) throws SQLException {
-        // Load user
-        User user = userDAO.findById(userConversation.getUserId());
-        userConversation.setUser(user);
-
-        // Load conversation
-        Conversation conversation = conversationDAO.findById(userConversation.getConversationId());
-        userConversation.setConversation(conversation);
-
-        // Load messages
-        List<Message> messages = messageDAO.findByUserConversationId(userConversation.getId());
-        userConversation.setMessages(messages);
-
-        // Load evaluation (if any)
-        try {
-            Evaluation evaluation = evaluationDAO.findByUserConversationId(userConversation.getId());
-            userConversation.setEvaluation(evaluation);
-        } catch (SQLException e) {
-            // It's okay if there's no evaluation, just continue
-            System.out.println("No evaluation found for user conversation " + userConversation.getId());
+    private void loadRelatedObjects(List<UserConversation> userConversations, FetchPlan fetchPlan) throws SQLException {
+        if (userConversations.isEmpty()) {
+            return;
         }
+
+        Set<String> userIds = new HashSet<>();
+        Set<String> conversationIds = new HashSet<>();
+        Set<String> userConversationIds = new HashSet<>();
+        for (UserConversation userConversation : userConversations) {
+            userIds.add(userConversation.getUserId());
+            conversationIds.add(userConversation.getConversationId());
+            userConversationIds.add(userConversation.getId());
+        }
+
+        Map<String, User> users = userDAO.findByIds(userIds);
+        Map<String, Conversation> conversations = conversationDAO.findByIds(conversationIds);
+
+        if (fetchPlan != FetchPlan.FULL) {
+            // Evaluations of the whole list with one query, now or on the first access
+            Map<String, Evaluation> loadedEvaluations = fetchPlan == FetchPlan.EVALUATIONS ? evaluationDAO.findByUserConversationIds(userConversationIds) : null;
+            Supplier<Map<String, Evaluation>> evaluations = loadedEvaluations == null ? lazyEvaluations(userConversationIds) : null;
+            for (UserConversation userConversation : userConversations) {
+                userConversation.setUser(users.get(userConversation.getUserId()));
+                userConversation.setConversation(conversations.get(userConversation.getConversationId()));
+                String id = userConversation.getId();
+                userConversation.loadMessagesWith(() -> {
+                    try {
+                        return messageDAO.findByUserConversationId(id);
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                if (loadedEvaluations != null) {
+                    userConversation.setEvaluation(loadedEvaluations.get(id));
+                } else {
+                    userConversation.loadEvaluationWith(() -> evaluations.get().get(id));
+                }
+            }
+            return;
+        }
+
+        Map<String, List<Message>> messages = messageDAO.findByUserConversationIds(userConversationIds);
+        Map<String, Evaluation> evaluations = evaluationDAO.findByUserConversationIds(userConversationIds);
+
+        for (UserConversation userConversation : userConversations) {
+            userConversation.setUser(users.get(userConversation.getUserId()));
+            userConversation.setConversation(conversations.get(userConversation.getConversationId()));
+            userConversation.setMessages(messages.getOrDefault(userConversation.getId(), new ArrayList<>()));
+            // Evaluation is null when the conversation has not been evaluated yet
+            userConversation.setEvaluation(evaluations.get(userConversation.getId()));
+        }
+    }
+
+    /**
+     * List screens show the score of every row, so the first evaluation access loads them for the whole
+     * list at once instead of one query per row.
+     */
+    private Supplier<Map<String, Evaluation>> lazyEvaluations(Set<String> userConversationIds) {
+        return new Supplier<>() {
+            private Map<String, Evaluation> evaluations;
+
+            @Override
+            public synchronized Map<String, Evaluation> get() {
+                if (evaluations == null) {
+                    try {
+                        evaluations = evaluationDAO.findByUserConversationIds(userConversationIds);
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return evaluations;
+            }
+        };
     }
-}
\ No newline at end of file
+}
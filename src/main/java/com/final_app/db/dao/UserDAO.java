@@ -1,38 +1,47 @@
 package com.final_app.db.dao;
 
 import com.final_app.db.DatabaseManager;
+import com.final_app.db.SqlUtils;
 import com.final_app.models.User;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * Data Access Object for the users table
  */
 public class UserDAO {
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
+
     /**
      * Insert a new user into the database
      */
     public void insert(User user) throws SQLException {
-        String sql = "INSERT INTO users (id, user_name, email, password, photo_path) VALUES (?, ?, ?, ?, ?)";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO users (id, user_name, email, password, photo_path) VALUES (?, ?, ?, ?, ?)";
 
-        if(user.getId() == null || user.getId().isEmpty()) {
-            user.setId(UUID.randomUUID().toString());
-        }
+            if(user.getId() == null || user.getId().isEmpty()) {
+                user.setId(UUID.randomUUID().toString());
+            }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setString(1, user.getId());
-            pstmt.setString(2, user.getUserName());
-            pstmt.setString(3, user.getEmail());
-            pstmt.setString(4, user.getPassword()); // Consider hashing passwords
-            pstmt.setString(5, user.getPhotoPath());
+                pstmt.setString(1, user.getId());
+                pstmt.setString(2, user.getUserName());
+                pstmt.setString(3, user.getEmail());
+                pstmt.setString(4, user.getPassword()); // Consider hashing passwords
+                pstmt.setString(5, user.getPhotoPath());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.USERS, user.getId());
+        });
     }
 
     /**
@@ -55,6 +64,34 @@ public class UserDAO {
         }
     }
 
+    /**
+     * Find several users at once, keyed by ID
+     */
+    public Map<String, User> findByIds(Collection<String> ids) throws SQLException {
+        Map<String, User> users = new HashMap<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            for (List<String> chunk : SqlUtils.chunkIds(ids)) {
+                String sql = "SELECT * FROM users WHERE id IN (" + SqlUtils.placeholders(chunk.size()) + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            User user = mapResultSetToUser(rs);
+                            users.put(user.getId(), user);
+                        }
+                    }
+                }
+            }
+        }
+
+        return users;
+    }
+
     /**
      * Find a user by email
      */
@@ -159,50 +196,59 @@ public class UserDAO {
      * Update an existing user
      */
     public void update(User user) throws SQLException {
-        String sql = "UPDATE users SET user_name = ?, email = ?, password = ?, photo_path = ?, last_updated = ? WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE users SET user_name = ?, email = ?, password = ?, photo_path = ?, last_updated = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, user.getUserName());
-            pstmt.setString(2, user.getEmail());
-            pstmt.setString(3, user.getPassword());
-            pstmt.setString(4, user.getPhotoPath());
-            pstmt.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
-            pstmt.setString(6, user.getId());
+                pstmt.setString(1, user.getUserName());
+                pstmt.setString(2, user.getEmail());
+                pstmt.setString(3, user.getPassword());
+                pstmt.setString(4, user.getPhotoPath());
+                pstmt.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+                pstmt.setString(6, user.getId());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.USERS, user.getId());
+        });
     }
 
     /**
      * Update user password
      */
     public void updatePassword(String userId, String newPassword) throws SQLException {
-        String sql = "UPDATE users SET password = ? WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE users SET password = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, newPassword);
-            pstmt.setString(2, userId);
+                pstmt.setString(1, newPassword);
+                pstmt.setString(2, userId);
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.USERS, userId);
+        });
     }
 
     /**
      * Delete a user by ID
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM users WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "DELETE FROM users WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordDelete(SyncOutboxDAO.USERS, id);
+        });
     }
 
     /**
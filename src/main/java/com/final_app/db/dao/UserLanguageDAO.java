@@ -7,6 +7,7 @@ import com.final_app.models.UserLanguage;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,28 +18,32 @@ import java.util.UUID;
 public class UserLanguageDAO {
     private final LanguageDAO languageDAO = new LanguageDAO();
     private final LanguageLevelDAO languageLevelDAO = new LanguageLevelDAO();
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
 
     /**
      * Insert a new user language into the database
      */
     public void insert(UserLanguage userLanguage) throws SQLException {
-        String sql = "INSERT INTO user_languages (id, user_id, language_id, level_id, xp) VALUES (?, ?, ?, ?, ?)";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO user_languages (id, user_id, language_id, level_id, xp) VALUES (?, ?, ?, ?, ?)";
 
-        if (userLanguage.getId() == null || userLanguage.getId().isEmpty()) {
-            userLanguage.setId(UUID.randomUUID().toString());
-        }
+            if (userLanguage.getId() == null || userLanguage.getId().isEmpty()) {
+                userLanguage.setId(UUID.randomUUID().toString());
+            }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setString(1, userLanguage.getId());
-            pstmt.setString(2, userLanguage.getUserId());
-            pstmt.setString(3, userLanguage.getLanguageId());
-            pstmt.setString(4, userLanguage.getLevelId());
-            pstmt.setLong(5, userLanguage.getXp());
+                pstmt.setString(1, userLanguage.getId());
+                pstmt.setString(2, userLanguage.getUserId());
+                pstmt.setString(3, userLanguage.getLanguageId());
+                pstmt.setString(4, userLanguage.getLevelId());
+                pstmt.setLong(5, userLanguage.getXp());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.USER_LANGUAGES, userLanguage.getId());
+        });
     }
 
     /**
@@ -83,6 +88,29 @@ public class UserLanguageDAO {
         return userLanguages;
     }
 
+    /**
+     * Find the user languages of a user changed after the given time, used by the delta synchronization
+     */
+    public List<UserLanguage> findByUserIdUpdatedSince(String userId, Date since) throws SQLException {
+        String sql = "SELECT * FROM user_languages WHERE user_id = ? AND last_updated > ?";
+        List<UserLanguage> userLanguages = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, userId);
+            pstmt.setTimestamp(2, new Timestamp(since.getTime()));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    userLanguages.add(mapResultSetToUserLanguage(rs));
+                }
+            }
+        }
+
+        return userLanguages;
+    }
+
     /**
      * Find a user language by user ID and language ID
      */
@@ -127,65 +155,77 @@ public class UserLanguageDAO {
      * Update an existing user language
      */
     public void update(UserLanguage userLanguage) throws SQLException {
-        String sql = "UPDATE user_languages SET user_id = ?, language_id = ?, level_id = ?, xp = ?, last_updated = ? WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE user_languages SET user_id = ?, language_id = ?, level_id = ?, xp = ?, last_updated = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, userLanguage.getUserId());
-            pstmt.setString(2, userLanguage.getLanguageId());
-            pstmt.setString(3, userLanguage.getLevelId());
-            pstmt.setLong(4, userLanguage.getXp());
-            pstmt.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
-            pstmt.setString(6, userLanguage.getId());
+                pstmt.setString(1, userLanguage.getUserId());
+                pstmt.setString(2, userLanguage.getLanguageId());
+                pstmt.setString(3, userLanguage.getLevelId());
+                pstmt.setLong(4, userLanguage.getXp());
+                pstmt.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+                pstmt.setString(6, userLanguage.getId());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.USER_LANGUAGES, userLanguage.getId());
+        });
     }
 
     /**
      * Update only the XP and level of a user language
      */
     public void updateXpAndLevel(UserLanguage userLanguage) throws SQLException {
-        String sql = "UPDATE user_languages SET level_id = ?, xp = ? WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE user_languages SET level_id = ?, xp = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, userLanguage.getLevelId());
-            pstmt.setLong(2, userLanguage.getXp());
-            pstmt.setString(3, userLanguage.getId());
+                pstmt.setString(1, userLanguage.getLevelId());
+                pstmt.setLong(2, userLanguage.getXp());
+                pstmt.setString(3, userLanguage.getId());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.USER_LANGUAGES, userLanguage.getId());
+        });
     }
 
     /**
      * Delete a user language by ID
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM user_languages WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "DELETE FROM user_languages WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordDelete(SyncOutboxDAO.USER_LANGUAGES, id);
+        });
     }
 
     /**
      * Delete all user languages for a specific user
      */
     public void deleteByUserId(String userId) throws SQLException {
-        String sql = "DELETE FROM user_languages WHERE user_id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            outboxDAO.recordWhere(SyncOutboxDAO.USER_LANGUAGES, SyncOutboxDAO.Operation.DELETE, "id", "user_languages", "user_id", userId);
+            String sql = "DELETE FROM user_languages WHERE user_id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, userId);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, userId);
+                pstmt.executeUpdate();
+            }
+        });
     }
 
     /**
@@ -53,8 +53,8 @@ public class UserSpeakingTestDAO {
             if (userSpeakingTest.getResponses() != null && !userSpeakingTest.getResponses().isEmpty()) {
                 for (UserSpeakingTestResponse response : userSpeakingTest.getResponses()) {
                     response.setUserSpeakingTestId(userSpeakingTest.getId());
-                    responseDAO.insert(response);
                 }
+                responseDAO.insertAll(userSpeakingTest.getResponses());
             }
         }
     }
@@ -18,54 +18,60 @@ public class UserSpeakingTestResponseDAO {
      * Insert a new user speaking test response into the database
      */
     public void insert(UserSpeakingTestResponse response) throws SQLException {
+        insertAll(List.of(response));
+    }
+
+    /**
+     * Insert several responses with their grammar and vocabulary rows in one transaction,
+     * using one JDBC batch per table
+     */
+    public void insertAll(List<UserSpeakingTestResponse> responses) throws SQLException {
+        if (responses == null || responses.isEmpty()) {
+            return;
+        }
+
         Connection conn = null;
         try {
             conn = DatabaseManager.getInstance().getConnection();
             conn.setAutoCommit(false);
 
-            // Insert the main response record
+            // Insert the main response records
             String sql = "INSERT INTO user_speaking_test_responses (id, user_speaking_test_id, question_id, " +
                     "question_index, transcribed_text, responded_at, grammar_score, vocabulary_score, " +
                     "overall_score, feedback) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-            if(response.getId() == null || response.getId().isEmpty()) {
-                // Generate a new UUID if the ID is not provided
-                response.setId(UUID.randomUUID().toString());
-            }
-
-            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                pstmt.setString(1, response.getId());
-                pstmt.setString(2, response.getUserSpeakingTestId());
-                pstmt.setString(3, response.getQuestionId());
-                pstmt.setInt(4, response.getQuestionIndex());
-                pstmt.setString(5, response.getTranscribedText());
-
-                // Set timestamp
-                if (response.getRespondedAt() != null) {
-                    pstmt.setTimestamp(6, new Timestamp(response.getRespondedAt().getTime()));
-                } else {
-                    pstmt.setTimestamp(6, Timestamp.valueOf(LocalDateTime.now()));
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (UserSpeakingTestResponse response : responses) {
+                    if(response.getId() == null || response.getId().isEmpty()) {
+                        // Generate a new UUID if the ID is not provided
+                        response.setId(UUID.randomUUID().toString());
+                    }
+
+                    pstmt.setString(1, response.getId());
+                    pstmt.setString(2, response.getUserSpeakingTestId());
+                    pstmt.setString(3, response.getQuestionId());
+                    pstmt.setInt(4, response.getQuestionIndex());
+                    pstmt.setString(5, response.getTranscribedText());
+
+                    // Set timestamp
+                    if (response.getRespondedAt() != null) {
+                        pstmt.setTimestamp(6, new Timestamp(response.getRespondedAt().getTime()));
+                    } else {
+                        pstmt.setTimestamp(6, Timestamp.valueOf(LocalDateTime.now()));
+                    }
+
+                    pstmt.setInt(7, response.getGrammarScore());
+                    pstmt.setInt(8, response.getVocabularyScore());
+                    pstmt.setInt(9, response.getOverallScore());
+                    pstmt.setString(10, response.getFeedback());
+                    pstmt.addBatch();
                 }
-
-                pstmt.setInt(7, response.getGrammarScore());
-                pstmt.setInt(8, response.getVocabularyScore());
-                pstmt.setInt(9, response.getOverallScore());
-                pstmt.setString(10, response.getFeedback());
-
-                pstmt.executeUpdate();
-
-                loadRelatedObjects(response, conn);
+                pstmt.executeBatch();
             }
 
-            // Insert grammar rule evaluations
-            if (response.getGrammarRulesCorrect() != null && !response.getGrammarRulesCorrect().isEmpty()) {
-                insertGrammarRules(conn, response.getId(), response.getGrammarRulesCorrect());
-            }
-
-            // Insert vocabulary usage data
-            if (response.getRequiredVocabularyUsed() != null && !response.getRequiredVocabularyUsed().isEmpty()) {
-                insertVocabularyUsage(conn, response.getId(), response.getRequiredVocabularyUsed());
-            }
+            // Insert grammar rule evaluations and vocabulary usage data
+            insertGrammarRules(conn, responses);
+            insertVocabularyUsage(conn, responses);
 
             conn.commit();
         } catch (SQLException e) {
@@ -87,39 +93,60 @@ public class UserSpeakingTestResponseDAO {
                 }
             }
         }
+
+        // Load the questions once the rows are stored
+        for (UserSpeakingTestResponse response : responses) {
+            if (response.getQuestion() == null) {
+                response.setQuestion(questionDAO.findById(response.getQuestionId()));
+            }
+        }
     }
 
     /**
-     * Helper method to insert grammar rule evaluations
+     * Helper method to insert the grammar rule evaluations of all responses as one batch
      */
-    private void insertGrammarRules(Connection conn, String responseId, Map<String, Boolean> grammarRules) throws SQLException {
+    private void insertGrammarRules(Connection conn, List<UserSpeakingTestResponse> responses) throws SQLException {
         String sql = "INSERT INTO response_grammar_evaluations (response_id, grammar_rule, is_correct) VALUES (?, ?, ?)";
 
         try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            for (Map.Entry<String, Boolean> entry : grammarRules.entrySet()) {
-                pstmt.setString(1, responseId);
-                pstmt.setString(2, entry.getKey());
-                pstmt.setBoolean(3, entry.getValue());
-                pstmt.addBatch();
+            boolean hasRows = false;
+            for (UserSpeakingTestResponse response : responses) {
+                if (response.getGrammarRulesCorrect() == null) continue;
+                for (Map.Entry<String, Boolean> entry : response.getGrammarRulesCorrect().entrySet()) {
+                    pstmt.setString(1, response.getId());
+                    pstmt.setString(2, entry.getKey());
+                    pstmt.setBoolean(3, entry.getValue());
+                    pstmt.addBatch();
+                    hasRows = true;
+                }
+            }
+            if (hasRows) {
+                pstmt.executeBatch();
             }
-            pstmt.executeBatch();
         }
     }
 
     /**
-     * Helper method to insert vocabulary usage data
+     * Helper method to insert the vocabulary usage data of all responses as one batch
      */
-    private void insertVocabularyUsage(Connection conn, String responseId, Map<String, Boolean> vocabularyUsage) throws SQLException {
+    private void insertVocabularyUsage(Connection conn, List<UserSpeakingTestResponse> responses) throws SQLException {
         String sql = "INSERT INTO response_vocabulary_usage (response_id, vocabulary_word, was_used) VALUES (?, ?, ?)";
 
         try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            for (Map.Entry<String, Boolean> entry : vocabularyUsage.entrySet()) {
-                pstmt.setString(1, responseId);
-                pstmt.setString(2, entry.getKey());
-                pstmt.setBoolean(3, entry.getValue());
-                pstmt.addBatch();
+            boolean hasRows = false;
+            for (UserSpeakingTestResponse response : responses) {
+                if (response.getRequiredVocabularyUsed() == null) continue;
+                for (Map.Entry<String, Boolean> entry : response.getRequiredVocabularyUsed().entrySet()) {
+                    pstmt.setString(1, response.getId());
+                    pstmt.setString(2, entry.getKey());
+                    pstmt.setBoolean(3, entry.getValue());
+                    pstmt.addBatch();
+                    hasRows = true;
+                }
+            }
+            if (hasRows) {
+                pstmt.executeBatch();
             }
-            pstmt.executeBatch();
         }
     }
 
@@ -249,15 +276,9 @@ public class UserSpeakingTestResponseDAO {
             deleteGrammarRules(conn, response.getId());
             deleteVocabularyUsage(conn, response.getId());
 
-            // Insert updated grammar rule evaluations
-            if (response.getGrammarRulesCorrect() != null && !response.getGrammarRulesCorrect().isEmpty()) {
-                insertGrammarRules(conn, response.getId(), response.getGrammarRulesCorrect());
-            }
-
-            // Insert updated vocabulary usage data
-            if (response.getRequiredVocabularyUsed() != null && !response.getRequiredVocabularyUsed().isEmpty()) {
-                insertVocabularyUsage(conn, response.getId(), response.getRequiredVocabularyUsed());
-            }
+            // Insert updated grammar rule evaluations and vocabulary usage data
+            insertGrammarRules(conn, List.of(response));
+            insertVocabularyUsage(conn, List.of(response));
 
             conn.commit();
         } catch (SQLException e) {
@@ -1,6 +1,7 @@
 package com.final_app.db.dao;
 
 import com.final_app.db.DatabaseManager;
+import com.final_app.models.ActivityStats;
 import com.final_app.models.UserStats;
 
 import java.sql.*;
@@ -12,28 +13,33 @@ import java.util.*;
  * Data Access Object for the user_stats table
  */
 public class UserStatsDAO {
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
+
     /**
      * Insert a new user stats record into the database
      */
     public void insert(UserStats userStats) throws SQLException {
-        String sql = "INSERT INTO user_stats (id, user_id, level, total_xp, streak) VALUES (?, ?, ?, ?, ?)";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "INSERT INTO user_stats (id, user_id, level, total_xp, streak) VALUES (?, ?, ?, ?, ?)";
 
-        if(userStats.getId() == null || userStats.getId().isEmpty()) {
-            // Generate a new UUID if the ID is not provided
-            userStats.setId(UUID.randomUUID().toString());
-        }
+            if(userStats.getId() == null || userStats.getId().isEmpty()) {
+                // Generate a new UUID if the ID is not provided
+                userStats.setId(UUID.randomUUID().toString());
+            }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setString(1, userStats.getId());
-            pstmt.setString(2, userStats.getUserId());
-            pstmt.setInt(3, userStats.getLevel());
-            pstmt.setLong(4, userStats.getTotalXp());
-            pstmt.setInt(5, userStats.getStreak());
+                pstmt.setString(1, userStats.getId());
+                pstmt.setString(2, userStats.getUserId());
+                pstmt.setInt(3, userStats.getLevel());
+                pstmt.setLong(4, userStats.getTotalXp());
+                pstmt.setInt(5, userStats.getStreak());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.USER_STATS, userStats.getUserId());
+        });
     }
 
     /**
@@ -99,48 +105,57 @@ public class UserStatsDAO {
      * Update an existing user stats record
      */
     public void update(UserStats userStats) throws SQLException {
-        String sql = "UPDATE user_stats SET user_id = ?, level = ?, total_xp = ?, streak = ?, last_updated = ? WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "UPDATE user_stats SET user_id = ?, level = ?, total_xp = ?, streak = ?, last_updated = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, userStats.getUserId());
-            pstmt.setInt(2, userStats.getLevel());
-            pstmt.setLong(3, userStats.getTotalXp());
-            pstmt.setInt(4, userStats.getStreak());
-            pstmt.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
-            pstmt.setString(6, userStats.getId());
+                pstmt.setString(1, userStats.getUserId());
+                pstmt.setInt(2, userStats.getLevel());
+                pstmt.setLong(3, userStats.getTotalXp());
+                pstmt.setInt(4, userStats.getStreak());
+                pstmt.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+                pstmt.setString(6, userStats.getId());
 
-            pstmt.executeUpdate();
-        }
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordUpsert(SyncOutboxDAO.USER_STATS, userStats.getUserId());
+        });
     }
 
     /**
      * Delete a user stats record by ID
      */
     public void delete(String id) throws SQLException {
-        String sql = "DELETE FROM user_stats WHERE id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            outboxDAO.recordWhere(SyncOutboxDAO.USER_STATS, SyncOutboxDAO.Operation.DELETE, "user_id", "user_stats", "id", id);
+            String sql = "DELETE FROM user_stats WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+            }
+        });
     }
 
     /**
      * Delete user stats by user ID
      */
     public void deleteByUserId(String userId) throws SQLException {
-        String sql = "DELETE FROM user_stats WHERE user_id = ?";
+        DatabaseManager.runInTransaction(() -> {
+            String sql = "DELETE FROM user_stats WHERE user_id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseManager.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, userId);
-            pstmt.executeUpdate();
-        }
+                pstmt.setString(1, userId);
+                pstmt.executeUpdate();
+            }
+            outboxDAO.recordDelete(SyncOutboxDAO.USER_STATS, userId);
+        });
     }
     public int getUserStreak(String userId) throws SQLException {
         // Get today's date
@@ -192,6 +207,44 @@ public class UserStatsDAO {
         return streakCount;
     }
 
+    /**
+     * Count the conversations and speaking tests of a user, in total and within [weekStart, weekEnd).
+     * Everything is aggregated by the database in a single round trip.
+     */
+    public ActivityStats findActivityStats(String userId, java.util.Date weekStart, java.util.Date weekEnd) throws SQLException {
+        String sql = "SELECT " +
+                "(SELECT COUNT(*) FROM user_conversations WHERE user_id = ?) AS total_conversations, " +
+                "(SELECT COUNT(*) FROM user_conversations WHERE user_id = ? AND updated_at >= ? AND updated_at < ?) AS conversations_this_week, " +
+                "(SELECT COUNT(*) FROM user_speaking_tests WHERE user_id = ?) AS total_speaking_tests, " +
+                "(SELECT COUNT(*) FROM user_speaking_tests WHERE user_id = ? AND completed_at >= ? AND completed_at < ?) AS speaking_tests_this_week";
+
+        Timestamp start = new Timestamp(weekStart.getTime());
+        Timestamp end = new Timestamp(weekEnd.getTime());
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, userId);
+            pstmt.setString(2, userId);
+            pstmt.setTimestamp(3, start);
+            pstmt.setTimestamp(4, end);
+            pstmt.setString(5, userId);
+            pstmt.setString(6, userId);
+            pstmt.setTimestamp(7, start);
+            pstmt.setTimestamp(8, end);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return new ActivityStats(
+                        rs.getLong("total_conversations"),
+                        rs.getLong("conversations_this_week"),
+                        rs.getLong("total_speaking_tests"),
+                        rs.getLong("speaking_tests_this_week")
+                );
+            }
+        }
+    }
+
     /**
      * Helper method to map ResultSet to UserStats
      */
@@ -0,0 +1,20 @@
+package com.final_app.globals;
+
+/**
+ * How much of the object graph a repository loads up front.
+ */
+public enum FetchPlan {
+    /**
+     * Only the row itself and its references; messages and evaluation are loaded on first access
+     */
+    LAZY,
+    /**
+     * The row, its references and the evaluation; messages are loaded on first access.
+     * For lists that show the score of every row.
+     */
+    EVALUATIONS,
+    /**
+     * The whole graph, including messages and evaluation
+     */
+    FULL
+}
@@ -3,12 +3,16 @@ package com.final_app.interfaces;
 import com.final_app.models.Conversation;
 import com.final_app.models.ConversationChain;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public interface IConversationRepository {
     // Conversations
     CompletableFuture<Void> addConversation(Conversation conversation);
+    // Bulk insert, sent as one batch instead of one round trip per conversation
+    CompletableFuture<Void> addConversations(List<Conversation> conversations);
     CompletableFuture<Void> updateConversation(Conversation conversation);
 
     CompletableFuture<Optional<Conversation>> getConversationById(String id);
@@ -16,6 +20,8 @@ public interface IConversationRepository {
     CompletableFuture<Void> deleteConversationById(String id);
 
     CompletableFuture<Iterable<Conversation>> getAllConversations();
+    // Delta read for the synchronization: conversations changed after the given time
+    CompletableFuture<List<Conversation>> getConversationsUpdatedSince(Date since);
     CompletableFuture<Iterable<Conversation>> getAllConversationsByLanguage(String languageId);
     CompletableFuture<Iterable<Conversation>> getAllConversationsByLevel(String levelId);
 
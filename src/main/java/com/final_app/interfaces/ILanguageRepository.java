@@ -4,6 +4,7 @@ import com.final_app.models.Language;
 import com.final_app.models.LanguageLevel;
 import com.final_app.models.LanguageLevelSystem;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -18,6 +19,8 @@ public interface ILanguageRepository {
     CompletableFuture<Optional<Language>> getLanguageByName(String name);
 
     CompletableFuture<Iterable<Language>> getAllLanguages();
+    // Delta read for the synchronization: languages changed after the given time
+    CompletableFuture<List<Language>> getLanguagesUpdatedSince(Date since);
 
     CompletableFuture<Void> addLanguageLevel(LanguageLevel languageLevel);
     CompletableFuture<Void> updateLanguageLevel(LanguageLevel languageLevel);
@@ -25,6 +28,7 @@ public interface ILanguageRepository {
     CompletableFuture<Optional<LanguageLevel>> getLanguageLevelById(String id);
     CompletableFuture<Optional<LanguageLevel>> getLanguageLevelByName(String name);
     CompletableFuture<List<LanguageLevel>> getAllLanguageLevels();
+    CompletableFuture<List<LanguageLevel>> getLanguageLevelsUpdatedSince(Date since);
 
     CompletableFuture<Void> addLanguageSystem(LanguageLevelSystem languageLevelSystem);
     CompletableFuture<Void> updateLanguageSystem(LanguageLevelSystem languageLevelSystem);
@@ -34,4 +38,5 @@ public interface ILanguageRepository {
     CompletableFuture<Optional<LanguageLevelSystem>> getLanguageLevelSystemByName(String name);
 
     CompletableFuture<Iterable<LanguageLevelSystem>> getAllLanguageSystems();
+    CompletableFuture<List<LanguageLevelSystem>> getLanguageSystemsUpdatedSince(Date since);
 }
@@ -2,14 +2,20 @@ package com.final_app.interfaces;
 
 import com.final_app.models.Message;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public interface IMessageRepository {
     CompletableFuture<Void> addMessage(Message message);
     CompletableFuture<Void> updateMessage(Message message);
+    // Bulk writes, sent as one batch instead of one round trip per message
+    CompletableFuture<Void> addMessages(List<Message> messages);
+    CompletableFuture<Void> upsertMessages(List<Message> messages);
     CompletableFuture<Optional<Message>> getMessageById(String id);
     CompletableFuture<Void> deleteMessageById(String id);
     CompletableFuture<Iterable<Message>> getAllMessages();
     CompletableFuture<Iterable<Message>> getAllMessagesFromUserConversation(String userConversationId);
+    // Keyset page on the message index, oldest first; beforeIndex null returns the newest page
+    CompletableFuture<List<Message>> getMessagesPageFromUserConversation(String userConversationId, Integer beforeIndex, int pageSize);
 }
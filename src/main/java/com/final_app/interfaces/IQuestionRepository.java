@@ -2,6 +2,8 @@ package com.final_app.interfaces;
 
 import com.final_app.models.SpeakingTestQuestion;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -11,5 +13,7 @@ public interface IQuestionRepository {
     CompletableFuture<Optional<SpeakingTestQuestion>> getQuestionById(String id);
     CompletableFuture<Void> deleteQuestionById(String id);
     CompletableFuture<Iterable<SpeakingTestQuestion>> getAllQuestions();
+    // Delta read for the synchronization: questions changed after the given time
+    CompletableFuture<List<SpeakingTestQuestion>> getQuestionsUpdatedSince(Date since);
     CompletableFuture<Iterable<SpeakingTestQuestion>> getAllQuestionsFromTest(String testId);
 }
@@ -2,6 +2,8 @@ package com.final_app.interfaces;
 
 import com.final_app.models.Scenario;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -11,4 +13,6 @@ public interface IScenarioRepository {
     CompletableFuture<Optional<Scenario>> getScenarioById(String id);
     CompletableFuture<Void> deleteScenarioById(String id);
     CompletableFuture<Iterable<Scenario>> getAllScenarios();
+    // Delta read for the synchronization: scenarios changed after the given time
+    CompletableFuture<List<Scenario>> getScenariosUpdatedSince(Date since);
 }
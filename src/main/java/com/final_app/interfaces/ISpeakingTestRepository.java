@@ -2,6 +2,8 @@ package com.final_app.interfaces;
 
 import com.final_app.models.SpeakingTest;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -14,6 +16,8 @@ public interface ISpeakingTestRepository {
     CompletableFuture<Void> deleteSpeakingTestById(String id);
 
     CompletableFuture<Iterable<SpeakingTest>> getAllSpeakingTests();
+    // Delta read for the synchronization: speaking tests changed after the given time
+    CompletableFuture<List<SpeakingTest>> getSpeakingTestsUpdatedSince(Date since);
     CompletableFuture<Iterable<SpeakingTest>> getAllSpeakingTestsFromLanguage(String languageId);
     CompletableFuture<Iterable<SpeakingTest>> getAllSpeakingTestsFromLevel(String levelId);
 }
@@ -1,10 +1,13 @@
 package com.final_app.interfaces;
 
+import com.final_app.globals.FetchPlan;
 import com.final_app.models.User;
 import com.final_app.models.UserConversation;
 import com.final_app.models.UserConversationChainItem;
+import com.final_app.models.UserConversationGroup;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -13,9 +16,20 @@ public interface IUserConversationsRepository {
     CompletableFuture<Void> addUserConversation(UserConversation userConversation);
     CompletableFuture<Void> updateUserConversation(UserConversation userConversation);
     CompletableFuture<Optional<UserConversation>> getUserConversationById(String id);
+    CompletableFuture<Optional<UserConversation>> getUserConversationById(String id, FetchPlan fetchPlan);
     CompletableFuture<Void> deleteUserConversationById(String id);
     CompletableFuture<Iterable<UserConversation>> getAllUserConversationsFromUser(String userId);
+    CompletableFuture<Iterable<UserConversation>> getAllUserConversationsFromUser(String userId, FetchPlan fetchPlan);
+    // Delta read for the synchronization: user conversations of the user updated after the given time
+    CompletableFuture<List<UserConversation>> getUserConversationsFromUserUpdatedSince(String userId, Date since, FetchPlan fetchPlan);
+    // Keyset page on (updatedAt, id), most recent first; after is the last item of the previous page or null
+    CompletableFuture<List<UserConversation>> getUserConversationsPageFromUser(String userId, UserConversation after, int pageSize);
+    // The same page limited to the attempts of one conversation, all conversations when conversationId is null
+    CompletableFuture<List<UserConversation>> getUserConversationsPageFromUser(String userId, String conversationId, UserConversation after, int pageSize);
+    // Per attempted conversation the most recent attempt and the attempt totals, most recently updated first
+    CompletableFuture<List<UserConversationGroup>> getUserConversationGroupsFromUser(String userId);
     CompletableFuture<Iterable<UserConversation>> getUserConversationsByUserAndConversationId(String userId, String conversationId);
+    CompletableFuture<Iterable<UserConversation>> getUserConversationsByUserAndConversationId(String userId, String conversationId, FetchPlan fetchPlan);
 
     CompletableFuture<Void> addUserConversationChainItem(UserConversationChainItem userConversationChainItem);
     CompletableFuture<Optional<UserConversationChainItem>> getUserConversationChainItemById(String id);
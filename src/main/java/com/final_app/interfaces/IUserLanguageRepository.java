@@ -2,6 +2,8 @@ package com.final_app.interfaces;
 
 import com.final_app.models.UserLanguage;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -12,4 +14,6 @@ public interface IUserLanguageRepository {
     CompletableFuture<Optional<UserLanguage>> getUserLanguageByLanguageIdAndUserId(String languageId, String userId);
     CompletableFuture<Void> deleteUserLanguageById(String id);
     CompletableFuture<Iterable<UserLanguage>> getAllUserLanguagesFromUser(String userId);
+    // Delta read for the synchronization: user languages of the user changed after the given time
+    CompletableFuture<List<UserLanguage>> getUserLanguagesFromUserUpdatedSince(String userId, Date since);
 }
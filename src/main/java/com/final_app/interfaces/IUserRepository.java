@@ -1,9 +1,11 @@
 package com.final_app.interfaces;
 
+import com.final_app.models.ActivityStats;
 import com.final_app.models.User;
 import com.final_app.models.UserStats;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -31,4 +33,7 @@ public interface IUserRepository {
     CompletableFuture<Void> deleteUserStatsById(String id);
     CompletableFuture<Void> deleteUserStatsByUserId(String userId);
     CompletableFuture<List<UserStats>> getAllUserStats();
+
+    // Aggregated conversation and speaking test counts, in total and within [weekStart, weekEnd)
+    CompletableFuture<ActivityStats> getActivityStats(String userId, Date weekStart, Date weekEnd);
 }
@@ -0,0 +1,35 @@
+package com.final_app.models;
+
+/**
+ * Aggregated activity counts of a user, as shown on the dashboard.
+ * Computed by the database instead of loading every conversation and test.
+ */
+public class ActivityStats {
+    private final long totalConversations;
+    private final long conversationsThisWeek;
+    private final long totalSpeakingTests;
+    private final long speakingTestsThisWeek;
+
+    public ActivityStats(long totalConversations, long conversationsThisWeek, long totalSpeakingTests, long speakingTestsThisWeek) {
+        this.totalConversations = totalConversations;
+        this.conversationsThisWeek = conversationsThisWeek;
+        this.totalSpeakingTests = totalSpeakingTests;
+        this.speakingTestsThisWeek = speakingTestsThisWeek;
+    }
+
+    public long getTotalConversations() {
+        return totalConversations;
+    }
+
+    public long getConversationsThisWeek() {
+        return conversationsThisWeek;
+    }
+
+    public long getTotalSpeakingTests() {
+        return totalSpeakingTests;
+    }
+
+    public long getSpeakingTestsThisWeek() {
+        return speakingTestsThisWeek;
+    }
+}
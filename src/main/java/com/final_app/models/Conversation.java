@@ -1,10 +1,13 @@
 package com.final_app.models;
 
 import com.final_app.globals.AIModels;
+import com.final_app.tools.ContentHash;
+import com.google.cloud.firestore.annotation.IgnoreExtraProperties;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+@IgnoreExtraProperties
 public class Conversation {
     private String id;
     private String title;
@@ -16,6 +19,7 @@ public class Conversation {
     private String startPrompt;
     private String model;
     private Date lastUpdate;
+    private Date serverUpdatedAt;
 
     // Object references - these aren't directly stored in the db
     private Language language;
@@ -151,6 +155,18 @@ public class Conversation {
         this.lastUpdate = lastUpdate;
     }
 
+    public Date getServerUpdatedAt() {
+        return serverUpdatedAt;
+    }
+
+    public void setServerUpdatedAt(Date serverUpdatedAt) {
+        this.serverUpdatedAt = serverUpdatedAt;
+    }
+
+    public String getContentHash() {
+        return ContentHash.ofEntity(this);
+    }
+
     // Object reference getters and setters
     public Language getLanguage() {
         return language;
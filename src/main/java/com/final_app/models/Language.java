@@ -1,7 +1,11 @@
 package com.final_app.models;
 
+import com.final_app.tools.ContentHash;
+import com.google.cloud.firestore.annotation.IgnoreExtraProperties;
+
 import java.util.Date;
 
+@IgnoreExtraProperties
 public class Language {
     private String id;
     private String systemId;
@@ -10,12 +14,22 @@ public class Language {
     private String color;
     private long maxXp;
     private Date lastUpdate;
+    private Date serverUpdatedAt;
 
     private LanguageLevelSystem languageLevelSystem;
 
     // Default constructor
     public Language() {
     }
+    /**
+     * Copy of the language, its language level system is copied as well
+     */
+    public Language(Language other) {
+        this(other.id, other.systemId, other.name, other.iso, other.color, other.maxXp);
+        this.lastUpdate = other.lastUpdate;
+        this.serverUpdatedAt = other.serverUpdatedAt;
+        this.languageLevelSystem = other.languageLevelSystem != null ? new LanguageLevelSystem(other.languageLevelSystem) : null;
+    }
 
     // Constructor with id
     public Language(String id, String systemId, String name, String iso, String color, long maxXp) {
@@ -100,6 +114,18 @@ public class Language {
         this.lastUpdate = lastUpdate;
     }
 
+    public Date getServerUpdatedAt() {
+        return serverUpdatedAt;
+    }
+
+    public void setServerUpdatedAt(Date serverUpdatedAt) {
+        this.serverUpdatedAt = serverUpdatedAt;
+    }
+
+    public String getContentHash() {
+        return ContentHash.ofEntity(this);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
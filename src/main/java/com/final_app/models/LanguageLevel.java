@@ -1,17 +1,27 @@
 package com.final_app.models;
 
+import com.final_app.tools.ContentHash;
+import com.google.cloud.firestore.annotation.IgnoreExtraProperties;
+
 import java.util.Date;
 
+@IgnoreExtraProperties
 public class LanguageLevel {
     private String id;
     private String systemId;
     private String name;
     private int value;
     private Date lastUpdate;
+    private Date serverUpdatedAt;
 
     // Default constructor
     public LanguageLevel() {
     }
+    public LanguageLevel(LanguageLevel other) {
+        this(other.id, other.systemId, other.name, other.value);
+        this.lastUpdate = other.lastUpdate;
+        this.serverUpdatedAt = other.serverUpdatedAt;
+    }
 
     // Constructor with id
     public LanguageLevel(String id, String systemId, String name, int value) {
@@ -78,6 +88,18 @@ public class LanguageLevel {
         this.lastUpdate = lastUpdate;
     }
 
+    public Date getServerUpdatedAt() {
+        return serverUpdatedAt;
+    }
+
+    public void setServerUpdatedAt(Date serverUpdatedAt) {
+        this.serverUpdatedAt = serverUpdatedAt;
+    }
+
+    public String getContentHash() {
+        return ContentHash.ofEntity(this);
+    }
+
     public int getLevelThreshold(){
         final int FIRST = 1;
         final int STEP = 5;
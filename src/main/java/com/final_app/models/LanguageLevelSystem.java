@@ -1,18 +1,39 @@
 package com.final_app.models;
 
+import com.final_app.tools.ContentHash;
+import com.google.cloud.firestore.annotation.IgnoreExtraProperties;
+
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+@IgnoreExtraProperties
 public class LanguageLevelSystem {
     private String id;
     private String description;
     private String name;
     private Date lastUpdate;
+    private Date serverUpdatedAt;
 
     private List<LanguageLevel> levels = new ArrayList<>();
 
     public LanguageLevelSystem(){}
+    /**
+     * Copy of the system, its levels are copied as well
+     */
+    public LanguageLevelSystem(LanguageLevelSystem other){
+        this(other.id, other.name, other.description);
+        this.lastUpdate = other.lastUpdate;
+        this.serverUpdatedAt = other.serverUpdatedAt;
+        if (other.levels != null) {
+            this.levels = new ArrayList<>();
+            for (LanguageLevel level : other.levels) {
+                this.levels.add(new LanguageLevel(level));
+            }
+        } else {
+            this.levels = null;
+        }
+    }
     public LanguageLevelSystem(String id, String name, String description){
         this.id = id;
         this.name = name;
@@ -58,4 +79,16 @@ public class LanguageLevelSystem {
     public void setLastUpdate(Date lastUpdate) {
         this.lastUpdate = lastUpdate;
     }
+
+    public Date getServerUpdatedAt() {
+        return serverUpdatedAt;
+    }
+
+    public void setServerUpdatedAt(Date serverUpdatedAt) {
+        this.serverUpdatedAt = serverUpdatedAt;
+    }
+
+    public String getContentHash() {
+        return ContentHash.ofEntity(this);
+    }
 }
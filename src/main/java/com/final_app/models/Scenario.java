@@ -1,21 +1,30 @@
 package com.final_app.models;
 
 import com.final_app.globals.Roles;
+import com.final_app.tools.ContentHash;
+import com.google.cloud.firestore.annotation.IgnoreExtraProperties;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+@IgnoreExtraProperties
 public class Scenario {
     private String id;
     private String description;
     private String role; // Stored as string in DB
     private List<String> keyPoints;
     private Date lastUpdate;
+    private Date serverUpdatedAt;
 
     // Default constructor
     public Scenario() {
         this.keyPoints = new ArrayList<>();
     }
+    public Scenario(Scenario other) {
+        this(other.id, other.description, other.role, other.keyPoints != null ? new ArrayList<>(other.keyPoints) : null);
+        this.lastUpdate = other.lastUpdate;
+        this.serverUpdatedAt = other.serverUpdatedAt;
+    }
 
     // Constructor with id
     public Scenario(String id, String description, String role) {
@@ -119,4 +128,16 @@ public class Scenario {
     public void setLastUpdate(Date lastUpdate) {
         this.lastUpdate = lastUpdate;
     }
+
+    public Date getServerUpdatedAt() {
+        return serverUpdatedAt;
+    }
+
+    public void setServerUpdatedAt(Date serverUpdatedAt) {
+        this.serverUpdatedAt = serverUpdatedAt;
+    }
+
+    public String getContentHash() {
+        return ContentHash.ofEntity(this);
+    }
 }
@@ -11,6 +11,10 @@ public class ScenarioKeyPoint{
     // Default constructor
     public ScenarioKeyPoint() {
     }
+    public ScenarioKeyPoint(ScenarioKeyPoint other) {
+        this(other.id, other.scenarioId, other.keyPoint);
+        this.lastUpdate = other.lastUpdate;
+    }
 
     // Constructor with id
     public ScenarioKeyPoint(String id, String scenarioId, String keyPoint) {
@@ -1,8 +1,12 @@
 package com.final_app.models;
 
+import com.final_app.tools.ContentHash;
+import com.google.cloud.firestore.annotation.IgnoreExtraProperties;
+
 import java.util.Date;
 import java.util.List;
 
+@IgnoreExtraProperties
 public class SpeakingTest {
     private String id;
     private String title;
@@ -14,6 +18,7 @@ public class SpeakingTest {
     private String grammarFocus; // e.g., "Past Tense", "Modal Verbs"
     private String vocabularyTheme; // e.g., "Travel", "Workplace"
     private Date lastUpdate;
+    private Date serverUpdatedAt;
 
     private int maxScore;
 
@@ -137,6 +142,18 @@ public class SpeakingTest {
         this.lastUpdate = lastUpdate;
     }
 
+    public Date getServerUpdatedAt() {
+        return serverUpdatedAt;
+    }
+
+    public void setServerUpdatedAt(Date serverUpdatedAt) {
+        this.serverUpdatedAt = serverUpdatedAt;
+    }
+
+    public String getContentHash() {
+        return ContentHash.ofEntity(this);
+    }
+
     public int getMaxScore() {
         return maxScore;
     }
@@ -1,8 +1,12 @@
 package com.final_app.models;
 
+import com.final_app.tools.ContentHash;
+import com.google.cloud.firestore.annotation.IgnoreExtraProperties;
+
 import java.util.Date;
 import java.util.List;
 
+@IgnoreExtraProperties
 public class SpeakingTestQuestion {
     private String id;
     private String testId;
@@ -13,6 +17,7 @@ public class SpeakingTestQuestion {
     private int difficultyLevel;
     private int orderIndex;
     private Date lastUpdate;
+    private Date serverUpdatedAt;
 
     public SpeakingTestQuestion(){
 
@@ -98,6 +103,18 @@ public class SpeakingTestQuestion {
         this.lastUpdate = lastUpdate;
     }
 
+    public Date getServerUpdatedAt() {
+        return serverUpdatedAt;
+    }
+
+    public void setServerUpdatedAt(Date serverUpdatedAt) {
+        this.serverUpdatedAt = serverUpdatedAt;
+    }
+
+    public String getContentHash() {
+        return ContentHash.ofEntity(this);
+    }
+
     public String getExpectedResponseLanguageIso() {
         return expectedResponseLanguageIso;
     }
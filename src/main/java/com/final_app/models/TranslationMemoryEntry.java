@@ -0,0 +1,79 @@
+package com.final_app.models;
+
+import java.util.Date;
+
+/**
+ * A machine translation that was made before: the text in the source language and its translation by a model.
+ * The source hash covers the source text and the instructions the translation was made with.
+ */
+public class TranslationMemoryEntry {
+    private String sourceHash;
+    private String sourceLanguage;
+    private String targetLanguage;
+    private String model;
+    private String sourceText;
+    private String translatedText;
+    private Date createdAt;
+
+    public TranslationMemoryEntry() {}
+
+    public TranslationMemoryEntry(String sourceHash, String sourceLanguage, String targetLanguage, String model,
+                                  String sourceText, String translatedText) {
+        this.sourceHash = sourceHash;
+        this.sourceLanguage = sourceLanguage;
+        this.targetLanguage = targetLanguage;
+        this.model = model;
+        this.sourceText = sourceText;
+        this.translatedText = translatedText;
+        this.createdAt = new Date();
+    }
+
+    public String getSourceHash() {
+        return sourceHash;
+    }
+    public void setSourceHash(String sourceHash) {
+        this.sourceHash = sourceHash;
+    }
+
+    public String getSourceLanguage() {
+        return sourceLanguage;
+    }
+    public void setSourceLanguage(String sourceLanguage) {
+        this.sourceLanguage = sourceLanguage;
+    }
+
+    public String getTargetLanguage() {
+        return targetLanguage;
+    }
+    public void setTargetLanguage(String targetLanguage) {
+        this.targetLanguage = targetLanguage;
+    }
+
+    public String getModel() {
+        return model;
+    }
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public String getSourceText() {
+        return sourceText;
+    }
+    public void setSourceText(String sourceText) {
+        this.sourceText = sourceText;
+    }
+
+    public String getTranslatedText() {
+        return translatedText;
+    }
+    public void setTranslatedText(String translatedText) {
+        this.translatedText = translatedText;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
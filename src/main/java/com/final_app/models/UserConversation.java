@@ -7,6 +7,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class UserConversation {
     private String id;
@@ -20,10 +21,15 @@ public class UserConversation {
     private List<Message> messages;
     private Evaluation evaluation;
 
+    // Loaders for lazily fetched relations, cleared once they have run successfully
+    private Supplier<List<Message>> messagesLoader;
+    private Supplier<Evaluation> evaluationLoader;
+
     // Timestamps
     private Date createdAt;
     private Date updatedAt;
     private Date completedAt;
+    private Date serverUpdatedAt;
 
     // Default constructor
     public UserConversation() {
@@ -161,29 +167,79 @@ public class UserConversation {
         }
     }
 
-    public List<Message> getMessages() {
+    public synchronized List<Message> getMessages() {
+        if (messagesLoader != null) {
+            List<Message> loaded;
+            try {
+                loaded = messagesLoader.get();
+            } catch (RuntimeException e) {
+                // The loader is kept, the next access tries again
+                System.err.println("Error loading the messages of user conversation " + id + ": " + e.getMessage());
+                throw e;
+            }
+            messagesLoader = null;
+            this.messages = loaded != null ? loaded : new ArrayList<>();
+        }
         return messages;
     }
 
-    public void setMessages(List<Message> messages) {
+    public synchronized void setMessages(List<Message> messages) {
+        this.messagesLoader = null;
         this.messages = messages;
     }
 
     public void addMessage(Message message) {
-        if (this.messages == null) {
-            this.messages = new ArrayList<>();
+        List<Message> current = getMessages();
+        synchronized (this) {
+            if (current == null) {
+                this.messages = new ArrayList<>();
+            }
+            this.messages.add(message);
         }
-        this.messages.add(message);
     }
 
-    public Evaluation getEvaluation() {
+    public synchronized Evaluation getEvaluation() {
+        if (evaluationLoader != null) {
+            Evaluation loaded;
+            try {
+                loaded = evaluationLoader.get();
+            } catch (RuntimeException e) {
+                // The loader is kept, the next access tries again
+                System.err.println("Error loading the evaluation of user conversation " + id + ": " + e.getMessage());
+                throw e;
+            }
+            evaluationLoader = null;
+            this.evaluation = loaded;
+        }
         return evaluation;
     }
 
-    public void setEvaluation(Evaluation evaluation) {
+    public synchronized void setEvaluation(Evaluation evaluation) {
+        this.evaluationLoader = null;
         this.evaluation = evaluation;
     }
 
+    /**
+     * Defer loading the messages until {@link #getMessages()} is first called
+     */
+    public synchronized void loadMessagesWith(Supplier<List<Message>> loader) {
+        this.messagesLoader = loader;
+    }
+
+    /**
+     * Defer loading the evaluation until {@link #getEvaluation()} is first called
+     */
+    public synchronized void loadEvaluationWith(Supplier<Evaluation> loader) {
+        this.evaluationLoader = loader;
+    }
+
+    /**
+     * True once the messages are in memory, without triggering the lazy load
+     */
+    public synchronized boolean hasLoadedMessages() {
+        return messagesLoader == null;
+    }
+
     public Date getCreatedAt(){
         return createdAt;
     }
@@ -202,6 +258,12 @@ public class UserConversation {
     public void setCompletedAt(Date completedAt){
         this.completedAt = completedAt;
     }
+    public Date getServerUpdatedAt(){
+        return serverUpdatedAt;
+    }
+    public void setServerUpdatedAt(Date serverUpdatedAt){
+        this.serverUpdatedAt = serverUpdatedAt;
+    }
 
     @Override
     public String toString() {
@@ -0,0 +1,42 @@
+package com.final_app.models;
+
+/**
+ * The attempts of a user at one conversation, summarized: the most recent attempt and the totals the
+ * conversations overview shows, so the overview does not load every attempt.
+ */
+public class UserConversationGroup {
+    private final UserConversation latest;
+    private final int attempts;
+    private final int completed;
+    private final int averageScore;
+
+    /**
+     * @param averageScore average score of the evaluated completed attempts in percent, 0 when there are none
+     */
+    public UserConversationGroup(UserConversation latest, int attempts, int completed, int averageScore) {
+        this.latest = latest;
+        this.attempts = attempts;
+        this.completed = completed;
+        this.averageScore = averageScore;
+    }
+
+    public String getConversationId() {
+        return latest.getConversationId();
+    }
+
+    public UserConversation getLatest() {
+        return latest;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public int getAverageScore() {
+        return averageScore;
+    }
+}
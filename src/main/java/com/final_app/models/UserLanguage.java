@@ -1,7 +1,11 @@
 package com.final_app.models;
 
+import com.final_app.tools.ContentHash;
+import com.google.cloud.firestore.annotation.IgnoreExtraProperties;
+
 import java.util.Date;
 
+@IgnoreExtraProperties
 public class UserLanguage {
     private String id;
     private String userId;
@@ -9,6 +13,7 @@ public class UserLanguage {
     private String levelId;
     private long xp;
     private Date lastUpdate;
+    private Date serverUpdatedAt;
 
     // For convenience, these fields won't be stored in the db but can be loaded
     private Language language;
@@ -116,4 +121,16 @@ public class UserLanguage {
     public void setLastUpdate(Date lastUpdate) {
         this.lastUpdate = lastUpdate;
     }
+
+    public Date getServerUpdatedAt() {
+        return serverUpdatedAt;
+    }
+
+    public void setServerUpdatedAt(Date serverUpdatedAt) {
+        this.serverUpdatedAt = serverUpdatedAt;
+    }
+
+    public String getContentHash() {
+        return ContentHash.ofEntity(this);
+    }
 }
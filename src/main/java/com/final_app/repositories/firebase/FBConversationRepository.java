@@ -1,13 +1,11 @@
 package com.final_app.repositories.firebase;
 
-import com.final_app.factories.RepositoryFactory;
 import com.final_app.interfaces.IConversationRepository;
-// Assuming these interfaces remain, but their implementations (accessed via RepositoryFactory)
-// will be updated to return CompletableFuture and potentially use Firestore.
-import com.final_app.interfaces.ILanguageRepository;
-import com.final_app.interfaces.IScenarioRepository;
 import com.final_app.models.*;
+import com.final_app.repositories.firebase.utils.FirestoreBatchLoader;
+import com.final_app.repositories.firebase.utils.FirestoreChangeLog;
 import com.final_app.repositories.firebase.utils.FirestoreFutureUtils; // Ensure this utility is available and correct
+import com.final_app.repositories.firebase.utils.FirestoreSyncDigests;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import org.slf4j.Logger;
@@ -15,10 +13,17 @@ import org.slf4j.LoggerFactory;
 // Remove Realtime Database imports if no longer needed anywhere in the class
 // import com.google.firebase.database.*;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class FBConversationRepository implements IConversationRepository {
@@ -26,16 +31,19 @@ public class FBConversationRepository implements IConversationRepository {
     private static final String CONVERSATIONS_COLLECTION_NAME = "conversations";
     private static final String CONVERSATION_CHAINS_COLLECTION_NAME = "conversationChains";
     private static final String CONVERSATION_CHAIN_ITEMS_COLLECTION_NAME = "conversationChainItems";
+    // Firestore accepts at most 500 writes per batch, each document takes two with its change time
+    private static final int MAX_BATCH_SIZE = 250;
 
     private final Firestore firestoreDb;
     private final CollectionReference conversationCollection;
     private final CollectionReference conversationChainCollection;
     private final CollectionReference conversationChainItemCollection;
 
-    // IMPORTANT: Assumes RepositoryFactory provides instances (potentially Firestore-based)
-    // that return CompletableFuture for async operations.
-    private final ILanguageRepository languageRepository = RepositoryFactory.getLanguageRepository();
-    private final IScenarioRepository scenarioRepository = RepositoryFactory.getScenarioRepository(); // Assuming this exists and is needed
+    // Firestore repositories of the related objects, used for their batched lookups
+    private final FBLanguageRepository languageRepository = FBLanguageRepository.getInstance();
+    private final FBScenarioRepository scenarioRepository = FBScenarioRepository.getInstance();
+    // Live copy of the conversations collection, answers reads without a query
+    private final FirestoreReferenceStore referenceStore = FirestoreReferenceStore.getInstance();
 
     private static FBConversationRepository instance = null;
 
@@ -66,11 +74,34 @@ public class FBConversationRepository implements IConversationRepository {
                 conversationCollection.document().getId() : conversation.getId();
         conversation.setId(id);
 
-        ApiFuture<WriteResult> future = conversationCollection.document(id).set(conversation);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.set(conversationCollection.document(id), conversation);
+        return FirestoreFutureUtils.toVoidCompletableFuture(conversationCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding conversation {}", id, ex); });
     }
 
+    @Override
+    public CompletableFuture<Void> addConversations(List<Conversation> conversations) {
+        if (conversations == null || conversations.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        FirestoreSyncDigests.invalidate(conversationCollection);
+        List<CompletableFuture<List<WriteResult>>> commits = new ArrayList<>();
+        for (int start = 0; start < conversations.size(); start += MAX_BATCH_SIZE) {
+            WriteBatch batch = firestoreDb.batch();
+            for (Conversation conversation : conversations.subList(start, Math.min(start + MAX_BATCH_SIZE, conversations.size()))) {
+                if (conversation.getId() == null || conversation.getId().isEmpty()) {
+                    conversation.setId(conversationCollection.document().getId());
+                }
+                FirestoreChangeLog.set(batch, conversationCollection.document(conversation.getId()), conversation);
+            }
+            commits.add(FirestoreFutureUtils.toCompletableFuture(conversationCollection.getId(), batch::commit));
+        }
+
+        return CompletableFuture.allOf(commits.toArray(new CompletableFuture[0]))
+                .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding batch of {} conversations", conversations.size(), ex); });
+    }
+
     @Override
     public CompletableFuture<Void> updateConversation(Conversation conversation) {
         if(conversation.getId() == null || conversation.getId().isEmpty()){
@@ -78,21 +109,26 @@ public class FBConversationRepository implements IConversationRepository {
             return CompletableFuture.failedFuture(new IllegalArgumentException("Conversation ID missing for update."));
         }
         // Use set with merge to avoid overwriting fields not included in the conversation object
-        ApiFuture<WriteResult> future = conversationCollection.document(conversation.getId()).set(conversation, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.merge(conversationCollection.document(conversation.getId()), conversation);
+        return FirestoreFutureUtils.toVoidCompletableFuture(conversationCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating conversation {}", conversation.getId(), ex); });
     }
 
     @Override
     public CompletableFuture<Optional<Conversation>> getConversationById(String id) {
+        return referenceStore.conversations().readById(id, () -> fetchConversationById(id))
+                .thenCompose(conversation -> conversation.isPresent()
+                        ? mapConnectedObjects(conversation.get()).thenApply(v -> conversation)
+                        : CompletableFuture.completedFuture(conversation));
+    }
+
+    private CompletableFuture<Optional<Conversation>> fetchConversationById(String id) {
         if (id == null || id.isEmpty()) {
             log.warn("getConversationById called with null or empty ID.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
         DocumentReference docRef = conversationCollection.document(id);
-        ApiFuture<DocumentSnapshot> futureSnapshot = docRef.get();
-
-        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(futureSnapshot);
+        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(conversationCollection, docRef::get);
 
         return cfSnapshot.thenCompose(snapshot -> {
             if (snapshot.exists()) {
@@ -123,15 +159,20 @@ public class FBConversationRepository implements IConversationRepository {
             log.warn("Attempted to delete conversation with null or empty ID.");
             return CompletableFuture.completedFuture(null); // Or failedFuture? Decide policy.
         }
-        ApiFuture<WriteResult> future = conversationCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.delete(conversationCollection.document(id));
+        return FirestoreFutureUtils.toVoidCompletableFuture(conversationCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting conversation {}", id, ex); });
     }
 
     @Override
     public CompletableFuture<Iterable<Conversation>> getAllConversations() {
-        ApiFuture<QuerySnapshot> futureQuery = conversationCollection.get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        return referenceStore.conversations().read(conversations -> (Iterable<Conversation>) new ArrayList<>(conversations.values()), this::fetchAllConversations)
+                .thenCompose(this::mapConversations);
+    }
+
+    private CompletableFuture<Iterable<Conversation>> fetchAllConversations() {
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> conversationCollection.get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(conversationCollection, futureQuery);
 
         return cfQuery.thenCompose(querySnapshot -> {
             List<Conversation> conversations = querySnapshot.getDocuments().stream()
@@ -147,11 +188,8 @@ public class FBConversationRepository implements IConversationRepository {
                 return CompletableFuture.completedFuture(conversations); // Return empty list directly
             }
 
-            List<CompletableFuture<Void>> mappingFutures = conversations.stream()
-                    .map(this::mapConnectedObjects)
-                    .collect(Collectors.toList());
-
-            return CompletableFuture.allOf(mappingFutures.toArray(new CompletableFuture[0]))
+            // Resolve the languages, levels and scenarios of all conversations at once
+            return mapConversations(conversations)
                     .thenApply(v -> (Iterable<Conversation>) conversations); // Return mapped list
         }).exceptionally(ex -> { // Handle errors during query or mapping
             log.error("Error getting all conversations or mapping related objects", ex);
@@ -159,15 +197,42 @@ public class FBConversationRepository implements IConversationRepository {
         });
     }
 
+    @Override
+    public CompletableFuture<List<Conversation>> getConversationsUpdatedSince(Date since) {
+        return referenceStore.conversations().readUpdatedSince(since, Conversation::getServerUpdatedAt, () -> fetchConversationsUpdatedSince(since))
+                .thenCompose(this::mapConversations);
+    }
+
+    private CompletableFuture<List<Conversation>> fetchConversationsUpdatedSince(Date since) {
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> conversationCollection.whereGreaterThan(FirestoreChangeLog.CHANGED_AT, since).get();
+        return FirestoreFutureUtils.toCompletableFuture(conversationCollection, future)
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(snapshot -> {
+                            Conversation conv = snapshot.toObject(Conversation.class);
+                            if (conv != null) conv.setId(snapshot.getId());
+                            return conv;
+                        })
+                        .filter(java.util.Objects::nonNull)
+                        .collect(Collectors.toList()))
+                .whenComplete((res, ex) -> { if (ex != null) log.error("Error getting conversations updated since {}", since, ex); });
+    }
+
 
     @Override
     public CompletableFuture<Iterable<Conversation>> getAllConversationsByLanguage(String languageId) {
+        return referenceStore.conversations().read(conversations -> (Iterable<Conversation>) conversations.values().stream()
+                        .filter(conversation -> languageId != null && languageId.equals(conversation.getLanguageId()))
+                        .collect(Collectors.toList()), () -> fetchAllConversationsByLanguage(languageId))
+                .thenCompose(this::mapConversations);
+    }
+
+    private CompletableFuture<Iterable<Conversation>> fetchAllConversationsByLanguage(String languageId) {
         if (languageId == null || languageId.isEmpty()) {
             log.warn("getAllConversationsByLanguage called with null or empty languageId.");
             return CompletableFuture.completedFuture(List.of());
         }
-        ApiFuture<QuerySnapshot> futureQuery = conversationCollection.whereEqualTo("languageId", languageId).get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> conversationCollection.whereEqualTo("languageId", languageId).get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(conversationCollection, futureQuery);
 
         return cfQuery.thenCompose(querySnapshot -> {
             List<Conversation> conversations = querySnapshot.getDocuments().stream()
@@ -183,11 +248,7 @@ public class FBConversationRepository implements IConversationRepository {
                 return CompletableFuture.completedFuture(conversations);
             }
 
-            List<CompletableFuture<Void>> mappingFutures = conversations.stream()
-                    .map(this::mapConnectedObjects)
-                    .collect(Collectors.toList());
-
-            return CompletableFuture.allOf(mappingFutures.toArray(new CompletableFuture[0]))
+            return mapConversations(conversations)
                     .thenApply(v -> (Iterable<Conversation>) conversations);
         }).exceptionally(ex -> {
             log.error("Error getting conversations by language ID {} or mapping", languageId, ex);
@@ -197,12 +258,19 @@ public class FBConversationRepository implements IConversationRepository {
 
     @Override
     public CompletableFuture<Iterable<Conversation>> getAllConversationsByLevel(String levelId) {
+        return referenceStore.conversations().read(conversations -> (Iterable<Conversation>) conversations.values().stream()
+                        .filter(conversation -> levelId != null && levelId.equals(conversation.getLevelId()))
+                        .collect(Collectors.toList()), () -> fetchAllConversationsByLevel(levelId))
+                .thenCompose(this::mapConversations);
+    }
+
+    private CompletableFuture<Iterable<Conversation>> fetchAllConversationsByLevel(String levelId) {
         if (levelId == null || levelId.isEmpty()) {
             log.warn("getAllConversationsByLevel called with null or empty levelId.");
             return CompletableFuture.completedFuture(List.of());
         }
-        ApiFuture<QuerySnapshot> futureQuery = conversationCollection.whereEqualTo("levelId", levelId).get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> conversationCollection.whereEqualTo("levelId", levelId).get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(conversationCollection, futureQuery);
 
         return cfQuery.thenCompose(querySnapshot -> {
             List<Conversation> conversations = querySnapshot.getDocuments().stream()
@@ -218,11 +286,7 @@ public class FBConversationRepository implements IConversationRepository {
                 return CompletableFuture.completedFuture(conversations);
             }
 
-            List<CompletableFuture<Void>> mappingFutures = conversations.stream()
-                    .map(this::mapConnectedObjects)
-                    .collect(Collectors.toList());
-
-            return CompletableFuture.allOf(mappingFutures.toArray(new CompletableFuture[0]))
+            return mapConversations(conversations)
                     .thenApply(v -> (Iterable<Conversation>) conversations);
         }).exceptionally(ex -> {
             log.error("Error getting conversations by level ID {} or mapping", levelId, ex);
@@ -259,8 +323,7 @@ public class FBConversationRepository implements IConversationRepository {
             }
         }
 
-        ApiFuture<List<WriteResult>> future = batch.commit();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return FirestoreFutureUtils.toCompletableFuture(conversationChainCollection, batch::commit)
                 .thenApply(results -> (Void) null) // Convert List<WriteResult> future to Void future
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding conversation chain {}", chainId, ex); });
     }
@@ -275,8 +338,8 @@ public class FBConversationRepository implements IConversationRepository {
             log.warn("Attempted to update conversation chain with null or empty ID.");
             return CompletableFuture.failedFuture(new IllegalArgumentException("ConversationChain ID missing for update."));
         }
-        ApiFuture<WriteResult> future = conversationChainCollection.document(conversationChain.getId()).set(conversationChain, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> conversationChainCollection.document(conversationChain.getId()).set(conversationChain, SetOptions.merge());
+        return FirestoreFutureUtils.toVoidCompletableFuture(conversationChainCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating conversation chain {}", conversationChain.getId(), ex); });
         // TODO: Implement logic to add/update/delete items within the chain if needed.
     }
@@ -287,8 +350,8 @@ public class FBConversationRepository implements IConversationRepository {
             log.warn("getConversationChainById called with null or empty ID.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
-        ApiFuture<DocumentSnapshot> futureSnapshot = conversationChainCollection.document(id).get();
-        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(futureSnapshot);
+        Supplier<ApiFuture<DocumentSnapshot>> futureSnapshot = () -> conversationChainCollection.document(id).get();
+        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(conversationChainCollection, futureSnapshot);
 
         return cfSnapshot.thenCompose(snapshot -> {
             if (snapshot.exists()) {
@@ -322,8 +385,8 @@ public class FBConversationRepository implements IConversationRepository {
         }
 
         // 1. Find all items belonging to the chain
-        ApiFuture<QuerySnapshot> itemsQueryFuture = conversationChainItemCollection.whereEqualTo("conversationChainId", id).get();
-        CompletableFuture<QuerySnapshot> cfItemsQuery = FirestoreFutureUtils.toCompletableFuture(itemsQueryFuture);
+        Supplier<ApiFuture<QuerySnapshot>> itemsQueryFuture = () -> conversationChainItemCollection.whereEqualTo("conversationChainId", id).get();
+        CompletableFuture<QuerySnapshot> cfItemsQuery = FirestoreFutureUtils.toCompletableFuture(conversationChainItemCollection, itemsQueryFuture);
 
         // 2. Use thenCompose to perform deletion after query completes
         return cfItemsQuery.thenCompose(querySnapshot -> {
@@ -335,8 +398,7 @@ public class FBConversationRepository implements IConversationRepository {
                     // Delete the main chain document
                     batch.delete(conversationChainCollection.document(id));
                     // Commit the batch
-                    ApiFuture<List<WriteResult>> commitFuture = batch.commit();
-                    return FirestoreFutureUtils.toCompletableFuture(commitFuture); // Return future for commit
+                    return FirestoreFutureUtils.toCompletableFuture(conversationChainCollection, batch::commit); // Return future for commit
                 }).thenApply(results -> (Void) null) // Convert List<WriteResult> future to Void future
                 .exceptionally(ex -> { // Handle errors during query or delete
                     log.error("Error deleting conversation chain {} and its items", id, ex);
@@ -347,8 +409,8 @@ public class FBConversationRepository implements IConversationRepository {
 
     @Override
     public CompletableFuture<Iterable<ConversationChain>> getAllConversationChains() {
-        ApiFuture<QuerySnapshot> futureQuery = conversationChainCollection.get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> conversationChainCollection.get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(conversationChainCollection, futureQuery);
 
         return cfQuery.thenCompose(querySnapshot -> {
             List<ConversationChain> chains = querySnapshot.getDocuments().stream()
@@ -364,11 +426,7 @@ public class FBConversationRepository implements IConversationRepository {
                 return CompletableFuture.completedFuture(chains);
             }
 
-            List<CompletableFuture<Void>> mappingFutures = chains.stream()
-                    .map(this::mapConnectedObjects) // Map language, level, items for each chain
-                    .collect(Collectors.toList());
-
-            return CompletableFuture.allOf(mappingFutures.toArray(new CompletableFuture[0]))
+            return mapConversationChains(chains) // Map language, level, items of all chains at once
                     .thenApply(v -> (Iterable<ConversationChain>) chains);
         }).exceptionally(ex -> {
             log.error("Error getting all conversation chains or mapping", ex);
@@ -377,94 +435,122 @@ public class FBConversationRepository implements IConversationRepository {
     }
 
 
+    /**
+     * Load several conversations (with their related objects) from the live store, else with batched reads, keyed by ID
+     */
+    public CompletableFuture<Map<String, Conversation>> getConversationsByIds(Collection<String> ids) {
+        return referenceStore.conversations().readAll(ids, () -> fetchConversationsByIds(ids))
+                .thenCompose(conversations -> mapConversations(conversations.values()).thenApply(v -> conversations));
+    }
+
+    private CompletableFuture<Map<String, Conversation>> fetchConversationsByIds(Collection<String> ids) {
+        return FirestoreBatchLoader.getAll(conversationCollection, ids, Conversation.class, Conversation::setId)
+                .thenCompose(conversations -> mapConversations(new ArrayList<>(conversations.values())).thenApply(v -> conversations))
+                .whenComplete((res, ex) -> { if (ex != null) log.error("Error getting {} conversations by ID", ids.size(), ex); });
+    }
+
     // --- Mapping Helper Methods ---
-    // IMPORTANT: These assume languageRepository and scenarioRepository have been updated
-    // to return CompletableFuture<Optional<...>> (likely fetching from Firestore).
+    // The related objects of a whole result are resolved together: the referenced IDs are collected,
+    // de-duplicated and fetched with batched reads, instead of one lookup per row.
 
     private CompletableFuture<Void> mapConnectedObjects(Conversation conversation) {
         if (conversation == null) return CompletableFuture.completedFuture(null);
+        return mapConversations(Collections.singletonList(conversation)).thenApply(v -> null);
+    }
 
-        // Fetch related objects asynchronously
-        // Assumes ILanguageRepository and IScenarioRepository methods now return CompletableFuture
+    private <C extends Iterable<Conversation>> CompletableFuture<C> mapConversations(C conversations) {
+        List<String> languageIds = new ArrayList<>();
+        List<String> levelIds = new ArrayList<>();
+        List<String> scenarioIds = new ArrayList<>();
+        for (Conversation conversation : conversations) {
+            if (conversation.getLanguage() == null) languageIds.add(conversation.getLanguageId());
+            if (conversation.getLanguageLevel() == null) levelIds.add(conversation.getLevelId());
+            if (conversation.getScenario() == null) scenarioIds.add(conversation.getScenarioId());
+        }
 
-        CompletableFuture<Optional<Language>> langFuture = (conversation.getLanguage() == null) ? languageRepository.getLanguageById(conversation.getLanguageId()) : CompletableFuture.completedFuture(Optional.of(conversation.getLanguage()));
-        CompletableFuture<Optional<LanguageLevel>> levelFuture = (conversation.getLanguageLevel() == null) ? languageRepository.getLanguageLevelById(conversation.getLevelId()) : CompletableFuture.completedFuture(Optional.of(conversation.getLanguageLevel()));
-        CompletableFuture<Optional<Scenario>> scenarioFuture = (conversation.getScenario() == null) ? scenarioRepository.getScenarioById(conversation.getScenarioId()) : CompletableFuture.completedFuture(Optional.of(conversation.getScenario()));
+        CompletableFuture<Map<String, Language>> langFuture = languageRepository.getLanguagesByIds(languageIds);
+        CompletableFuture<Map<String, LanguageLevel>> levelFuture = languageRepository.getLanguageLevelsByIds(levelIds);
+        CompletableFuture<Map<String, Scenario>> scenarioFuture = scenarioRepository.getScenariosByIds(scenarioIds);
 
         // Combine futures and set objects when all complete
         return CompletableFuture.allOf(langFuture, levelFuture, scenarioFuture)
                 .thenAccept(voidResult -> {
                     // Use join() here because allOf ensures they are complete
-                    if(conversation.getLanguage() == null){
-                        langFuture.join().ifPresent(conversation::setLanguage);
-                    }
-                    if(conversation.getLanguageLevel() == null){
-                        levelFuture.join().ifPresent(conversation::setLanguageLevel);
+                    for (Conversation conversation : conversations) {
+                        if (conversation.getLanguage() == null && conversation.getLanguageId() != null) {
+                            Language language = langFuture.join().get(conversation.getLanguageId());
+                            if (language != null) conversation.setLanguage(language);
+                        }
+                        if (conversation.getLanguageLevel() == null && conversation.getLevelId() != null) {
+                            LanguageLevel level = levelFuture.join().get(conversation.getLevelId());
+                            if (level != null) conversation.setLanguageLevel(level);
+                        }
+                        if (conversation.getScenario() == null && conversation.getScenarioId() != null) {
+                            Scenario scenario = scenarioFuture.join().get(conversation.getScenarioId());
+                            if (scenario != null) conversation.setScenario(scenario);
+                        }
                     }
-                    if(conversation.getScenario() == null){
-                        scenarioFuture.join().ifPresent(conversation::setScenario);
-                    }
-                    updateConversation(conversation);
                 }).exceptionally(ex -> {
-                    log.error("Error mapping connected objects for Conversation {}", conversation.getId(), ex);
-                    // Decide error handling: return null, throw, log?
+                    log.error("Error mapping connected objects for conversations", ex);
                     return null;
-                });
+                }).thenApply(v -> conversations);
     }
 
     private CompletableFuture<Void> mapConnectedObjects(ConversationChain conversationChain) {
         if (conversationChain == null) return CompletableFuture.completedFuture(null);
+        return mapConversationChains(Collections.singletonList(conversationChain));
+    }
 
-        // Fetch Language and Level
-        CompletableFuture<Optional<Language>> langFuture = (conversationChain.getLanguage() == null) ? languageRepository.getLanguageById(conversationChain.getLanguageId()) : CompletableFuture.completedFuture(Optional.of(conversationChain.getLanguage()));
-        CompletableFuture<Optional<LanguageLevel>> levelFuture = (conversationChain.getLanguageLevel() == null) ? languageRepository.getLanguageLevelById(conversationChain.getLevelId()) : CompletableFuture.completedFuture(Optional.of(conversationChain.getLanguageLevel()));
-
-        // Fetch associated ConversationChainItems from Firestore
-        ApiFuture<QuerySnapshot> itemsQueryFuture =  conversationChainItemCollection
-                .whereEqualTo("conversationChainId", conversationChain.getId())
-                .orderBy("conversationIndex") // Assuming index determines order
-                .get();
-        CompletableFuture<QuerySnapshot> cfItemsQuery = (conversationChain.getConversations().isEmpty()) ? FirestoreFutureUtils.toCompletableFuture(itemsQueryFuture) : null;
-
-
-        // Process items after query: map to objects and fetch their linked Conversation
-        CompletableFuture<List<ConversationChainItem>> populatedItemsFuture = (cfItemsQuery != null) ? cfItemsQuery
-                .thenCompose(querySnapshot -> {
-                    List<ConversationChainItem> items = querySnapshot.getDocuments().stream()
-                            .map(doc -> {
-                                ConversationChainItem item = doc.toObject(ConversationChainItem.class);
-                                if (item != null) item.setId(doc.getId());
-                                return item;
-                            })
-                            .filter(java.util.Objects::nonNull)
-                            .collect(Collectors.toList());
-
-                    if (items.isEmpty()) {
-                        return CompletableFuture.completedFuture(items); // No conversations to fetch
-                    }
-
-                    // Fetch the actual Conversation object for each item (using the Firestore version)
-                    List<CompletableFuture<Void>> conversationFetchFutures = items.stream()
-                            .map(item -> getConversationById(item.getConversationId()) // Recursive call to Firestore version
-                                    .thenAccept(optConv -> optConv.ifPresent(item::setConversation))) // Set conversation on item if found
-                            .collect(Collectors.toList());
+    private CompletableFuture<Void> mapConversationChains(List<ConversationChain> chains) {
+        List<String> languageIds = new ArrayList<>();
+        List<String> levelIds = new ArrayList<>();
+        List<String> unmappedChainIds = new ArrayList<>();
+        for (ConversationChain chain : chains) {
+            if (chain.getLanguage() == null) languageIds.add(chain.getLanguageId());
+            if (chain.getLanguageLevel() == null) levelIds.add(chain.getLevelId());
+            if (chain.getConversations().isEmpty()) unmappedChainIds.add(chain.getId());
+        }
 
-                    // Return the list of items once all their conversations are fetched (or attempted)
-                    return CompletableFuture.allOf(conversationFetchFutures.toArray(new CompletableFuture[0]))
-                            .thenApply(v -> items);
-                })
-                : CompletableFuture.completedFuture(conversationChain.getConversations());
+        CompletableFuture<Map<String, Language>> langFuture = languageRepository.getLanguagesByIds(languageIds);
+        CompletableFuture<Map<String, LanguageLevel>> levelFuture = languageRepository.getLanguageLevelsByIds(levelIds);
+
+        // Fetch the items of all chains, then the conversations of all items at once
+        CompletableFuture<List<ConversationChainItem>> itemsFuture = FirestoreBatchLoader
+                .getAllWhereIn(conversationChainItemCollection, "conversationChainId", unmappedChainIds, ConversationChainItem.class, ConversationChainItem::setId)
+                .thenCompose(items -> {
+                    List<String> conversationIds = items.stream().map(ConversationChainItem::getConversationId).collect(Collectors.toList());
+                    return getConversationsByIds(conversationIds).thenApply(conversations -> {
+                        items.forEach(item -> {
+                            Conversation conversation = conversations.get(item.getConversationId());
+                            if (conversation != null) item.setConversation(conversation);
+                        });
+                        return items;
+                    });
+                });
 
         // Combine all futures (language, level, items)
-        return CompletableFuture.allOf(langFuture, levelFuture, populatedItemsFuture)
+        return CompletableFuture.allOf(langFuture, levelFuture, itemsFuture)
                 .thenAccept(voidResult -> {
-                    langFuture.join().ifPresent(conversationChain::setLanguage);
-                    levelFuture.join().ifPresent(conversationChain::setLanguageLevel);
-                    // Set the fully populated list of items
-                    conversationChain.setConversations(populatedItemsFuture.join());
+                    Map<String, List<ConversationChainItem>> itemsByChain = itemsFuture.join().stream()
+                            .sorted(Comparator.comparingInt(ConversationChainItem::getConversationIndex))
+                            .collect(Collectors.groupingBy(ConversationChainItem::getConversationChainId));
+                    for (ConversationChain chain : chains) {
+                        if (chain.getLanguage() == null && chain.getLanguageId() != null) {
+                            Language language = langFuture.join().get(chain.getLanguageId());
+                            if (language != null) chain.setLanguage(language);
+                        }
+                        if (chain.getLanguageLevel() == null && chain.getLevelId() != null) {
+                            LanguageLevel level = levelFuture.join().get(chain.getLevelId());
+                            if (level != null) chain.setLanguageLevel(level);
+                        }
+                        if (chain.getConversations().isEmpty()) {
+                            // Set the fully populated list of items
+                            chain.setConversations(new ArrayList<>(itemsByChain.getOrDefault(chain.getId(), List.of())));
+                        }
+                    }
                 }).exceptionally(ex -> {
-                    log.error("Error mapping connected objects for ConversationChain {}", conversationChain.getId(), ex);
+                    log.error("Error mapping connected objects for {} conversation chains", chains.size(), ex);
                     return null;
                 });
     }
-}
\ No newline at end of file
+}
@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport; // For Iterable stream
 
@@ -44,8 +45,8 @@ public class FBEvaluationRepository implements IEvaluationRepository {
         String id = (evaluation.getId() == null || evaluation.getId().isEmpty()) ?
                 evaluationCollection.document().getId() : evaluation.getId();
         evaluation.setId(id); // Ensure ID is set on the object
-        ApiFuture<WriteResult> future = evaluationCollection.document(id).set(evaluation);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> evaluationCollection.document(id).set(evaluation);
+        return FirestoreFutureUtils.toVoidCompletableFuture(evaluationCollection, future)
                 .whenComplete((res, ex) -> {
                     if (ex != null) log.error("Error adding evaluation {}", id, ex);
                     else log.debug("Added evaluation {}", id);
@@ -58,8 +59,8 @@ public class FBEvaluationRepository implements IEvaluationRepository {
             log.error("Evaluation ID is missing for update operation.");
             return CompletableFuture.failedFuture(new IllegalArgumentException("Evaluation ID cannot be null for update."));
         }
-        ApiFuture<WriteResult> future = evaluationCollection.document(evaluation.getId()).set(evaluation, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> evaluationCollection.document(evaluation.getId()).set(evaluation, SetOptions.merge());
+        return FirestoreFutureUtils.toVoidCompletableFuture(evaluationCollection, future)
                 .whenComplete((res, ex) -> {
                     if (ex != null) log.error("Error updating evaluation {}", evaluation.getId(), ex);
                     else log.debug("Updated evaluation {}", evaluation.getId());
@@ -68,8 +69,8 @@ public class FBEvaluationRepository implements IEvaluationRepository {
 
     @Override
     public CompletableFuture<Optional<Evaluation>> getEvaluationById(String id) {
-        ApiFuture<DocumentSnapshot> future = evaluationCollection.document(id).get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        Supplier<ApiFuture<DocumentSnapshot>> future = () -> evaluationCollection.document(id).get();
+        return FirestoreFutureUtils.toCompletableFuture(evaluationCollection, future)
                 .thenApply(snapshot -> {
                     if (snapshot.exists()) {
                         Evaluation eval = snapshot.toObject(Evaluation.class);
@@ -87,11 +88,11 @@ public class FBEvaluationRepository implements IEvaluationRepository {
 
     @Override
     public CompletableFuture<Optional<Evaluation>> getEvaluationByUserConversationId(String userConversationId) {
-        ApiFuture<QuerySnapshot> future = evaluationCollection
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> evaluationCollection
                 .whereEqualTo("userConversationId", userConversationId) // Adjust field name if different
                 .limit(1)
                 .get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return FirestoreFutureUtils.toCompletableFuture(evaluationCollection, future)
                 .thenApply(querySnapshot -> {
                     if (!querySnapshot.isEmpty()) {
                         DocumentSnapshot snapshot = querySnapshot.getDocuments().get(0);
@@ -111,8 +112,8 @@ public class FBEvaluationRepository implements IEvaluationRepository {
 
     @Override
     public CompletableFuture<Void> deleteEvaluationById(String id) {
-        ApiFuture<WriteResult> future = evaluationCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> evaluationCollection.document(id).delete();
+        return FirestoreFutureUtils.toVoidCompletableFuture(evaluationCollection, future)
                 .whenComplete((res, ex) -> {
                     if (ex != null) log.error("Error deleting evaluation {}", id, ex);
                     else log.debug("Deleted evaluation {}", id);
@@ -121,8 +122,8 @@ public class FBEvaluationRepository implements IEvaluationRepository {
 
     @Override
     public CompletableFuture<Iterable<Evaluation>> getAllEvaluations() {
-        ApiFuture<QuerySnapshot> future = evaluationCollection.get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> evaluationCollection.get();
+        return FirestoreFutureUtils.toCompletableFuture(evaluationCollection, future)
                 .thenApply(querySnapshot ->
                         (Iterable<Evaluation>) querySnapshot.getDocuments().stream()
                                 .map(snapshot -> {
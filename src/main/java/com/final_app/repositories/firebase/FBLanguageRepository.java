@@ -4,6 +4,8 @@ import com.final_app.interfaces.ILanguageRepository;
 import com.final_app.models.Language;
 import com.final_app.models.LanguageLevel;
 import com.final_app.models.LanguageLevelSystem;
+import com.final_app.repositories.firebase.utils.FirestoreBatchLoader;
+import com.final_app.repositories.firebase.utils.FirestoreChangeLog;
 import com.final_app.repositories.firebase.utils.FirestoreFutureUtils; // Ensure this utility exists
 // Remove RTDB specific utils if no longer needed
 // import com.final_app.repositories.firebase.utils.FirebaseUtils;
@@ -20,7 +22,9 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 public class FBLanguageRepository implements ILanguageRepository {
 
@@ -34,6 +38,8 @@ public class FBLanguageRepository implements ILanguageRepository {
     private final CollectionReference languageCollection;
     private final CollectionReference levelCollection;
     private final CollectionReference systemCollection;
+    // Live copy of the collections, answers most reads without a query
+    private final FirestoreReferenceStore referenceStore;
 
 
     private static FBLanguageRepository instance = null;
@@ -44,6 +50,7 @@ public class FBLanguageRepository implements ILanguageRepository {
         this.languageCollection = firestoreDb.collection(LANG_COLLECTION);
         this.levelCollection = firestoreDb.collection(LEVEL_COLLECTION);
         this.systemCollection = firestoreDb.collection(SYSTEM_COLLECTION);
+        this.referenceStore = FirestoreReferenceStore.getInstance();
     }
 
     // Static method for Singleton access (thread-safe lazy initialization)
@@ -62,8 +69,8 @@ public class FBLanguageRepository implements ILanguageRepository {
                 languageCollection.document().getId() : language.getId();
         language.setId(id);
 
-        ApiFuture<WriteResult> future = languageCollection.document(id).set(language);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.set(languageCollection.document(id), language);
+        return FirestoreFutureUtils.toVoidCompletableFuture(languageCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding language {}", id, ex); });
     }
 
@@ -74,8 +81,8 @@ public class FBLanguageRepository implements ILanguageRepository {
             return CompletableFuture.failedFuture(new IllegalArgumentException("Language ID missing for update."));
         }
         // Use set with merge to avoid overwriting unrelated fields
-        ApiFuture<WriteResult> future = languageCollection.document(language.getId()).set(language, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.merge(languageCollection.document(language.getId()), language);
+        return FirestoreFutureUtils.toVoidCompletableFuture(languageCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating language {}", language.getId(), ex); });
     }
 
@@ -87,8 +94,8 @@ public class FBLanguageRepository implements ILanguageRepository {
             return CompletableFuture.failedFuture(new IllegalArgumentException("Language ID missing for delete."));
         }
         // Deleting a language might require checking/handling dependencies (e.g., UserLanguage)
-        ApiFuture<WriteResult> future = languageCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.delete(languageCollection.document(id));
+        return FirestoreFutureUtils.toVoidCompletableFuture(languageCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting language {}", id, ex); });
     }
 
@@ -101,12 +108,17 @@ public class FBLanguageRepository implements ILanguageRepository {
 
     @Override
     public CompletableFuture<Optional<Language>> getLanguageById(String id) {
+        return referenceStore.languages().readById(id, () -> fetchLanguageById(id))
+                .thenCompose(this::mapLanguage);
+    }
+
+    private CompletableFuture<Optional<Language>> fetchLanguageById(String id) {
         if (id == null || id.isEmpty()) {
             log.warn("getLanguageById called with null or empty ID.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
-        ApiFuture<DocumentSnapshot> futureSnapshot = languageCollection.document(id).get();
-        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(futureSnapshot);
+        Supplier<ApiFuture<DocumentSnapshot>> futureSnapshot = () -> languageCollection.document(id).get();
+        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(languageCollection, futureSnapshot);
 
         return cfSnapshot.thenCompose(snapshot -> {
             if (snapshot.exists()) {
@@ -132,13 +144,20 @@ public class FBLanguageRepository implements ILanguageRepository {
 
     @Override
     public CompletableFuture<Optional<Language>> getLanguageByName(String name) {
+        return referenceStore.languages().read(languages -> languages.values().stream()
+                        .filter(language -> name != null && name.equals(language.getName()))
+                        .findFirst(), () -> fetchLanguageByName(name))
+                .thenCompose(this::mapLanguage);
+    }
+
+    private CompletableFuture<Optional<Language>> fetchLanguageByName(String name) {
         if (name == null || name.isEmpty()) {
             log.warn("getLanguageByName called with null or empty name.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
         // Query Firestore for the language by name
-        ApiFuture<QuerySnapshot> futureQuery = languageCollection.whereEqualTo("name", name).limit(1).get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> languageCollection.whereEqualTo("name", name).limit(1).get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(languageCollection, futureQuery);
 
         return cfQuery.thenCompose(querySnapshot -> {
             if (!querySnapshot.isEmpty()) {
@@ -165,8 +184,24 @@ public class FBLanguageRepository implements ILanguageRepository {
 
     @Override
     public CompletableFuture<Iterable<Language>> getAllLanguages() {
-        ApiFuture<QuerySnapshot> futureQuery = languageCollection.get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        return referenceStore.languages().read(languages -> (Iterable<Language>) new ArrayList<>(languages.values()), this::fetchAllLanguages)
+                .thenCompose(languages -> mapLanguageSystems(languages).thenApply(v -> languages));
+    }
+
+    @Override
+    public CompletableFuture<List<Language>> getLanguagesUpdatedSince(Date since) {
+        return referenceStore.languages().readUpdatedSince(since, Language::getServerUpdatedAt,
+                        () -> fetchLanguages(languageCollection.whereGreaterThan(FirestoreChangeLog.CHANGED_AT, since)))
+                .thenCompose(languages -> mapLanguageSystems(languages).thenApply(v -> languages));
+    }
+
+    private CompletableFuture<Iterable<Language>> fetchAllLanguages() {
+        return fetchLanguages(languageCollection).thenApply(languages -> languages);
+    }
+
+    private CompletableFuture<List<Language>> fetchLanguages(Query query) {
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = query::get;
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(languageCollection, futureQuery);
 
         return cfQuery.thenCompose(querySnapshot -> {
             List<Language> languages = querySnapshot.getDocuments().stream()
@@ -182,13 +217,9 @@ public class FBLanguageRepository implements ILanguageRepository {
                 return CompletableFuture.completedFuture(languages);
             }
 
-            // Map system for each language
-            List<CompletableFuture<Void>> mappingFutures = languages.stream()
-                    .map(this::mapConnectedObjectsAsync)
-                    .collect(Collectors.toList());
-
-            return CompletableFuture.allOf(mappingFutures.toArray(new CompletableFuture[0]))
-                    .thenApply(v -> (Iterable<Language>) languages); // Return the mapped list
+            // Map the systems of all languages with batched reads
+            return mapLanguageSystems(languages)
+                    .thenApply(v -> languages); // Return the mapped list
         }).exceptionally(ex -> {
             log.error("Error getting all languages or mapping systems", ex);
             return List.of(); // Return empty list on error
@@ -203,8 +234,8 @@ public class FBLanguageRepository implements ILanguageRepository {
                 levelCollection.document().getId() : languageLevel.getId();
         languageLevel.setId(id);
 
-        ApiFuture<WriteResult> future = levelCollection.document(id).set(languageLevel);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.set(levelCollection.document(id), languageLevel);
+        return FirestoreFutureUtils.toVoidCompletableFuture(levelCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding language level {}", id, ex); });
     }
 
@@ -214,8 +245,8 @@ public class FBLanguageRepository implements ILanguageRepository {
             log.warn("Attempted to update language level with null or empty ID.");
             return CompletableFuture.failedFuture(new IllegalArgumentException("LanguageLevel ID missing for update."));
         }
-        ApiFuture<WriteResult> future = levelCollection.document(languageLevel.getId()).set(languageLevel, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.merge(levelCollection.document(languageLevel.getId()), languageLevel);
+        return FirestoreFutureUtils.toVoidCompletableFuture(levelCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating language level {}", languageLevel.getId(), ex); });
     }
 
@@ -227,19 +258,23 @@ public class FBLanguageRepository implements ILanguageRepository {
             return CompletableFuture.failedFuture(new IllegalArgumentException("LanguageLevel object or ID missing for delete."));
         }
         // Consider implications: Does deleting a level affect existing user data or conversations?
-        ApiFuture<WriteResult> future = levelCollection.document(languageLevel.getId()).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.delete(levelCollection.document(languageLevel.getId()));
+        return FirestoreFutureUtils.toVoidCompletableFuture(levelCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting language level {}", languageLevel.getId(), ex); });
     }
 
     @Override
     public CompletableFuture<Optional<LanguageLevel>> getLanguageLevelById(String id) {
+        return referenceStore.languageLevels().readById(id, () -> fetchLanguageLevelById(id));
+    }
+
+    private CompletableFuture<Optional<LanguageLevel>> fetchLanguageLevelById(String id) {
         if (id == null || id.isEmpty()) {
             log.warn("getLanguageLevelById called with null or empty ID.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
-        ApiFuture<DocumentSnapshot> futureSnapshot = levelCollection.document(id).get();
-        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(futureSnapshot);
+        Supplier<ApiFuture<DocumentSnapshot>> futureSnapshot = () -> levelCollection.document(id).get();
+        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(levelCollection, futureSnapshot);
 
         return cfSnapshot.thenApply(snapshot -> {
             if (snapshot.exists()) {
@@ -264,12 +299,18 @@ public class FBLanguageRepository implements ILanguageRepository {
 
     @Override
     public CompletableFuture<Optional<LanguageLevel>> getLanguageLevelByName(String name) {
+        return referenceStore.languageLevels().read(levels -> levels.values().stream()
+                .filter(level -> name != null && name.equals(level.getName()))
+                .findFirst(), () -> fetchLanguageLevelByName(name));
+    }
+
+    private CompletableFuture<Optional<LanguageLevel>> fetchLanguageLevelByName(String name) {
         if (name == null || name.isEmpty()) {
             log.warn("getLanguageLevelByName called with null or empty name.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
-        ApiFuture<QuerySnapshot> futureQuery = levelCollection.whereEqualTo("name", name).limit(1).get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> levelCollection.whereEqualTo("name", name).limit(1).get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(levelCollection, futureQuery);
 
         return cfQuery.thenApply(querySnapshot -> {
             if (!querySnapshot.isEmpty()) {
@@ -294,8 +335,22 @@ public class FBLanguageRepository implements ILanguageRepository {
 
     @Override
     public CompletableFuture<List<LanguageLevel>> getAllLanguageLevels() {
-        ApiFuture<QuerySnapshot> futureQuery = levelCollection.get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        return referenceStore.languageLevels().read(levels -> (List<LanguageLevel>) new ArrayList<>(levels.values()), this::fetchAllLanguageLevels);
+    }
+
+    @Override
+    public CompletableFuture<List<LanguageLevel>> getLanguageLevelsUpdatedSince(Date since) {
+        return referenceStore.languageLevels().readUpdatedSince(since, LanguageLevel::getServerUpdatedAt,
+                () -> fetchLanguageLevels(levelCollection.whereGreaterThan(FirestoreChangeLog.CHANGED_AT, since)));
+    }
+
+    private CompletableFuture<List<LanguageLevel>> fetchAllLanguageLevels() {
+        return fetchLanguageLevels(levelCollection);
+    }
+
+    private CompletableFuture<List<LanguageLevel>> fetchLanguageLevels(Query query) {
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = query::get;
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(levelCollection, futureQuery);
 
         return cfQuery.thenApply(querySnapshot ->
                 querySnapshot.getDocuments().stream()
@@ -320,8 +375,8 @@ public class FBLanguageRepository implements ILanguageRepository {
                 systemCollection.document().getId() : languageLevelSystem.getId();
         languageLevelSystem.setId(id);
 
-        ApiFuture<WriteResult> future = systemCollection.document(id).set(languageLevelSystem);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.set(systemCollection.document(id), languageLevelSystem);
+        return FirestoreFutureUtils.toVoidCompletableFuture(systemCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding language system {}", id, ex); });
     }
 
@@ -334,8 +389,8 @@ public class FBLanguageRepository implements ILanguageRepository {
         // Note: Merging here only updates the system document itself.
         // If the list of levels *within* the system object changes, this won't automatically update level documents.
         // Managing relationships (system <-> levels) might require more complex logic or denormalization.
-        ApiFuture<WriteResult> future = systemCollection.document(languageLevelSystem.getId()).set(languageLevelSystem, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.merge(systemCollection.document(languageLevelSystem.getId()), languageLevelSystem);
+        return FirestoreFutureUtils.toVoidCompletableFuture(systemCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating language system {}", languageLevelSystem.getId(), ex); });
     }
 
@@ -347,8 +402,8 @@ public class FBLanguageRepository implements ILanguageRepository {
             log.warn("Attempted to delete language system with null object or ID.");
             return CompletableFuture.failedFuture(new IllegalArgumentException("LanguageLevelSystem object or ID missing for delete."));
         }
-        ApiFuture<WriteResult> future = systemCollection.document(languageLevelSystem.getId()).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.delete(systemCollection.document(languageLevelSystem.getId()));
+        return FirestoreFutureUtils.toVoidCompletableFuture(systemCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting language system {}", languageLevelSystem.getId(), ex); });
         // TODO: Add logic to handle associated LanguageLevels (e.g., delete them or set their systemId to null).
     }
@@ -356,12 +411,17 @@ public class FBLanguageRepository implements ILanguageRepository {
 
     @Override
     public CompletableFuture<Optional<LanguageLevelSystem>> getLanguageLevelSystemById(String id) {
+        return referenceStore.languageSystems().readById(id, () -> fetchLanguageLevelSystemById(id))
+                .thenCompose(this::mapSystem);
+    }
+
+    private CompletableFuture<Optional<LanguageLevelSystem>> fetchLanguageLevelSystemById(String id) {
         if (id == null || id.isEmpty()) {
             log.warn("getLanguageLevelSystemById called with null or empty ID.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
-        ApiFuture<DocumentSnapshot> futureSnapshot = systemCollection.document(id).get();
-        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(futureSnapshot);
+        Supplier<ApiFuture<DocumentSnapshot>> futureSnapshot = () -> systemCollection.document(id).get();
+        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(systemCollection, futureSnapshot);
 
         return cfSnapshot.thenCompose(snapshot -> {
             if (snapshot.exists()) {
@@ -388,12 +448,19 @@ public class FBLanguageRepository implements ILanguageRepository {
 
     @Override
     public CompletableFuture<Optional<LanguageLevelSystem>> getLanguageLevelSystemByName(String name) {
+        return referenceStore.languageSystems().read(systems -> systems.values().stream()
+                        .filter(system -> name != null && name.equals(system.getName()))
+                        .findFirst(), () -> fetchLanguageLevelSystemByName(name))
+                .thenCompose(this::mapSystem);
+    }
+
+    private CompletableFuture<Optional<LanguageLevelSystem>> fetchLanguageLevelSystemByName(String name) {
         if (name == null || name.isEmpty()) {
             log.warn("getLanguageLevelSystemByName called with null or empty name.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
-        ApiFuture<QuerySnapshot> futureQuery = systemCollection.whereEqualTo("name", name).limit(1).get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> systemCollection.whereEqualTo("name", name).limit(1).get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(systemCollection, futureQuery);
 
         return cfQuery.thenCompose(querySnapshot -> {
             if (!querySnapshot.isEmpty()) {
@@ -421,8 +488,24 @@ public class FBLanguageRepository implements ILanguageRepository {
 
     @Override
     public CompletableFuture<Iterable<LanguageLevelSystem>> getAllLanguageSystems() {
-        ApiFuture<QuerySnapshot> futureQuery = systemCollection.get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        return referenceStore.languageSystems().read(systems -> (Iterable<LanguageLevelSystem>) new ArrayList<>(systems.values()), this::fetchAllLanguageSystems)
+                .thenCompose(systems -> mapSystemLevels(systems).thenApply(v -> systems));
+    }
+
+    @Override
+    public CompletableFuture<List<LanguageLevelSystem>> getLanguageSystemsUpdatedSince(Date since) {
+        return referenceStore.languageSystems().readUpdatedSince(since, LanguageLevelSystem::getServerUpdatedAt,
+                        () -> fetchLanguageSystems(systemCollection.whereGreaterThan(FirestoreChangeLog.CHANGED_AT, since)))
+                .thenCompose(systems -> mapSystemLevels(systems).thenApply(v -> systems));
+    }
+
+    private CompletableFuture<Iterable<LanguageLevelSystem>> fetchAllLanguageSystems() {
+        return fetchLanguageSystems(systemCollection).thenApply(systems -> systems);
+    }
+
+    private CompletableFuture<List<LanguageLevelSystem>> fetchLanguageSystems(Query query) {
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = query::get;
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(systemCollection, futureQuery);
 
         return cfQuery.thenCompose(querySnapshot -> {
             List<LanguageLevelSystem> systems = querySnapshot.getDocuments().stream()
@@ -438,67 +521,122 @@ public class FBLanguageRepository implements ILanguageRepository {
                 return CompletableFuture.completedFuture(systems);
             }
 
-            // Map levels for each system
-            List<CompletableFuture<Void>> mappingFutures = systems.stream()
-                    .map(this::mapConnectedObjectsAsync)
-                    .collect(Collectors.toList());
-
-            return CompletableFuture.allOf(mappingFutures.toArray(new CompletableFuture[0]))
-                    .thenApply(v -> (Iterable<LanguageLevelSystem>) systems);
+            // Map the levels of all systems with batched queries
+            return mapSystemLevels(systems)
+                    .thenApply(v -> systems);
         }).exceptionally(ex -> {
             log.error("Error getting all language systems or mapping levels", ex);
             return List.of();
         });
     }
 
+    /**
+     * Load several languages (with their system) from the live store, else with batched reads, keyed by ID
+     */
+    public CompletableFuture<Map<String, Language>> getLanguagesByIds(Collection<String> ids) {
+        return referenceStore.languages().readAll(ids, () -> fetchLanguagesByIds(ids))
+                .thenCompose(languages -> mapLanguageSystems(languages.values()).thenApply(v -> languages));
+    }
+
+    private CompletableFuture<Map<String, Language>> fetchLanguagesByIds(Collection<String> ids) {
+        return FirestoreBatchLoader.getAll(languageCollection, ids, Language.class, Language::setId)
+                .thenCompose(languages -> mapLanguageSystems(languages.values()).thenApply(v -> languages))
+                .whenComplete((res, ex) -> { if (ex != null) log.error("Error getting {} languages by ID", ids.size(), ex); });
+    }
+
+    /**
+     * Load several language levels from the live store, else with batched reads, keyed by ID
+     */
+    public CompletableFuture<Map<String, LanguageLevel>> getLanguageLevelsByIds(Collection<String> ids) {
+        return referenceStore.languageLevels().readAll(ids, () -> fetchLanguageLevelsByIds(ids));
+    }
+
+    private CompletableFuture<Map<String, LanguageLevel>> fetchLanguageLevelsByIds(Collection<String> ids) {
+        return FirestoreBatchLoader.getAll(levelCollection, ids, LanguageLevel.class, LanguageLevel::setId)
+                .whenComplete((res, ex) -> { if (ex != null) log.error("Error getting {} language levels by ID", ids.size(), ex); });
+    }
+
     // --- Mapping Helper Methods (Firestore Based) ---
 
+    private CompletableFuture<Optional<Language>> mapLanguage(Optional<Language> language) {
+        return language.isPresent()
+                ? mapConnectedObjectsAsync(language.get()).thenApply(v -> language)
+                : CompletableFuture.completedFuture(language);
+    }
+
+    private CompletableFuture<Optional<LanguageLevelSystem>> mapSystem(Optional<LanguageLevelSystem> system) {
+        return system.isPresent()
+                ? mapConnectedObjectsAsync(system.get()).thenApply(v -> system)
+                : CompletableFuture.completedFuture(system);
+    }
+
     /**
-     * Fetches LanguageLevels associated with a LanguageLevelSystem from Firestore
-     * and sets them on the system object.
+     * Fetches the LanguageLevels of all given systems from the live store (or with whereIn queries on the levels collection)
+     * and sets them on the system objects.
      */
-    private CompletableFuture<Void> mapConnectedObjectsAsync(LanguageLevelSystem system) {
-        if (system == null || system.getId() == null) {
+    private CompletableFuture<Void> mapSystemLevels(Iterable<LanguageLevelSystem> systems) {
+        List<LanguageLevelSystem> unmapped = StreamSupport.stream(systems.spliterator(), false)
+                .filter(system -> system != null && system.getId() != null && system.getLevels().isEmpty())
+                .collect(Collectors.toList());
+        if (unmapped.isEmpty()) {
             return CompletableFuture.completedFuture(null);
         }
-        // Query levels collection for levels matching the system's ID
-        ApiFuture<QuerySnapshot> futureQuery = levelCollection.whereEqualTo("systemId", system.getId()).get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
 
-        return (system.getLevels().isEmpty()) ? cfQuery.thenAccept(querySnapshot -> {
-            List<LanguageLevel> levels = querySnapshot.getDocuments().stream()
-                    .map(snapshot -> {
-                        LanguageLevel level = snapshot.toObject(LanguageLevel.class);
-                        if (level != null) level.setId(snapshot.getId());
-                        return level;
-                    })
-                    .filter(java.util.Objects::nonNull)
-                    .collect(Collectors.toList());
-            system.setLevels(levels); // Set the fetched levels on the system object
-        }).exceptionally(ex -> {
-            log.error("Error fetching levels for system ID {}", system.getId(), ex);
-            // Decide if system should have empty list or null on error
-            system.setLevels(List.of()); // Set empty list on error
-            return null; // Suppress exception from propagating further in chain if desired
-        })
-                : CompletableFuture.completedFuture(null);
+        List<String> systemIds = unmapped.stream().map(LanguageLevelSystem::getId).collect(Collectors.toList());
+        return referenceStore.languageLevels().read(levels -> levels.values().stream()
+                        .filter(level -> systemIds.contains(level.getSystemId()))
+                        .collect(Collectors.toList()),
+                () -> FirestoreBatchLoader.getAllWhereIn(levelCollection, "systemId", systemIds, LanguageLevel.class, LanguageLevel::setId))
+                .thenAccept(levels -> {
+                    Map<String, List<LanguageLevel>> levelsBySystem = levels.stream()
+                            .collect(Collectors.groupingBy(LanguageLevel::getSystemId));
+                    unmapped.forEach(system -> system.setLevels(levelsBySystem.getOrDefault(system.getId(), new ArrayList<>())));
+                }).exceptionally(ex -> {
+                    log.error("Error fetching levels for {} systems", unmapped.size(), ex);
+                    unmapped.forEach(system -> system.setLevels(List.of())); // Set empty list on error
+                    return null;
+                });
     }
 
     /**
-     * Fetches the LanguageLevelSystem associated with a Language from Firestore
-     * and sets it on the language object.
+     * Fetches the LanguageLevelSystems of all given languages with a single batched read
+     * and sets them on the language objects.
      */
-    private CompletableFuture<Void> mapConnectedObjectsAsync(Language language) {
-        if (language == null || language.getSystemId() == null || language.getSystemId().isEmpty() || language.getLanguageLevelSystem() != null) {
-            return CompletableFuture.completedFuture(null); // No system ID to fetch
+    private CompletableFuture<Void> mapLanguageSystems(Iterable<Language> languages) {
+        List<Language> unmapped = StreamSupport.stream(languages.spliterator(), false)
+                .filter(language -> language != null && language.getSystemId() != null && !language.getSystemId().isEmpty()
+                        && language.getLanguageLevelSystem() == null)
+                .collect(Collectors.toList());
+        if (unmapped.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
         }
-        // Use the already refactored getLanguageLevelSystemById method
-        return getLanguageLevelSystemById(language.getSystemId())
-                .thenAccept(optionalSystem -> optionalSystem.ifPresent(language::setLanguageLevelSystem))
-                .exceptionally(ex -> {
-                    log.error("Error mapping system for language ID {}", language.getId(), ex);
-                    // Decide error handling: keep system null?
+
+        List<String> systemIds = unmapped.stream().map(Language::getSystemId).collect(Collectors.toList());
+        return referenceStore.languageSystems().readAll(systemIds,
+                        () -> FirestoreBatchLoader.getAll(systemCollection, systemIds, LanguageLevelSystem.class, LanguageLevelSystem::setId))
+                .thenCompose(systems -> mapSystemLevels(systems.values()).thenApply(v -> systems))
+                .thenAccept(systems -> unmapped.forEach(language -> {
+                    LanguageLevelSystem system = systems.get(language.getSystemId());
+                    if (system != null) language.setLanguageLevelSystem(system);
+                })).exceptionally(ex -> {
+                    log.error("Error mapping systems for {} languages", unmapped.size(), ex);
                     return null;
                 });
     }
-}
\ No newline at end of file
+
+    /**
+     * Fetches LanguageLevels associated with a LanguageLevelSystem from Firestore
+     * and sets them on the system object.
+     */
+    private CompletableFuture<Void> mapConnectedObjectsAsync(LanguageLevelSystem system) {
+        return mapSystemLevels(Collections.singletonList(system));
+    }
+
+    /**
+     * Fetches the LanguageLevelSystem associated with a Language from Firestore
+     * and sets it on the language object.
+     */
+    private CompletableFuture<Void> mapConnectedObjectsAsync(Language language) {
+        return mapLanguageSystems(Collections.singletonList(language));
+    }
+}
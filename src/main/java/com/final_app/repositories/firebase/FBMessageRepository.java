@@ -2,20 +2,31 @@ package com.final_app.repositories.firebase;
 
 import com.final_app.interfaces.IMessageRepository;
 import com.final_app.models.Message;
+import com.final_app.repositories.firebase.utils.FirestoreChangeLog;
 import com.final_app.repositories.firebase.utils.FirestoreFutureUtils;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class FBMessageRepository implements IMessageRepository {
 
     private static final Logger log = LoggerFactory.getLogger(FBMessageRepository.class);
     private static final String COLLECTION_NAME = "messages";
+    private static final String USER_CONVERSATIONS_COLLECTION_NAME = "userConversations";
+    // Firestore accepts at most 500 writes per batch, each document takes two with its change time
+    private static final int MAX_BATCH_SIZE = 250;
+    private final Firestore db;
     private final CollectionReference messageCollection;
 
     private static FBMessageRepository instance = null;
@@ -24,7 +35,7 @@ public class FBMessageRepository implements IMessageRepository {
         if(instance == null){
             instance = this;
         }
-        Firestore db = FirebaseManager.getDb();
+        this.db = FirebaseManager.getDb();
         this.messageCollection = db.collection(COLLECTION_NAME);
     }
 
@@ -40,8 +51,7 @@ public class FBMessageRepository implements IMessageRepository {
         String id = (message.getId() == null || message.getId().isEmpty()) ?
                 messageCollection.document().getId() : message.getId();
         message.setId(id);
-        ApiFuture<WriteResult> future = messageCollection.document(id).set(message);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        return writeWithUserConversation(message, false)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding message {}", id, ex); });
     }
 
@@ -50,15 +60,75 @@ public class FBMessageRepository implements IMessageRepository {
         if (message.getId() == null || message.getId().isEmpty()) {
             return CompletableFuture.failedFuture(new IllegalArgumentException("Message ID missing for update."));
         }
-        ApiFuture<WriteResult> future = messageCollection.document(message.getId()).set(message, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        return writeWithUserConversation(message, true)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating message {}", message.getId(), ex); });
     }
 
+    /**
+     * Write the message and move the change times of its user conversation in the same batch, the delta pulls
+     * read the messages together with the user conversation
+     */
+    private CompletableFuture<Void> writeWithUserConversation(Message message, boolean merge) {
+        return FirestoreFutureUtils.toCompletableFuture(messageCollection, () -> {
+            WriteBatch batch = db.batch();
+            DocumentReference messageRef = messageCollection.document(message.getId());
+            if (merge) {
+                FirestoreChangeLog.merge(batch, messageRef, message);
+            } else {
+                FirestoreChangeLog.set(batch, messageRef, message);
+            }
+            if (message.getUserConversationId() != null) {
+                DocumentReference userConversationRef = db.collection(USER_CONVERSATIONS_COLLECTION_NAME).document(message.getUserConversationId());
+                // A merge, the user conversation may still be on its way
+                FirestoreChangeLog.merge(batch, userConversationRef, Map.of("updatedAt", new Date()));
+            }
+            return batch.commit();
+        }).thenApply(results -> (Void) null);
+    }
+
+    @Override
+    public CompletableFuture<Void> addMessages(List<Message> messages) {
+        return writeBatched(messages, false);
+    }
+
+    @Override
+    public CompletableFuture<Void> upsertMessages(List<Message> messages) {
+        return writeBatched(messages, true);
+    }
+
+    /**
+     * Write the messages with one WriteBatch per {@link #MAX_BATCH_SIZE} messages
+     */
+    private CompletableFuture<Void> writeBatched(List<Message> messages, boolean merge) {
+        if (messages == null || messages.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<CompletableFuture<Void>> commits = new ArrayList<>();
+        for (int start = 0; start < messages.size(); start += MAX_BATCH_SIZE) {
+            WriteBatch batch = db.batch();
+            for (Message message : messages.subList(start, Math.min(start + MAX_BATCH_SIZE, messages.size()))) {
+                if (message.getId() == null || message.getId().isEmpty()) {
+                    message.setId(messageCollection.document().getId());
+                }
+                DocumentReference messageRef = messageCollection.document(message.getId());
+                if (merge) {
+                    FirestoreChangeLog.merge(batch, messageRef, message);
+                } else {
+                    FirestoreChangeLog.set(batch, messageRef, message);
+                }
+            }
+            commits.add(FirestoreFutureUtils.toCompletableFuture(messageCollection.getId(), batch::commit).thenApply(results -> (Void) null));
+        }
+
+        return CompletableFuture.allOf(commits.toArray(new CompletableFuture[0]))
+                .whenComplete((res, ex) -> { if (ex != null) log.error("Error writing batch of {} messages", messages.size(), ex); });
+    }
+
     @Override
     public CompletableFuture<Optional<Message>> getMessageById(String id) {
-        ApiFuture<DocumentSnapshot> future = messageCollection.document(id).get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        Supplier<ApiFuture<DocumentSnapshot>> future = () -> messageCollection.document(id).get();
+        return FirestoreFutureUtils.toCompletableFuture(messageCollection, future)
                 .thenApply(snapshot -> {
                     if (snapshot.exists()) {
                         Message msg = snapshot.toObject(Message.class);
@@ -72,15 +142,15 @@ public class FBMessageRepository implements IMessageRepository {
 
     @Override
     public CompletableFuture<Void> deleteMessageById(String id) {
-        ApiFuture<WriteResult> future = messageCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.delete(messageCollection.document(id));
+        return FirestoreFutureUtils.toVoidCompletableFuture(messageCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting message {}", id, ex); });
     }
 
     @Override
     public CompletableFuture<Iterable<Message>> getAllMessages() {
-        ApiFuture<QuerySnapshot> future = messageCollection.orderBy("timestamp").get(); // Example: order by timestamp
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> messageCollection.orderBy("timestamp").get(); // Example: order by timestamp
+        return FirestoreFutureUtils.toCompletableFuture(messageCollection, future)
                 .thenApply(querySnapshot ->
                         (Iterable<Message>) querySnapshot.getDocuments().stream()
                                 .map(snapshot -> {
@@ -96,11 +166,11 @@ public class FBMessageRepository implements IMessageRepository {
 
     @Override
     public CompletableFuture<Iterable<Message>> getAllMessagesFromUserConversation(String userConversationId) {
-        ApiFuture<QuerySnapshot> future = messageCollection
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> messageCollection
                 .whereEqualTo("userConversationId", userConversationId) // Adjust field if needed
                 .orderBy("timestamp") // Order messages chronologically
                 .get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return FirestoreFutureUtils.toCompletableFuture(messageCollection, future)
                 .thenApply(querySnapshot ->
                         (Iterable<Message>) querySnapshot.getDocuments().stream()
                                 .map(snapshot -> {
@@ -115,4 +185,34 @@ public class FBMessageRepository implements IMessageRepository {
                     if (ex != null) log.error("Error getting messages for UserConversationId {}", userConversationId, ex);
                 });
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<List<Message>> getMessagesPageFromUserConversation(String userConversationId, Integer beforeIndex, int pageSize) {
+        // **IMPORTANT**: Requires a composite index on (userConversationId, index)
+        Query query = messageCollection
+                .whereEqualTo("userConversationId", userConversationId)
+                .orderBy("index", Query.Direction.DESCENDING);
+        if (beforeIndex != null) {
+            query = query.startAfter(beforeIndex);
+        }
+        Query pageQuery = query.limit(pageSize);
+        Supplier<ApiFuture<QuerySnapshot>> future = pageQuery::get;
+        return FirestoreFutureUtils.toCompletableFuture(messageCollection, future)
+                .thenApply(querySnapshot -> {
+                    List<Message> messages = querySnapshot.getDocuments().stream()
+                            .map(snapshot -> {
+                                Message msg = snapshot.toObject(Message.class);
+                                if (msg != null) msg.setId(snapshot.getId());
+                                return msg;
+                            })
+                            .filter(java.util.Objects::nonNull)
+                            .collect(Collectors.toList());
+                    // Queried newest first, returned oldest first
+                    Collections.reverse(messages);
+                    return messages;
+                })
+                .whenComplete((res, ex) -> {
+                    if (ex != null) log.error("Error getting message page for UserConversationId {}", userConversationId, ex);
+                });
+    }
+}
@@ -2,14 +2,18 @@ package com.final_app.repositories.firebase;
 
 import com.final_app.interfaces.IQuestionRepository;
 import com.final_app.models.SpeakingTestQuestion;
+import com.final_app.repositories.firebase.utils.FirestoreChangeLog;
 import com.final_app.repositories.firebase.utils.FirestoreFutureUtils;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class FBQuestionRepository implements IQuestionRepository {
@@ -41,8 +45,8 @@ public class FBQuestionRepository implements IQuestionRepository {
         String id = (question.getId() == null || question.getId().isEmpty()) ?
                 questionCollection.document().getId() : question.getId();
         question.setId(id);
-        ApiFuture<WriteResult> future = questionCollection.document(id).set(question);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.set(questionCollection.document(id), question);
+        return FirestoreFutureUtils.toVoidCompletableFuture(questionCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding question {}", id, ex); });
     }
 
@@ -51,15 +55,15 @@ public class FBQuestionRepository implements IQuestionRepository {
         if (question.getId() == null || question.getId().isEmpty()) {
             return CompletableFuture.failedFuture(new IllegalArgumentException("Question ID missing for update."));
         }
-        ApiFuture<WriteResult> future = questionCollection.document(question.getId()).set(question, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.merge(questionCollection.document(question.getId()), question);
+        return FirestoreFutureUtils.toVoidCompletableFuture(questionCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating question {}", question.getId(), ex); });
     }
 
     @Override
     public CompletableFuture<Optional<SpeakingTestQuestion>> getQuestionById(String id) {
-        ApiFuture<DocumentSnapshot> future = questionCollection.document(id).get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        Supplier<ApiFuture<DocumentSnapshot>> future = () -> questionCollection.document(id).get();
+        return FirestoreFutureUtils.toCompletableFuture(questionCollection, future)
                 .thenApply(snapshot -> {
                     if (snapshot.exists()) {
                         SpeakingTestQuestion q = snapshot.toObject(SpeakingTestQuestion.class);
@@ -73,15 +77,15 @@ public class FBQuestionRepository implements IQuestionRepository {
 
     @Override
     public CompletableFuture<Void> deleteQuestionById(String id) {
-        ApiFuture<WriteResult> future = questionCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.delete(questionCollection.document(id));
+        return FirestoreFutureUtils.toVoidCompletableFuture(questionCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting question {}", id, ex); });
     }
 
     @Override
     public CompletableFuture<Iterable<SpeakingTestQuestion>> getAllQuestions() {
-        ApiFuture<QuerySnapshot> future = questionCollection.orderBy("order").get(); // Example ordering
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> questionCollection.orderBy("order").get(); // Example ordering
+        return FirestoreFutureUtils.toCompletableFuture(questionCollection, future)
                 .thenApply(querySnapshot ->
                         (Iterable<SpeakingTestQuestion>) querySnapshot.getDocuments().stream()
                                 .map(snapshot -> {
@@ -95,13 +99,32 @@ public class FBQuestionRepository implements IQuestionRepository {
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error getting all questions", ex); });
     }
 
+    @Override
+    public CompletableFuture<List<SpeakingTestQuestion>> getQuestionsUpdatedSince(Date since) {
+        return fetchQuestionsUpdatedSince(since);
+    }
+
+    private CompletableFuture<List<SpeakingTestQuestion>> fetchQuestionsUpdatedSince(Date since) {
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> questionCollection.whereGreaterThan(FirestoreChangeLog.CHANGED_AT, since).get();
+        return FirestoreFutureUtils.toCompletableFuture(questionCollection, future)
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(snapshot -> {
+                            SpeakingTestQuestion q = snapshot.toObject(SpeakingTestQuestion.class);
+                            if (q != null) q.setId(snapshot.getId());
+                            return q;
+                        })
+                        .filter(java.util.Objects::nonNull)
+                        .collect(Collectors.toList()))
+                .whenComplete((res, ex) -> { if (ex != null) log.error("Error getting questions updated since {}", since, ex); });
+    }
+
     @Override
     public CompletableFuture<Iterable<SpeakingTestQuestion>> getAllQuestionsFromTest(String testId) {
-        ApiFuture<QuerySnapshot> future = questionCollection
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> questionCollection
                 .whereEqualTo("testId", testId) // Adjust field name if needed
                 .orderBy("order") // Order questions within a test
                 .get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return FirestoreFutureUtils.toCompletableFuture(questionCollection, future)
                 .thenApply(querySnapshot ->
                         (Iterable<SpeakingTestQuestion>) querySnapshot.getDocuments().stream()
                                 .map(snapshot -> {
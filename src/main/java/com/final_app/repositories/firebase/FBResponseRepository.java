@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class FBResponseRepository implements IResponseRepository {
@@ -42,8 +43,8 @@ public class FBResponseRepository implements IResponseRepository {
         String id = (response.getId() == null || response.getId().isEmpty()) ?
                 responseCollection.document().getId() : response.getId();
         response.setId(id);
-        ApiFuture<WriteResult> future = responseCollection.document(id).set(response);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> responseCollection.document(id).set(response);
+        return FirestoreFutureUtils.toVoidCompletableFuture(responseCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding response {}", id, ex); });
     }
 
@@ -52,15 +53,15 @@ public class FBResponseRepository implements IResponseRepository {
         if (response.getId() == null || response.getId().isEmpty()) {
             return CompletableFuture.failedFuture(new IllegalArgumentException("Response ID missing for update."));
         }
-        ApiFuture<WriteResult> future = responseCollection.document(response.getId()).set(response, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> responseCollection.document(response.getId()).set(response, SetOptions.merge());
+        return FirestoreFutureUtils.toVoidCompletableFuture(responseCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating response {}", response.getId(), ex); });
     }
 
     @Override
     public CompletableFuture<Optional<UserSpeakingTestResponse>> getResponseById(String id) {
-        ApiFuture<DocumentSnapshot> future = responseCollection.document(id).get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        Supplier<ApiFuture<DocumentSnapshot>> future = () -> responseCollection.document(id).get();
+        return FirestoreFutureUtils.toCompletableFuture(responseCollection, future)
                 .thenApply(snapshot -> {
                     if (snapshot.exists()) {
                         UserSpeakingTestResponse r = snapshot.toObject(UserSpeakingTestResponse.class);
@@ -74,15 +75,15 @@ public class FBResponseRepository implements IResponseRepository {
 
     @Override
     public CompletableFuture<Void> deleteResponseById(String id) {
-        ApiFuture<WriteResult> future = responseCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> responseCollection.document(id).delete();
+        return FirestoreFutureUtils.toVoidCompletableFuture(responseCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting response {}", id, ex); });
     }
 
     @Override
     public CompletableFuture<Iterable<UserSpeakingTestResponse>> getAllResponses() {
-        ApiFuture<QuerySnapshot> future = responseCollection.orderBy("timestamp").get(); // Example order
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> responseCollection.orderBy("timestamp").get(); // Example order
+        return FirestoreFutureUtils.toCompletableFuture(responseCollection, future)
                 .thenApply(querySnapshot ->
                         (Iterable<UserSpeakingTestResponse>) querySnapshot.getDocuments().stream()
                                 .map(snapshot -> {
@@ -98,11 +99,11 @@ public class FBResponseRepository implements IResponseRepository {
 
     @Override
     public CompletableFuture<Iterable<UserSpeakingTestResponse>> getAllResponsesFromUserTest(String userTestId) {
-        ApiFuture<QuerySnapshot> future = responseCollection
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> responseCollection
                 .whereEqualTo("userTestId", userTestId) // Adjust field name if needed
                 .orderBy("timestamp")
                 .get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return FirestoreFutureUtils.toCompletableFuture(responseCollection, future)
                 .thenApply(querySnapshot ->
                         (Iterable<UserSpeakingTestResponse>) querySnapshot.getDocuments().stream()
                                 .map(snapshot -> {
@@ -2,14 +2,22 @@ package com.final_app.repositories.firebase;
 
 import com.final_app.interfaces.IScenarioRepository;
 import com.final_app.models.Scenario;
+import com.final_app.repositories.firebase.utils.FirestoreBatchLoader;
+import com.final_app.repositories.firebase.utils.FirestoreChangeLog;
 import com.final_app.repositories.firebase.utils.FirestoreFutureUtils;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class FBScenarioRepository implements IScenarioRepository {
@@ -17,6 +25,8 @@ public class FBScenarioRepository implements IScenarioRepository {
     private static final Logger log = LoggerFactory.getLogger(FBScenarioRepository.class);
     private static final String COLLECTION_NAME = "scenarios";
     private final CollectionReference scenarioCollection;
+    // Live copy of the collection, answers reads without a query
+    private final FirestoreReferenceStore referenceStore;
 
     private static FBScenarioRepository instance = null;
 
@@ -26,9 +36,10 @@ public class FBScenarioRepository implements IScenarioRepository {
         }
         Firestore db = FirebaseManager.getDb();
         this.scenarioCollection = db.collection(COLLECTION_NAME);
+        this.referenceStore = FirestoreReferenceStore.getInstance();
     }
 
-    public static IScenarioRepository getInstance() {
+    public static FBScenarioRepository getInstance() {
         if (instance == null) {
             instance = new FBScenarioRepository();
         }
@@ -40,8 +51,8 @@ public class FBScenarioRepository implements IScenarioRepository {
         String id = (scenario.getId() == null || scenario.getId().isEmpty()) ?
                 scenarioCollection.document().getId() : scenario.getId();
         scenario.setId(id);
-        ApiFuture<WriteResult> future = scenarioCollection.document(id).set(scenario);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.set(scenarioCollection.document(id), scenario);
+        return FirestoreFutureUtils.toVoidCompletableFuture(scenarioCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding scenario {}", id, ex); });
     }
 
@@ -50,15 +61,19 @@ public class FBScenarioRepository implements IScenarioRepository {
         if (scenario.getId() == null || scenario.getId().isEmpty()) {
             return CompletableFuture.failedFuture(new IllegalArgumentException("Scenario ID missing for update."));
         }
-        ApiFuture<WriteResult> future = scenarioCollection.document(scenario.getId()).set(scenario, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.merge(scenarioCollection.document(scenario.getId()), scenario);
+        return FirestoreFutureUtils.toVoidCompletableFuture(scenarioCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating scenario {}", scenario.getId(), ex); });
     }
 
     @Override
     public CompletableFuture<Optional<Scenario>> getScenarioById(String id) {
-        ApiFuture<DocumentSnapshot> future = scenarioCollection.document(id).get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return referenceStore.scenarios().readById(id, () -> fetchScenarioById(id));
+    }
+
+    private CompletableFuture<Optional<Scenario>> fetchScenarioById(String id) {
+        Supplier<ApiFuture<DocumentSnapshot>> future = () -> scenarioCollection.document(id).get();
+        return FirestoreFutureUtils.toCompletableFuture(scenarioCollection, future)
                 .thenApply(snapshot -> {
                     if (snapshot.exists()) {
                         Scenario s = snapshot.toObject(Scenario.class);
@@ -72,15 +87,19 @@ public class FBScenarioRepository implements IScenarioRepository {
 
     @Override
     public CompletableFuture<Void> deleteScenarioById(String id) {
-        ApiFuture<WriteResult> future = scenarioCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.delete(scenarioCollection.document(id));
+        return FirestoreFutureUtils.toVoidCompletableFuture(scenarioCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting scenario {}", id, ex); });
     }
 
     @Override
     public CompletableFuture<Iterable<Scenario>> getAllScenarios() {
-        ApiFuture<QuerySnapshot> future = scenarioCollection.get(); // Example order
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return referenceStore.scenarios().read(scenarios -> (Iterable<Scenario>) new ArrayList<>(scenarios.values()), this::fetchAllScenarios);
+    }
+
+    private CompletableFuture<Iterable<Scenario>> fetchAllScenarios() {
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> scenarioCollection.get(); // Example order
+        return FirestoreFutureUtils.toCompletableFuture(scenarioCollection, future)
                 .thenApply(querySnapshot ->
                         (Iterable<Scenario>) querySnapshot.getDocuments().stream()
                                 .map(snapshot -> {
@@ -93,4 +112,35 @@ public class FBScenarioRepository implements IScenarioRepository {
                 )
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error getting all scenarios", ex); });
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<List<Scenario>> getScenariosUpdatedSince(Date since) {
+        return referenceStore.scenarios().readUpdatedSince(since, Scenario::getServerUpdatedAt, () -> fetchScenariosUpdatedSince(since));
+    }
+
+    private CompletableFuture<List<Scenario>> fetchScenariosUpdatedSince(Date since) {
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> scenarioCollection.whereGreaterThan(FirestoreChangeLog.CHANGED_AT, since).get();
+        return FirestoreFutureUtils.toCompletableFuture(scenarioCollection, future)
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(snapshot -> {
+                            Scenario s = snapshot.toObject(Scenario.class);
+                            if (s != null) s.setId(snapshot.getId());
+                            return s;
+                        })
+                        .filter(java.util.Objects::nonNull)
+                        .collect(Collectors.toList()))
+                .whenComplete((res, ex) -> { if (ex != null) log.error("Error getting scenarios updated since {}", since, ex); });
+    }
+
+    /**
+     * Load several scenarios from the live store, else with batched reads, keyed by ID
+     */
+    public CompletableFuture<Map<String, Scenario>> getScenariosByIds(Collection<String> ids) {
+        return referenceStore.scenarios().readAll(ids, () -> fetchScenariosByIds(ids));
+    }
+
+    private CompletableFuture<Map<String, Scenario>> fetchScenariosByIds(Collection<String> ids) {
+        return FirestoreBatchLoader.getAll(scenarioCollection, ids, Scenario.class, Scenario::setId)
+                .whenComplete((res, ex) -> { if (ex != null) log.error("Error getting {} scenarios by ID", ids.size(), ex); });
+    }
+}
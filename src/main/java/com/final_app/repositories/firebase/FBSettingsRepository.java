@@ -13,6 +13,7 @@ import com.google.cloud.firestore.WriteResult;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public class FBSettingsRepository implements ISettingsRepository {
     private static final String COLLECTION_NAME = "settings";
@@ -37,8 +38,8 @@ public class FBSettingsRepository implements ISettingsRepository {
        if(settings.getId() == null || settings.getId().isEmpty()) {
            settings.setId(UUID.randomUUID().toString());
         }
-        ApiFuture<WriteResult> future = settingsCollection.document().set(settings);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> settingsCollection.document(settings.getId()).set(settings);
+        return FirestoreFutureUtils.toVoidCompletableFuture(settingsCollection, future)
                 .whenComplete((res, ex) -> {
                     if (ex != null) {
                         throw new RuntimeException("Error saving settings", ex);
@@ -48,9 +49,9 @@ public class FBSettingsRepository implements ISettingsRepository {
 
     @Override
     public CompletableFuture<Optional<Settings>> getSettingsFromUser(String userId) {
-        ApiFuture<QuerySnapshot> future = settingsCollection.whereEqualTo("userId", userId).get();
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> settingsCollection.whereEqualTo("userId", userId).get();
 
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return FirestoreFutureUtils.toCompletableFuture(settingsCollection, future)
                 .thenCompose(queryDocumentSnapshots -> {
                     if (queryDocumentSnapshots.isEmpty()) {
                         return CompletableFuture.completedFuture(Optional.empty());
@@ -2,21 +2,29 @@ package com.final_app.repositories.firebase;
 
 import com.final_app.interfaces.ISpeakingTestRepository;
 import com.final_app.models.SpeakingTest;
+import com.final_app.repositories.firebase.utils.FirestoreChangeLog;
 import com.final_app.repositories.firebase.utils.FirestoreFutureUtils;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class FBSpeakingTestRepository implements ISpeakingTestRepository {
 
     private static final Logger log = LoggerFactory.getLogger(FBSpeakingTestRepository.class);
     private static final String COLLECTION_NAME = "speakingTests";
     private final CollectionReference testCollection;
+    // Live copy of the collection, answers reads without a query
+    private final FirestoreReferenceStore referenceStore;
 
     private static FBSpeakingTestRepository instance = null;
 
@@ -26,6 +34,7 @@ public class FBSpeakingTestRepository implements ISpeakingTestRepository {
         }
         Firestore db = FirebaseManager.getDb();
         this.testCollection = db.collection(COLLECTION_NAME);
+        this.referenceStore = FirestoreReferenceStore.getInstance();
     }
 
 
@@ -41,8 +50,8 @@ public class FBSpeakingTestRepository implements ISpeakingTestRepository {
         String id = (speakingTest.getId() == null || speakingTest.getId().isEmpty()) ?
                 testCollection.document().getId() : speakingTest.getId();
         speakingTest.setId(id);
-        ApiFuture<WriteResult> future = testCollection.document(id).set(speakingTest);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.set(testCollection.document(id), speakingTest);
+        return FirestoreFutureUtils.toVoidCompletableFuture(testCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding speaking test {}", id, ex); });
     }
 
@@ -51,15 +60,19 @@ public class FBSpeakingTestRepository implements ISpeakingTestRepository {
         if (speakingTest.getId() == null || speakingTest.getId().isEmpty()) {
             return CompletableFuture.failedFuture(new IllegalArgumentException("SpeakingTest ID missing for update."));
         }
-        ApiFuture<WriteResult> future = testCollection.document(speakingTest.getId()).set(speakingTest, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.merge(testCollection.document(speakingTest.getId()), speakingTest);
+        return FirestoreFutureUtils.toVoidCompletableFuture(testCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating speaking test {}", speakingTest.getId(), ex); });
     }
 
     @Override
     public CompletableFuture<Optional<SpeakingTest>> getSpeakingTestById(String id) {
-        ApiFuture<DocumentSnapshot> future = testCollection.document(id).get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return referenceStore.speakingTests().readById(id, () -> fetchSpeakingTestById(id));
+    }
+
+    private CompletableFuture<Optional<SpeakingTest>> fetchSpeakingTestById(String id) {
+        Supplier<ApiFuture<DocumentSnapshot>> future = () -> testCollection.document(id).get();
+        return FirestoreFutureUtils.toCompletableFuture(testCollection, future)
                 .thenApply(snapshot -> {
                     if (snapshot.exists()) {
                         SpeakingTest test = snapshot.toObject(SpeakingTest.class);
@@ -73,15 +86,19 @@ public class FBSpeakingTestRepository implements ISpeakingTestRepository {
 
     @Override
     public CompletableFuture<Void> deleteSpeakingTestById(String id) {
-        ApiFuture<WriteResult> future = testCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.delete(testCollection.document(id));
+        return FirestoreFutureUtils.toVoidCompletableFuture(testCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting speaking test {}", id, ex); });
     }
 
     @Override
     public CompletableFuture<Iterable<SpeakingTest>> getAllSpeakingTests() {
-        ApiFuture<QuerySnapshot> future = testCollection.orderBy("title").get(); // Example order
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return referenceStore.speakingTests().read(tests -> sortedByTitle(tests.values().stream()), this::fetchAllSpeakingTests);
+    }
+
+    private CompletableFuture<Iterable<SpeakingTest>> fetchAllSpeakingTests() {
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> testCollection.orderBy("title").get(); // Example order
+        return FirestoreFutureUtils.toCompletableFuture(testCollection, future)
                 .thenApply(querySnapshot ->
                         (Iterable<SpeakingTest>) querySnapshot.getDocuments().stream()
                                 .map(snapshot -> {
@@ -95,13 +112,37 @@ public class FBSpeakingTestRepository implements ISpeakingTestRepository {
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error getting all speaking tests", ex); });
     }
 
+    @Override
+    public CompletableFuture<List<SpeakingTest>> getSpeakingTestsUpdatedSince(Date since) {
+        return referenceStore.speakingTests().readUpdatedSince(since, SpeakingTest::getServerUpdatedAt, () -> fetchSpeakingTestsUpdatedSince(since));
+    }
+
+    private CompletableFuture<List<SpeakingTest>> fetchSpeakingTestsUpdatedSince(Date since) {
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> testCollection.whereGreaterThan(FirestoreChangeLog.CHANGED_AT, since).get();
+        return FirestoreFutureUtils.toCompletableFuture(testCollection, future)
+                .thenApply(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(snapshot -> {
+                            SpeakingTest test = snapshot.toObject(SpeakingTest.class);
+                            if (test != null) test.setId(snapshot.getId());
+                            return test;
+                        })
+                        .filter(java.util.Objects::nonNull)
+                        .collect(Collectors.toList()))
+                .whenComplete((res, ex) -> { if (ex != null) log.error("Error getting speaking tests updated since {}", since, ex); });
+    }
+
     @Override
     public CompletableFuture<Iterable<SpeakingTest>> getAllSpeakingTestsFromLanguage(String languageId) {
-        ApiFuture<QuerySnapshot> future = testCollection
+        return referenceStore.speakingTests().read(tests -> sortedByTitle(tests.values().stream()
+                .filter(test -> languageId != null && languageId.equals(test.getLanguageId()))), () -> fetchAllSpeakingTestsFromLanguage(languageId));
+    }
+
+    private CompletableFuture<Iterable<SpeakingTest>> fetchAllSpeakingTestsFromLanguage(String languageId) {
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> testCollection
                 .whereEqualTo("languageId", languageId) // Adjust field name if needed
                 .orderBy("title")
                 .get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return FirestoreFutureUtils.toCompletableFuture(testCollection, future)
                 .thenApply(querySnapshot ->
                         (Iterable<SpeakingTest>) querySnapshot.getDocuments().stream()
                                 .map(snapshot -> {
@@ -119,11 +160,16 @@ public class FBSpeakingTestRepository implements ISpeakingTestRepository {
 
     @Override
     public CompletableFuture<Iterable<SpeakingTest>> getAllSpeakingTestsFromLevel(String levelId) {
-        ApiFuture<QuerySnapshot> future = testCollection
+        return referenceStore.speakingTests().read(tests -> sortedByTitle(tests.values().stream()
+                .filter(test -> levelId != null && levelId.equals(test.getLevelId()))), () -> fetchAllSpeakingTestsFromLevel(levelId));
+    }
+
+    private CompletableFuture<Iterable<SpeakingTest>> fetchAllSpeakingTestsFromLevel(String levelId) {
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> testCollection
                 .whereEqualTo("levelId", levelId) // Adjust field name if needed
                 .orderBy("title")
                 .get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return FirestoreFutureUtils.toCompletableFuture(testCollection, future)
                 .thenApply(querySnapshot ->
                         (Iterable<SpeakingTest>) querySnapshot.getDocuments().stream()
                                 .map(snapshot -> {
@@ -138,4 +184,12 @@ public class FBSpeakingTestRepository implements ISpeakingTestRepository {
                     if (ex != null) log.error("Error getting speaking tests for level ID {}", levelId, ex);
                 });
     }
-}
\ No newline at end of file
+
+    /**
+     * Same order as the orderBy("title") queries
+     */
+    private static Iterable<SpeakingTest> sortedByTitle(Stream<SpeakingTest> tests) {
+        return tests.sorted(Comparator.comparing(SpeakingTest::getTitle, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+    }
+}
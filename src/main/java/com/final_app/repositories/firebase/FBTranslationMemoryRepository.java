@@ -0,0 +1,93 @@
+package com.final_app.repositories.firebase;
+
+import com.final_app.models.TranslationMemoryEntry;
+import com.final_app.repositories.firebase.utils.FirestoreFutureUtils;
+import com.final_app.tools.ContentHash;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Translation memory shared by all devices, documents are named after the key of their entry
+ */
+public class FBTranslationMemoryRepository {
+    private static final Logger log = LoggerFactory.getLogger(FBTranslationMemoryRepository.class);
+    private static final String COLLECTION_NAME = "translation_memory";
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private static FBTranslationMemoryRepository instance = null;
+    private final Firestore db;
+    private final CollectionReference memoryCollection;
+
+    public FBTranslationMemoryRepository() {
+        if (instance == null) {
+            instance = this;
+        }
+        this.db = FirebaseManager.getDb();
+        this.memoryCollection = db.collection(COLLECTION_NAME);
+    }
+
+    public static FBTranslationMemoryRepository getInstance() {
+        if (instance == null) {
+            instance = new FBTranslationMemoryRepository();
+        }
+        return instance;
+    }
+
+    /**
+     * The entries of the given source hashes, keyed by source hash. Hashes without an entry are left out.
+     */
+    public CompletableFuture<Map<String, TranslationMemoryEntry>> find(Collection<String> sourceHashes, String sourceLanguage, String targetLanguage, String model) {
+        if (sourceHashes.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        DocumentReference[] refs = sourceHashes.stream()
+                .map(sourceHash -> memoryCollection.document(documentId(sourceHash, sourceLanguage, targetLanguage, model)))
+                .toArray(DocumentReference[]::new);
+
+        return FirestoreFutureUtils.toCompletableFuture(memoryCollection, () -> db.getAll(refs))
+                .thenApply(snapshots -> {
+                    Map<String, TranslationMemoryEntry> entries = new HashMap<>();
+                    for (DocumentSnapshot snapshot : snapshots) {
+                        if (snapshot.exists()) {
+                            TranslationMemoryEntry entry = snapshot.toObject(TranslationMemoryEntry.class);
+                            entries.put(entry.getSourceHash(), entry);
+                        }
+                    }
+                    return entries;
+                });
+    }
+
+    /**
+     * Store the entries in batches of at most {@link #MAX_BATCH_SIZE} writes
+     */
+    public CompletableFuture<Void> save(Collection<TranslationMemoryEntry> entries) {
+        List<TranslationMemoryEntry> list = new ArrayList<>(entries);
+        List<CompletableFuture<Void>> commits = new ArrayList<>();
+        for (int start = 0; start < list.size(); start += MAX_BATCH_SIZE) {
+            WriteBatch batch = db.batch();
+            for (TranslationMemoryEntry entry : list.subList(start, Math.min(start + MAX_BATCH_SIZE, list.size()))) {
+                batch.set(memoryCollection.document(documentId(entry.getSourceHash(), entry.getSourceLanguage(), entry.getTargetLanguage(), entry.getModel())), entry);
+            }
+            commits.add(FirestoreFutureUtils.toCompletableFuture(memoryCollection, batch::commit).thenApply(results -> (Void) null));
+        }
+
+        return CompletableFuture.allOf(commits.toArray(new CompletableFuture[0]))
+                .whenComplete((res, ex) -> { if (ex != null) log.error("Error writing {} translation memory entries", list.size(), ex); });
+    }
+
+    private static String documentId(String sourceHash, String sourceLanguage, String targetLanguage, String model) {
+        return ContentHash.ofText(sourceHash, sourceLanguage, targetLanguage, model);
+    }
+}
@@ -1,11 +1,14 @@
 package com.final_app.repositories.firebase;
 
 import com.final_app.factories.RepositoryFactory;
+import com.final_app.globals.ConversationStatus;
+import com.final_app.globals.FetchPlan;
 // Import necessary interfaces for mapping
-import com.final_app.interfaces.IConversationRepository;
+import com.final_app.interfaces.IMessageRepository;
 import com.final_app.interfaces.IUserConversationsRepository;
 import com.final_app.interfaces.IUserRepository;
 import com.final_app.models.*;
+import com.final_app.repositories.firebase.utils.FirestoreChangeLog;
 import com.final_app.repositories.firebase.utils.FirestoreFutureUtils;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
@@ -14,9 +17,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 // Import List and Optional if not already present
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class FBUserConversationsRepository implements IUserConversationsRepository {
@@ -24,6 +35,12 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
     private static final Logger log = LoggerFactory.getLogger(FBUserConversationsRepository.class);
     private static final String USER_CONVO_COLLECTION = "userConversations";
     private static final String USER_CHAIN_ITEM_COLLECTION = "userConversationChainItems";
+    // Fields read for FetchPlan.LAZY and EVALUATIONS. The embedded message history is left out, and so are the
+    // copies of the user and the conversation older documents embed, those are resolved from their own documents.
+    private static final String[] SUMMARY_FIELDS = {
+            "id", "userId", "conversationId", "status", "evaluation", "createdAt", "updatedAt", "completedAt",
+            FirestoreChangeLog.CHANGED_AT
+    };
 
     private final Firestore firestoreDb; // Keep Firestore instance
     private final CollectionReference userConvoCollection;
@@ -31,7 +48,8 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
 
     // Dependencies needed for mapping connected objects
     private final IUserRepository userRepository;
-    private final IConversationRepository conversationRepository;
+    private final FBConversationRepository conversationRepository;
+    private final IMessageRepository messageRepository;
 
 
     private static FBUserConversationsRepository instance = null; // Corrected instance type
@@ -44,7 +62,9 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
 
         // Get dependent repositories via Factory (assuming they are Firestore-based)
         this.userRepository = RepositoryFactory.getUserRepository();
-        this.conversationRepository = RepositoryFactory.getConversationRepository();
+        this.conversationRepository = FBConversationRepository.getInstance();
+        // Lazy message loads must read Firestore even when the factory has switched to offline since
+        this.messageRepository = FBMessageRepository.getInstance();
     }
 
     // Static synchronized method for Singleton access
@@ -63,10 +83,9 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
         String id = (userConversation.getId() == null || userConversation.getId().isEmpty()) ?
                 userConvoCollection.document().getId() : userConversation.getId();
         userConversation.setId(id);
-        // Ensure related objects are not persisted, only their IDs
-        //UserConversation cleanUC = userConversation.cloneWithoutConnectedObjects(); // Assumes such a method exists or implement here
-        ApiFuture<WriteResult> future = userConvoCollection.document(id).set(userConversation);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        // Related objects are not persisted, only their IDs
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.set(userConvoCollection.document(id), UserConversationDocument.from(userConversation));
+        return FirestoreFutureUtils.toVoidCompletableFuture(userConvoCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding user conversation {}", id, ex); });
     }
 
@@ -76,21 +95,25 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
             log.warn("Attempted to update UserConversation with null or empty ID.");
             return CompletableFuture.failedFuture(new IllegalArgumentException("UserConversation ID missing for update."));
         }
-        // Ensure related objects are not persisted, only their IDs
-        //UserConversation cleanUC = userConversation.cloneWithoutConnectedObjects(); // Assumes such a method exists or implement here
-        ApiFuture<WriteResult> future = userConvoCollection.document(userConversation.getId()).set(userConversation, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        // Related objects are not persisted, only their IDs
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.merge(userConvoCollection.document(userConversation.getId()), UserConversationDocument.from(userConversation));
+        return FirestoreFutureUtils.toVoidCompletableFuture(userConvoCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating user conversation {}", userConversation.getId(), ex); });
     }
 
     @Override
     public CompletableFuture<Optional<UserConversation>> getUserConversationById(String id) {
+        return getUserConversationById(id, FetchPlan.FULL);
+    }
+
+    @Override
+    public CompletableFuture<Optional<UserConversation>> getUserConversationById(String id, FetchPlan fetchPlan) {
         if (id == null || id.isEmpty()) {
             log.warn("getUserConversationById called with null or empty ID.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
-        ApiFuture<DocumentSnapshot> futureSnapshot = userConvoCollection.document(id).get();
-        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(futureSnapshot);
+        Supplier<ApiFuture<DocumentSnapshot>> futureSnapshot = () -> userConvoCollection.document(id).get();
+        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(userConvoCollection, futureSnapshot);
 
         // Chain mapping after fetching
         return cfSnapshot.thenCompose(snapshot -> { // Use thenCompose for async mapping
@@ -99,7 +122,7 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
                 if (uc != null) {
                     uc.setId(snapshot.getId());
                     // Call mapping function which returns CompletableFuture<Void>
-                    return mapConnectedObjects(uc)
+                    return mapConnectedObjects(uc, fetchPlan)
                             .thenApply(v -> Optional.of(uc)); // Return Optional<UserConversation> after mapping
                 } else {
                     log.warn("UserConversation document {} exists but failed to map.", id);
@@ -123,22 +146,28 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
             return CompletableFuture.completedFuture(null); // Or fail
         }
         // Consider deleting related UserConversationChainItems? This only deletes the main doc.
-        ApiFuture<WriteResult> future = userConvoCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.delete(userConvoCollection.document(id));
+        return FirestoreFutureUtils.toVoidCompletableFuture(userConvoCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting user conversation {}", id, ex); });
     }
 
     @Override
     public CompletableFuture<Iterable<UserConversation>> getAllUserConversationsFromUser(String userId) {
+        return getAllUserConversationsFromUser(userId, FetchPlan.LAZY);
+    }
+
+    @Override
+    public CompletableFuture<Iterable<UserConversation>> getAllUserConversationsFromUser(String userId, FetchPlan fetchPlan) {
         if (userId == null || userId.isEmpty()) {
             log.warn("getAllUserConversationsFromUser called with null or empty userId.");
             return CompletableFuture.completedFuture(List.of());
         }
-        ApiFuture<QuerySnapshot> futureQuery = userConvoCollection
+        Query query = userConvoCollection
                 .whereEqualTo("userId", userId)
-                .orderBy("createdAt", Query.Direction.DESCENDING) // Example order
-                .get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+                .orderBy("createdAt", Query.Direction.DESCENDING); // Example order
+        Query planned = applyFetchPlan(query, fetchPlan);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = planned::get;
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userConvoCollection, futureQuery);
 
         return cfQuery.thenCompose(querySnapshot -> { // Use thenCompose for async mapping
             List<UserConversation> userConversations = querySnapshot.getDocuments().stream()
@@ -154,13 +183,8 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
                 return CompletableFuture.completedFuture(userConversations); // Return empty list directly
             }
 
-            // Map connected objects for each item in the list
-            List<CompletableFuture<Void>> mappingFutures = userConversations.stream()
-                    .map(this::mapConnectedObjects) // mapConnectedObjects returns CompletableFuture<Void>
-                    .collect(Collectors.toList());
-
-            // Wait for all mappings to complete, then return the list
-            return CompletableFuture.allOf(mappingFutures.toArray(new CompletableFuture[0]))
+            // Resolve the users and conversations of all items at once
+            return mapUserConversations(userConversations, fetchPlan)
                     .thenApply(v -> (Iterable<UserConversation>) userConversations);
         }).exceptionally(ex -> {
             log.error("Error getting user conversations for user ID {} or mapping", userId, ex);
@@ -168,18 +192,134 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
         });
     }
 
+    @Override
+    public CompletableFuture<List<UserConversation>> getUserConversationsFromUserUpdatedSince(String userId, Date since, FetchPlan fetchPlan) {
+        // **IMPORTANT**: Requires a composite index on (userId, serverUpdatedAt)
+        Query query = userConvoCollection
+                .whereEqualTo("userId", userId)
+                .whereGreaterThan(FirestoreChangeLog.CHANGED_AT, since);
+        Query planned = applyFetchPlan(query, fetchPlan);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = planned::get;
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userConvoCollection, futureQuery);
+
+        return cfQuery.thenCompose(querySnapshot -> {
+            List<UserConversation> userConversations = querySnapshot.getDocuments().stream()
+                    .map(snapshot -> {
+                        UserConversation uc = snapshot.toObject(UserConversation.class);
+                        if (uc != null) uc.setId(snapshot.getId());
+                        return uc;
+                    })
+                    .filter(java.util.Objects::nonNull)
+                    .collect(Collectors.toList());
+
+            return mapUserConversations(userConversations, fetchPlan)
+                    .thenApply(v -> userConversations);
+        }).whenComplete((res, ex) -> { if (ex != null) log.error("Error getting user conversations for user ID {} updated since {}", userId, since, ex); });
+    }
+
+    @Override
+    public CompletableFuture<List<UserConversation>> getUserConversationsPageFromUser(String userId, UserConversation after, int pageSize) {
+        return getUserConversationsPageFromUser(userId, null, after, pageSize);
+    }
+
+    @Override
+    public CompletableFuture<List<UserConversation>> getUserConversationsPageFromUser(String userId, String conversationId, UserConversation after, int pageSize) {
+        if (userId == null || userId.isEmpty()) {
+            log.warn("getUserConversationsPageFromUser called with null or empty userId.");
+            return CompletableFuture.completedFuture(List.of());
+        }
+        // **IMPORTANT**: Requires composite indexes on (userId, updatedAt) and (userId, conversationId, updatedAt)
+        Query query = userConvoCollection.whereEqualTo("userId", userId);
+        if (conversationId != null) {
+            query = query.whereEqualTo("conversationId", conversationId);
+        }
+        query = query
+                .orderBy("updatedAt", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+        if (after != null) {
+            query = query.startAfter(after.getUpdatedAt(), after.getId());
+        }
+        Query planned = applyFetchPlan(query.limit(pageSize), FetchPlan.EVALUATIONS);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = planned::get;
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userConvoCollection, futureQuery);
+
+        return cfQuery.thenCompose(querySnapshot -> {
+            List<UserConversation> userConversations = querySnapshot.getDocuments().stream()
+                    .map(snapshot -> {
+                        UserConversation uc = snapshot.toObject(UserConversation.class);
+                        if (uc != null) uc.setId(snapshot.getId());
+                        return uc;
+                    })
+                    .filter(java.util.Objects::nonNull)
+                    .collect(Collectors.toList());
+
+            // Resolve the users and conversations of all items at once
+            return mapUserConversations(userConversations, FetchPlan.EVALUATIONS)
+                    .thenApply(v -> userConversations);
+        }).exceptionally(ex -> {
+            log.error("Error getting user conversation page for user ID {}", userId, ex);
+            return List.of();
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<UserConversationGroup>> getUserConversationGroupsFromUser(String userId) {
+        if (userId == null || userId.isEmpty()) {
+            log.warn("getUserConversationGroupsFromUser called with null or empty userId.");
+            return CompletableFuture.completedFuture(List.of());
+        }
+        // Firestore cannot group, so the summary fields of every attempt are read and only the most recent
+        // attempt of each conversation is mapped
+        Query planned = applyFetchPlan(userConvoCollection.whereEqualTo("userId", userId), FetchPlan.EVALUATIONS);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = planned::get;
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userConvoCollection, futureQuery);
+
+        return cfQuery.thenCompose(querySnapshot -> {
+            Map<String, GroupTotals> totals = new LinkedHashMap<>();
+            for (QueryDocumentSnapshot snapshot : querySnapshot.getDocuments()) {
+                String conversationId = snapshot.getString("conversationId");
+                if (conversationId != null) {
+                    totals.computeIfAbsent(conversationId, id -> new GroupTotals()).add(snapshot);
+                }
+            }
+
+            List<UserConversation> latest = new ArrayList<>();
+            List<UserConversationGroup> groups = new ArrayList<>();
+            for (GroupTotals total : totals.values()) {
+                UserConversation uc = total.latest.toObject(UserConversation.class);
+                uc.setId(total.latest.getId());
+                latest.add(uc);
+                groups.add(new UserConversationGroup(uc, total.attempts, total.completed, total.averageScore()));
+            }
+            groups.sort(Comparator.comparing((UserConversationGroup group) -> group.getLatest().getUpdatedAt(),
+                    Comparator.nullsLast(Comparator.reverseOrder())));
+
+            return mapUserConversations(latest, FetchPlan.EVALUATIONS)
+                    .thenApply(v -> groups);
+        }).exceptionally(ex -> {
+            log.error("Error getting user conversation groups for user ID {}", userId, ex);
+            return List.of();
+        });
+    }
+
     @Override
     public CompletableFuture<Iterable<UserConversation>> getUserConversationsByUserAndConversationId(String userId, String conversationId) {
+        return getUserConversationsByUserAndConversationId(userId, conversationId, FetchPlan.LAZY);
+    }
+
+    @Override
+    public CompletableFuture<Iterable<UserConversation>> getUserConversationsByUserAndConversationId(String userId, String conversationId, FetchPlan fetchPlan) {
         if (userId == null || userId.isEmpty() || conversationId == null || conversationId.isEmpty()) {
             log.warn("getUserConversationsByUserAndConversationId called with null or empty IDs.");
             return CompletableFuture.completedFuture(List.of());
         }
         // **IMPORTANT**: Requires a composite index on (userId, conversationId)
-        ApiFuture<QuerySnapshot> futureQuery = userConvoCollection
+        Query query = userConvoCollection
                 .whereEqualTo("userId", userId)
-                .whereEqualTo("conversationId", conversationId)
-                .get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+                .whereEqualTo("conversationId", conversationId);
+        Query planned = applyFetchPlan(query, fetchPlan);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = planned::get;
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userConvoCollection, futureQuery);
 
         return cfQuery.thenCompose(querySnapshot -> { // Use thenCompose for async mapping
             List<UserConversation> userConversations = querySnapshot.getDocuments().stream()
@@ -195,12 +335,8 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
                 return CompletableFuture.completedFuture(userConversations);
             }
 
-            // Map connected objects
-            List<CompletableFuture<Void>> mappingFutures = userConversations.stream()
-                    .map(this::mapConnectedObjects)
-                    .collect(Collectors.toList());
-
-            return CompletableFuture.allOf(mappingFutures.toArray(new CompletableFuture[0]))
+            // Resolve the users and conversations of all items at once
+            return mapUserConversations(userConversations, fetchPlan)
                     .thenApply(v -> (Iterable<UserConversation>) userConversations);
         }).exceptionally(ex -> {
             log.error("Error getting user conversations for user ID {} and conversation ID {} or mapping", userId, conversationId, ex);
@@ -219,8 +355,8 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
         String id = (userConversationChainItem.getId() == null || userConversationChainItem.getId().isEmpty()) ?
                 userChainItemCollection.document().getId() : userConversationChainItem.getId();
         userConversationChainItem.setId(id);
-        ApiFuture<WriteResult> future = userChainItemCollection.document(id).set(userConversationChainItem);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> userChainItemCollection.document(id).set(userConversationChainItem);
+        return FirestoreFutureUtils.toVoidCompletableFuture(userChainItemCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding user conversation chain item {}", id, ex); });
     }
 
@@ -230,8 +366,8 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
             log.warn("getUserConversationChainItemById called with null or empty ID.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
-        ApiFuture<DocumentSnapshot> futureSnapshot = userChainItemCollection.document(id).get();
-        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(futureSnapshot);
+        Supplier<ApiFuture<DocumentSnapshot>> futureSnapshot = () -> userChainItemCollection.document(id).get();
+        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(userChainItemCollection, futureSnapshot);
 
         return cfSnapshot.thenApply(snapshot -> {
             if (snapshot.exists()) {
@@ -261,11 +397,11 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
             return CompletableFuture.completedFuture(Optional.empty());
         }
         // Query by userConversationId field (ensure this field exists on the model)
-        ApiFuture<QuerySnapshot> futureQuery = userChainItemCollection
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> userChainItemCollection
                 .whereEqualTo("userConversationId", userConversationId)
                 .limit(1)
                 .get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userChainItemCollection, futureQuery);
 
         return cfQuery.thenApply(querySnapshot -> {
             if (!querySnapshot.isEmpty()) {
@@ -296,8 +432,8 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
             log.warn("Attempted to delete UserConversationChainItem with null or empty ID.");
             return CompletableFuture.completedFuture(null); // Or fail
         }
-        ApiFuture<WriteResult> future = userChainItemCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> userChainItemCollection.document(id).delete();
+        return FirestoreFutureUtils.toVoidCompletableFuture(userChainItemCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting user conversation chain item {}", id, ex); });
     }
 
@@ -307,10 +443,10 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
             log.warn("getAllUserConversationChainItemsFromUser called with null user or user ID.");
             return CompletableFuture.completedFuture(List.of());
         }
-        ApiFuture<QuerySnapshot> futureQuery = userChainItemCollection
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> userChainItemCollection
                 .whereEqualTo("userId", user.getId())
                 .get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userChainItemCollection, futureQuery);
 
         return cfQuery.thenApply(querySnapshot ->
                 querySnapshot.getDocuments().stream()
@@ -334,10 +470,10 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
             log.warn("getAllUserConversationChainItemsFromConversationChainId called with null or empty ID.");
             return CompletableFuture.completedFuture(List.of());
         }
-        ApiFuture<QuerySnapshot> futureQuery = userChainItemCollection
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> userChainItemCollection
                 .whereEqualTo("conversationChainId", conversationChainId)
                 .get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userChainItemCollection, futureQuery);
 
         return cfQuery.thenApply(querySnapshot ->
                 querySnapshot.getDocuments().stream()
@@ -356,56 +492,159 @@ public class FBUserConversationsRepository implements IUserConversationsReposito
     }
 
 
-    // --- Mapping Helper Method ---
+    // --- Mapping Helper Methods ---
+
+    /**
+     * Leaves the embedded message history out of the read unless the plan is FetchPlan.FULL;
+     * the messages are then fetched on first access. The evaluation is embedded and always read.
+     */
+    private Query applyFetchPlan(Query query, FetchPlan fetchPlan) {
+        return fetchPlan != FetchPlan.FULL ? query.select(SUMMARY_FIELDS) : query;
+    }
 
     /**
      * Maps the connected User and Conversation objects based on IDs
      * stored in the UserConversation object.
-     * Assumes userRepository and conversationRepository are Firestore-based
-     * and return CompletableFuture<Optional<...>>.
+     * Unless the plan is FetchPlan.FULL the messages are only fetched on first access.
+     * Mapping is read-only, nothing is written back to Firestore.
      * @param userConversation The UserConversation object to populate.
+     * @param fetchPlan How much of the graph to load now.
      * @return A CompletableFuture<Void> indicating completion of mapping.
      */
-    private CompletableFuture<Void> mapConnectedObjects(UserConversation userConversation) {
+    private CompletableFuture<Void> mapConnectedObjects(UserConversation userConversation, FetchPlan fetchPlan) {
         if (userConversation == null) {
             return CompletableFuture.completedFuture(null);
         }
+        return mapUserConversations(Collections.singletonList(userConversation), fetchPlan);
+    }
+
+    /**
+     * Maps the connected objects of a whole result: the referenced users and conversations are
+     * de-duplicated and fetched together instead of once per user conversation. They replace the
+     * copies older documents embed, which may be outdated.
+     */
+    private CompletableFuture<Void> mapUserConversations(List<UserConversation> userConversations, FetchPlan fetchPlan) {
+        // Usually all items belong to the same user
+        Map<String, CompletableFuture<Optional<User>>> userFutures = new HashMap<>();
+        List<String> conversationIds = new ArrayList<>();
+        for (UserConversation userConversation : userConversations) {
+            if (userConversation.getUserId() != null) {
+                userFutures.computeIfAbsent(userConversation.getUserId(), userRepository::getUserById);
+            }
+            if (userConversation.getConversationId() != null) {
+                conversationIds.add(userConversation.getConversationId());
+            }
+        }
+        CompletableFuture<Map<String, Conversation>> convoFuture = conversationRepository.getConversationsByIds(conversationIds);
+
+        Map<String, CompletableFuture<Iterable<Message>>> messageFutures = new HashMap<>();
+        for (UserConversation userConversation : userConversations) {
+            String id = userConversation.getId();
+            if (fetchPlan != FetchPlan.FULL) {
+                userConversation.loadMessagesWith(() -> loadMessages(id));
+            } else if (userConversation.getMessages().isEmpty()) {
+                messageFutures.put(id, messageRepository.getAllMessagesFromUserConversation(id));
+            }
+        }
 
-        // Fetch User and Conversation concurrently
-        CompletableFuture<Optional<User>> userFuture = (userConversation.getUser() == null) ? userRepository.getUserById(userConversation.getUserId()) : CompletableFuture.completedFuture(Optional.of(userConversation.getUser()));
-        CompletableFuture<Optional<Conversation>> convoFuture = (userConversation.getConversation() == null) ? conversationRepository.getConversationById(userConversation.getConversationId()) : CompletableFuture.completedFuture(Optional.of(userConversation.getConversation()));
-        CompletableFuture<Iterable<Message>> messageFuture = (userConversation.getMessages().isEmpty()) ? RepositoryFactory.getMessageRepository().getAllMessagesFromUserConversation(userConversation.getId()) : CompletableFuture.completedFuture(userConversation.getMessages());
+        List<CompletableFuture<?>> pending = new ArrayList<>(userFutures.values());
+        pending.addAll(messageFutures.values());
+        pending.add(convoFuture);
 
-        // Combine futures and set the results on the userConversation object
-        return CompletableFuture.allOf(userFuture, convoFuture)
+        // Combine futures and set the results on the userConversation objects
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
                 .thenAccept(voidResult -> {
-                    userFuture.join().ifPresent(userConversation::setUser); // join() is safe after allOf
-                    convoFuture.join().ifPresent(userConversation::setConversation);
-                    userConversation.setMessages((List<Message>) messageFuture.join());
-                    updateUserConversation(userConversation);
+                    for (UserConversation userConversation : userConversations) {
+                        CompletableFuture<Optional<User>> userFuture = userFutures.get(userConversation.getUserId());
+                        if (userFuture != null) {
+                            userFuture.join().ifPresent(userConversation::setUser); // join() is safe after allOf
+                        }
+                        Conversation conversation = userConversation.getConversationId() != null
+                                ? convoFuture.join().get(userConversation.getConversationId()) : null;
+                        if (conversation != null) {
+                            userConversation.setConversation(conversation);
+                        }
+                        CompletableFuture<Iterable<Message>> messageFuture = messageFutures.get(userConversation.getId());
+                        if (messageFuture != null) {
+                            List<Message> messages = new ArrayList<>();
+                            messageFuture.join().forEach(messages::add);
+                            userConversation.setMessages(messages);
+                        }
+                    }
                 }).exceptionally(ex -> {
-                    log.error("Error mapping User or Conversation for UserConversation {}", userConversation.getId(), ex);
-                    // Decide error handling: leave objects null? Log and continue?
-                    return null; // Suppress exception propagation if desired
+                    log.error("Error mapping User or Conversation for {} user conversations", userConversations.size(), ex);
+                    return null;
                 });
     }
 
-    // Helper method potentially needed for add/update to avoid persisting full objects
-    // Add this to your UserConversation model or implement similar logic here.
-    /*
-    private UserConversation cloneWithoutConnectedObjects(UserConversation original) {
-        UserConversation clone = new UserConversation();
-        // Copy only ID fields and primitive/simple fields
-        clone.setId(original.getId());
-        clone.setUserId(original.getUserId());
-        clone.setConversationId(original.getConversationId());
-        clone.setStartTime(original.getStartTime());
-        clone.setEndTime(original.getEndTime());
-        clone.setStatus(original.getStatus());
-        clone.setUserMessageCount(original.getUserMessageCount());
-        // DO NOT copy user, conversation fields
-        return clone;
+    /**
+     * The messages of a user conversation for the lazy loader. Conversations synchronized before the messages
+     * collection was written only have their history embedded in the document, it is read when the collection
+     * has none.
+     */
+    private List<Message> loadMessages(String userConversationId) {
+        List<Message> messages = new ArrayList<>();
+        messageRepository.getAllMessagesFromUserConversation(userConversationId).join().forEach(messages::add);
+        if (!messages.isEmpty()) {
+            return messages;
+        }
+
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> userConvoCollection
+                .whereEqualTo(FieldPath.documentId(), userConversationId)
+                .select("messages")
+                .get();
+        for (QueryDocumentSnapshot snapshot : FirestoreFutureUtils.toCompletableFuture(userConvoCollection, futureQuery).join().getDocuments()) {
+            UserConversation embedded = snapshot.toObject(UserConversation.class);
+            if (embedded != null && embedded.getMessages() != null) {
+                for (Message message : embedded.getMessages()) {
+                    if (message.getUserConversationId() == null) {
+                        message.setUserConversationId(userConversationId);
+                    }
+                    messages.add(message);
+                }
+            }
+        }
+        return messages;
     }
-    */
 
-}
\ No newline at end of file
+    /**
+     * Totals of the attempts of one conversation while the documents are read
+     */
+    private static class GroupTotals {
+        private QueryDocumentSnapshot latest;
+        private int attempts;
+        private int completed;
+        private int scored;
+        private double scoreSum;
+
+        private void add(QueryDocumentSnapshot snapshot) {
+            attempts++;
+            if (latest == null || isNewer(snapshot, latest)) {
+                latest = snapshot;
+            }
+            if (ConversationStatus.COMPLETED.name().equals(snapshot.getString("status"))) {
+                completed++;
+                Long score = snapshot.getLong("evaluation.score");
+                Long maxScore = snapshot.getLong("evaluation.maxScore");
+                if (score != null && maxScore != null && maxScore > 0) {
+                    scored++;
+                    scoreSum += score * 100.0 / maxScore;
+                }
+            }
+        }
+
+        private int averageScore() {
+            return scored == 0 ? 0 : (int) (scoreSum / scored);
+        }
+
+        private static boolean isNewer(DocumentSnapshot a, DocumentSnapshot b) {
+            Date updatedA = a.getDate("updatedAt");
+            Date updatedB = b.getDate("updatedAt");
+            if (updatedA == null || updatedB == null) {
+                return updatedB == null && (updatedA != null || a.getId().compareTo(b.getId()) > 0);
+            }
+            int compared = updatedA.compareTo(updatedB);
+            return compared != 0 ? compared > 0 : a.getId().compareTo(b.getId()) > 0;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.final_app.models.Language;
 import com.final_app.models.LanguageLevel;
 import com.final_app.models.User;
 import com.final_app.models.UserLanguage;
+import com.final_app.repositories.firebase.utils.FirestoreChangeLog;
 import com.final_app.repositories.firebase.utils.FirestoreFutureUtils; // Ensure this utility exists
 // Remove RTDB specific utils if no longer needed
 // import com.final_app.repositories.firebase.utils.FirebaseUtils;
@@ -18,10 +19,12 @@ import com.google.cloud.firestore.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class FBUserLanguageRepository implements IUserLanguageRepository {
@@ -57,8 +60,8 @@ public class FBUserLanguageRepository implements IUserLanguageRepository {
                 userLangCollection.document().getId() : userLanguage.getId();
         userLanguage.setId(id);
 
-        ApiFuture<WriteResult> future = userLangCollection.document(id).set(userLanguage);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.set(userLangCollection.document(id), userLanguage);
+        return FirestoreFutureUtils.toVoidCompletableFuture(userLangCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding user language {}", id, ex); });
     }
 
@@ -68,8 +71,8 @@ public class FBUserLanguageRepository implements IUserLanguageRepository {
             log.warn("Attempted to update UserLanguage with null or empty ID.");
             return CompletableFuture.failedFuture(new IllegalArgumentException("UserLanguage ID missing for update."));
         }
-        ApiFuture<WriteResult> future = userLangCollection.document(userLanguage.getId()).set(userLanguage, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.merge(userLangCollection.document(userLanguage.getId()), userLanguage);
+        return FirestoreFutureUtils.toVoidCompletableFuture(userLangCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating user language {}", userLanguage.getId(), ex); });
     }
 
@@ -79,8 +82,8 @@ public class FBUserLanguageRepository implements IUserLanguageRepository {
             log.warn("getUserLanguageById called with null or empty ID.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
-        ApiFuture<DocumentSnapshot> futureSnapshot = userLangCollection.document(id).get();
-        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(futureSnapshot);
+        Supplier<ApiFuture<DocumentSnapshot>> futureSnapshot = () -> userLangCollection.document(id).get();
+        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(userLangCollection, futureSnapshot);
 
         return cfSnapshot.thenCompose(snapshot -> {
             if (snapshot.exists()) {
@@ -113,12 +116,12 @@ public class FBUserLanguageRepository implements IUserLanguageRepository {
 
         // **IMPORTANT**: This query requires a composite index on 'languageId' and 'userId' in Firestore.
         // Create this index in your Firebase console.
-        ApiFuture<QuerySnapshot> futureQuery = userLangCollection
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> userLangCollection
                 .whereEqualTo("languageId", languageId)
                 .whereEqualTo("userId", userId)
                 .limit(1) // Expecting only one or zero result
                 .get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userLangCollection, futureQuery);
 
         return cfQuery.thenCompose(querySnapshot -> {
             if (!querySnapshot.isEmpty()) {
@@ -153,8 +156,8 @@ public class FBUserLanguageRepository implements IUserLanguageRepository {
             log.warn("Attempted to delete UserLanguage with null or empty ID.");
             return CompletableFuture.completedFuture(null); // Or fail?
         }
-        ApiFuture<WriteResult> future = userLangCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> FirestoreChangeLog.delete(userLangCollection.document(id));
+        return FirestoreFutureUtils.toVoidCompletableFuture(userLangCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting user language {}", id, ex); });
     }
 
@@ -164,8 +167,8 @@ public class FBUserLanguageRepository implements IUserLanguageRepository {
             log.warn("getAllUserLanguagesFromUser called with null or empty userId.");
             return CompletableFuture.completedFuture(List.of()); // Return empty list
         }
-        ApiFuture<QuerySnapshot> futureQuery = userLangCollection.whereEqualTo("userId", userId).get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> userLangCollection.whereEqualTo("userId", userId).get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userLangCollection, futureQuery);
 
         return cfQuery.thenCompose(querySnapshot -> {
             List<UserLanguage> userLanguages = querySnapshot.getDocuments().stream()
@@ -194,6 +197,30 @@ public class FBUserLanguageRepository implements IUserLanguageRepository {
         });
     }
 
+    @Override
+    public CompletableFuture<List<UserLanguage>> getUserLanguagesFromUserUpdatedSince(String userId, Date since) {
+        // **IMPORTANT**: Requires a composite index on (userId, serverUpdatedAt)
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> userLangCollection
+                .whereEqualTo("userId", userId)
+                .whereGreaterThan(FirestoreChangeLog.CHANGED_AT, since)
+                .get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userLangCollection, futureQuery);
+
+        return cfQuery.thenCompose(querySnapshot -> {
+            List<UserLanguage> userLanguages = querySnapshot.getDocuments().stream()
+                    .map(snapshot -> {
+                        UserLanguage ul = snapshot.toObject(UserLanguage.class);
+                        if (ul != null) ul.setId(snapshot.getId());
+                        return ul;
+                    })
+                    .filter(java.util.Objects::nonNull)
+                    .collect(Collectors.toList());
+
+            return CompletableFuture.allOf(userLanguages.stream().map(this::mapConnectedObjects).toArray(CompletableFuture[]::new))
+                    .thenApply(v -> userLanguages);
+        }).whenComplete((res, ex) -> { if (ex != null) log.error("Error getting user languages for user ID {} updated since {}", userId, since, ex); });
+    }
+
     /**
      * Maps the Language and LanguageLevel objects to the UserLanguage object
      * by fetching them using the ILanguageRepository (assumed Firestore-based).
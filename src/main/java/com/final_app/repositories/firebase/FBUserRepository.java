@@ -1,6 +1,7 @@
 package com.final_app.repositories.firebase;
 
 import com.final_app.interfaces.IUserRepository;
+import com.final_app.models.ActivityStats;
 import com.final_app.models.User;
 import com.final_app.models.UserStats;
 import com.final_app.repositories.firebase.utils.FirestoreFutureUtils; // Ensure this utility exists
@@ -12,9 +13,11 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class FBUserRepository implements IUserRepository {
@@ -22,6 +25,8 @@ public class FBUserRepository implements IUserRepository {
     private static final Logger log = LoggerFactory.getLogger(FBUserRepository.class);
     private static final String USER_COLLECTION = "users";
     private static final String STATS_COLLECTION = "userStats"; // Assuming user stats are stored here
+    private static final String USER_CONVO_COLLECTION = "userConversations";
+    private static final String USER_TEST_COLLECTION = "userSpeakingTests";
 
     private final Firestore firestoreDb; // Keep Firestore instance if needed elsewhere, or remove if collections are sufficient
     private final CollectionReference userCollection;
@@ -56,13 +61,13 @@ public class FBUserRepository implements IUserRepository {
             // Let Firestore generate the ID
             DocumentReference newUserRef = userCollection.document();
             user.setId(newUserRef.getId());
-            ApiFuture<WriteResult> future = newUserRef.set(user);
-            return FirestoreFutureUtils.toVoidCompletableFuture(future)
+            Supplier<ApiFuture<WriteResult>> future = () -> newUserRef.set(user);
+            return FirestoreFutureUtils.toVoidCompletableFuture(userCollection, future)
                     .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding user {}", user.getId(), ex); });
         } else {
             // Use the provided ID
-            ApiFuture<WriteResult> future = userCollection.document(user.getId()).set(user);
-            return FirestoreFutureUtils.toVoidCompletableFuture(future)
+            Supplier<ApiFuture<WriteResult>> future = () -> userCollection.document(user.getId()).set(user);
+            return FirestoreFutureUtils.toVoidCompletableFuture(userCollection, future)
                     .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding user with provided ID {}", user.getId(), ex); });
         }
     }
@@ -74,8 +79,8 @@ public class FBUserRepository implements IUserRepository {
             return CompletableFuture.failedFuture(new IllegalArgumentException("User ID missing for update."));
         }
         // Use set with merge to only update provided fields
-        ApiFuture<WriteResult> future = userCollection.document(user.getId()).set(user, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> userCollection.document(user.getId()).set(user, SetOptions.merge());
+        return FirestoreFutureUtils.toVoidCompletableFuture(userCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating user {}", user.getId(), ex); });
     }
 
@@ -85,8 +90,8 @@ public class FBUserRepository implements IUserRepository {
             log.warn("getUserById called with null or empty ID.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
-        ApiFuture<DocumentSnapshot> futureSnapshot = userCollection.document(id).get();
-        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(futureSnapshot);
+        Supplier<ApiFuture<DocumentSnapshot>> futureSnapshot = () -> userCollection.document(id).get();
+        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(userCollection, futureSnapshot);
 
         return cfSnapshot.thenApply(snapshot -> {
             if (snapshot.exists()) {
@@ -115,8 +120,8 @@ public class FBUserRepository implements IUserRepository {
             return CompletableFuture.completedFuture(Optional.empty());
         }
         // Query Firestore directly instead of fetching all users
-        ApiFuture<QuerySnapshot> futureQuery = userCollection.whereEqualTo("userName", username).limit(1).get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> userCollection.whereEqualTo("userName", username).limit(1).get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userCollection, futureQuery);
 
         return cfQuery.thenApply(querySnapshot -> {
             if (!querySnapshot.isEmpty()) {
@@ -146,8 +151,8 @@ public class FBUserRepository implements IUserRepository {
             return CompletableFuture.completedFuture(Optional.empty());
         }
         // Query Firestore directly
-        ApiFuture<QuerySnapshot> futureQuery = userCollection.whereEqualTo("email", email).limit(1).get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> userCollection.whereEqualTo("email", email).limit(1).get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userCollection, futureQuery);
 
         return cfQuery.thenApply(querySnapshot -> {
             if (!querySnapshot.isEmpty()) {
@@ -178,15 +183,15 @@ public class FBUserRepository implements IUserRepository {
         }
         // Consider deleting associated data (UserStats, UserLanguage, etc.) or using Cloud Functions trigger.
         // This only deletes the user document.
-        ApiFuture<WriteResult> future = userCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> userCollection.document(id).delete();
+        return FirestoreFutureUtils.toVoidCompletableFuture(userCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting user {}", id, ex); });
     }
 
     @Override
     public CompletableFuture<List<User>> getAllUsers() {
-        ApiFuture<QuerySnapshot> futureQuery = userCollection.get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> userCollection.get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userCollection, futureQuery);
 
         return cfQuery.thenApply(querySnapshot ->
                 querySnapshot.getDocuments().stream()
@@ -210,8 +215,8 @@ public class FBUserRepository implements IUserRepository {
             return CompletableFuture.completedFuture(false);
         }
         // Query efficiently, only need to know if >= 1 exists
-        ApiFuture<QuerySnapshot> futureQuery = userCollection.whereEqualTo("email", email).limit(1).get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> userCollection.whereEqualTo("email", email).limit(1).get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userCollection, futureQuery);
 
         return cfQuery.thenApply(querySnapshot -> !querySnapshot.isEmpty()) // True if query returned any document
                 .exceptionally(ex -> {
@@ -227,8 +232,8 @@ public class FBUserRepository implements IUserRepository {
             return CompletableFuture.completedFuture(false);
         }
         // Query efficiently
-        ApiFuture<QuerySnapshot> futureQuery = userCollection.whereEqualTo("userName", username).limit(1).get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> userCollection.whereEqualTo("userName", username).limit(1).get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(userCollection, futureQuery);
 
         return cfQuery.thenApply(querySnapshot -> !querySnapshot.isEmpty())
                 .exceptionally(ex -> {
@@ -252,8 +257,8 @@ public class FBUserRepository implements IUserRepository {
         }
         // Set the UserStats document ID to be the same as the User ID
         userStats.setId(user.getId()); // Ensure ID is consistent if UserStats has an ID field
-        ApiFuture<WriteResult> future = statsCollection.document(user.getId()).set(userStats, SetOptions.merge()); // Use merge to update
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> statsCollection.document(user.getId()).set(userStats, SetOptions.merge()); // Use merge to update
+        return FirestoreFutureUtils.toVoidCompletableFuture(statsCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error saving user stats for user {}", user.getId(), ex); });
     }
 
@@ -270,8 +275,8 @@ public class FBUserRepository implements IUserRepository {
             log.warn("getUserStatsByUserId called with null or empty userId.");
             return CompletableFuture.completedFuture(Optional.empty());
         }
-        ApiFuture<DocumentSnapshot> futureSnapshot = statsCollection.document(userId).get();
-        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(futureSnapshot);
+        Supplier<ApiFuture<DocumentSnapshot>> futureSnapshot = () -> statsCollection.document(userId).get();
+        CompletableFuture<DocumentSnapshot> cfSnapshot = FirestoreFutureUtils.toCompletableFuture(statsCollection, futureSnapshot);
 
         return cfSnapshot.thenApply(snapshot -> {
             if (snapshot.exists()) {
@@ -306,15 +311,15 @@ public class FBUserRepository implements IUserRepository {
             log.warn("Attempted to delete user stats with null or empty userId.");
             return CompletableFuture.failedFuture(new IllegalArgumentException("User ID missing for deleting stats."));
         }
-        ApiFuture<WriteResult> future = statsCollection.document(userId).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> statsCollection.document(userId).delete();
+        return FirestoreFutureUtils.toVoidCompletableFuture(statsCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting user stats for user {}", userId, ex); });
     }
 
     @Override
     public CompletableFuture<List<UserStats>> getAllUserStats() {
-        ApiFuture<QuerySnapshot> futureQuery = statsCollection.get();
-        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(futureQuery);
+        Supplier<ApiFuture<QuerySnapshot>> futureQuery = () -> statsCollection.get();
+        CompletableFuture<QuerySnapshot> cfQuery = FirestoreFutureUtils.toCompletableFuture(statsCollection, futureQuery);
 
         return cfQuery.thenApply(querySnapshot ->
                 querySnapshot.getDocuments().stream()
@@ -330,4 +335,42 @@ public class FBUserRepository implements IUserRepository {
             return List.of(); // Return empty list on error
         });
     }
-}
\ No newline at end of file
+
+    // --- Activity counts (Firestore count aggregations, no documents are downloaded) ---
+
+    @Override
+    public CompletableFuture<ActivityStats> getActivityStats(String userId, Date weekStart, Date weekEnd) {
+        if (userId == null || userId.isEmpty()) {
+            log.warn("getActivityStats called with null or empty userId.");
+            return CompletableFuture.completedFuture(new ActivityStats(0, 0, 0, 0));
+        }
+        // **IMPORTANT**: The weekly counts require composite indexes on (userId, updatedAt) and (userId, completedAt)
+        Query conversations = firestoreDb.collection(USER_CONVO_COLLECTION).whereEqualTo("userId", userId);
+        Query tests = firestoreDb.collection(USER_TEST_COLLECTION).whereEqualTo("userId", userId);
+
+        CompletableFuture<Long> totalConversations = count(USER_CONVO_COLLECTION, conversations);
+        CompletableFuture<Long> conversationsThisWeek = count(USER_CONVO_COLLECTION, conversations
+                .whereGreaterThanOrEqualTo("updatedAt", weekStart)
+                .whereLessThan("updatedAt", weekEnd));
+        CompletableFuture<Long> totalTests = count(USER_TEST_COLLECTION, tests);
+        CompletableFuture<Long> testsThisWeek = count(USER_TEST_COLLECTION, tests
+                .whereGreaterThanOrEqualTo("completedAt", weekStart)
+                .whereLessThan("completedAt", weekEnd));
+
+        return CompletableFuture.allOf(totalConversations, conversationsThisWeek, totalTests, testsThisWeek)
+                .thenApply(v -> new ActivityStats(
+                        totalConversations.join(),
+                        conversationsThisWeek.join(),
+                        totalTests.join(),
+                        testsThisWeek.join()
+                )).exceptionally(ex -> {
+                    log.error("Error counting activity for user ID {}", userId, ex);
+                    return new ActivityStats(0, 0, 0, 0);
+                });
+    }
+
+    private CompletableFuture<Long> count(String collection, Query query) {
+        return FirestoreFutureUtils.toCompletableFuture(collection, () -> query.count().get())
+                .thenApply(AggregateQuerySnapshot::getCount);
+    }
+}
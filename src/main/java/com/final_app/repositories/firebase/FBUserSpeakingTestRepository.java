@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class FBUserSpeakingTestRepository implements IUserSpeakingTestRepository {
@@ -41,8 +42,8 @@ public class FBUserSpeakingTestRepository implements IUserSpeakingTestRepository
         String id = (userSpeakingTest.getId() == null || userSpeakingTest.getId().isEmpty()) ?
                 userTestCollection.document().getId() : userSpeakingTest.getId();
         userSpeakingTest.setId(id);
-        ApiFuture<WriteResult> future = userTestCollection.document(id).set(userSpeakingTest);
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> userTestCollection.document(id).set(userSpeakingTest);
+        return FirestoreFutureUtils.toVoidCompletableFuture(userTestCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error adding user speaking test {}", id, ex); });
     }
 
@@ -51,15 +52,15 @@ public class FBUserSpeakingTestRepository implements IUserSpeakingTestRepository
         if (userSpeakingTest.getId() == null || userSpeakingTest.getId().isEmpty()) {
             return CompletableFuture.failedFuture(new IllegalArgumentException("UserSpeakingTest ID missing for update."));
         }
-        ApiFuture<WriteResult> future = userTestCollection.document(userSpeakingTest.getId()).set(userSpeakingTest, SetOptions.merge());
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> userTestCollection.document(userSpeakingTest.getId()).set(userSpeakingTest, SetOptions.merge());
+        return FirestoreFutureUtils.toVoidCompletableFuture(userTestCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error updating user speaking test {}", userSpeakingTest.getId(), ex); });
     }
 
     @Override
     public CompletableFuture<Optional<UserSpeakingTest>> getUserSpeakingTestById(String id) {
-        ApiFuture<DocumentSnapshot> future = userTestCollection.document(id).get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        Supplier<ApiFuture<DocumentSnapshot>> future = () -> userTestCollection.document(id).get();
+        return FirestoreFutureUtils.toCompletableFuture(userTestCollection, future)
                 .thenApply(snapshot -> {
                     if (snapshot.exists()) {
                         UserSpeakingTest ut = snapshot.toObject(UserSpeakingTest.class);
@@ -73,12 +74,12 @@ public class FBUserSpeakingTestRepository implements IUserSpeakingTestRepository
 
     @Override
     public CompletableFuture<Optional<UserSpeakingTest>> getUserSpeakingTestByUserIdAndTestId(String userId, String testId) {
-        ApiFuture<QuerySnapshot> future = userTestCollection
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> userTestCollection
                 .whereEqualTo("userId", userId)
                 .whereEqualTo("testId", testId) // Adjust field names if needed
                 .limit(1)
                 .get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return FirestoreFutureUtils.toCompletableFuture(userTestCollection, future)
                 .thenApply(querySnapshot -> {
                     if (!querySnapshot.isEmpty()) {
                         DocumentSnapshot snapshot = querySnapshot.getDocuments().get(0);
@@ -96,18 +97,18 @@ public class FBUserSpeakingTestRepository implements IUserSpeakingTestRepository
     @Override
     public CompletableFuture<Void> deleteUserSpeakingTestById(String id) {
         // Consider implications: Delete associated responses? Service layer responsibility?
-        ApiFuture<WriteResult> future = userTestCollection.document(id).delete();
-        return FirestoreFutureUtils.toVoidCompletableFuture(future)
+        Supplier<ApiFuture<WriteResult>> future = () -> userTestCollection.document(id).delete();
+        return FirestoreFutureUtils.toVoidCompletableFuture(userTestCollection, future)
                 .whenComplete((res, ex) -> { if (ex != null) log.error("Error deleting user speaking test {}", id, ex); });
     }
 
     @Override
     public CompletableFuture<Iterable<UserSpeakingTest>> getAllUserSpeakingTestsFromUser(String userId) {
-        ApiFuture<QuerySnapshot> future = userTestCollection
+        Supplier<ApiFuture<QuerySnapshot>> future = () -> userTestCollection
                 .whereEqualTo("userId", userId) // Adjust field name if needed
                 .orderBy("startTime", Query.Direction.DESCENDING) // Example order
                 .get();
-        return FirestoreFutureUtils.toCompletableFuture(future)
+        return FirestoreFutureUtils.toCompletableFuture(userTestCollection, future)
                 .thenApply(querySnapshot ->
                         (Iterable<UserSpeakingTest>) querySnapshot.getDocuments().stream()
                                 .map(snapshot -> {
@@ -0,0 +1,394 @@
+package com.final_app.repositories.firebase;
+
+import com.final_app.db.dao.ConversationDAO;
+import com.final_app.db.dao.EvaluationDAO;
+import com.final_app.db.dao.LanguageDAO;
+import com.final_app.db.dao.LanguageLevelDAO;
+import com.final_app.db.dao.LanguageLevelSystemDAO;
+import com.final_app.db.dao.MessageDAO;
+import com.final_app.db.dao.ScenarioDAO;
+import com.final_app.db.dao.SettingsDAO;
+import com.final_app.db.dao.SpeakingTestDAO;
+import com.final_app.db.dao.SpeakingTestQuestionDAO;
+import com.final_app.db.dao.SyncContentHashDAO;
+import com.final_app.db.dao.SyncOutboxDAO;
+import com.final_app.db.dao.UserConversationDAO;
+import com.final_app.db.dao.UserDAO;
+import com.final_app.db.dao.UserLanguageDAO;
+import com.final_app.db.dao.UserStatsDAO;
+import com.final_app.globals.FetchPlan;
+import com.final_app.models.UserConversation;
+import com.final_app.models.UserStats;
+import com.final_app.repositories.firebase.utils.FirestoreChangeLog;
+import com.final_app.repositories.firebase.utils.FirestoreFutureUtils;
+import com.final_app.repositories.firebase.utils.FirestoreSyncDigests;
+import com.final_app.tools.ContentHash;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the local sync outbox ({@link SyncOutboxDAO}) to Firestore in the background.
+ * <p>
+ * Pending changes are sent oldest first with one WriteBatch of up to {@link #BATCH_SIZE} changes. Each change sends
+ * the current local state of the entity (set with merge) or deletes the document, so a retried batch is harmless.
+ * The writes go through {@link FirestoreChangeLog}, so other devices pull them by their server change time.
+ * A failed batch is retried entry by entry with exponential backoff. An entry that failed
+ * -Dlingualeap.sync.outboxMaxAttempts times (default 10) is skipped until the next full synchronization.
+ */
+public class FirestoreOutboxWorker {
+    private static final Logger log = LoggerFactory.getLogger(FirestoreOutboxWorker.class);
+
+    // Firestore accepts at most 500 writes per batch, each change takes two with its change time or tombstone
+    private static final int BATCH_SIZE = 250;
+    private static final int MAX_ATTEMPTS = Integer.getInteger("lingualeap.sync.outboxMaxAttempts", 10);
+    private static final long INITIAL_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 60_000;
+    // Limiter key of the batch commits, they span several collections
+    private static final String OUTBOX_KEY = "syncOutbox";
+
+    private static FirestoreOutboxWorker instance = null;
+
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
+    private final SyncContentHashDAO contentHashDAO = new SyncContentHashDAO();
+    private final Map<String, Target> targets = new HashMap<>();
+
+    private final Object lock = new Object();
+    private List<CompletableFuture<Void>> waiting = new ArrayList<>();
+    private boolean drainRequested;
+    private boolean shutdown;
+    private long backoffMs = INITIAL_BACKOFF_MS;
+    private Thread worker;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private FirestoreOutboxWorker() {
+        LanguageLevelSystemDAO languageLevelSystemDAO = new LanguageLevelSystemDAO();
+        LanguageDAO languageDAO = new LanguageDAO();
+        LanguageLevelDAO languageLevelDAO = new LanguageLevelDAO();
+        SpeakingTestQuestionDAO questionDAO = new SpeakingTestQuestionDAO();
+        SpeakingTestDAO speakingTestDAO = new SpeakingTestDAO();
+        ConversationDAO conversationDAO = new ConversationDAO();
+        ScenarioDAO scenarioDAO = new ScenarioDAO();
+        UserLanguageDAO userLanguageDAO = new UserLanguageDAO();
+        UserConversationDAO userConversationDAO = new UserConversationDAO();
+        MessageDAO messageDAO = new MessageDAO();
+        EvaluationDAO evaluationDAO = new EvaluationDAO();
+        UserDAO userDAO = new UserDAO();
+        UserStatsDAO userStatsDAO = new UserStatsDAO();
+        SettingsDAO settingsDAO = new SettingsDAO();
+
+        // Same document shapes as the Firestore repositories write
+        targets.put(SyncOutboxDAO.LANGUAGE_SYSTEMS, new Target("languageLevelSystems", languageLevelSystemDAO::findById));
+        targets.put(SyncOutboxDAO.LANGUAGES, new Target("languages", languageDAO::findById));
+        targets.put(SyncOutboxDAO.LANGUAGE_LEVELS, new Target("languageLevels", id -> languageLevelDAO.findById(id).orElse(null)));
+        targets.put(SyncOutboxDAO.SPEAKING_TEST_QUESTIONS, new Target("speakingTestQuestions", questionDAO::findById));
+        targets.put(SyncOutboxDAO.SPEAKING_TESTS, new Target("speakingTests", speakingTestDAO::findById));
+        targets.put(SyncOutboxDAO.CONVERSATIONS, new Target("conversations", conversationDAO::findById));
+        targets.put(SyncOutboxDAO.SCENARIOS, new Target("scenarios", scenarioDAO::findById));
+        targets.put(SyncOutboxDAO.USER_LANGUAGES, new Target("userLanguages", userLanguageDAO::findById));
+        targets.put(SyncOutboxDAO.USER_CONVERSATIONS, new Target("userConversations", id -> {
+            UserConversation userConversation = userConversationDAO.findById(id, FetchPlan.LAZY);
+            return userConversation != null ? UserConversationDocument.from(userConversation) : null;
+        }));
+        targets.put(SyncOutboxDAO.MESSAGES, new Target("messages", messageDAO::findById));
+        targets.put(SyncOutboxDAO.EVALUATIONS, new Target("evaluations", evaluationDAO::findById));
+        targets.put(SyncOutboxDAO.USERS, new Target("users", userDAO::findById));
+        targets.put(SyncOutboxDAO.USER_STATS, new Target("userStats", userId -> {
+            UserStats userStats = userStatsDAO.findByUserId(userId);
+            if (userStats != null) {
+                userStats.setId(userId);
+            }
+            return userStats;
+        }));
+        targets.put(SyncOutboxDAO.SETTINGS, new Target("settings", settingsDAO::findById));
+    }
+
+    public static synchronized FirestoreOutboxWorker getInstance() {
+        if (instance == null) {
+            instance = new FirestoreOutboxWorker();
+        }
+        return instance;
+    }
+
+    /**
+     * Send every pending change in the background. The future completes once the outbox is empty,
+     * or exceptionally when a batch failed; the worker keeps retrying either way.
+     */
+    public CompletableFuture<Void> drain() {
+        synchronized (lock) {
+            CompletableFuture<Void> drained = new CompletableFuture<>();
+            if (shutdown) {
+                drained.completeExceptionally(new IllegalStateException("Outbox worker is shut down"));
+                return drained;
+            }
+            waiting.add(drained);
+            drainRequested = true;
+            startWorker();
+            lock.notifyAll();
+            return drained;
+        }
+    }
+
+    /**
+     * Delivery counters, e.g. "sync outbox: 120 changes in 3 batches, 1 failed batches"
+     */
+    public String getStatistics() {
+        return "sync outbox: " + delivered.get() + " changes in " + batches.get() + " batches, " + failures.get() + " failed batches";
+    }
+
+    /**
+     * Send every pending change and wait for it, at most timeoutMs. Returns whether the outbox is empty,
+     * what is left is sent after the next start.
+     */
+    public static boolean flush(long timeoutMs) {
+        try {
+            if (new SyncOutboxDAO().count() == 0) {
+                return true;
+            }
+            getInstance().drain().get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            log.warn("Sync outbox was not drained within {} ms, the rest is sent after the next start", timeoutMs);
+        } catch (ExecutionException e) {
+            log.warn("Final drain of the sync outbox failed, the rest is sent after the next start", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            log.error("Error reading the sync outbox", e);
+        }
+        return false;
+    }
+
+    /**
+     * Let the running drain finish, at most timeoutMs, and stop the worker. Does nothing when the worker was never used.
+     */
+    public static void shutdown(long timeoutMs) {
+        FirestoreOutboxWorker worker;
+        synchronized (FirestoreOutboxWorker.class) {
+            worker = instance;
+            instance = null;
+        }
+        if (worker != null) {
+            worker.stop(timeoutMs);
+            log.info(worker.getStatistics());
+        }
+    }
+
+    private void stop(long timeoutMs) {
+        Thread workerToJoin;
+        synchronized (lock) {
+            shutdown = true;
+            workerToJoin = worker;
+            lock.notifyAll();
+        }
+
+        if (workerToJoin != null) {
+            try {
+                // join(0) would wait forever
+                workerToJoin.join(Math.max(1, timeoutMs));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (workerToJoin.isAlive()) {
+                log.warn("Sync outbox did not drain within {} ms, the rest is sent after the next start", timeoutMs);
+            }
+        }
+    }
+
+    private void startWorker() {
+        if (worker == null) {
+            worker = new Thread(this::runWorker, "sync-outbox");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private void runWorker() {
+        while (true) {
+            List<CompletableFuture<Void>> callers;
+            synchronized (lock) {
+                while (!drainRequested && !shutdown) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // Keep waiting, the worker is only stopped through shutdown()
+                    }
+                }
+                if (!drainRequested) {
+                    return;
+                }
+                drainRequested = false;
+                callers = waiting;
+                waiting = new ArrayList<>();
+            }
+
+            Exception failure = drainPending();
+            if (failure == null) {
+                callers.forEach(caller -> caller.complete(null));
+                backoffMs = INITIAL_BACKOFF_MS;
+                continue;
+            }
+
+            callers.forEach(caller -> caller.completeExceptionally(failure));
+            synchronized (lock) {
+                if (shutdown) {
+                    return;
+                }
+                // Retry later, a new drain request starts right away
+                long retryAt = System.currentTimeMillis() + backoffMs;
+                while (!shutdown && !drainRequested && System.currentTimeMillis() < retryAt) {
+                    try {
+                        lock.wait(Math.max(1, retryAt - System.currentTimeMillis()));
+                    } catch (InterruptedException e) {
+                        // Keep waiting until the retry is due
+                    }
+                }
+                drainRequested = !shutdown;
+                backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+            }
+        }
+    }
+
+    /**
+     * Send batches until the outbox is empty, returns the failure that stopped it (null when drained)
+     */
+    private Exception drainPending() {
+        while (true) {
+            List<SyncOutboxDAO.Entry> entries;
+            try {
+                entries = outboxDAO.findPending(BATCH_SIZE, MAX_ATTEMPTS);
+            } catch (SQLException e) {
+                log.error("Error reading the sync outbox", e);
+                return e;
+            }
+            if (entries.isEmpty()) {
+                return null;
+            }
+
+            try {
+                send(entries);
+                continue;
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                if (entries.size() == 1) {
+                    return fail(entries, e);
+                }
+                log.warn("Sync outbox batch of {} changes failed, retrying them one by one", entries.size(), e);
+            }
+
+            // One change failed the whole batch, send them one by one so only the failing ones wait for a retry
+            Exception failure = null;
+            for (SyncOutboxDAO.Entry entry : entries) {
+                try {
+                    send(List.of(entry));
+                } catch (Exception e) {
+                    failure = fail(List.of(entry), e);
+                }
+            }
+            if (failure != null) {
+                return failure;
+            }
+        }
+    }
+
+    /**
+     * Write the entries with one batch and remove them from the outbox
+     */
+    private void send(List<SyncOutboxDAO.Entry> entries) throws SQLException {
+        Firestore db = FirebaseManager.getDb();
+        WriteBatch batch = db.batch();
+        // Content hashes of the sent documents, so the next pull recognizes them as unchanged
+        Map<String, Map<String, String>> sentHashes = new HashMap<>();
+        Map<String, List<String>> deletedIds = new HashMap<>();
+
+        for (SyncOutboxDAO.Entry entry : entries) {
+            Target target = targets.get(entry.getEntityType());
+            if (target == null) {
+                log.warn("No Firestore collection for outbox entity type {}, dropping {}", entry.getEntityType(), entry.getEntityId());
+                continue;
+            }
+
+            FirestoreSyncDigests.invalidate(db.collection(target.collection));
+            DocumentReference document = db.collection(target.collection).document(entry.getEntityId());
+            Object current = entry.getOperation() == SyncOutboxDAO.Operation.DELETE ? null : target.loader.load(entry.getEntityId());
+            if (current == null) {
+                // Deleted, or deleted locally after the change was recorded
+                FirestoreChangeLog.delete(batch, document);
+                deletedIds.computeIfAbsent(entry.getEntityType(), type -> new ArrayList<>()).add(entry.getEntityId());
+            } else {
+                FirestoreChangeLog.merge(batch, document, current);
+                String contentHash = current instanceof UserConversationDocument userConversation
+                        ? userConversation.getContentHash() : ContentHash.ofEntity(current);
+                if (contentHash != null) {
+                    sentHashes.computeIfAbsent(entry.getEntityType(), type -> new HashMap<>()).put(entry.getEntityId(), contentHash);
+                }
+            }
+        }
+
+        FirestoreFutureUtils.toCompletableFuture(OUTBOX_KEY, batch::commit).join();
+        // A change recorded while the batch was in flight has a newer version and stays for the next batch
+        outboxDAO.deleteDelivered(entries);
+        delivered.addAndGet(entries.size());
+        batches.incrementAndGet();
+        try {
+            for (Map.Entry<String, Map<String, String>> hashes : sentHashes.entrySet()) {
+                contentHashDAO.save(hashes.getKey(), hashes.getValue());
+            }
+            for (Map.Entry<String, List<String>> ids : deletedIds.entrySet()) {
+                contentHashDAO.delete(ids.getKey(), ids.getValue());
+            }
+        } catch (SQLException e) {
+            // Only costs a comparison by change time on the next pull
+            log.warn("Error storing the content hashes of the sent documents", e);
+        }
+    }
+
+    private Exception fail(List<SyncOutboxDAO.Entry> entries, Exception e) {
+        SyncOutboxDAO.Entry entry = entries.getFirst();
+        if (entry.getAttempts() + 1 >= MAX_ATTEMPTS) {
+            log.error("Giving up on sending {} {} after {} attempts", entry.getEntityType(), entry.getEntityId(), MAX_ATTEMPTS, e);
+        } else {
+            log.warn("Sending {} {} failed, retrying later", entry.getEntityType(), entry.getEntityId(), e);
+        }
+        try {
+            outboxDAO.markFailed(entries);
+        } catch (SQLException ex) {
+            log.error("Error counting the failed outbox delivery", ex);
+        }
+        return e;
+    }
+
+    /**
+     * Loads the current local state of an entity, null when it does not exist anymore
+     */
+    @FunctionalInterface
+    private interface DocumentLoader {
+        Object load(String id) throws SQLException;
+    }
+
+    private static class Target {
+        private final String collection;
+        private final DocumentLoader loader;
+
+        private Target(String collection, DocumentLoader loader) {
+            this.collection = collection;
+            this.loader = loader;
+        }
+    }
+}
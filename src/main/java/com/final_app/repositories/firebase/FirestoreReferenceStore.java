@@ -0,0 +1,307 @@
+package com.final_app.repositories.firebase;
+
+import com.final_app.models.Conversation;
+import com.final_app.models.Language;
+import com.final_app.models.LanguageLevel;
+import com.final_app.models.LanguageLevelSystem;
+import com.final_app.models.Scenario;
+import com.final_app.models.SpeakingTest;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-memory copy of the rarely changing Firestore collections (languages, levels, level systems, scenarios,
+ * conversations and speaking tests), the online counterpart of {@link com.final_app.db.ReferenceDataCache}.
+ * <p>
+ * Each collection is primed by the first event of a snapshot listener and kept current by the following ones,
+ * so the Firestore repositories can answer reads from memory instead of querying on every navigation.
+ * The snapshots are kept and every read gets its own objects, like a query would, so callers may map and change
+ * what they read without touching other readers.
+ * Can be turned off with -Dlingualeap.firestore.liveReferenceData=false.
+ */
+public class FirestoreReferenceStore {
+    private static final Logger log = LoggerFactory.getLogger(FirestoreReferenceStore.class);
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("lingualeap.firestore.liveReferenceData", "true"));
+
+    private static FirestoreReferenceStore instance = null;
+
+    private final LiveCollection<Language> languages;
+    private final LiveCollection<LanguageLevel> languageLevels;
+    private final LiveCollection<LanguageLevelSystem> languageSystems;
+    private final LiveCollection<Scenario> scenarios;
+    private final LiveCollection<Conversation> conversations;
+    private final LiveCollection<SpeakingTest> speakingTests;
+
+    private FirestoreReferenceStore() {
+        var db = FirebaseManager.getDb();
+        this.languages = new LiveCollection<>(db.collection("languages"), Language.class, Language::setId);
+        this.languageLevels = new LiveCollection<>(db.collection("languageLevels"), LanguageLevel.class, LanguageLevel::setId);
+        this.languageSystems = new LiveCollection<>(db.collection("languageLevelSystems"), LanguageLevelSystem.class, LanguageLevelSystem::setId);
+        this.scenarios = new LiveCollection<>(db.collection("scenarios"), Scenario.class, Scenario::setId);
+        this.conversations = new LiveCollection<>(db.collection("conversations"), Conversation.class, Conversation::setId);
+        this.speakingTests = new LiveCollection<>(db.collection("speakingTests"), SpeakingTest.class, SpeakingTest::setId);
+    }
+
+    public static synchronized FirestoreReferenceStore getInstance() {
+        if (instance == null) {
+            instance = new FirestoreReferenceStore();
+        }
+        return instance;
+    }
+
+    public LiveCollection<Language> languages() {
+        return languages;
+    }
+
+    public LiveCollection<LanguageLevel> languageLevels() {
+        return languageLevels;
+    }
+
+    public LiveCollection<LanguageLevelSystem> languageSystems() {
+        return languageSystems;
+    }
+
+    public LiveCollection<Scenario> scenarios() {
+        return scenarios;
+    }
+
+    public LiveCollection<Conversation> conversations() {
+        return conversations;
+    }
+
+    public LiveCollection<SpeakingTest> speakingTests() {
+        return speakingTests;
+    }
+
+    private List<LiveCollection<?>> all() {
+        return List.of(languages, languageLevels, languageSystems, scenarios, conversations, speakingTests);
+    }
+
+    /**
+     * Hit/change counters of all collections, e.g. "languages: 120 reads / 8 changes (8 documents)"
+     */
+    public List<String> getStatistics() {
+        List<String> statistics = new ArrayList<>();
+        for (LiveCollection<?> collection : all()) {
+            statistics.add(collection.toString());
+        }
+        return statistics;
+    }
+
+    /**
+     * Remove all snapshot listeners, later reads query Firestore directly. Does nothing when the store was never used.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.getStatistics().forEach(statistic -> log.info("Reference data {}", statistic));
+            instance.all().forEach(LiveCollection::close);
+            instance = null;
+        }
+    }
+
+    /**
+     * A single collection mirrored in memory through a snapshot listener
+     */
+    public static class LiveCollection<T> {
+        private final CollectionReference collection;
+        private final Class<T> type;
+        private final BiConsumer<T, String> idSetter;
+        private final Map<String, DocumentSnapshot> documents = new ConcurrentHashMap<>();
+        // Read-only view handing out a new object for every document that is looked up or iterated
+        private final Map<String, T> view = new AbstractMap<>() {
+            @Override
+            public T get(Object id) {
+                DocumentSnapshot document = documents.get(id);
+                return document == null ? null : materialize(document);
+            }
+
+            @Override
+            public boolean containsKey(Object id) {
+                return documents.containsKey(id);
+            }
+
+            @Override
+            public int size() {
+                return documents.size();
+            }
+
+            @Override
+            public Set<Entry<String, T>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, T>> iterator() {
+                        Iterator<Map.Entry<String, DocumentSnapshot>> snapshots = documents.entrySet().iterator();
+                        return new Iterator<>() {
+                            @Override
+                            public boolean hasNext() {
+                                return snapshots.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, T> next() {
+                                Map.Entry<String, DocumentSnapshot> next = snapshots.next();
+                                return new SimpleImmutableEntry<>(next.getKey(), materialize(next.getValue()));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return documents.size();
+                    }
+                };
+            }
+        };
+        private final AtomicLong reads = new AtomicLong();
+        private final AtomicLong changes = new AtomicLong();
+
+        private ListenerRegistration registration;
+        private volatile boolean closed;
+        private volatile CompletableFuture<Void> primed;
+
+        private LiveCollection(CollectionReference collection, Class<T> type, BiConsumer<T, String> idSetter) {
+            this.collection = collection;
+            this.type = type;
+            this.idSetter = idSetter;
+        }
+
+        /**
+         * Answer a read from the mirrored documents (keyed by ID). Waits for the first snapshot when the
+         * listener was just registered, and uses the fallback query when the listener fails or the store is off.
+         * The reader gets new objects, the ones it returns belong to the caller.
+         */
+        public <R> CompletableFuture<R> read(Function<Map<String, T>, R> reader, Supplier<CompletableFuture<R>> fallback) {
+            if (!ENABLED || closed) {
+                return fallback.get();
+            }
+
+            CompletableFuture<Void> ready = start();
+            if (ready.isDone() && !ready.isCompletedExceptionally()) {
+                reads.incrementAndGet();
+                return CompletableFuture.completedFuture(reader.apply(view));
+            }
+            return ready.thenApply(v -> {
+                reads.incrementAndGet();
+                return reader.apply(view);
+            }).exceptionallyCompose(ex -> fallback.get());
+        }
+
+        /**
+         * Answer a lookup by ID from the mirrored documents
+         */
+        public CompletableFuture<Optional<T>> readById(String id, Supplier<CompletableFuture<Optional<T>>> fallback) {
+            return read(documents -> Optional.ofNullable(id == null ? null : documents.get(id)), fallback);
+        }
+
+        /**
+         * Answer a lookup of several IDs from the mirrored documents, missing documents are left out of the map
+         */
+        public CompletableFuture<Map<String, T>> readAll(Collection<String> ids, Supplier<CompletableFuture<Map<String, T>>> fallback) {
+            return read(documents -> {
+                Map<String, T> found = new HashMap<>();
+                for (String id : ids) {
+                    T document = id == null ? null : documents.get(id);
+                    if (document != null) found.put(id, document);
+                }
+                return found;
+            }, fallback);
+        }
+
+        /**
+         * Answer a delta read from the mirrored documents: the ones changed after the given time
+         */
+        public CompletableFuture<List<T>> readUpdatedSince(Date since, Function<T, Date> lastUpdate, Supplier<CompletableFuture<List<T>>> fallback) {
+            return read(documents -> {
+                List<T> changed = new ArrayList<>();
+                for (T document : documents.values()) {
+                    Date updated = lastUpdate.apply(document);
+                    if (updated != null && updated.after(since)) changed.add(document);
+                }
+                return changed;
+            }, fallback);
+        }
+
+        private T materialize(DocumentSnapshot document) {
+            T value = document.toObject(type);
+            if (value != null) {
+                idSetter.accept(value, document.getId());
+            }
+            return value;
+        }
+
+        private synchronized CompletableFuture<Void> start() {
+            if (registration == null) {
+                primed = new CompletableFuture<>();
+                registration = collection.addSnapshotListener(this::onEvent);
+            }
+            return primed;
+        }
+
+        private void onEvent(QuerySnapshot snapshot, FirestoreException error) {
+            if (error != null) {
+                log.error("Snapshot listener on {} failed, falling back to queries until the next read", collection.getId(), error);
+                CompletableFuture<Void> failed;
+                synchronized (this) {
+                    failed = primed;
+                    stop();
+                }
+                failed.completeExceptionally(error);
+                return;
+            }
+
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                QueryDocumentSnapshot document = change.getDocument();
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    documents.remove(document.getId());
+                } else {
+                    documents.put(document.getId(), document);
+                }
+                changes.incrementAndGet();
+            }
+            primed.complete(null);
+        }
+
+        private synchronized void stop() {
+            if (registration != null) {
+                registration.remove();
+                registration = null;
+            }
+            documents.clear();
+        }
+
+        private synchronized void close() {
+            closed = true;
+            stop();
+        }
+
+        @Override
+        public String toString() {
+            return collection.getId() + ": " + reads.get() + " reads / " + changes.get() + " changes (" + documents.size() + " documents)";
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.final_app.repositories.firebase;
+
+import com.final_app.models.Evaluation;
+import com.final_app.models.UserConversation;
+import com.final_app.tools.ContentHash;
+
+import java.util.Date;
+
+/**
+ * Persisted shape of a user conversation in Firestore. Only the IDs of the user, the conversation and
+ * the messages' parent are stored, the related objects live in their own collections.
+ */
+public class UserConversationDocument {
+    private String id;
+    private String userId;
+    private String conversationId;
+    private String status;
+    // Small and read together with the summary, so it stays embedded
+    private Evaluation evaluation;
+    private Date createdAt;
+    private Date updatedAt;
+    private Date completedAt;
+    // See ContentHash, lets the synchronization recognize unchanged documents
+    private String contentHash;
+
+    // Needed by Firestore
+    public UserConversationDocument() {
+    }
+
+    /**
+     * Copy the persisted fields of a user conversation, the messages are never loaded for this
+     */
+    public static UserConversationDocument from(UserConversation userConversation) {
+        UserConversationDocument document = new UserConversationDocument();
+        document.id = userConversation.getId();
+        document.userId = userConversation.getUserId();
+        document.conversationId = userConversation.getConversationId();
+        document.status = userConversation.getStatus();
+        document.evaluation = userConversation.getEvaluation();
+        document.createdAt = userConversation.getCreatedAt();
+        document.updatedAt = userConversation.getUpdatedAt();
+        document.completedAt = userConversation.getCompletedAt();
+        document.contentHash = ContentHash.ofEntity(userConversation);
+        return document;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(String conversationId) {
+        this.conversationId = conversationId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Evaluation getEvaluation() {
+        return evaluation;
+    }
+
+    public void setEvaluation(Evaluation evaluation) {
+        this.evaluation = evaluation;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Date getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Date completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+}
@@ -0,0 +1,111 @@
+package com.final_app.repositories.firebase.utils;
+
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Resolves the documents referenced by a whole query result at once, instead of one get() per reference.
+ * IDs are de-duplicated and fetched with Firestore.getAll in chunks.
+ */
+public final class FirestoreBatchLoader {
+    /**
+     * Maximum amount of documents requested with a single getAll call
+     */
+    public static final int GET_ALL_CHUNK_SIZE = 300;
+    /**
+     * Maximum amount of values Firestore accepts in a single whereIn filter
+     */
+    public static final int WHERE_IN_CHUNK_SIZE = 30;
+
+    private FirestoreBatchLoader() {
+    }
+
+    /**
+     * Load the documents with the given IDs, keyed by ID. Missing documents are left out of the map.
+     */
+    public static <T> CompletableFuture<Map<String, T>> getAll(CollectionReference collection, Collection<String> ids,
+                                                               Class<T> type, BiConsumer<T, String> idSetter) {
+        List<List<String>> chunks = chunk(ids, GET_ALL_CHUNK_SIZE);
+        if (chunks.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+
+        List<CompletableFuture<List<DocumentSnapshot>>> fetches = new ArrayList<>();
+        for (List<String> chunk : chunks) {
+            DocumentReference[] references = chunk.stream().map(collection::document).toArray(DocumentReference[]::new);
+            fetches.add(FirestoreFutureUtils.toCompletableFuture(collection, () -> collection.getFirestore().getAll(references)));
+        }
+
+        return CompletableFuture.allOf(fetches.toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<String, T> documents = new HashMap<>();
+            for (CompletableFuture<List<DocumentSnapshot>> fetch : fetches) {
+                for (DocumentSnapshot snapshot : fetch.join()) {
+                    if (!snapshot.exists()) continue;
+                    T document = snapshot.toObject(type);
+                    if (document != null) {
+                        idSetter.accept(document, snapshot.getId());
+                        documents.put(snapshot.getId(), document);
+                    }
+                }
+            }
+            return documents;
+        });
+    }
+
+    /**
+     * Load all documents whose field matches one of the given values, using one whereIn query per chunk
+     */
+    public static <T> CompletableFuture<List<T>> getAllWhereIn(CollectionReference collection, String field, Collection<String> values,
+                                                               Class<T> type, BiConsumer<T, String> idSetter) {
+        List<List<String>> chunks = chunk(values, WHERE_IN_CHUNK_SIZE);
+        if (chunks.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+
+        List<CompletableFuture<QuerySnapshot>> queries = new ArrayList<>();
+        for (List<String> chunk : chunks) {
+            queries.add(FirestoreFutureUtils.toCompletableFuture(collection, () -> collection.whereIn(field, new ArrayList<Object>(chunk)).get()));
+        }
+
+        return CompletableFuture.allOf(queries.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<T> documents = new ArrayList<>();
+            for (CompletableFuture<QuerySnapshot> query : queries) {
+                for (QueryDocumentSnapshot snapshot : query.join().getDocuments()) {
+                    T document = snapshot.toObject(type);
+                    if (document != null) {
+                        idSetter.accept(document, snapshot.getId());
+                        documents.add(document);
+                    }
+                }
+            }
+            return documents;
+        });
+    }
+
+    /**
+     * Remove null, empty and duplicate IDs and split them in chunks of at most the given size
+     */
+    private static List<List<String>> chunk(Collection<String> ids, int size) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.removeIf(id -> id == null || id.isEmpty());
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += size) {
+            chunks.add(distinct.subList(i, Math.min(i + size, distinct.size())));
+        }
+        return chunks;
+    }
+}
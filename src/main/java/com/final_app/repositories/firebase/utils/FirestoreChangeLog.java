@@ -0,0 +1,142 @@
+package com.final_app.repositories.firebase.utils;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Server side change times of the synchronized collections, the base of the delta pulls.
+ * <p>
+ * Every write to one of {@link #COLLECTIONS} also sets {@link #CHANGED_AT} to the Firestore server time in the same
+ * batch, so a change sent late by the outbox of an offline device still sorts after the last pull of the others.
+ * Every delete leaves a tombstone in the syncTombstones collection with the same change time. Documents written
+ * by other writers or before the field existed have no change time, only a full synchronization finds them.
+ */
+public final class FirestoreChangeLog {
+    public static final String CHANGED_AT = "serverUpdatedAt";
+    public static final Set<String> COLLECTIONS = Set.of("languageLevelSystems", "languages", "languageLevels",
+            "speakingTestQuestions", "speakingTests", "conversations", "scenarios", "userLanguages", "userConversations", "messages");
+    private static final String TOMBSTONE_COLLECTION = "syncTombstones";
+
+    private FirestoreChangeLog() {
+    }
+
+    /**
+     * Replace the document and set its change time
+     */
+    public static ApiFuture<WriteResult> set(DocumentReference document, Object data) {
+        WriteBatch batch = document.getFirestore().batch();
+        set(batch, document, data);
+        return first(batch.commit());
+    }
+
+    /**
+     * Merge the data into the document and set its change time
+     */
+    public static ApiFuture<WriteResult> merge(DocumentReference document, Object data) {
+        WriteBatch batch = document.getFirestore().batch();
+        merge(batch, document, data);
+        return first(batch.commit());
+    }
+
+    /**
+     * Delete the document and leave its tombstone
+     */
+    public static ApiFuture<WriteResult> delete(DocumentReference document) {
+        WriteBatch batch = document.getFirestore().batch();
+        delete(batch, document);
+        return first(batch.commit());
+    }
+
+    public static void set(WriteBatch batch, DocumentReference document, Object data) {
+        batch.set(document, data);
+        stamp(batch, document);
+    }
+
+    public static void merge(WriteBatch batch, DocumentReference document, Object data) {
+        batch.set(document, data, SetOptions.merge());
+        stamp(batch, document);
+    }
+
+    public static void delete(WriteBatch batch, DocumentReference document) {
+        batch.delete(document);
+        String collection = document.getParent().getId();
+        if (COLLECTIONS.contains(collection)) {
+            DocumentReference tombstone = document.getFirestore().collection(TOMBSTONE_COLLECTION).document(collection + "_" + document.getId());
+            batch.set(tombstone, Map.of("collection", collection, "documentId", document.getId(), CHANGED_AT, FieldValue.serverTimestamp()));
+        }
+    }
+
+    /**
+     * Set the change time of a document written earlier in the same batch
+     */
+    public static void stamp(WriteBatch batch, DocumentReference document) {
+        if (COLLECTIONS.contains(document.getParent().getId())) {
+            batch.update(document, CHANGED_AT, FieldValue.serverTimestamp());
+        }
+    }
+
+    /**
+     * The deletes of the synchronized collections after the given server time, oldest first
+     */
+    public static CompletableFuture<List<Tombstone>> deletedSince(Firestore db, Date since) {
+        CollectionReference tombstones = db.collection(TOMBSTONE_COLLECTION);
+        return FirestoreFutureUtils.toCompletableFuture(tombstones, () -> tombstones.whereGreaterThan(CHANGED_AT, since).orderBy(CHANGED_AT).get())
+                .thenApply(querySnapshot -> querySnapshot.toObjects(Tombstone.class));
+    }
+
+    // A batch answers with one result per write, the first one is the document itself
+    private static ApiFuture<WriteResult> first(ApiFuture<List<WriteResult>> results) {
+        return ApiFutures.transform(results, List::getFirst, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * A deleted document of one of the synchronized collections
+     */
+    public static class Tombstone {
+        private String collection;
+        private String documentId;
+        private Date serverUpdatedAt;
+
+        // Needed by Firestore
+        public Tombstone() {
+        }
+
+        public String getCollection() {
+            return collection;
+        }
+
+        public void setCollection(String collection) {
+            this.collection = collection;
+        }
+
+        public String getDocumentId() {
+            return documentId;
+        }
+
+        public void setDocumentId(String documentId) {
+            this.documentId = documentId;
+        }
+
+        public Date getServerUpdatedAt() {
+            return serverUpdatedAt;
+        }
+
+        public void setServerUpdatedAt(Date serverUpdatedAt) {
+            this.serverUpdatedAt = serverUpdatedAt;
+        }
+    }
+}
@@ -3,16 +3,78 @@ package com.final_app.repositories.firebase.utils; // Or appropriate package
 import com.google.api.core.ApiFuture;
 import com.google.api.core.ApiFutureCallback;
 import com.google.api.core.ApiFutures;
-import com.google.common.util.concurrent.MoreExecutors; // Use appropriate executor
+import com.google.cloud.firestore.CollectionReference;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
+/**
+ * Bridges Firestore's ApiFutures to CompletableFutures.
+ * <p>
+ * Callbacks run on a dedicated executor instead of the gRPC transport threads, so mapping chains can not starve
+ * the transport. Calls made through {@link #toCompletableFuture(CollectionReference, Supplier)} are limited per
+ * collection: at most -Dlingualeap.firestore.maxInFlight (default 32) run at the same time, the rest wait in order.
+ * -Dlingualeap.firestore.callbackThreads picks a fixed pool of that size, otherwise virtual threads are used.
+ */
 public class FirestoreFutureUtils {
 
-    // Use a direct executor or inject a specific one if needed
-    private static final Executor executor = MoreExecutors.directExecutor();
+    private static final int MAX_IN_FLIGHT_PER_COLLECTION = Integer.getInteger("lingualeap.firestore.maxInFlight", 32);
+    private static final int CALLBACK_THREADS = Integer.getInteger("lingualeap.firestore.callbackThreads", 0);
 
+    private static volatile Executor executor = createDefaultExecutor();
+    private static final Map<String, CollectionLimiter> limiters = new ConcurrentHashMap<>();
+
+    private static Executor createDefaultExecutor() {
+        if (CALLBACK_THREADS > 0) {
+            return Executors.newFixedThreadPool(CALLBACK_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "firestore-callback");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("firestore-callback-", 0).factory());
+    }
+
+    /**
+     * Replace the executor the callbacks run on, e.g. a direct executor in tests
+     */
+    public static void setCallbackExecutor(Executor callbackExecutor) {
+        executor = callbackExecutor;
+    }
+
+    /**
+     * Start the call once a permit of the collection is free and complete the result on the callback executor
+     */
+    public static <T> CompletableFuture<T> toCompletableFuture(CollectionReference collection, Supplier<ApiFuture<T>> call) {
+        return toCompletableFuture(collection.getId(), call);
+    }
+
+    /**
+     * Same as {@link #toCompletableFuture(CollectionReference, Supplier)} for calls not bound to a single collection reference
+     */
+    public static <T> CompletableFuture<T> toCompletableFuture(String collection, Supplier<ApiFuture<T>> call) {
+        return limiters.computeIfAbsent(collection, name -> new CollectionLimiter(name, MAX_IN_FLIGHT_PER_COLLECTION)).submit(call);
+    }
+
+    // Helper to convert a limited WriteResult call to CompletableFuture<Void>
+    public static CompletableFuture<Void> toVoidCompletableFuture(CollectionReference collection, Supplier<ApiFuture<com.google.cloud.firestore.WriteResult>> call) {
+        FirestoreSyncDigests.invalidate(collection);
+        return toCompletableFuture(collection, call).thenApply(writeResult -> null); // Discard WriteResult
+    }
+
+    /**
+     * Convert an already started call, it is not limited but still completes on the callback executor
+     */
     public static <T> CompletableFuture<T> toCompletableFuture(ApiFuture<T> apiFuture) {
         CompletableFuture<T> completableFuture = new CompletableFuture<>();
         ApiFutures.addCallback(apiFuture, new ApiFutureCallback<T>() {
@@ -25,7 +87,7 @@ public class FirestoreFutureUtils {
             public void onFailure(Throwable t) {
                 completableFuture.completeExceptionally(t);
             }
-        }, executor); // Use desired executor
+        }, executor);
         return completableFuture;
     }
 
@@ -33,4 +95,133 @@ public class FirestoreFutureUtils {
     public static CompletableFuture<Void> toVoidCompletableFuture(ApiFuture<com.google.cloud.firestore.WriteResult> apiFuture) {
         return toCompletableFuture(apiFuture).thenApply(writeResult -> null); // Discard WriteResult
     }
+
+    /**
+     * Metrics of every collection used so far
+     */
+    public static List<String> getStatistics() {
+        List<String> statistics = new ArrayList<>();
+        limiters.values().forEach(limiter -> statistics.add(limiter.toString()));
+        return statistics;
+    }
+
+    /**
+     * Print the metrics and stop the default callback executor
+     */
+    public static void shutdown() {
+        getStatistics().forEach(statistic -> System.out.println("Firestore " + statistic));
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Limits the calls running against one collection and keeps their metrics
+     */
+    public static class CollectionLimiter {
+        private final String name;
+        private final int permits;
+        // Calls waiting for a permit, guarded by this
+        private final Queue<Runnable> queue = new ArrayDeque<>();
+        private int inFlight;
+
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong totalLatencyNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxQueued = new AtomicLong();
+
+        private CollectionLimiter(String name, int permits) {
+            this.name = name;
+            this.permits = permits;
+        }
+
+        private <T> CompletableFuture<T> submit(Supplier<ApiFuture<T>> call) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            long queuedAt = System.nanoTime();
+            Runnable start = () -> run(call, result, queuedAt);
+
+            boolean runNow;
+            synchronized (this) {
+                runNow = inFlight < permits;
+                if (runNow) {
+                    inFlight++;
+                } else {
+                    queue.add(start);
+                    maxQueued.accumulateAndGet(queue.size(), Math::max);
+                }
+            }
+            if (runNow) {
+                start.run();
+            }
+            return result;
+        }
+
+        private <T> void run(Supplier<ApiFuture<T>> call, CompletableFuture<T> result, long queuedAt) {
+            long startedAt = System.nanoTime();
+            totalWaitNanos.addAndGet(startedAt - queuedAt);
+
+            ApiFuture<T> apiFuture;
+            try {
+                apiFuture = call.get();
+            } catch (RuntimeException e) {
+                finish(startedAt, false);
+                result.completeExceptionally(e);
+                return;
+            }
+
+            ApiFutures.addCallback(apiFuture, new ApiFutureCallback<T>() {
+                @Override
+                public void onSuccess(T value) {
+                    // Free the permit first, so the dependent stages can start new calls right away
+                    finish(startedAt, true);
+                    result.complete(value);
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    finish(startedAt, false);
+                    result.completeExceptionally(t);
+                }
+            }, executor);
+        }
+
+        private void finish(long startedAt, boolean success) {
+            long latency = System.nanoTime() - startedAt;
+            totalLatencyNanos.addAndGet(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            (success ? completed : failed).incrementAndGet();
+
+            // Hand the permit to the next waiting call, if any
+            Runnable next;
+            synchronized (this) {
+                next = queue.poll();
+                if (next == null) {
+                    inFlight--;
+                }
+            }
+            if (next != null) {
+                next.run();
+            }
+        }
+
+        public synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        public synchronized int getQueued() {
+            return queue.size();
+        }
+
+        @Override
+        public String toString() {
+            long calls = completed.get() + failed.get();
+            return String.format("%s: %d calls (%d failed), %d in flight, %d queued (max %d), avg %.1f ms / max %.1f ms, avg wait %.1f ms",
+                    name, calls, failed.get(), getInFlight(), getQueued(), maxQueued.get(),
+                    calls == 0 ? 0.0 : totalLatencyNanos.get() / 1_000_000.0 / calls,
+                    maxLatencyNanos.get() / 1_000_000.0,
+                    calls == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / calls);
+        }
+    }
 }
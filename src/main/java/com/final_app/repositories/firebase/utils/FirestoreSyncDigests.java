@@ -0,0 +1,133 @@
+package com.final_app.repositories.firebase.utils;
+
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Digest documents of the reference data collections, stored in the syncDigests collection under the name of
+ * the collection they describe.
+ * <p>
+ * A digest combines the content hashes of every document of the collection (see ContentHash). When the local
+ * digest matches, the synchronization skips the collection after reading this one document instead of all of
+ * them. The synchronization writes the digests, every write to a digested collection through
+ * {@link FirestoreFutureUtils} deletes its digest, so a stale digest is never trusted. Writers outside the
+ * application have to delete the digest themselves; -Dlingualeap.sync.digests=false turns the digests off.
+ */
+public class FirestoreSyncDigests {
+    private static final Logger log = LoggerFactory.getLogger(FirestoreSyncDigests.class);
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("lingualeap.sync.digests", "true"));
+    // Small, shared and rarely written, the user collections are covered by the watermarks
+    public static final Set<String> COLLECTIONS = Set.of("languageLevelSystems", "languages", "languageLevels",
+            "speakingTestQuestions", "speakingTests", "conversations", "scenarios");
+    private static final String DIGEST_COLLECTION = "syncDigests";
+
+    // Incremented by every write to the collection, a digest is only written when nothing changed since the reads
+    private static final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private FirestoreSyncDigests() {
+    }
+
+    /**
+     * Read the digests of the given collections, missing ones are left out of the map
+     */
+    public static CompletableFuture<Map<String, Digest>> read(Firestore db, Set<String> collections) {
+        return FirestoreBatchLoader.getAll(db.collection(DIGEST_COLLECTION), collections, Digest.class, (digest, id) -> { });
+    }
+
+    public static long generation(String collection) {
+        return generations.computeIfAbsent(collection, name -> new AtomicLong()).get();
+    }
+
+    /**
+     * Store the digests (collection to digest) of the collections that were not written since the given generations
+     */
+    public static CompletableFuture<Void> write(Firestore db, Map<String, Digest> digests, Map<String, Long> readGenerations) {
+        CollectionReference digestCollection = db.collection(DIGEST_COLLECTION);
+        WriteBatch batch = db.batch();
+        int size = 0;
+        for (Map.Entry<String, Digest> digest : digests.entrySet()) {
+            if (generation(digest.getKey()) != readGenerations.getOrDefault(digest.getKey(), -1L)) {
+                continue;
+            }
+            batch.set(digestCollection.document(digest.getKey()), digest.getValue());
+            size++;
+        }
+        if (size == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return FirestoreFutureUtils.toCompletableFuture(digestCollection, batch::commit).thenApply(results -> null);
+    }
+
+    /**
+     * Call before writing to the collection, deletes its digest. Every write deletes it again, another device may
+     * have stored a new digest since the last write of this one.
+     */
+    public static void invalidate(CollectionReference collection) {
+        String name = collection.getId();
+        if (!ENABLED || !COLLECTIONS.contains(name)) {
+            return;
+        }
+        generations.computeIfAbsent(name, key -> new AtomicLong()).incrementAndGet();
+        CollectionReference digestCollection = collection.getFirestore().collection(DIGEST_COLLECTION);
+        FirestoreFutureUtils.toCompletableFuture(digestCollection, () -> digestCollection.document(name).delete())
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.warn("Error deleting the sync digest of {}", name, ex);
+                    }
+                });
+    }
+
+    /**
+     * Digest document of one collection
+     */
+    public static class Digest {
+        private String digest;
+        private long count;
+        private Date newestUpdate;
+
+        // Needed by Firestore
+        public Digest() {
+        }
+
+        public Digest(String digest, long count, Date newestUpdate) {
+            this.digest = digest;
+            this.count = count;
+            this.newestUpdate = newestUpdate;
+        }
+
+        public String getDigest() {
+            return digest;
+        }
+
+        public void setDigest(String digest) {
+            this.digest = digest;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public Date getNewestUpdate() {
+            return newestUpdate;
+        }
+
+        public void setNewestUpdate(Date newestUpdate) {
+            this.newestUpdate = newestUpdate;
+        }
+    }
+}
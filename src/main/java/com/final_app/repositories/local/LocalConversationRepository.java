@@ -1,5 +1,6 @@
 package com.final_app.repositories.local;
 
+import com.final_app.db.DatabaseExecutor;
 import com.final_app.db.dao.ConversationChainDAO;
 import com.final_app.db.dao.ConversationChainItemDAO;
 import com.final_app.db.dao.ConversationDAO;
@@ -9,6 +10,7 @@ import com.final_app.models.ConversationChain;
 import com.final_app.models.ConversationChainItem;
 
 import java.sql.SQLException;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -18,6 +20,7 @@ public class LocalConversationRepository implements IConversationRepository {
     private ConversationDAO conversationDAO = new ConversationDAO();
     private ConversationChainDAO conversationChainDAO = new ConversationChainDAO();
     private ConversationChainItemDAO conversationChainItemDAO = new ConversationChainItemDAO();
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
 
     private static LocalConversationRepository instance = null;
 
@@ -38,6 +41,16 @@ public class LocalConversationRepository implements IConversationRepository {
         return CompletableFuture.completedFuture(null);
     }
 
+    @Override
+    public CompletableFuture<Void> addConversations(List<Conversation> conversations) {
+        try {
+            conversationDAO.insertAll(conversations);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
     @Override
     public CompletableFuture<Void> updateConversation(Conversation conversation) {
         try {
@@ -56,7 +69,7 @@ public class LocalConversationRepository implements IConversationRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -78,7 +91,18 @@ public class LocalConversationRepository implements IConversationRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<Conversation>> getConversationsUpdatedSince(Date since) {
+        return CompletableFuture.supplyAsync(()->{
+            try {
+                return conversationDAO.findUpdatedSince(since);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
     }
 
     @Override
@@ -89,7 +113,7 @@ public class LocalConversationRepository implements IConversationRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -100,7 +124,7 @@ public class LocalConversationRepository implements IConversationRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -135,7 +159,7 @@ public class LocalConversationRepository implements IConversationRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -156,6 +180,6 @@ public class LocalConversationRepository implements IConversationRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 }
@@ -1,15 +1,20 @@
 package com.final_app.repositories.local;
 
+import com.final_app.db.DatabaseExecutor;
+import com.final_app.db.WriteBehindQueue;
 import com.final_app.db.dao.EvaluationDAO;
 import com.final_app.interfaces.IEvaluationRepository;
 import com.final_app.models.Evaluation;
 
 import java.sql.SQLException;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 public class LocalEvaluationRepository implements IEvaluationRepository {
     private EvaluationDAO evaluationDAO = new EvaluationDAO();
+    private final WriteBehindQueue writeBehind = WriteBehindQueue.getInstance();
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
 
     private static LocalEvaluationRepository instance = null;
 
@@ -22,64 +27,55 @@ public class LocalEvaluationRepository implements IEvaluationRepository {
 
     @Override
     public CompletableFuture<Void> addEvaluation(Evaluation evaluation) {
-        try {
-            evaluationDAO.insert(evaluation);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        if (evaluation.getId() == null || evaluation.getId().isEmpty()) {
+            evaluation.setId(UUID.randomUUID().toString());
         }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit(() -> evaluationDAO.insert(evaluation));
     }
 
     @Override
     public CompletableFuture<Void> updateEvaluation(Evaluation evaluation) {
-        try {
-            evaluationDAO.update(evaluation);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit("evaluations:" + evaluation.getId(), () -> evaluationDAO.update(evaluation));
     }
 
     @Override
     public CompletableFuture<Optional<Evaluation>> getEvaluationById(String id) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return Optional.ofNullable(evaluationDAO.findById(id));
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
     public CompletableFuture<Optional<Evaluation>> getEvaluationByUserConversationId(String userConversationId) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return Optional.ofNullable(evaluationDAO.findByUserConversationId(userConversationId));
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
     public CompletableFuture<Void> deleteEvaluationById(String id) {
-        try {
-            evaluationDAO.delete(id);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit(() -> evaluationDAO.delete(id));
     }
 
     @Override
     public CompletableFuture<Iterable<Evaluation>> getAllEvaluations() {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return evaluationDAO.findAll();
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 }
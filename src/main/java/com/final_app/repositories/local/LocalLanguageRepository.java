@@ -1,5 +1,6 @@
 package com.final_app.repositories.local;
 
+import com.final_app.db.DatabaseExecutor;
 import com.final_app.db.dao.LanguageDAO;
 import com.final_app.db.dao.LanguageLevelDAO;
 import com.final_app.db.dao.LanguageLevelSystemDAO;
@@ -10,6 +11,7 @@ import com.final_app.models.LanguageLevelSystem;
 import org.jetbrains.annotations.NotNull;
 
 import java.sql.SQLException;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -18,6 +20,7 @@ public class LocalLanguageRepository implements ILanguageRepository {
     private LanguageDAO languageDAO = new LanguageDAO();
     private LanguageLevelDAO languageLevelDAO = new LanguageLevelDAO();
     private LanguageLevelSystemDAO languageLevelSystemDAO = new LanguageLevelSystemDAO();
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
 
     private static LocalLanguageRepository instance = null;
 
@@ -66,7 +69,7 @@ public class LocalLanguageRepository implements ILanguageRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -77,7 +80,7 @@ public class LocalLanguageRepository implements ILanguageRepository {
             }catch (SQLException e){
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
 
     }
 
@@ -89,7 +92,7 @@ public class LocalLanguageRepository implements ILanguageRepository {
             }catch (SQLException e){
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -100,7 +103,18 @@ public class LocalLanguageRepository implements ILanguageRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<Language>> getLanguagesUpdatedSince(Date since) {
+        return CompletableFuture.supplyAsync(()->{
+            try {
+                return languageDAO.findUpdatedSince(since);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
     }
 
     @Override
@@ -141,7 +155,7 @@ public class LocalLanguageRepository implements ILanguageRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -152,7 +166,7 @@ public class LocalLanguageRepository implements ILanguageRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -163,7 +177,18 @@ public class LocalLanguageRepository implements ILanguageRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<LanguageLevel>> getLanguageLevelsUpdatedSince(Date since) {
+        return CompletableFuture.supplyAsync(()->{
+            try {
+                return languageLevelDAO.findUpdatedSince(since);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
     }
 
     @Override
@@ -204,7 +229,7 @@ public class LocalLanguageRepository implements ILanguageRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -215,7 +240,7 @@ public class LocalLanguageRepository implements ILanguageRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -226,6 +251,17 @@ public class LocalLanguageRepository implements ILanguageRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<LanguageLevelSystem>> getLanguageSystemsUpdatedSince(Date since) {
+        return CompletableFuture.supplyAsync(()->{
+            try {
+                return languageLevelSystemDAO.findUpdatedSince(since);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
     }
 }
@@ -1,9 +1,14 @@
 package com.final_app.repositories.local;
 
+import com.final_app.db.DatabaseExecutor;
+import com.final_app.db.WriteBehindQueue;
 import com.final_app.db.dao.MessageDAO;
 import com.final_app.interfaces.IMessageRepository;
 import com.final_app.models.Message;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 import javax.swing.text.html.Option;
 import java.sql.SQLException;
 import java.util.Optional;
@@ -11,6 +16,8 @@ import java.util.concurrent.CompletableFuture;
 
 public class LocalMessageRepository implements IMessageRepository {
     private MessageDAO messageDAO = new MessageDAO();
+    private final WriteBehindQueue writeBehind = WriteBehindQueue.getInstance();
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
 
     private static LocalMessageRepository instance = null;
 
@@ -22,64 +29,95 @@ public class LocalMessageRepository implements IMessageRepository {
 
     @Override
     public CompletableFuture<Void> addMessage(Message message) {
-        try {
-            messageDAO.insert(message);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        if (message.getId() == null || message.getId().isEmpty()) {
+            message.setId(UUID.randomUUID().toString());
         }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit(() -> messageDAO.insert(message));
     }
 
     @Override
     public CompletableFuture<Void> updateMessage(Message message) {
-        try {
-            messageDAO.update(message);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit("messages:" + message.getId(), () -> messageDAO.update(message));
+    }
+
+    @Override
+    public CompletableFuture<Void> addMessages(List<Message> messages) {
+        List<Message> batch = withIds(messages);
+        return writeBehind.submit(() -> messageDAO.insertAll(batch));
+    }
+
+    @Override
+    public CompletableFuture<Void> upsertMessages(List<Message> messages) {
+        List<Message> batch = withIds(messages);
+        return writeBehind.submit(() -> messageDAO.upsertAll(batch));
     }
 
     @Override
     public CompletableFuture<Optional<Message>> getMessageById(String id) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return Optional.ofNullable(messageDAO.findById(id));
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
     public CompletableFuture<Void> deleteMessageById(String id) {
-        try {
-            messageDAO.delete(id);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit(() -> messageDAO.delete(id));
     }
 
     @Override
     public CompletableFuture<Iterable<Message>> getAllMessages() {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return messageDAO.findAll();
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
     public CompletableFuture<Iterable<Message>> getAllMessagesFromUserConversation(String userConversationId) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return messageDAO.findByUserConversationId(userConversationId);
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<Message>> getMessagesPageFromUserConversation(String userConversationId, Integer beforeIndex, int pageSize) {
+        return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
+            try {
+                return messageDAO.findPageByUserConversationId(userConversationId, beforeIndex, pageSize);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
+    }
+
+    /**
+     * Copy of the list with an ID assigned to every message, a queued write may only run later
+     */
+    private List<Message> withIds(List<Message> messages) {
+        List<Message> copy = new ArrayList<>();
+        if (messages != null) {
+            for (Message message : messages) {
+                if (message.getId() == null || message.getId().isEmpty()) {
+                    message.setId(UUID.randomUUID().toString());
+                }
+                copy.add(message);
+            }
+        }
+        return copy;
     }
 }
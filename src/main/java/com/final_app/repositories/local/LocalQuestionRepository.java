@@ -1,15 +1,19 @@
 package com.final_app.repositories.local;
 
+import com.final_app.db.DatabaseExecutor;
 import com.final_app.db.dao.SpeakingTestQuestionDAO;
 import com.final_app.interfaces.IQuestionRepository;
 import com.final_app.models.SpeakingTestQuestion;
 
 import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public class LocalQuestionRepository implements IQuestionRepository {
     private SpeakingTestQuestionDAO questionDAO = new SpeakingTestQuestionDAO();
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
 
     private static LocalQuestionRepository instance = null;
 
@@ -48,7 +52,7 @@ public class LocalQuestionRepository implements IQuestionRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -69,7 +73,18 @@ public class LocalQuestionRepository implements IQuestionRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<SpeakingTestQuestion>> getQuestionsUpdatedSince(Date since) {
+        return CompletableFuture.supplyAsync(()->{
+            try {
+                return questionDAO.findUpdatedSince(since);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
     }
 
     @Override
@@ -80,6 +95,6 @@ public class LocalQuestionRepository implements IQuestionRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 }
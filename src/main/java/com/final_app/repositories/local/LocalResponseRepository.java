@@ -1,15 +1,20 @@
 package com.final_app.repositories.local;
 
+import com.final_app.db.DatabaseExecutor;
+import com.final_app.db.WriteBehindQueue;
 import com.final_app.db.dao.UserSpeakingTestResponseDAO;
 import com.final_app.interfaces.IResponseRepository;
 import com.final_app.models.UserSpeakingTestResponse;
 
 import java.sql.SQLException;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 public class LocalResponseRepository implements IResponseRepository {
     private UserSpeakingTestResponseDAO responseDAO = new UserSpeakingTestResponseDAO();
+    private final WriteBehindQueue writeBehind = WriteBehindQueue.getInstance();
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
 
     private static LocalResponseRepository instance = null;
 
@@ -22,64 +27,55 @@ public class LocalResponseRepository implements IResponseRepository {
 
     @Override
     public CompletableFuture<Void> addResponse(UserSpeakingTestResponse response) {
-        try {
-            responseDAO.insert(response);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        if (response.getId() == null || response.getId().isEmpty()) {
+            response.setId(UUID.randomUUID().toString());
         }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit(() -> responseDAO.insert(response));
     }
 
     @Override
     public CompletableFuture<Void> updateResponse(UserSpeakingTestResponse response) {
-        try {
-            responseDAO.update(response);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit("user_speaking_test_responses:" + response.getId(), () -> responseDAO.update(response));
     }
 
     @Override
     public CompletableFuture<Optional<UserSpeakingTestResponse>> getResponseById(String id) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return Optional.ofNullable(responseDAO.findById(id));
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
     public CompletableFuture<Void> deleteResponseById(String id) {
-        try {
-            responseDAO.delete(id);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit(() -> responseDAO.delete(id));
     }
 
     @Override
     public CompletableFuture<Iterable<UserSpeakingTestResponse>> getAllResponses() {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return responseDAO.findAll();
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
     public CompletableFuture<Iterable<UserSpeakingTestResponse>> getAllResponsesFromUserTest(String userTestId) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return responseDAO.findByUserSpeakingTestId(userTestId);
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 }
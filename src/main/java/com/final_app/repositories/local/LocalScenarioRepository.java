@@ -1,15 +1,19 @@
 package com.final_app.repositories.local;
 
+import com.final_app.db.DatabaseExecutor;
 import com.final_app.db.dao.ScenarioDAO;
 import com.final_app.interfaces.IScenarioRepository;
 import com.final_app.models.Scenario;
 
 import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public class LocalScenarioRepository implements IScenarioRepository {
     private ScenarioDAO scenarioDAO = new ScenarioDAO();
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
 
     private static LocalScenarioRepository instance = null;
 
@@ -48,7 +52,7 @@ public class LocalScenarioRepository implements IScenarioRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -69,6 +73,17 @@ public class LocalScenarioRepository implements IScenarioRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<Scenario>> getScenariosUpdatedSince(Date since) {
+        return CompletableFuture.supplyAsync(()->{
+            try {
+                return scenarioDAO.findUpdatedSince(since);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
     }
 }
@@ -1,16 +1,20 @@
 package com.final_app.repositories.local;
 
+import com.final_app.db.DatabaseExecutor;
 import com.final_app.db.dao.SpeakingTestDAO;
 import com.final_app.interfaces.ISpeakingTestRepository;
 import com.final_app.models.SpeakingTest;
 import org.checkerframework.checker.units.qual.C;
 
 import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public class LocalSpeakingTestRepository implements ISpeakingTestRepository {
     private SpeakingTestDAO speakingTestDAO = new SpeakingTestDAO();
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
 
     private static LocalSpeakingTestRepository instance = null;
 
@@ -49,7 +53,7 @@ public class LocalSpeakingTestRepository implements ISpeakingTestRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -70,7 +74,18 @@ public class LocalSpeakingTestRepository implements ISpeakingTestRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<SpeakingTest>> getSpeakingTestsUpdatedSince(Date since) {
+        return CompletableFuture.supplyAsync(()->{
+            try {
+                return speakingTestDAO.findUpdatedSince(since);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
     }
 
     @Override
@@ -81,7 +96,7 @@ public class LocalSpeakingTestRepository implements ISpeakingTestRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -92,6 +107,6 @@ public class LocalSpeakingTestRepository implements ISpeakingTestRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 }
@@ -1,21 +1,29 @@
 package com.final_app.repositories.local;
 
+import com.final_app.db.DatabaseExecutor;
+import com.final_app.db.WriteBehindQueue;
 import com.final_app.db.dao.UserConversationChainItemDAO;
 import com.final_app.db.dao.UserConversationDAO;
+import com.final_app.globals.FetchPlan;
 import com.final_app.interfaces.IUserConversationsRepository;
 import com.final_app.models.User;
 import com.final_app.models.UserConversation;
 import com.final_app.models.UserConversationChainItem;
+import com.final_app.models.UserConversationGroup;
 import org.jetbrains.annotations.NotNull;
 
 import java.sql.SQLException;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 public class LocalUserConversationRepository implements IUserConversationsRepository {
     private UserConversationDAO userConversationDAO = new UserConversationDAO();
     private UserConversationChainItemDAO userConversationChainItemDAO = new UserConversationChainItemDAO();
+    private final WriteBehindQueue writeBehind = WriteBehindQueue.getInstance();
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
 
     private static LocalUserConversationRepository instance = null;
 
@@ -28,76 +36,95 @@ public class LocalUserConversationRepository implements IUserConversationsReposi
 
     @Override
     public CompletableFuture<Void> addUserConversation(UserConversation userConversation) {
-        try {
-            userConversationDAO.insert(userConversation);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        if (userConversation.getId() == null || userConversation.getId().isEmpty()) {
+            userConversation.setId(UUID.randomUUID().toString());
         }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit(() -> userConversationDAO.insert(userConversation));
     }
 
     @Override
     public CompletableFuture<Void> updateUserConversation(UserConversation userConversation) {
-        try {
-            userConversationDAO.update(userConversation);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit("user_conversations:" + userConversation.getId(), () -> userConversationDAO.update(userConversation));
     }
 
     @Override
     public CompletableFuture<Optional<UserConversation>> getUserConversationById(String id) {
+        return getUserConversationById(id, FetchPlan.FULL);
+    }
+
+    @Override
+    public CompletableFuture<Optional<UserConversation>> getUserConversationById(String id, FetchPlan fetchPlan) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
-                return Optional.ofNullable(userConversationDAO.findById(id));
+                return Optional.ofNullable(userConversationDAO.findById(id, fetchPlan));
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
     public CompletableFuture<Iterable<UserConversation>> getUserConversationsByUserAndConversationId(String userId, String conversationId) {
+        return getUserConversationsByUserAndConversationId(userId, conversationId, FetchPlan.LAZY);
+    }
+
+    @Override
+    public CompletableFuture<Iterable<UserConversation>> getUserConversationsByUserAndConversationId(String userId, String conversationId, FetchPlan fetchPlan) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
-                return userConversationDAO.findByUserIdAndConversationId(userId, conversationId);
+                return userConversationDAO.findByUserIdAndConversationId(userId, conversationId, fetchPlan);
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
     public CompletableFuture<Void> deleteUserConversationById(String id) {
-        try {
-            userConversationDAO.delete(id);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit(() -> userConversationDAO.delete(id));
     }
 
     @Override
     public CompletableFuture<Iterable<UserConversation>> getAllUserConversationsFromUser(String userId) {
+        return getAllUserConversationsFromUser(userId, FetchPlan.LAZY);
+    }
+
+    @Override
+    public CompletableFuture<Iterable<UserConversation>> getAllUserConversationsFromUser(String userId, FetchPlan fetchPlan) {
+        return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
+            try {
+                return userConversationDAO.findByUserId(userId, fetchPlan);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<UserConversation>> getUserConversationsFromUserUpdatedSince(String userId, Date since, FetchPlan fetchPlan) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
-                return userConversationDAO.findByUserId(userId);
+                return userConversationDAO.findByUserIdUpdatedSince(userId, since, fetchPlan);
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
     public CompletableFuture<Optional<UserConversationChainItem>> getUserConversationChainItemByUserConversationId(String userConversationId) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return Optional.ofNullable(userConversationChainItemDAO.findByUserConversationId(userConversationId));
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -113,12 +140,13 @@ public class LocalUserConversationRepository implements IUserConversationsReposi
     @Override
     public CompletableFuture<Optional<UserConversationChainItem>> getUserConversationChainItemById(String id) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return Optional.ofNullable(userConversationChainItemDAO.findById(id));
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -139,11 +167,42 @@ public class LocalUserConversationRepository implements IUserConversationsReposi
     @Override
     public CompletableFuture<List<UserConversationChainItem>> getAllUserConversationChainItemsFromConversationChainId(String conversationId) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return userConversationChainItemDAO.findByConversationChainId(conversationId);
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<UserConversation>> getUserConversationsPageFromUser(String userId, UserConversation after, int pageSize) {
+        return getUserConversationsPageFromUser(userId, null, after, pageSize);
+    }
+
+    @Override
+    public CompletableFuture<List<UserConversation>> getUserConversationsPageFromUser(String userId, String conversationId, UserConversation after, int pageSize) {
+        return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
+            try {
+                // The table shows the score of every row
+                return userConversationDAO.findPageByUserId(userId, conversationId, after, pageSize, FetchPlan.EVALUATIONS);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<UserConversationGroup>> getUserConversationGroupsFromUser(String userId) {
+        return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
+            try {
+                return userConversationDAO.findGroupsByUserId(userId);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
     }
-}
\ No newline at end of file
+}
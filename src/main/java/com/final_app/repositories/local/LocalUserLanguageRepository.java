@@ -1,15 +1,19 @@
 package com.final_app.repositories.local;
 
+import com.final_app.db.DatabaseExecutor;
 import com.final_app.db.dao.UserLanguageDAO;
 import com.final_app.interfaces.IUserLanguageRepository;
 import com.final_app.models.UserLanguage;
 
 import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public class LocalUserLanguageRepository implements IUserLanguageRepository {
     private UserLanguageDAO userLanguageDAO = new UserLanguageDAO();
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
 
     private static LocalUserLanguageRepository instance = null;
 
@@ -48,7 +52,7 @@ public class LocalUserLanguageRepository implements IUserLanguageRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -59,7 +63,7 @@ public class LocalUserLanguageRepository implements IUserLanguageRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -80,6 +84,17 @@ public class LocalUserLanguageRepository implements IUserLanguageRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<UserLanguage>> getUserLanguagesFromUserUpdatedSince(String userId, Date since) {
+        return CompletableFuture.supplyAsync(()->{
+            try {
+                return userLanguageDAO.findByUserIdUpdatedSince(userId, since);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
     }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.final_app.repositories.local;
 
+import com.final_app.db.DatabaseExecutor;
 import com.final_app.db.dao.*;
 import com.final_app.interfaces.IUserRepository;
+import com.final_app.models.ActivityStats;
 import com.final_app.models.User;
 import com.final_app.models.UserStats;
 import com.final_app.services.AppService;
@@ -9,6 +11,7 @@ import org.h2.jdbc.JdbcSQLIntegrityConstraintViolationException;
 import org.jetbrains.annotations.NotNull;
 
 import java.sql.SQLException;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -19,6 +22,7 @@ public class LocalUserRepository implements IUserRepository {
     private UserConversationDAO userConversationDAO = new UserConversationDAO();
     private UserStatsDAO userStatsDAO = new UserStatsDAO();
     private UserSpeakingTestDAO userSpeakingTestDAO = new UserSpeakingTestDAO();
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
 
     private static LocalUserRepository instance = null;
 
@@ -57,7 +61,7 @@ public class LocalUserRepository implements IUserRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -68,7 +72,7 @@ public class LocalUserRepository implements IUserRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -79,7 +83,7 @@ public class LocalUserRepository implements IUserRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -100,7 +104,7 @@ public class LocalUserRepository implements IUserRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -111,7 +115,7 @@ public class LocalUserRepository implements IUserRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -122,7 +126,7 @@ public class LocalUserRepository implements IUserRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -151,16 +155,15 @@ public class LocalUserRepository implements IUserRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
     public CompletableFuture<Optional<UserStats>> getUserStatsByUserId(String userId) {
         return CompletableFuture.supplyAsync(()->{
             try {
-                User localUser = getUserById(userId)
-                        .thenApply(u -> u.orElse(null))
-                        .get();
+                // Query directly, waiting on another executor task here could exhaust the database executor
+                User localUser = userDAO.findById(userId);
                 if(localUser != null){
                     UserStats userStats =userStatsDAO.findByUserId(userId);
                     if(userStats == null){
@@ -181,7 +184,7 @@ public class LocalUserRepository implements IUserRepository {
                 return Optional.empty();
             }
             return Optional.empty();
-        });
+        }, dbExecutor);
     }
 
     @Override
@@ -212,6 +215,17 @@ public class LocalUserRepository implements IUserRepository {
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
+    }
+
+    @Override
+    public CompletableFuture<ActivityStats> getActivityStats(String userId, Date weekStart, Date weekEnd) {
+        return CompletableFuture.supplyAsync(()->{
+            try {
+                return userStatsDAO.findActivityStats(userId, weekStart, weekEnd);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, dbExecutor);
     }
 }
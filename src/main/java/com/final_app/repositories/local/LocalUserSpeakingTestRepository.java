@@ -1,15 +1,20 @@
 package com.final_app.repositories.local;
 
+import com.final_app.db.DatabaseExecutor;
+import com.final_app.db.WriteBehindQueue;
 import com.final_app.db.dao.UserSpeakingTestDAO;
 import com.final_app.interfaces.IUserSpeakingTestRepository;
 import com.final_app.models.UserSpeakingTest;
 
 import java.sql.SQLException;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 public class LocalUserSpeakingTestRepository implements IUserSpeakingTestRepository {
     private UserSpeakingTestDAO userSpeakingTestDAO = new UserSpeakingTestDAO();
+    private final WriteBehindQueue writeBehind = WriteBehindQueue.getInstance();
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
 
     private static LocalUserSpeakingTestRepository instance = null;
 
@@ -22,64 +27,55 @@ public class LocalUserSpeakingTestRepository implements IUserSpeakingTestReposit
 
     @Override
     public CompletableFuture<Void> addUserSpeakingTest(UserSpeakingTest userSpeakingTest) {
-        try {
-            userSpeakingTestDAO.insert(userSpeakingTest);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        if (userSpeakingTest.getId() == null || userSpeakingTest.getId().isEmpty()) {
+            userSpeakingTest.setId(UUID.randomUUID().toString());
         }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit(() -> userSpeakingTestDAO.insert(userSpeakingTest));
     }
 
     @Override
     public CompletableFuture<Void> updateUserSpeakingTest(UserSpeakingTest userSpeakingTest) {
-        try {
-            userSpeakingTestDAO.update(userSpeakingTest);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit("user_speaking_tests:" + userSpeakingTest.getId(), () -> userSpeakingTestDAO.update(userSpeakingTest));
     }
 
     @Override
     public CompletableFuture<Optional<UserSpeakingTest>> getUserSpeakingTestById(String id) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return Optional.ofNullable(userSpeakingTestDAO.findById(id));
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
     public CompletableFuture<Optional<UserSpeakingTest>> getUserSpeakingTestByUserIdAndTestId(String userId, String testId) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return Optional.ofNullable(userSpeakingTestDAO.findByUserIdAndTestId(userId, testId));
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 
     @Override
     public CompletableFuture<Void> deleteUserSpeakingTestById(String id) {
-        try {
-            userSpeakingTestDAO.delete(id);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        return CompletableFuture.completedFuture(null);
+        return writeBehind.submit(() -> userSpeakingTestDAO.delete(id));
     }
 
     @Override
     public CompletableFuture<Iterable<UserSpeakingTest>> getAllUserSpeakingTestsFromUser(String userId) {
         return CompletableFuture.supplyAsync(()->{
+            writeBehind.flush();
             try {
                 return userSpeakingTestDAO.findByUserId(userId);
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, dbExecutor);
     }
 }
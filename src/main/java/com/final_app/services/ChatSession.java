@@ -0,0 +1,93 @@
+package com.final_app.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The message history of one chat with the model: a conversation, an evaluation or a speaking test request.
+ * <p>
+ * The history is an immutable list that is replaced on every change, so a request is built from a consistent
+ * snapshot while other threads keep adding messages. It keeps the developer prompt and at most
+ * -Dlingualeap.chat.maxHistory (default 40) further messages, the oldest ones are dropped first.
+ */
+public class ChatSession {
+    private static final int MAX_HISTORY = Integer.getInteger("lingualeap.chat.maxHistory", 40);
+
+    private final Map<String, String> developerPrompt;
+    private final int maxHistory;
+    // Replaced, never changed, so readers need no lock
+    private volatile List<Map<String, String>> history = List.of();
+
+    /**
+     * A session without a developer prompt
+     */
+    public ChatSession() {
+        this(null);
+    }
+
+    public ChatSession(String developerPrompt) {
+        this(developerPrompt, MAX_HISTORY);
+    }
+
+    public ChatSession(String developerPrompt, int maxHistory) {
+        this.developerPrompt = developerPrompt == null ? null : message("developer", developerPrompt);
+        this.maxHistory = maxHistory;
+    }
+
+    public static Map<String, String> message(String role, String content) {
+        return Map.of("role", role, "content", content);
+    }
+
+    public void addUserMessage(String content) {
+        add(message("user", content));
+    }
+
+    public void addAssistantMessage(String content) {
+        add(message("assistant", content));
+    }
+
+    /**
+     * Append the messages in one step, so concurrent requests never interleave their question and answer
+     */
+    @SafeVarargs
+    public final synchronized void add(Map<String, String>... messages) {
+        List<Map<String, String>> updated = new ArrayList<>(history);
+        updated.addAll(List.of(messages));
+        if (updated.size() > maxHistory) {
+            updated = updated.subList(updated.size() - maxHistory, updated.size());
+        }
+        history = List.copyOf(updated);
+    }
+
+    /**
+     * The messages to send: the developer prompt followed by the history
+     */
+    public List<Map<String, String>> snapshot() {
+        return withMessage(null);
+    }
+
+    /**
+     * The messages to send for a new message, without adding it to the history yet
+     */
+    public List<Map<String, String>> withMessage(Map<String, String> next) {
+        List<Map<String, String>> current = history;
+        List<Map<String, String>> messages = new ArrayList<>(current.size() + 2);
+        if (developerPrompt != null) {
+            messages.add(developerPrompt);
+        }
+        messages.addAll(current);
+        if (next != null) {
+            messages.add(next);
+        }
+        return List.copyOf(messages);
+    }
+
+    public int size() {
+        return history.size();
+    }
+
+    public synchronized void clear() {
+        history = List.of();
+    }
+}
@@ -4,6 +4,7 @@ import com.final_app.db.DatabaseManager;
 import com.final_app.factories.RepositoryFactory;
 import com.final_app.globals.AIModels;
 import com.final_app.globals.ConversationStatus;
+import com.final_app.globals.FetchPlan;
 import com.final_app.globals.Sender;
 import com.final_app.interfaces.*;
 import com.final_app.models.*;
@@ -212,10 +213,39 @@ public class ConversationService {
      * Get all conversations for a user
      */
     public List<UserConversation> getUserConversations(String userId) throws SQLException, ExecutionException, InterruptedException {
-        Iterable<UserConversation> iterableUserConversations = RepositoryFactory.getUserConversationsRepository().getAllUserConversationsFromUser(userId).join();
+        return getUserConversations(userId, FetchPlan.LAZY);
+    }
+
+    /**
+     * Get all conversations for a user, loading as much of the graph as the fetch plan asks for
+     */
+    public List<UserConversation> getUserConversations(String userId, FetchPlan fetchPlan) throws SQLException, ExecutionException, InterruptedException {
+        Iterable<UserConversation> iterableUserConversations = RepositoryFactory.getUserConversationsRepository().getAllUserConversationsFromUser(userId, fetchPlan).join();
         return StreamSupport.stream(iterableUserConversations.spliterator(), false).collect(Collectors.toList());
     }
 
+    /**
+     * Get the most recent attempt and the attempt totals of every conversation the user attempted
+     */
+    public List<UserConversationGroup> getUserConversationGroups(String userId) throws ExecutionException, InterruptedException {
+        return RepositoryFactory.getUserConversationsRepository().getUserConversationGroupsFromUser(userId).get();
+    }
+
+    /**
+     * Get one page of a user's conversations, most recently updated first.
+     * Pass the last user conversation of the previous page, or null for the first page.
+     */
+    public List<UserConversation> getUserConversationsPage(String userId, UserConversation after, int pageSize) throws ExecutionException, InterruptedException {
+        return getUserConversationsPage(userId, null, after, pageSize);
+    }
+
+    /**
+     * Get one page of a user's attempts of one conversation, most recently updated first
+     */
+    public List<UserConversation> getUserConversationsPage(String userId, String conversationId, UserConversation after, int pageSize) throws ExecutionException, InterruptedException {
+        return RepositoryFactory.getUserConversationsRepository().getUserConversationsPageFromUser(userId, conversationId, after, pageSize).get();
+    }
+
     /**
      * Update the status of a user conversation
      */
@@ -226,9 +256,7 @@ public class ConversationService {
     }
 
     public void updateConversationMessages(UserConversation userConversation) throws SQLException, ExecutionException, InterruptedException {
-        for(Message msg : userConversation.getMessages()){
-            RepositoryFactory.getMessageRepository().updateMessage(msg).get();
-        }
+        RepositoryFactory.getMessageRepository().upsertMessages(userConversation.getMessages()).get();
     }
 
     /**
@@ -254,6 +282,14 @@ public class ConversationService {
         return StreamSupport.stream(iterableMessages.spliterator(), false).collect(Collectors.toList());
     }
 
+    /**
+     * Get one page of messages of a conversation (oldest first) with an index below beforeIndex,
+     * or the newest page when beforeIndex is null
+     */
+    public List<Message> getConversationMessagesPage(String userConversationId, Integer beforeIndex, int pageSize) throws ExecutionException, InterruptedException {
+        return RepositoryFactory.getMessageRepository().getMessagesPageFromUserConversation(userConversationId, beforeIndex, pageSize).get();
+    }
+
     /**
      * Delete a user conversation and all its messages
      */
@@ -29,10 +29,20 @@ public class DataService {
 
     private Language defaultLanguage = new Language(null, "English", "en", "#000000", 0);
 
+    // Bump when the default languages, conversations or base translations change, so they are applied again
+    private static final int DEFAULT_DATA_VERSION = 1;
+    private final DataSeedDAO dataSeedDAO = new DataSeedDAO();
+
     /**
      * Initialize the database with default data
      */
     public void initializeDefaultData() throws SQLException {
+        // Warm start: the seed marker is the only check needed
+        if (dataSeedDAO.findSeedVersion() >= DEFAULT_DATA_VERSION) {
+            System.out.println("Default data is up to date.");
+            return;
+        }
+
         Connection conn = null;
         try {
             conn = DatabaseManager.getInstance().getConnection();
@@ -41,9 +51,6 @@ public class DataService {
             //resetAllData();
 
             System.out.println("Checking for existing data...");
-            List<Language> languages = (List<Language>) languageRepository.getAllLanguages().join();
-            //System.out.println("Found " + languages.size() + " languages");
-
 
             System.out.println("Initializing languages...");
             initializeLanguages();
@@ -64,6 +71,7 @@ public class DataService {
 
 
             conn.commit();
+            dataSeedDAO.markSeeded(DEFAULT_DATA_VERSION);
             System.out.println("Database initialization completed successfully!");
         } catch (SQLException e) {
             System.err.println("Error initializing database: " + e.getMessage());
@@ -758,7 +766,8 @@ public class DataService {
             ));
             scenarioRepository.addScenario(weatherScenario);
 
-            // Now create all conversations using the scenarios we just created
+            // Now create all conversations using the scenarios we just created, inserted as one batch below
+            List<Conversation> conversations = new ArrayList<>();
 
             // FRENCH CONVERSATIONS
 
@@ -773,7 +782,7 @@ public class DataService {
                     AIModels.CONVERSATION.getModel()
             );
             frenchRestaurant.setLanguageFrom(english);
-            conversationRepository.addConversation(frenchRestaurant);
+            conversations.add(frenchRestaurant);
 
             // 2. Shopping in French (Beginner)
             Conversation frenchShopping = new Conversation(
@@ -786,7 +795,7 @@ public class DataService {
                     AIModels.CONVERSATION.getModel()
             );
             frenchShopping.setLanguageFrom(english);
-            conversationRepository.addConversation(frenchShopping);
+            conversations.add(frenchShopping);
 
             // 3. Introductions in French (Intermediate)
             Conversation frenchIntroduction = new Conversation(
@@ -799,7 +808,7 @@ public class DataService {
                     AIModels.CONVERSATION.getModel()
             );
             frenchIntroduction.setLanguageFrom(english);
-            conversationRepository.addConversation(frenchIntroduction);
+            conversations.add(frenchIntroduction);
 
             // ENGLISH CONVERSATIONS
 
@@ -814,7 +823,7 @@ public class DataService {
                     AIModels.CONVERSATION.getModel()
             );
             englishDirections.setLanguageFrom(english);
-            conversationRepository.addConversation(englishDirections);
+            conversations.add(englishDirections);
 
             // 2. Doctor visit in English (Intermediate)
             Conversation englishDoctor = new Conversation(
@@ -827,7 +836,7 @@ public class DataService {
                     AIModels.CONVERSATION.getModel()
             );
             englishDoctor.setLanguageFrom(english);
-            conversationRepository.addConversation(englishDoctor);
+            conversations.add(englishDoctor);
 
             // 3. Weather talk in English (Beginner)
             Conversation englishWeather = new Conversation(
@@ -840,7 +849,7 @@ public class DataService {
                     AIModels.CONVERSATION.getModel()
             );
             englishWeather.setLanguageFrom(english);
-            conversationRepository.addConversation(englishWeather);
+            conversations.add(englishWeather);
 
             // JAPANESE CONVERSATIONS
 
@@ -855,7 +864,7 @@ public class DataService {
                     AIModels.CONVERSATION.getModel()
             );
             japaneseFood.setLanguageFrom(english);
-            conversationRepository.addConversation(japaneseFood);
+            conversations.add(japaneseFood);
 
             // 2. Shopping in Japanese (Beginner)
             Conversation japaneseShopping = new Conversation(
@@ -868,7 +877,7 @@ public class DataService {
                     AIModels.CONVERSATION.getModel()
             );
             japaneseShopping.setLanguageFrom(english);
-            conversationRepository.addConversation(japaneseShopping);
+            conversations.add(japaneseShopping);
 
             // SPANISH CONVERSATIONS
 
@@ -883,7 +892,7 @@ public class DataService {
                     AIModels.CONVERSATION.getModel()
             );
             spanishRestaurant.setLanguageFrom(english);
-            conversationRepository.addConversation(spanishRestaurant);
+            conversations.add(spanishRestaurant);
 
             // 2. Introductions in Spanish (Intermediate)
             Conversation spanishIntroduction = new Conversation(
@@ -896,7 +905,7 @@ public class DataService {
                     AIModels.CONVERSATION.getModel()
             );
             spanishIntroduction.setLanguageFrom(english);
-            conversationRepository.addConversation(spanishIntroduction);
+            conversations.add(spanishIntroduction);
 
             // GERMAN CONVERSATIONS
 
@@ -911,7 +920,7 @@ public class DataService {
                     AIModels.CONVERSATION.getModel()
             );
             germanShopping.setLanguageFrom(english);
-            conversationRepository.addConversation(germanShopping);
+            conversations.add(germanShopping);
 
             // 2. Weather talk in German (Intermediate)
             Conversation germanWeather = new Conversation(
@@ -924,7 +933,9 @@ public class DataService {
                     AIModels.CONVERSATION.getModel()
             );
             germanWeather.setLanguageFrom(english);
-            conversationRepository.addConversation(germanWeather);
+            conversations.add(germanWeather);
+
+            conversationRepository.addConversations(conversations);
         }catch (Exception e){
             e.printStackTrace();
         }
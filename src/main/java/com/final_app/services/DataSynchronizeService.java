@@ -1,15 +1,29 @@
 package com.final_app.services;
 
+import com.final_app.db.ReferenceDataCache;
+import com.final_app.db.WriteBehindQueue;
+import com.final_app.db.dao.SyncContentHashDAO;
+import com.final_app.db.dao.SyncOutboxDAO;
+import com.final_app.db.dao.SyncWatermarkDAO;
 import com.final_app.factories.RepositoryFactory;
+import com.final_app.globals.FetchPlan;
+import com.final_app.interfaces.*;
 import com.final_app.models.*;
 import com.final_app.repositories.firebase.FirebaseManager;
+import com.final_app.repositories.firebase.FirestoreOutboxWorker;
+import com.final_app.repositories.firebase.utils.FirestoreChangeLog;
+import com.final_app.repositories.firebase.utils.FirestoreSyncDigests;
+import com.final_app.tools.ContentHash;
 import com.google.firebase.messaging.FirebaseMessaging;
 import io.github.cdimascio.dotenv.Dotenv;
 
+import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -21,6 +35,51 @@ public class DataSynchronizeService {
         ONLINE_TO_LOCAL
     }
 
+    // Forces the comparison of every record, e.g. after documents were written without a server change time
+    private static final boolean FORCE_FULL_SYNC = Boolean.getBoolean("lingualeap.sync.full");
+
+    // Watermark keys, named after the local tables
+    private static final String LANGUAGE_SYSTEMS = "language_systems";
+    private static final String LANGUAGES = "languages";
+    private static final String LANGUAGE_LEVELS = "language_levels";
+    private static final String SPEAKING_TEST_QUESTIONS = "speaking_test_questions";
+    private static final String SPEAKING_TESTS = "speaking_tests";
+    private static final String CONVERSATIONS = "conversations";
+    private static final String SCENARIOS = "scenarios";
+    private static final String USER_LANGUAGES = "user_languages";
+    private static final String USER_CONVERSATIONS = "user_conversations";
+    // The tombstones of the online deletes
+    private static final String DELETIONS = "sync_tombstones";
+    private static final List<String> COLLECTIONS = List.of(LANGUAGE_SYSTEMS, LANGUAGES, LANGUAGE_LEVELS, SPEAKING_TEST_QUESTIONS,
+            SPEAKING_TESTS, CONVERSATIONS, SCENARIOS, USER_LANGUAGES, USER_CONVERSATIONS, DELETIONS);
+    // Local table of each Firestore collection with tombstones
+    private static final Map<String, String> TOMBSTONE_TABLES = Map.of(
+            "languageLevelSystems", LANGUAGE_SYSTEMS,
+            "languages", LANGUAGES,
+            "languageLevels", LANGUAGE_LEVELS,
+            "speakingTestQuestions", SPEAKING_TEST_QUESTIONS,
+            "speakingTests", SPEAKING_TESTS,
+            "conversations", CONVERSATIONS,
+            "scenarios", SCENARIOS,
+            "userLanguages", USER_LANGUAGES,
+            "userConversations", USER_CONVERSATIONS,
+            "messages", SyncOutboxDAO.MESSAGES);
+    // Rows referencing others are deleted first
+    private static final List<String> DELETE_ORDER = List.of(SyncOutboxDAO.MESSAGES, USER_CONVERSATIONS, USER_LANGUAGES,
+            SPEAKING_TEST_QUESTIONS, SPEAKING_TESTS, CONVERSATIONS, SCENARIOS, LANGUAGE_LEVELS, LANGUAGES, LANGUAGE_SYSTEMS);
+    // Reference collections with an online digest, local table to Firestore collection
+    private static final Map<String, String> DIGEST_COLLECTIONS = Map.of(
+            LANGUAGE_SYSTEMS, "languageLevelSystems",
+            LANGUAGES, "languages",
+            LANGUAGE_LEVELS, "languageLevels",
+            SPEAKING_TEST_QUESTIONS, "speakingTestQuestions",
+            SPEAKING_TESTS, "speakingTests",
+            CONVERSATIONS, "conversations",
+            SCENARIOS, "scenarios");
+
+    private final SyncWatermarkDAO watermarkDAO = new SyncWatermarkDAO();
+    private final SyncOutboxDAO outboxDAO = new SyncOutboxDAO();
+    private final SyncContentHashDAO contentHashDAO = new SyncContentHashDAO();
     private ExecutorService writeExecutor;
 
     public DataSynchronizeService(){
@@ -29,13 +88,52 @@ public class DataSynchronizeService {
 
 
     public CompletableFuture<Void> synchronizeDB(User user, SyncType syncType) {
+        return synchronizeDB(user, syncType, new SyncProgress(syncType.name()));
+    }
+
+    /**
+     * Synchronize and report to the given progress, which is finished once the returned future completes
+     */
+    public CompletableFuture<Void> synchronizeDB(User user, SyncType syncType, SyncProgress progress) {
+        CompletableFuture<Void> synchronization;
         if(Dotenv.load().get("DB_MODE").equalsIgnoreCase("OFFLINE") || user == null) {
-            return CompletableFuture.completedFuture(null);
+            synchronization = CompletableFuture.completedFuture(null);
+        } else if (syncType == SyncType.LOCAL_TO_ONLINE && !FORCE_FULL_SYNC && loadWatermarks(user, syncType) != null) {
+            // Every local change since the last full push is in the outbox, the worker sends it in the background
+            progress.setPhase("Sending local changes");
+            synchronization = FirestoreOutboxWorker.getInstance().drain();
+        } else {
+            Map<String, Date> watermarks = FORCE_FULL_SYNC ? null : loadWatermarks(user, syncType);
+            synchronization = watermarks != null
+                    ? synchronizeChanges(user, syncType, watermarks, progress)
+                    : synchronizeAll(user, syncType, progress);
         }
+        return synchronization.whenComplete((result, ex) -> progress.finish());
+    }
+
+    /**
+     * Compare every record of both sides, used for the first synchronization of a user in each direction.
+     * Records the watermarks, so the next synchronization only transfers the changes.
+     * <p>
+     * The progress of the writes is checkpointed, when the application closes before the synchronization finished
+     * the next one resumes it instead of starting over.
+     */
+    private CompletableFuture<Void> synchronizeAll(User user, SyncType syncType, SyncProgress progress) {
         try{
+            progress.setPhase("Reading local data");
+            // Local reads below must see every queued local write
+            WriteBehindQueue.getInstance().flush();
+            // Changes recorded up to here are part of the local reads below
+            long currentOutboxVersion = outboxDAO.findCurrentVersion();
+            SyncCheckpoints checkpoints = SyncCheckpoints.begin(user.getId(), syncType.name(), new Date(), currentOutboxVersion, !FORCE_FULL_SYNC);
+            // A resumed synchronization keeps the start and outbox version of its first attempt, the records it
+            // skips were read back then
+            Date syncStart = checkpoints.getStartedAt();
+            long outboxVersion = checkpoints.getOutboxVersion();
             repositoryFactory.changeToOffline();
             // Get all localRepositories
-            System.out.println("Synchronizing user " + user.getUserName() + " with sync type " + syncType);
+            System.out.println((checkpoints.isResumed() ? "Resuming synchronization of user " : "Synchronizing user ")
+                    + user.getUserName() + " with sync type " + syncType);
             CompletableFuture<Optional<User>> userFuture = RepositoryFactory.getUserRepository().getUserById(user.getId());
 //            if(userFuture.join().isEmpty()){
 //                RepositoryFactory.getUserRepository().addUser(user).join();
@@ -48,7 +146,7 @@ public class DataSynchronizeService {
             CompletableFuture<Iterable<SpeakingTest>> localSpeakingTestsFuture = RepositoryFactory.getSpeakingTestRepository().getAllSpeakingTests();
             CompletableFuture<Iterable<Conversation>> localConversationsFuture = RepositoryFactory.getConversationRepository().getAllConversations();
             CompletableFuture<Iterable<Scenario>> localScenariosFuture = RepositoryFactory.getScenarioRepository().getAllScenarios();
-            CompletableFuture<Iterable<UserConversation>> localUserConversationsFuture = RepositoryFactory.getUserConversationsRepository().getAllUserConversationsFromUser(user.getId());
+            CompletableFuture<Iterable<UserConversation>> localUserConversationsFuture = RepositoryFactory.getUserConversationsRepository().getAllUserConversationsFromUser(user.getId(), FetchPlan.FULL);
             CompletableFuture<Optional<UserStats>> localUserStatsFuture = RepositoryFactory.getUserRepository().getUserStatsByUserId(user.getId());
             CompletableFuture<Optional<Settings>> localSettingsFuture = RepositoryFactory.getSettingsRepository().getSettingsFromUser(user.getId());
 
@@ -74,17 +172,41 @@ public class DataSynchronizeService {
                             }
                         });
 
+                        // A reference collection whose online digest matches the local records is not read again
+                        Map<String, Map<String, String>> localHashes = contentHashes(Map.of(
+                                LANGUAGE_SYSTEMS, localLanguageLevelSystems,
+                                LANGUAGES, localLanguages,
+                                LANGUAGE_LEVELS, localLanguageLevels,
+                                SPEAKING_TEST_QUESTIONS, localSpeakingTestQuestions,
+                                SPEAKING_TESTS, localSpeakingTests,
+                                CONVERSATIONS, localConversations,
+                                SCENARIOS, localScenarios));
+                        Map<String, Long> digestGenerations = new HashMap<>();
+                        DIGEST_COLLECTIONS.values().forEach(collection -> digestGenerations.put(collection, FirestoreSyncDigests.generation(collection)));
+                        Map<String, FirestoreSyncDigests.Digest> onlineDigests = readDigests();
+                        Set<String> unchanged = new HashSet<>();
+                        DIGEST_COLLECTIONS.forEach((table, collection) -> {
+                            FirestoreSyncDigests.Digest digest = onlineDigests.get(collection);
+                            if (digest != null && ContentHash.digest(localHashes.get(table)).equals(digest.getDigest())) {
+                                unchanged.add(table);
+                            }
+                        });
+                        if (!unchanged.isEmpty()) {
+                            System.out.println("Unchanged online collections, not reading them: " + unchanged);
+                        }
+
                         // Getting all online repositories
+                        progress.setPhase("Reading online data");
                         repositoryFactory.changeToOnline();
-                        CompletableFuture<Iterable<LanguageLevelSystem>> onlineLanguageLevelSystemsFuture = RepositoryFactory.getLanguageRepository().getAllLanguageSystems();
-                        CompletableFuture<Iterable<Language>> onlineLanguagesFuture = RepositoryFactory.getLanguageRepository().getAllLanguages();
-                        CompletableFuture<List<LanguageLevel>> onlineLanguageLevelsFuture = RepositoryFactory.getLanguageRepository().getAllLanguageLevels();
-                        CompletableFuture<Iterable<SpeakingTestQuestion>> onlineSpeakingTestQuestionsFuture = RepositoryFactory.getQuestionRepository().getAllQuestions();
-                        CompletableFuture<Iterable<SpeakingTest>> onlineSpeakingTestsFuture = RepositoryFactory.getSpeakingTestRepository().getAllSpeakingTests();
-                        CompletableFuture<Iterable<Conversation>> onlineConversationsFuture = RepositoryFactory.getConversationRepository().getAllConversations();
-                        CompletableFuture<Iterable<Scenario>> onlineScenariosFuture = RepositoryFactory.getScenarioRepository().getAllScenarios();
+                        CompletableFuture<Iterable<LanguageLevelSystem>> onlineLanguageLevelSystemsFuture = unchanged.contains(LANGUAGE_SYSTEMS) ? localLanguageLevelSystemsFuture : RepositoryFactory.getLanguageRepository().getAllLanguageSystems();
+                        CompletableFuture<Iterable<Language>> onlineLanguagesFuture = unchanged.contains(LANGUAGES) ? localLanguagesFuture : RepositoryFactory.getLanguageRepository().getAllLanguages();
+                        CompletableFuture<List<LanguageLevel>> onlineLanguageLevelsFuture = unchanged.contains(LANGUAGE_LEVELS) ? localLanguageLevelsFuture : RepositoryFactory.getLanguageRepository().getAllLanguageLevels();
+                        CompletableFuture<Iterable<SpeakingTestQuestion>> onlineSpeakingTestQuestionsFuture = unchanged.contains(SPEAKING_TEST_QUESTIONS) ? localSpeakingTestQuestionsFuture : RepositoryFactory.getQuestionRepository().getAllQuestions();
+                        CompletableFuture<Iterable<SpeakingTest>> onlineSpeakingTestsFuture = unchanged.contains(SPEAKING_TESTS) ? localSpeakingTestsFuture : RepositoryFactory.getSpeakingTestRepository().getAllSpeakingTests();
+                        CompletableFuture<Iterable<Conversation>> onlineConversationsFuture = unchanged.contains(CONVERSATIONS) ? localConversationsFuture : RepositoryFactory.getConversationRepository().getAllConversations();
+                        CompletableFuture<Iterable<Scenario>> onlineScenariosFuture = unchanged.contains(SCENARIOS) ? localScenariosFuture : RepositoryFactory.getScenarioRepository().getAllScenarios();
                         CompletableFuture<Iterable<UserLanguage>> onlineUserLanguagesFuture = RepositoryFactory.getUserLanguageRepository().getAllUserLanguagesFromUser(user.getId());
-                        CompletableFuture<Iterable<UserConversation>> onlineUserConversationsFuture = RepositoryFactory.getUserConversationsRepository().getAllUserConversationsFromUser(user.getId());
+                        CompletableFuture<Iterable<UserConversation>> onlineUserConversationsFuture = RepositoryFactory.getUserConversationsRepository().getAllUserConversationsFromUser(user.getId(), FetchPlan.FULL);
                         CompletableFuture<Optional<UserStats>> onlineUserStatsFuture = RepositoryFactory.getUserRepository().getUserStatsByUserId(user.getId());
                         CompletableFuture<Optional<Settings>> onlineSettingsFuture = RepositoryFactory.getSettingsRepository().getSettingsFromUser(user.getId());
 
@@ -113,305 +235,335 @@ public class DataSynchronizeService {
                                     });
 
                                     return CompletableFuture.runAsync(() -> {
+                                        progress.setPhase("Comparing");
                                         if(syncType == SyncType.ONLINE_TO_LOCAL){
                                             repositoryFactory.changeToOffline();
+                                            Repositories repositories = new Repositories();
+                                            // Wait for every write, the watermarks may only move once the changes are stored
+                                            SyncStages stages = new SyncStages(new SyncPipeline("full pull of " + user.getUserName(), progress, checkpoints));
+                                            stages.languageSystems.scanned(onlineLanguageLevelSystems.size());
+                                            stages.languages.scanned(onlineLanguages.size());
+                                            stages.languageLevels.scanned(onlineLanguageLevels.size());
+                                            stages.userLanguages.scanned(onlineUserLanguages.size());
+                                            stages.speakingTestQuestions.scanned(onlineSpeakingTestQuestions.size());
+                                            stages.speakingTests.scanned(onlineSpeakingTests.size());
+                                            stages.scenarios.scanned(onlineScenarios.size());
+                                            stages.conversations.scanned(onlineConversations.size());
+                                            stages.userConversations.scanned(onlineUserConversations.size());
+                                            stages.evaluations.scanned(onlineEvaluations.size());
 
-                                            // Synchronizing LanguageLevelSystems
-                                            System.out.println("Synchronizing LanguageLevelSystems");
                                             onlineLanguageLevelSystems.forEach((key, onlineLanguageLevelSystem) -> {
                                                 if (!localLanguageLevelSystems.containsKey(key)) {
-                                                    RepositoryFactory.getLanguageRepository().addLanguageSystem(onlineLanguageLevelSystem);
+                                                    stages.languageSystems.add(key, onlineLanguageLevelSystem, () -> repositories.languages.addLanguageSystem(onlineLanguageLevelSystem));
                                                 } else {
-                                                    if (onlineLanguageLevelSystem.getLastUpdate() != null && onlineLanguageLevelSystem.getLastUpdate().after(localLanguageLevelSystems.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getLanguageRepository().updateLanguageSystem(onlineLanguageLevelSystem);
+                                                    if (!sameContent(onlineLanguageLevelSystem, localLanguageLevelSystems.get(key)) && onlineLanguageLevelSystem.getLastUpdate() != null && onlineLanguageLevelSystem.getLastUpdate().after(localLanguageLevelSystems.get(key).getLastUpdate())) {
+                                                        stages.languageSystems.add(key, onlineLanguageLevelSystem, () -> repositories.languages.updateLanguageSystem(onlineLanguageLevelSystem));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing Languages
-                                            System.out.println("Synchronizing Languages");
                                             onlineLanguages.forEach((key, onlineLanguage) -> {
                                                 if (!localLanguages.containsKey(key)) {
-                                                    RepositoryFactory.getLanguageRepository().addLanguage(onlineLanguage);
+                                                    stages.languages.add(key, onlineLanguage, () -> repositories.languages.addLanguage(onlineLanguage));
                                                 } else {
-                                                    if (onlineLanguage.getLastUpdate() != null && onlineLanguage.getLastUpdate().after(localLanguages.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getLanguageRepository().updateLanguage(onlineLanguage);
+                                                    if (!sameContent(onlineLanguage, localLanguages.get(key)) && onlineLanguage.getLastUpdate() != null && onlineLanguage.getLastUpdate().after(localLanguages.get(key).getLastUpdate())) {
+                                                        stages.languages.add(key, onlineLanguage, () -> repositories.languages.updateLanguage(onlineLanguage));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing LanguageLevels
-                                            System.out.println("Synchronizing LanguageLevels");
                                             onlineLanguageLevels.forEach((key, onlineLanguageLevel) -> {
                                                 if (!localLanguageLevels.containsKey(key)) {
-                                                    RepositoryFactory.getLanguageRepository().addLanguageLevel(onlineLanguageLevel);
+                                                    stages.languageLevels.add(key, onlineLanguageLevel, () -> repositories.languages.addLanguageLevel(onlineLanguageLevel));
                                                 } else {
-                                                    if (onlineLanguageLevel.getLastUpdate() != null && onlineLanguageLevel.getLastUpdate().after(localLanguageLevels.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getLanguageRepository().updateLanguageLevel(onlineLanguageLevel);
+                                                    if (!sameContent(onlineLanguageLevel, localLanguageLevels.get(key)) && onlineLanguageLevel.getLastUpdate() != null && onlineLanguageLevel.getLastUpdate().after(localLanguageLevels.get(key).getLastUpdate())) {
+                                                        stages.languageLevels.add(key, onlineLanguageLevel, () -> repositories.languages.updateLanguageLevel(onlineLanguageLevel));
                                                     }
                                                 }
                                             });
-                                            System.out.println("Synchronizing User");
-                                            if(userOptional.isEmpty()) {
-                                                RepositoryFactory.getUserRepository().addUser(user)
-                                                        .join();
-                                            }else{
-                                                if(user.getLastUpdate() != null && user.getLastUpdate().after(userOptional.get().getLastUpdate())) {
-                                                    RepositoryFactory.getUserRepository().updateUser(user);
-                                                }
-                                            }
-                                            // Synchronizing UserStats
-                                            System.out.println("Synchronizing UserStats");
-                                            if (onlineUserStats.isPresent()) {
-                                                if (!localUserStats.isPresent()) {
-                                                    if(onlineUserStats.isPresent()) {
-                                                        RepositoryFactory.getUserRepository().saveUserStats(user, onlineUserStats.get());
-                                                    }else{
-                                                        System.out.println("UserStats is empty");
-                                                        UserStats userStats = new UserStats();
-                                                        userStats.setUserId(user.getId());
-                                                        userStats.setLevel(1);
-                                                        userStats.setTotalXp(0);
-                                                        userStats.setStreak(0);
-                                                        userStats.setLastUpdate(new Date());
-                                                        RepositoryFactory.getUserRepository().saveUserStats(user, userStats);
-                                                    }
-                                                } else {
-                                                    if (onlineUserStats.get().getLastUpdate() != null && onlineUserStats.get().getLastUpdate().after(localUserStats.get().getLastUpdate())) {
-                                                        RepositoryFactory.getUserRepository().saveUserStats(user, onlineUserStats.get());
-                                                    }
-                                                }
-                                            }
-                                            // Synchronizing Settings
-                                            System.out.println("Synchronizing Settings");
-                                            if (onlineSettings.isPresent()) {
-                                                if (!localSettings.isPresent()) {
-                                                    RepositoryFactory.getSettingsRepository().saveSettings(onlineSettings.get());
-                                                } else {
-                                                    if (onlineSettings.get().getLastUpdate() != null && onlineSettings.get().getLastUpdate().after(localSettings.get().getLastUpdate())) {
-                                                        RepositoryFactory.getSettingsRepository().saveSettings(onlineSettings.get());
-                                                    }
-                                                }
-                                            }
-                                            // Synchronizing UserLanguages
-                                            System.out.println("Synchronizing UserLanguages");
+                                            synchronizeUserDocumentsToLocal(user, userOptional, localUserStats, onlineUserStats, localSettings, onlineSettings, repositories, stages);
                                             onlineUserLanguages.forEach((key, onlineUserLanguage) -> {
                                                 if (!localUserLanguages.containsKey(key)) {
-                                                    RepositoryFactory.getUserLanguageRepository().addUserLanguage(onlineUserLanguage);
+                                                    stages.userLanguages.add(key, onlineUserLanguage, () -> repositories.userLanguages.addUserLanguage(onlineUserLanguage));
                                                 } else {
-                                                    if (onlineUserLanguage.getLastUpdate() != null && onlineUserLanguage.getLastUpdate().after(localUserLanguages.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getUserLanguageRepository().updateUserLanguage(onlineUserLanguage);
+                                                    if (!sameContent(onlineUserLanguage, localUserLanguages.get(key)) && onlineUserLanguage.getLastUpdate() != null && onlineUserLanguage.getLastUpdate().after(localUserLanguages.get(key).getLastUpdate())) {
+                                                        stages.userLanguages.add(key, onlineUserLanguage, () -> repositories.userLanguages.updateUserLanguage(onlineUserLanguage));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing SpeakingTestQuestions
-                                            System.out.println("Synchronizing SpeakingTestQuestions");
                                             onlineSpeakingTestQuestions.forEach((key, onlineSpeakingTestQuestion) -> {
                                                 if (!localSpeakingTestQuestions.containsKey(key)) {
-                                                    RepositoryFactory.getQuestionRepository().addQuestion(onlineSpeakingTestQuestion);
+                                                    stages.speakingTestQuestions.add(key, onlineSpeakingTestQuestion, () -> repositories.questions.addQuestion(onlineSpeakingTestQuestion));
                                                 } else {
-                                                    if (onlineSpeakingTestQuestion.getLastUpdate() != null && onlineSpeakingTestQuestion.getLastUpdate().after(localSpeakingTestQuestions.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getQuestionRepository().updateQuestion(onlineSpeakingTestQuestion);
+                                                    if (!sameContent(onlineSpeakingTestQuestion, localSpeakingTestQuestions.get(key)) && onlineSpeakingTestQuestion.getLastUpdate() != null && onlineSpeakingTestQuestion.getLastUpdate().after(localSpeakingTestQuestions.get(key).getLastUpdate())) {
+                                                        stages.speakingTestQuestions.add(key, onlineSpeakingTestQuestion, () -> repositories.questions.updateQuestion(onlineSpeakingTestQuestion));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing SpeakingTests
-                                            System.out.println("Synchronizing SpeakingTests");
                                             onlineSpeakingTests.forEach((key, onlineSpeakingTest) -> {
                                                 if (!localSpeakingTests.containsKey(key)) {
-                                                    RepositoryFactory.getSpeakingTestRepository().addSpeakingTest(onlineSpeakingTest);
+                                                    stages.speakingTests.add(key, onlineSpeakingTest, () -> repositories.speakingTests.addSpeakingTest(onlineSpeakingTest));
                                                 } else {
-                                                    if (onlineSpeakingTest.getLastUpdate() != null && onlineSpeakingTest.getLastUpdate().after(localSpeakingTests.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getSpeakingTestRepository().updateSpeakingTest(onlineSpeakingTest);
+                                                    if (!sameContent(onlineSpeakingTest, localSpeakingTests.get(key)) && onlineSpeakingTest.getLastUpdate() != null && onlineSpeakingTest.getLastUpdate().after(localSpeakingTests.get(key).getLastUpdate())) {
+                                                        stages.speakingTests.add(key, onlineSpeakingTest, () -> repositories.speakingTests.updateSpeakingTest(onlineSpeakingTest));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing Scenarios
-                                            System.out.println("Synchronizing Scenarios");
                                             onlineScenarios.forEach((key, onlineScenario) -> {
                                                 if (!localScenarios.containsKey(key)) {
-                                                    RepositoryFactory.getScenarioRepository().addScenario(onlineScenario);
+                                                    stages.scenarios.add(key, onlineScenario, () -> repositories.scenarios.addScenario(onlineScenario));
                                                 } else {
-                                                    if (onlineScenario.getLastUpdate() != null && onlineScenario.getLastUpdate().after(localScenarios.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getScenarioRepository().updateScenario(onlineScenario);
+                                                    if (!sameContent(onlineScenario, localScenarios.get(key)) && onlineScenario.getLastUpdate() != null && onlineScenario.getLastUpdate().after(localScenarios.get(key).getLastUpdate())) {
+                                                        stages.scenarios.add(key, onlineScenario, () -> repositories.scenarios.updateScenario(onlineScenario));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing Conversations
-                                            System.out.println("Synchronizing Conversations");
+                                            List<Conversation> newLocalConversations = new ArrayList<>();
                                             onlineConversations.forEach((key, onlineConversation) -> {
                                                 if (!localConversations.containsKey(key)) {
-                                                    RepositoryFactory.getConversationRepository().addConversation(onlineConversation);
+                                                    newLocalConversations.add(onlineConversation);
                                                 } else {
-                                                    if (onlineConversation.getLastUpdate() != null && onlineConversation.getLastUpdate().after(localConversations.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getConversationRepository().updateConversation(onlineConversation);
+                                                    if (!sameContent(onlineConversation, localConversations.get(key)) && onlineConversation.getLastUpdate() != null && onlineConversation.getLastUpdate().after(localConversations.get(key).getLastUpdate())) {
+                                                        stages.conversations.add(key, onlineConversation, () -> repositories.conversations.updateConversation(onlineConversation));
                                                     }
                                                 }
                                             });
+                                            if (!newLocalConversations.isEmpty()) {
+                                                stages.conversations.add(() -> repositories.conversations.addConversations(newLocalConversations));
+                                            }
 
-
-
-                                            // Synchronize the user itself
-
-                                            // Synchronizing UserConversations
-                                            System.out.println("Synchronizing UserConversations");
+                                            // The local user_conversations table does not hold the messages, store them with one batch
+                                            List<Message> syncedMessages = new ArrayList<>();
                                             onlineUserConversations.forEach((key, onlineUserConversation) -> {
                                                 if (!localUserConversations.containsKey(key)) {
-                                                    RepositoryFactory.getUserConversationsRepository().addUserConversation(onlineUserConversation);
+                                                    stages.userConversations.add(key, onlineUserConversation, () -> repositories.userConversations.addUserConversation(onlineUserConversation));
+                                                    syncedMessages.addAll(onlineUserConversation.getMessages());
                                                 } else {
-                                                    if (onlineUserConversation.getUpdatedAt() != null && onlineUserConversation.getUpdatedAt().after(localUserConversations.get(key).getUpdatedAt())) {
-                                                        RepositoryFactory.getUserConversationsRepository().updateUserConversation(onlineUserConversation);
+                                                    if (!sameContent(onlineUserConversation, localUserConversations.get(key)) && onlineUserConversation.getUpdatedAt() != null && onlineUserConversation.getUpdatedAt().after(localUserConversations.get(key).getUpdatedAt())) {
+                                                        stages.userConversations.add(key, onlineUserConversation, () -> repositories.userConversations.updateUserConversation(onlineUserConversation));
+                                                        syncedMessages.addAll(onlineUserConversation.getMessages());
                                                     }
                                                 }
                                             });
+                                            if (!syncedMessages.isEmpty()) {
+                                                stages.messages.add(() -> repositories.messages.upsertMessages(syncedMessages));
+                                            }
 
-                                            // Synchronizing Evaluations
-                                            System.out.println("Synchronizing Evaluations");
                                             onlineEvaluations.forEach((key, onlineEvaluation) -> {
                                                 if (!localEvaluations.containsKey(key)) {
-                                                    RepositoryFactory.getEvaluationRepository().addEvaluation(onlineEvaluation);
+                                                    stages.evaluations.add(key, onlineEvaluation, () -> repositories.evaluations.addEvaluation(onlineEvaluation));
                                                 }
                                             });
 
+                                            Map<String, Collection<String>> pulled = new HashMap<>();
+                                            pulled.put(SyncOutboxDAO.LANGUAGE_SYSTEMS, onlineLanguageLevelSystems.keySet());
+                                            pulled.put(SyncOutboxDAO.LANGUAGES, onlineLanguages.keySet());
+                                            pulled.put(SyncOutboxDAO.LANGUAGE_LEVELS, onlineLanguageLevels.keySet());
+                                            pulled.put(SyncOutboxDAO.SPEAKING_TEST_QUESTIONS, onlineSpeakingTestQuestions.keySet());
+                                            pulled.put(SyncOutboxDAO.SPEAKING_TESTS, onlineSpeakingTests.keySet());
+                                            pulled.put(SyncOutboxDAO.CONVERSATIONS, onlineConversations.keySet());
+                                            pulled.put(SyncOutboxDAO.SCENARIOS, onlineScenarios.keySet());
+                                            pulled.put(SyncOutboxDAO.USER_LANGUAGES, onlineUserLanguages.keySet());
+                                            pulled.put(SyncOutboxDAO.USER_CONVERSATIONS, onlineUserConversations.keySet());
+                                            pulled.put(SyncOutboxDAO.MESSAGES, syncedMessages.stream().map(Message::getId).toList());
+                                            pulled.put(SyncOutboxDAO.EVALUATIONS, onlineEvaluations.keySet());
+                                            try {
+                                                stages.pipeline.run().join();
+                                                WriteBehindQueue.getInstance().flush();
+                                            } catch (CompletionException e) {
+                                                System.err.println("Not all changes were stored locally, the next synchronization resumes from the checkpoints: " + e.getMessage());
+                                                e.printStackTrace();
+                                                ReferenceDataCache.getInstance().invalidateAll();
+                                                return;
+                                            } finally {
+                                                // Also after a failure: the stages that completed recorded their writes in the outbox. The pull
+                                                // recorded them after the current version, local changes made between the attempts of a resumed
+                                                // synchronization were recorded before it and are kept.
+                                                WriteBehindQueue.getInstance().flush();
+                                                discardPulled(user, onlineSettings, pulled, currentOutboxVersion);
+                                            }
+                                            // Server change times, the delta pulls compare them with the same clock
+                                            Map<String, Date> pullWatermarks = new HashMap<>(Map.of(
+                                                    LANGUAGE_SYSTEMS, newest(onlineLanguageLevelSystems.values(), LanguageLevelSystem::getServerUpdatedAt),
+                                                    LANGUAGES, newest(onlineLanguages.values(), Language::getServerUpdatedAt),
+                                                    LANGUAGE_LEVELS, newest(onlineLanguageLevels.values(), LanguageLevel::getServerUpdatedAt),
+                                                    SPEAKING_TEST_QUESTIONS, newest(onlineSpeakingTestQuestions.values(), SpeakingTestQuestion::getServerUpdatedAt),
+                                                    SPEAKING_TESTS, newest(onlineSpeakingTests.values(), SpeakingTest::getServerUpdatedAt),
+                                                    CONVERSATIONS, newest(onlineConversations.values(), Conversation::getServerUpdatedAt),
+                                                    SCENARIOS, newest(onlineScenarios.values(), Scenario::getServerUpdatedAt),
+                                                    USER_LANGUAGES, newest(onlineUserLanguages.values(), UserLanguage::getServerUpdatedAt),
+                                                    USER_CONVERSATIONS, newest(onlineUserConversations.values(), UserConversation::getServerUpdatedAt)));
+                                            // A full pull does not delete local rows, the deletes after the newest change it read come with the next pull
+                                            pullWatermarks.put(DELETIONS, newest(pullWatermarks.values(), Function.identity()));
+                                            if (checkpoints.isResumed()) {
+                                                // The records skipped by the resumed synchronization were read by its first attempt, there is no
+                                                // server time to continue their changes from. Without watermarks the next one compares everything.
+                                                System.out.println("Resumed synchronization finished, the next one compares everything again");
+                                            } else {
+                                                saveWatermarks(user, SyncType.ONLINE_TO_LOCAL, pullWatermarks);
+                                            }
+                                            checkpoints.finish();
+                                            Map<String, Map<String, String>> onlineHashes = contentHashes(Map.of(
+                                                    LANGUAGE_SYSTEMS, onlineLanguageLevelSystems,
+                                                    LANGUAGES, onlineLanguages,
+                                                    LANGUAGE_LEVELS, onlineLanguageLevels,
+                                                    SPEAKING_TEST_QUESTIONS, onlineSpeakingTestQuestions,
+                                                    SPEAKING_TESTS, onlineSpeakingTests,
+                                                    CONVERSATIONS, onlineConversations,
+                                                    SCENARIOS, onlineScenarios,
+                                                    USER_LANGUAGES, onlineUserLanguages,
+                                                    USER_CONVERSATIONS, onlineUserConversations));
+                                            saveContentHashes(onlineHashes);
+                                            writeDigests(onlineHashes, pullWatermarks, onlineDigests, digestGenerations);
                                         }else if (syncType == SyncType.LOCAL_TO_ONLINE){
                                             repositoryFactory.changeToOnline();
-                                            // Synchronizing LanguageLevelSystems
-                                            System.out.println("Synchronizing LanguageLevelSystems");
+                                            Repositories repositories = new Repositories();
+                                            // Wait for every write, the watermarks may only move once the changes are online
+                                            SyncStages stages = new SyncStages(new SyncPipeline("full push of " + user.getUserName(), progress, checkpoints));
+                                            stages.languageSystems.scanned(localLanguageLevelSystems.size());
+                                            stages.languages.scanned(localLanguages.size());
+                                            stages.languageLevels.scanned(localLanguageLevels.size());
+                                            stages.speakingTestQuestions.scanned(localSpeakingTestQuestions.size());
+                                            stages.speakingTests.scanned(localSpeakingTests.size());
+                                            stages.conversations.scanned(localConversations.size());
+                                            stages.scenarios.scanned(localScenarios.size());
+                                            stages.userLanguages.scanned(localUserLanguages.size());
+                                            stages.userConversations.scanned(localUserConversations.size());
+                                            stages.evaluations.scanned(localEvaluations.size());
                                             localLanguageLevelSystems.forEach((key, localLanguageLevelSystem) -> {
                                                 if (!onlineLanguageLevelSystems.containsKey(key)) {
-                                                    RepositoryFactory.getLanguageRepository().addLanguageSystem(localLanguageLevelSystem);
+                                                    stages.languageSystems.add(key, localLanguageLevelSystem, () -> repositories.languages.addLanguageSystem(localLanguageLevelSystem));
                                                 } else {
-                                                    if (onlineLanguageLevelSystems.get(key).getLastUpdate() == null || localLanguageLevelSystem.getLastUpdate().after(onlineLanguageLevelSystems.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getLanguageRepository().updateLanguageSystem(localLanguageLevelSystem);
+                                                    if (!sameContent(localLanguageLevelSystem, onlineLanguageLevelSystems.get(key)) && (onlineLanguageLevelSystems.get(key).getLastUpdate() == null || localLanguageLevelSystem.getLastUpdate().after(onlineLanguageLevelSystems.get(key).getLastUpdate()))) {
+                                                        stages.languageSystems.add(key, localLanguageLevelSystem, () -> repositories.languages.updateLanguageSystem(localLanguageLevelSystem));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing Languages
-                                            System.out.println("Synchronizing Languages");
                                             localLanguages.forEach((key, localLanguage) -> {
                                                 if (!onlineLanguages.containsKey(key)) {
-                                                    RepositoryFactory.getLanguageRepository().addLanguage(localLanguage);
+                                                    stages.languages.add(key, localLanguage, () -> repositories.languages.addLanguage(localLanguage));
                                                 } else {
-                                                    if (onlineLanguages.get(key).getLastUpdate() == null || localLanguage.getLastUpdate().after(onlineLanguages.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getLanguageRepository().updateLanguage(localLanguage);
+                                                    if (!sameContent(localLanguage, onlineLanguages.get(key)) && (onlineLanguages.get(key).getLastUpdate() == null || localLanguage.getLastUpdate().after(onlineLanguages.get(key).getLastUpdate()))) {
+                                                        stages.languages.add(key, localLanguage, () -> repositories.languages.updateLanguage(localLanguage));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing LanguageLevels
-                                            System.out.println("Synchronizing LanguageLevels");
                                             localLanguageLevels.forEach((key, localLanguageLevel) -> {
                                                 if (!onlineLanguageLevels.containsKey(key)) {
-                                                    RepositoryFactory.getLanguageRepository().addLanguageLevel(localLanguageLevel);
+                                                    stages.languageLevels.add(key, localLanguageLevel, () -> repositories.languages.addLanguageLevel(localLanguageLevel));
                                                 } else {
-                                                    if (onlineLanguageLevels.get(key).getLastUpdate() == null || localLanguageLevel.getLastUpdate().after(onlineLanguageLevels.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getLanguageRepository().updateLanguageLevel(localLanguageLevel);
+                                                    if (!sameContent(localLanguageLevel, onlineLanguageLevels.get(key)) && (onlineLanguageLevels.get(key).getLastUpdate() == null || localLanguageLevel.getLastUpdate().after(onlineLanguageLevels.get(key).getLastUpdate()))) {
+                                                        stages.languageLevels.add(key, localLanguageLevel, () -> repositories.languages.updateLanguageLevel(localLanguageLevel));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing SpeakingTestQuestions
-                                            System.out.println("Synchronizing SpeakingTestQuestions");
                                             localSpeakingTestQuestions.forEach((key, localSpeakingTestQuestion) -> {
                                                 if (!onlineSpeakingTestQuestions.containsKey(key)) {
-                                                    RepositoryFactory.getQuestionRepository().addQuestion(localSpeakingTestQuestion);
+                                                    stages.speakingTestQuestions.add(key, localSpeakingTestQuestion, () -> repositories.questions.addQuestion(localSpeakingTestQuestion));
                                                 } else {
-                                                    if (onlineSpeakingTestQuestions.get(key).getLastUpdate() == null || localSpeakingTestQuestion.getLastUpdate().after(onlineSpeakingTestQuestions.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getQuestionRepository().updateQuestion(localSpeakingTestQuestion);
+                                                    if (!sameContent(localSpeakingTestQuestion, onlineSpeakingTestQuestions.get(key)) && (onlineSpeakingTestQuestions.get(key).getLastUpdate() == null || localSpeakingTestQuestion.getLastUpdate().after(onlineSpeakingTestQuestions.get(key).getLastUpdate()))) {
+                                                        stages.speakingTestQuestions.add(key, localSpeakingTestQuestion, () -> repositories.questions.updateQuestion(localSpeakingTestQuestion));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing SpeakingTests
-                                            System.out.println("Synchronizing SpeakingTests");
                                             localSpeakingTests.forEach((key, localSpeakingTest) -> {
                                                 if (!onlineSpeakingTests.containsKey(key)) {
-                                                    RepositoryFactory.getSpeakingTestRepository().addSpeakingTest(localSpeakingTest);
+                                                    stages.speakingTests.add(key, localSpeakingTest, () -> repositories.speakingTests.addSpeakingTest(localSpeakingTest));
                                                 } else {
-                                                    if (onlineSpeakingTests.get(key).getLastUpdate() == null || localSpeakingTest.getLastUpdate().after(onlineSpeakingTests.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getSpeakingTestRepository().updateSpeakingTest(localSpeakingTest);
+                                                    if (!sameContent(localSpeakingTest, onlineSpeakingTests.get(key)) && (onlineSpeakingTests.get(key).getLastUpdate() == null || localSpeakingTest.getLastUpdate().after(onlineSpeakingTests.get(key).getLastUpdate()))) {
+                                                        stages.speakingTests.add(key, localSpeakingTest, () -> repositories.speakingTests.updateSpeakingTest(localSpeakingTest));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing Conversations
-                                            System.out.println("Synchronizing Conversations");
+                                            List<Conversation> newOnlineConversations = new ArrayList<>();
                                             localConversations.forEach((key, localConversation) -> {
                                                 if (!onlineConversations.containsKey(key)) {
-                                                    RepositoryFactory.getConversationRepository().addConversation(localConversation);
+                                                    newOnlineConversations.add(localConversation);
                                                 } else {
-                                                    if (onlineConversations.get(key).getLastUpdate() == null || localConversation.getLastUpdate().after(onlineConversations.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getConversationRepository().updateConversation(localConversation);
+                                                    if (!sameContent(localConversation, onlineConversations.get(key)) && (onlineConversations.get(key).getLastUpdate() == null || localConversation.getLastUpdate().after(onlineConversations.get(key).getLastUpdate()))) {
+                                                        stages.conversations.add(key, localConversation, () -> repositories.conversations.updateConversation(localConversation));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing Scenarios
-                                            System.out.println("Synchronizing Scenarios");
+                                            if (!newOnlineConversations.isEmpty()) {
+                                                stages.conversations.add(() -> repositories.conversations.addConversations(newOnlineConversations));
+                                            }
                                             localScenarios.forEach((key, localScenario) -> {
                                                 if (!onlineScenarios.containsKey(key)) {
-                                                    RepositoryFactory.getScenarioRepository().addScenario(localScenario);
+                                                    stages.scenarios.add(key, localScenario, () -> repositories.scenarios.addScenario(localScenario));
                                                 } else {
-                                                    if (onlineScenarios.get(key).getLastUpdate() == null || localScenario.getLastUpdate().after(onlineScenarios.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getScenarioRepository().updateScenario(localScenario);
+                                                    if (!sameContent(localScenario, onlineScenarios.get(key)) && (onlineScenarios.get(key).getLastUpdate() == null || localScenario.getLastUpdate().after(onlineScenarios.get(key).getLastUpdate()))) {
+                                                        stages.scenarios.add(key, localScenario, () -> repositories.scenarios.updateScenario(localScenario));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing UserLanguages
-                                            System.out.println("Synchronizing UserLanguages");
                                             localUserLanguages.forEach((key, localUserLanguage) -> {
                                                 if (!onlineUserLanguages.containsKey(key)) {
-                                                    RepositoryFactory.getUserLanguageRepository().addUserLanguage(localUserLanguage);
+                                                    stages.userLanguages.add(key, localUserLanguage, () -> repositories.userLanguages.addUserLanguage(localUserLanguage));
                                                 } else {
-                                                    if (onlineUserLanguages.get(key).getLastUpdate() == null || localUserLanguage.getLastUpdate().after(onlineUserLanguages.get(key).getLastUpdate())) {
-                                                        RepositoryFactory.getUserLanguageRepository().updateUserLanguage(localUserLanguage);
+                                                    if (!sameContent(localUserLanguage, onlineUserLanguages.get(key)) && (onlineUserLanguages.get(key).getLastUpdate() == null || localUserLanguage.getLastUpdate().after(onlineUserLanguages.get(key).getLastUpdate()))) {
+                                                        stages.userLanguages.add(key, localUserLanguage, () -> repositories.userLanguages.updateUserLanguage(localUserLanguage));
                                                     }
                                                 }
                                             });
-                                            // Synchronizing UserConversations
-                                            System.out.println("Synchronizing UserConversations");
+                                            // The online user conversation documents do not hold the messages, store them with one batch
+                                            List<Message> pushedMessages = new ArrayList<>();
                                             localUserConversations.forEach((key, localUserConversation) -> {
                                                 if (!onlineUserConversations.containsKey(key)) {
-                                                    RepositoryFactory.getUserConversationsRepository().addUserConversation(localUserConversation);
+                                                    stages.userConversations.add(key, localUserConversation, () -> repositories.userConversations.addUserConversation(localUserConversation));
+                                                    pushedMessages.addAll(localUserConversation.getMessages());
                                                 } else {
-                                                    if (onlineUserConversations.get(key).getUpdatedAt() == null || localUserConversation.getUpdatedAt().after(onlineUserConversations.get(key).getUpdatedAt())) {
-                                                        RepositoryFactory.getUserConversationsRepository().updateUserConversation(localUserConversation);
+                                                    if (!sameContent(localUserConversation, onlineUserConversations.get(key)) && (onlineUserConversations.get(key).getUpdatedAt() == null || localUserConversation.getUpdatedAt().after(onlineUserConversations.get(key).getUpdatedAt()))) {
+                                                        stages.userConversations.add(key, localUserConversation, () -> repositories.userConversations.updateUserConversation(localUserConversation));
+                                                        pushedMessages.addAll(localUserConversation.getMessages());
                                                     }
                                                 }
                                             });
-                                            // Synchronizing User
-                                            System.out.println("Synchronizing User");
-                                            if(userOptional.isPresent()) {
-                                                if (user.getLastUpdate() == null || user.getLastUpdate().after(userOptional.get().getLastUpdate())) {
-                                                    RepositoryFactory.getUserRepository().updateUser(user);
-                                                }
-                                            }else{
-                                                RepositoryFactory.getUserRepository().addUser(user)
-                                                        .join();
+                                            if (!pushedMessages.isEmpty()) {
+                                                stages.messages.add(() -> repositories.messages.upsertMessages(pushedMessages));
                                             }
-                                            // Synchronizing Settings
-                                            System.out.println("Synchronizing Settings");
-                                            if (localSettings.isPresent()) {
-                                                if (!onlineSettings.isPresent()) {
-                                                    RepositoryFactory.getSettingsRepository().saveSettings(localSettings.get());
-                                                } else {
-                                                    if (localSettings.get().getLastUpdate() == null || localSettings.get().getLastUpdate().after(onlineSettings.get().getLastUpdate())) {
-                                                        RepositoryFactory.getSettingsRepository().saveSettings(localSettings.get());
-                                                    }
-                                                }
-                                            }
-                                            // Synchronizing UserStats
-                                            System.out.println("Synchronizing UserStats");
-                                            if (localUserStats.isPresent()) {
-                                                if (!onlineUserStats.isPresent()) {
-                                                    RepositoryFactory.getUserRepository().saveUserStats(user, localUserStats.get());
-                                                } else {
-                                                    if (onlineUserStats.get().getLastUpdate() == null || localUserStats.get().getLastUpdate().after(onlineUserStats.get().getLastUpdate())) {
-                                                        RepositoryFactory.getUserRepository().saveUserStats(user, localUserStats.get());
-                                                    }
-                                                }
-                                            }
-                                            // Synchronizing Evaluations
-                                            System.out.println("Synchronizing Evaluations");
+                                            synchronizeUserDocumentsToOnline(user, userOptional, localUserStats, onlineUserStats, localSettings, onlineSettings, repositories, stages);
                                             localEvaluations.forEach((key, localEvaluation) -> {
                                                 if (!onlineEvaluations.containsKey(key)) {
-                                                    RepositoryFactory.getEvaluationRepository().addEvaluation(localEvaluation);
+                                                    stages.evaluations.add(key, localEvaluation, () -> repositories.evaluations.addEvaluation(localEvaluation));
                                                 }
                                             });
+                                            if (awaitPushes(user, stages.pipeline.run(), syncStart, outboxVersion)) {
+                                                checkpoints.finish();
+                                                Map<String, LanguageLevelSystem> pushedLanguageLevelSystems = afterPush(localLanguageLevelSystems, onlineLanguageLevelSystems, LanguageLevelSystem::getLastUpdate);
+                                                Map<String, Language> pushedLanguages = afterPush(localLanguages, onlineLanguages, Language::getLastUpdate);
+                                                Map<String, LanguageLevel> pushedLanguageLevels = afterPush(localLanguageLevels, onlineLanguageLevels, LanguageLevel::getLastUpdate);
+                                                Map<String, SpeakingTestQuestion> pushedSpeakingTestQuestions = afterPush(localSpeakingTestQuestions, onlineSpeakingTestQuestions, SpeakingTestQuestion::getLastUpdate);
+                                                Map<String, SpeakingTest> pushedSpeakingTests = afterPush(localSpeakingTests, onlineSpeakingTests, SpeakingTest::getLastUpdate);
+                                                Map<String, Conversation> pushedConversations = afterPush(localConversations, onlineConversations, Conversation::getLastUpdate);
+                                                Map<String, Scenario> pushedScenarios = afterPush(localScenarios, onlineScenarios, Scenario::getLastUpdate);
+                                                Map<String, Map<String, String>> pushedHashes = contentHashes(Map.of(
+                                                        LANGUAGE_SYSTEMS, pushedLanguageLevelSystems,
+                                                        LANGUAGES, pushedLanguages,
+                                                        LANGUAGE_LEVELS, pushedLanguageLevels,
+                                                        SPEAKING_TEST_QUESTIONS, pushedSpeakingTestQuestions,
+                                                        SPEAKING_TESTS, pushedSpeakingTests,
+                                                        CONVERSATIONS, pushedConversations,
+                                                        SCENARIOS, pushedScenarios,
+                                                        USER_LANGUAGES, afterPush(localUserLanguages, onlineUserLanguages, UserLanguage::getLastUpdate),
+                                                        USER_CONVERSATIONS, afterPush(localUserConversations, onlineUserConversations, UserConversation::getUpdatedAt)));
+                                                saveContentHashes(pushedHashes);
+                                                // Collections written by the push are left out, their digest was deleted by the writes.
+                                                // A resumed push does not know what the first attempt wrote, the next one writes them.
+                                                if (!checkpoints.isResumed()) {
+                                                    writeDigests(pushedHashes, Map.of(
+                                                            LANGUAGE_SYSTEMS, newest(pushedLanguageLevelSystems.values(), LanguageLevelSystem::getLastUpdate),
+                                                            LANGUAGES, newest(pushedLanguages.values(), Language::getLastUpdate),
+                                                            LANGUAGE_LEVELS, newest(pushedLanguageLevels.values(), LanguageLevel::getLastUpdate),
+                                                            SPEAKING_TEST_QUESTIONS, newest(pushedSpeakingTestQuestions.values(), SpeakingTestQuestion::getLastUpdate),
+                                                            SPEAKING_TESTS, newest(pushedSpeakingTests.values(), SpeakingTest::getLastUpdate),
+                                                            CONVERSATIONS, newest(pushedConversations.values(), Conversation::getLastUpdate),
+                                                            SCENARIOS, newest(pushedScenarios.values(), Scenario::getLastUpdate)),
+                                                            onlineDigests, digestGenerations);
+                                                }
+                                            }
                                         }
+
+                                        // Reference data may have been rewritten in bulk, drop the shared identity map
+                                        ReferenceDataCache.getInstance().invalidateAll();
                                     }, writeExecutor);
                                 });
                     });
@@ -423,4 +575,663 @@ public class DataSynchronizeService {
 
 
     }
+
+    /**
+     * Transfer only the records changed after the watermarks of the previous synchronization
+     */
+    private CompletableFuture<Void> synchronizeChanges(User user, SyncType syncType, Map<String, Date> watermarks, SyncProgress progress) {
+        try{
+            progress.setPhase("Reading changes");
+            // Local reads below must see every queued local write
+            WriteBehindQueue.getInstance().flush();
+            repositoryFactory.changeToOffline();
+            System.out.println("Synchronizing changes of user " + user.getUserName() + " with sync type " + syncType);
+            CompletableFuture<Optional<User>> userFuture = RepositoryFactory.getUserRepository().getUserById(user.getId());
+            CompletableFuture<Optional<UserStats>> localUserStatsFuture = RepositoryFactory.getUserRepository().getUserStatsByUserId(user.getId());
+            CompletableFuture<Optional<Settings>> localSettingsFuture = RepositoryFactory.getSettingsRepository().getSettingsFromUser(user.getId());
+
+            // Changes recorded after this version may be the pulled records themselves
+            long outboxVersion = outboxDAO.findCurrentVersion();
+
+            return CompletableFuture.allOf(userFuture, localUserStatsFuture, localSettingsFuture)
+                    .thenCompose(result -> {
+                        repositoryFactory.changeToOnline();
+                        ChangeSet onlineChanges = new ChangeSet(user, watermarks, FetchPlan.FULL);
+                        CompletableFuture<Optional<UserStats>> onlineUserStatsFuture = RepositoryFactory.getUserRepository().getUserStatsByUserId(user.getId());
+                        CompletableFuture<Optional<Settings>> onlineSettingsFuture = RepositoryFactory.getSettingsRepository().getSettingsFromUser(user.getId());
+
+                        return CompletableFuture.allOf(onlineChanges.loaded(), onlineUserStatsFuture, onlineSettingsFuture)
+                                .thenRunAsync(() -> {
+                                    repositoryFactory.changeToOffline();
+                                    System.out.println("Pulling " + onlineChanges.size() + " online changes and deletes");
+                                    Repositories repositories = new Repositories();
+                                    SyncStages stages = new SyncStages(new SyncPipeline("pull of " + user.getUserName(), progress, null));
+                                    synchronizeUserDocumentsToLocal(user, userFuture.join(), localUserStatsFuture.join(), onlineUserStatsFuture.join(), localSettingsFuture.join(), onlineSettingsFuture.join(), repositories, stages);
+                                    try {
+                                        pullChanges(onlineChanges, repositories, stages);
+                                        stages.pipeline.run().join();
+                                        deleteLocally(onlineChanges, repositories);
+                                        WriteBehindQueue.getInstance().flush();
+                                    } catch (Exception e) {
+                                        System.err.println("Pulling the changes failed, the next synchronization retries them: " + e.getMessage());
+                                        e.printStackTrace();
+                                        return;
+                                    } finally {
+                                        // Reference data may have been rewritten in bulk, drop the shared identity map
+                                        ReferenceDataCache.getInstance().invalidateAll();
+                                        // Also after a failure, the stages that completed recorded their writes in the outbox
+                                        WriteBehindQueue.getInstance().flush();
+                                        discardPulled(user, onlineSettingsFuture.join(), onlineChanges.pulledIds(), outboxVersion);
+                                    }
+
+                                    saveContentHashes(contentHashes(onlineChanges.byId()));
+                                    Map<String, Date> pullWatermarks = new HashMap<>();
+                                    onlineChanges.newest().forEach((collection, newest) -> pullWatermarks.put(collection, latest(watermarks.get(collection), newest)));
+                                    saveWatermarks(user, SyncType.ONLINE_TO_LOCAL, pullWatermarks);
+                                }, writeExecutor);
+                    });
+        }catch (Exception e){
+            System.out.println("Error during synchronization: " + e.getMessage());
+            e.printStackTrace();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Add the writes storing the online changes locally to the stages, records that are missing locally are
+     * added, the others only updated when the online copy is newer
+     */
+    private void pullChanges(ChangeSet changes, Repositories repositories, SyncStages stages) throws SQLException {
+        newerThanLocal(LANGUAGE_SYSTEMS, "last_updated", changes.languageSystems.join(), LanguageLevelSystem::getId, LanguageLevelSystem::getLastUpdate,
+                repositories.languages::addLanguageSystem, repositories.languages::updateLanguageSystem, stages.languageSystems);
+        newerThanLocal(LANGUAGES, "last_updated", changes.languages.join(), Language::getId, Language::getLastUpdate,
+                repositories.languages::addLanguage, repositories.languages::updateLanguage, stages.languages);
+        newerThanLocal(LANGUAGE_LEVELS, "last_updated", changes.languageLevels.join(), LanguageLevel::getId, LanguageLevel::getLastUpdate,
+                repositories.languages::addLanguageLevel, repositories.languages::updateLanguageLevel, stages.languageLevels);
+        newerThanLocal(USER_LANGUAGES, "last_updated", changes.userLanguages.join(), UserLanguage::getId, UserLanguage::getLastUpdate,
+                repositories.userLanguages::addUserLanguage, repositories.userLanguages::updateUserLanguage, stages.userLanguages);
+        newerThanLocal(SPEAKING_TEST_QUESTIONS, "last_updated", changes.speakingTestQuestions.join(), SpeakingTestQuestion::getId, SpeakingTestQuestion::getLastUpdate,
+                repositories.questions::addQuestion, repositories.questions::updateQuestion, stages.speakingTestQuestions);
+        newerThanLocal(SPEAKING_TESTS, "last_updated", changes.speakingTests.join(), SpeakingTest::getId, SpeakingTest::getLastUpdate,
+                repositories.speakingTests::addSpeakingTest, repositories.speakingTests::updateSpeakingTest, stages.speakingTests);
+        newerThanLocal(SCENARIOS, "last_updated", changes.scenarios.join(), Scenario::getId, Scenario::getLastUpdate,
+                repositories.scenarios::addScenario, repositories.scenarios::updateScenario, stages.scenarios);
+        List<Conversation> newLocalConversations = new ArrayList<>();
+        stages.conversations.scanned(changes.conversations.join().size());
+        newerThanLocal(CONVERSATIONS, "last_updated", changes.conversations.join(), Conversation::getId, Conversation::getLastUpdate,
+                newLocalConversations::add,
+                conversation -> stages.conversations.add(conversation.getId(), conversation, () -> repositories.conversations.updateConversation(conversation)));
+        if (!newLocalConversations.isEmpty()) {
+            stages.conversations.add(() -> repositories.conversations.addConversations(newLocalConversations));
+        }
+
+        // The local user_conversations table does not hold the messages, store them with one batch
+        List<UserConversation> userConversations = changes.userConversations.join();
+        List<Message> syncedMessages = new ArrayList<>();
+        stages.userConversations.scanned(userConversations.size());
+        newerThanLocal(USER_CONVERSATIONS, "updated_at", userConversations, UserConversation::getId, UserConversation::getUpdatedAt,
+                userConversation -> {
+                    syncedMessages.addAll(userConversation.getMessages());
+                    stages.userConversations.add(userConversation.getId(), userConversation, () -> repositories.userConversations.addUserConversation(userConversation));
+                },
+                userConversation -> {
+                    syncedMessages.addAll(userConversation.getMessages());
+                    stages.userConversations.add(userConversation.getId(), userConversation, () -> repositories.userConversations.updateUserConversation(userConversation));
+                });
+        if (!syncedMessages.isEmpty()) {
+            stages.messages.add(() -> repositories.messages.upsertMessages(syncedMessages));
+        }
+
+        List<Evaluation> evaluations = userConversations.stream()
+                .map(UserConversation::getEvaluation)
+                .filter(Objects::nonNull)
+                .toList();
+        Set<String> existingEvaluations = watermarkDAO.findExistingIds("evaluations", evaluations.stream().map(Evaluation::getId).toList());
+        for (Evaluation evaluation : evaluations) {
+            if (!existingEvaluations.contains(evaluation.getId())) {
+                stages.evaluations.add(() -> repositories.evaluations.addEvaluation(evaluation));
+            }
+        }
+    }
+
+    /**
+     * Delete the local rows of the documents deleted online. A document written again after its delete is in the
+     * change set and kept. A row that can not be deleted, e.g. because local rows still reference it, stays.
+     */
+    private void deleteLocally(ChangeSet changes, Repositories repositories) throws SQLException {
+        Map<String, List<String>> deleted = changes.deletedIds();
+        Map<String, Map<String, ?>> changed = changes.byId();
+        for (String table : DELETE_ORDER) {
+            Map<String, ?> written = changed.getOrDefault(table, Map.of());
+            List<String> ids = deleted.getOrDefault(table, List.of()).stream().filter(id -> !written.containsKey(id)).toList();
+            if (ids.isEmpty()) {
+                continue;
+            }
+            List<String> removed = new ArrayList<>();
+            for (String id : watermarkDAO.findExistingIds(table, ids)) {
+                try {
+                    deleteLocally(table, id, repositories).join();
+                    removed.add(id);
+                } catch (RuntimeException e) {
+                    System.err.println("Could not delete " + table + " " + id + " locally: " + e.getMessage());
+                }
+            }
+            contentHashDAO.delete(table, removed);
+        }
+    }
+
+    private CompletableFuture<Void> deleteLocally(String table, String id, Repositories repositories) {
+        return switch (table) {
+            case LANGUAGE_SYSTEMS -> {
+                LanguageLevelSystem languageLevelSystem = new LanguageLevelSystem();
+                languageLevelSystem.setId(id);
+                yield repositories.languages.deleteLanguageSystem(languageLevelSystem);
+            }
+            case LANGUAGES -> repositories.languages.deleteLanguage(id);
+            case LANGUAGE_LEVELS -> {
+                LanguageLevel languageLevel = new LanguageLevel();
+                languageLevel.setId(id);
+                yield repositories.languages.deleteLanguageLevel(languageLevel);
+            }
+            case SPEAKING_TEST_QUESTIONS -> repositories.questions.deleteQuestionById(id);
+            case SPEAKING_TESTS -> repositories.speakingTests.deleteSpeakingTestById(id);
+            case CONVERSATIONS -> repositories.conversations.deleteConversationById(id);
+            case SCENARIOS -> repositories.scenarios.deleteScenarioById(id);
+            case USER_LANGUAGES -> repositories.userLanguages.deleteUserLanguageById(id);
+            case USER_CONVERSATIONS -> repositories.userConversations.deleteUserConversationById(id);
+            case SyncOutboxDAO.MESSAGES -> repositories.messages.deleteMessageById(id);
+            default -> throw new IllegalArgumentException("No local delete for " + table);
+        };
+    }
+
+    /**
+     * Add the writes of the changes that are missing locally or newer than the local rows to the stage
+     */
+    private <T> void newerThanLocal(String table, String column, List<T> changes, Function<T, String> id, Function<T, Date> lastUpdate,
+                                    Function<T, CompletableFuture<Void>> add, Function<T, CompletableFuture<Void>> update,
+                                    SyncPipeline.Stage stage) throws SQLException {
+        stage.scanned(changes.size());
+        newerThanLocal(table, column, changes, id, lastUpdate,
+                change -> stage.add(id.apply(change), change, () -> add.apply(change)),
+                change -> stage.add(id.apply(change), change, () -> update.apply(change)));
+    }
+
+    /**
+     * Compare the received changes with the change times of the local rows, without loading the local entities.
+     * A change whose content hash is the one this device last synchronized only has a new change time and is skipped.
+     */
+    private <T> void newerThanLocal(String table, String column, List<T> changes, Function<T, String> id, Function<T, Date> lastUpdate,
+                                    Consumer<T> added, Consumer<T> updated) throws SQLException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<String> ids = changes.stream().map(id).toList();
+        Map<String, Date> localLastUpdates = watermarkDAO.findLastUpdates(table, column, ids);
+        Map<String, String> knownHashes = contentHashDAO.find(table, ids);
+        for (T change : changes) {
+            String key = id.apply(change);
+            if (!localLastUpdates.containsKey(key)) {
+                added.accept(change);
+            } else {
+                Date local = localLastUpdates.get(key);
+                Date online = lastUpdate.apply(change);
+                boolean unchanged = knownHashes.containsKey(key) && knownHashes.get(key).equals(ContentHash.ofEntity(change));
+                if (!unchanged && online != null && (local == null || online.after(local))) {
+                    updated.accept(change);
+                }
+            }
+        }
+    }
+
+    /**
+     * Store the user, its stats and settings locally when the online copy is newer
+     */
+    private void synchronizeUserDocumentsToLocal(User user, Optional<User> userOptional,
+                                                 Optional<UserStats> localUserStats, Optional<UserStats> onlineUserStats,
+                                                 Optional<Settings> localSettings, Optional<Settings> onlineSettings,
+                                                 Repositories repositories, SyncStages stages) {
+        if(userOptional.isEmpty()) {
+            stages.users.add(() -> repositories.users.addUser(user));
+        }else{
+            if(user.getLastUpdate() != null && user.getLastUpdate().after(userOptional.get().getLastUpdate())) {
+                stages.users.add(() -> repositories.users.updateUser(user));
+            }
+        }
+        // Synchronizing UserStats
+        if (onlineUserStats.isPresent()) {
+            if (!localUserStats.isPresent()) {
+                if(onlineUserStats.isPresent()) {
+                    stages.userDocuments.add(() -> repositories.users.saveUserStats(user, onlineUserStats.get()));
+                }else{
+                    System.out.println("UserStats is empty");
+                    UserStats userStats = new UserStats();
+                    userStats.setUserId(user.getId());
+                    userStats.setLevel(1);
+                    userStats.setTotalXp(0);
+                    userStats.setStreak(0);
+                    userStats.setLastUpdate(new Date());
+                    stages.userDocuments.add(() -> repositories.users.saveUserStats(user, userStats));
+                }
+            } else {
+                if (onlineUserStats.get().getLastUpdate() != null && onlineUserStats.get().getLastUpdate().after(localUserStats.get().getLastUpdate())) {
+                    stages.userDocuments.add(() -> repositories.users.saveUserStats(user, onlineUserStats.get()));
+                }
+            }
+        }
+        // Synchronizing Settings
+        if (onlineSettings.isPresent()) {
+            if (!localSettings.isPresent()) {
+                stages.userDocuments.add(() -> repositories.settings.saveSettings(onlineSettings.get()));
+            } else {
+                if (onlineSettings.get().getLastUpdate() != null && onlineSettings.get().getLastUpdate().after(localSettings.get().getLastUpdate())) {
+                    stages.userDocuments.add(() -> repositories.settings.saveSettings(onlineSettings.get()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the user, its stats and settings online when the local copy is newer
+     */
+    private void synchronizeUserDocumentsToOnline(User user, Optional<User> userOptional,
+                                                  Optional<UserStats> localUserStats, Optional<UserStats> onlineUserStats,
+                                                  Optional<Settings> localSettings, Optional<Settings> onlineSettings,
+                                                  Repositories repositories, SyncStages stages) {
+        if(userOptional.isPresent()) {
+            if (user.getLastUpdate() == null || user.getLastUpdate().after(userOptional.get().getLastUpdate())) {
+                stages.users.add(() -> repositories.users.updateUser(user));
+            }
+        }else{
+            stages.users.add(() -> repositories.users.addUser(user));
+        }
+        // Synchronizing Settings
+        if (localSettings.isPresent()) {
+            if (!onlineSettings.isPresent()) {
+                stages.userDocuments.add(() -> repositories.settings.saveSettings(localSettings.get()));
+            } else {
+                if (localSettings.get().getLastUpdate() == null || localSettings.get().getLastUpdate().after(onlineSettings.get().getLastUpdate())) {
+                    stages.userDocuments.add(() -> repositories.settings.saveSettings(localSettings.get()));
+                }
+            }
+        }
+        // Synchronizing UserStats
+        if (localUserStats.isPresent()) {
+            if (!onlineUserStats.isPresent()) {
+                stages.userDocuments.add(() -> repositories.users.saveUserStats(user, localUserStats.get()));
+            } else {
+                if (onlineUserStats.get().getLastUpdate() == null || localUserStats.get().getLastUpdate().after(onlineUserStats.get().getLastUpdate())) {
+                    stages.userDocuments.add(() -> repositories.users.saveUserStats(user, localUserStats.get()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait for the online writes, then move the push watermarks to the start of the synchronization and drop
+     * the outbox entries the comparison covered. When a write failed both stay, so the next synchronization
+     * compares everything again.
+     *
+     * @return whether every write reached Firestore
+     */
+    private boolean awaitPushes(User user, CompletableFuture<Void> pushes, Date syncStart, long outboxVersion) {
+        try {
+            pushes.join();
+        } catch (CompletionException e) {
+            System.err.println("Not all changes reached Firestore, the next synchronization retries them: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+        Map<String, Date> pushWatermarks = new HashMap<>();
+        COLLECTIONS.forEach(collection -> pushWatermarks.put(collection, syncStart));
+        saveWatermarks(user, SyncType.LOCAL_TO_ONLINE, pushWatermarks);
+        try {
+            outboxDAO.deleteUpTo(outboxVersion);
+        } catch (SQLException e) {
+            // The worker sends the entries again, the writes merge into the documents
+            System.err.println("Error clearing the sync outbox: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return true;
+    }
+
+    /**
+     * Drop the outbox entries the pull itself recorded, the pulled records are online already
+     */
+    private void discardPulled(User user, Optional<Settings> onlineSettings, Map<String, Collection<String>> pulled, long outboxVersion) {
+        try {
+            for (Map.Entry<String, Collection<String>> entry : pulled.entrySet()) {
+                outboxDAO.discardPulled(entry.getKey(), entry.getValue(), outboxVersion);
+            }
+            outboxDAO.discardPulled(SyncOutboxDAO.USERS, List.of(user.getId()), outboxVersion);
+            outboxDAO.discardPulled(SyncOutboxDAO.USER_STATS, List.of(user.getId()), outboxVersion);
+            if (onlineSettings.isPresent()) {
+                outboxDAO.discardPulled(SyncOutboxDAO.SETTINGS, List.of(onlineSettings.get().getId()), outboxVersion);
+            }
+        } catch (SQLException e) {
+            // The worker sends the records back online, which only rewrites the same values
+            System.err.println("Error discarding the pulled records from the sync outbox: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * The watermarks of all collections, null when one is missing and everything has to be compared
+     */
+    private Map<String, Date> loadWatermarks(User user, SyncType direction) {
+        try {
+            Map<String, Date> watermarks = new HashMap<>();
+            for (String collection : COLLECTIONS) {
+                Date watermark = watermarkDAO.find(user.getId(), collection, direction.name());
+                if (watermark == null) {
+                    return null;
+                }
+                watermarks.put(collection, watermark);
+            }
+            return watermarks;
+        } catch (SQLException e) {
+            System.err.println("Error loading the sync watermarks: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void saveWatermarks(User user, SyncType direction, Map<String, Date> watermarks) {
+        try {
+            for (Map.Entry<String, Date> watermark : watermarks.entrySet()) {
+                watermarkDAO.save(user.getId(), watermark.getKey(), direction.name(), watermark.getValue());
+            }
+        } catch (SQLException e) {
+            // The next synchronization falls back to comparing everything
+            System.err.println("Error saving the sync watermarks: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Read the digests of the reference collections, empty when they are turned off or could not be read
+     */
+    private static Map<String, FirestoreSyncDigests.Digest> readDigests() {
+        if (!FirestoreSyncDigests.ENABLED) {
+            return Map.of();
+        }
+        try {
+            return FirestoreSyncDigests.read(FirebaseManager.getDb(), FirestoreSyncDigests.COLLECTIONS).join();
+        } catch (CompletionException e) {
+            System.err.println("Error reading the sync digests, reading every collection: " + e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Store the digests of the reference collections that differ from the ones read before the synchronization
+     *
+     * @param hashes the content hashes per table of every record now online
+     */
+    private static void writeDigests(Map<String, Map<String, String>> hashes, Map<String, Date> newest,
+                                     Map<String, FirestoreSyncDigests.Digest> onlineDigests, Map<String, Long> generations) {
+        if (!FirestoreSyncDigests.ENABLED) {
+            return;
+        }
+        Map<String, FirestoreSyncDigests.Digest> digests = new HashMap<>();
+        DIGEST_COLLECTIONS.forEach((table, collection) -> {
+            String digest = ContentHash.digest(hashes.get(table));
+            FirestoreSyncDigests.Digest online = onlineDigests.get(collection);
+            if (online == null || !digest.equals(online.getDigest())) {
+                digests.put(collection, new FirestoreSyncDigests.Digest(digest, hashes.get(table).size(), newest.get(table)));
+            }
+        });
+        try {
+            FirestoreSyncDigests.write(FirebaseManager.getDb(), digests, generations).join();
+        } catch (CompletionException e) {
+            // Without a digest the next synchronization reads the collections
+            System.err.println("Error writing the sync digests: " + e.getMessage());
+        }
+    }
+
+    private void saveContentHashes(Map<String, Map<String, String>> hashes) {
+        try {
+            for (Map.Entry<String, Map<String, String>> entry : hashes.entrySet()) {
+                contentHashDAO.save(entry.getKey(), entry.getValue());
+            }
+        } catch (SQLException e) {
+            // Unknown hashes only make the next synchronization compare the change times
+            System.err.println("Error saving the sync content hashes: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Content hashes per table of the records keyed by ID
+     */
+    private static Map<String, Map<String, String>> contentHashes(Map<String, Map<String, ?>> records) {
+        Map<String, Map<String, String>> hashes = new HashMap<>();
+        records.forEach((table, byId) -> {
+            Map<String, String> tableHashes = new HashMap<>();
+            byId.forEach((id, record) -> tableHashes.put(id, ContentHash.ofEntity(record)));
+            hashes.put(table, tableHashes);
+        });
+        return hashes;
+    }
+
+    private static boolean sameContent(Object a, Object b) {
+        return Objects.equals(ContentHash.ofEntity(a), ContentHash.ofEntity(b));
+    }
+
+    /**
+     * The online records after a full push: the local ones that the push wrote, the online ones otherwise
+     */
+    private static <T> Map<String, T> afterPush(Map<String, T> local, Map<String, T> online, Function<T, Date> lastUpdate) {
+        Map<String, T> records = new HashMap<>(online);
+        local.forEach((key, localRecord) -> {
+            T onlineRecord = online.get(key);
+            if (onlineRecord == null || (!sameContent(localRecord, onlineRecord)
+                    && (lastUpdate.apply(onlineRecord) == null || lastUpdate.apply(localRecord).after(lastUpdate.apply(onlineRecord))))) {
+                records.put(key, localRecord);
+            }
+        });
+        return records;
+    }
+
+    /**
+     * The newest change time of the records, the epoch when there is none
+     */
+    private static <T> Date newest(Collection<T> records, Function<T, Date> lastUpdate) {
+        Date newest = new Date(0);
+        for (T record : records) {
+            newest = latest(newest, lastUpdate.apply(record));
+        }
+        return newest;
+    }
+
+    private static Date latest(Date a, Date b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return b.after(a) ? b : a;
+    }
+
+    /**
+     * The records of every synchronized collection changed after its watermark, read from the repositories
+     * of the current {@link RepositoryFactory} mode, and the tombstones of the online deletes
+     */
+    private static class ChangeSet {
+        private final CompletableFuture<List<LanguageLevelSystem>> languageSystems;
+        private final CompletableFuture<List<Language>> languages;
+        private final CompletableFuture<List<LanguageLevel>> languageLevels;
+        private final CompletableFuture<List<SpeakingTestQuestion>> speakingTestQuestions;
+        private final CompletableFuture<List<SpeakingTest>> speakingTests;
+        private final CompletableFuture<List<Conversation>> conversations;
+        private final CompletableFuture<List<Scenario>> scenarios;
+        private final CompletableFuture<List<UserLanguage>> userLanguages;
+        private final CompletableFuture<List<UserConversation>> userConversations;
+        private final CompletableFuture<List<FirestoreChangeLog.Tombstone>> deletions;
+
+        private ChangeSet(User user, Map<String, Date> since, FetchPlan fetchPlan) {
+            this.languageSystems = RepositoryFactory.getLanguageRepository().getLanguageSystemsUpdatedSince(since.get(LANGUAGE_SYSTEMS));
+            this.languages = RepositoryFactory.getLanguageRepository().getLanguagesUpdatedSince(since.get(LANGUAGES));
+            this.languageLevels = RepositoryFactory.getLanguageRepository().getLanguageLevelsUpdatedSince(since.get(LANGUAGE_LEVELS));
+            this.speakingTestQuestions = RepositoryFactory.getQuestionRepository().getQuestionsUpdatedSince(since.get(SPEAKING_TEST_QUESTIONS));
+            this.speakingTests = RepositoryFactory.getSpeakingTestRepository().getSpeakingTestsUpdatedSince(since.get(SPEAKING_TESTS));
+            this.conversations = RepositoryFactory.getConversationRepository().getConversationsUpdatedSince(since.get(CONVERSATIONS));
+            this.scenarios = RepositoryFactory.getScenarioRepository().getScenariosUpdatedSince(since.get(SCENARIOS));
+            this.userLanguages = RepositoryFactory.getUserLanguageRepository().getUserLanguagesFromUserUpdatedSince(user.getId(), since.get(USER_LANGUAGES));
+            this.userConversations = RepositoryFactory.getUserConversationsRepository().getUserConversationsFromUserUpdatedSince(user.getId(), since.get(USER_CONVERSATIONS), fetchPlan);
+            this.deletions = FirestoreChangeLog.deletedSince(FirebaseManager.getDb(), since.get(DELETIONS));
+        }
+
+        private CompletableFuture<Void> loaded() {
+            return CompletableFuture.allOf(languageSystems, languages, languageLevels, speakingTestQuestions, speakingTests, conversations, scenarios, userLanguages, userConversations, deletions);
+        }
+
+        /**
+         * Number of changed records per collection, only valid once loaded
+         */
+        private Map<String, Integer> sizes() {
+            return Map.of(
+                    LANGUAGE_SYSTEMS, languageSystems.join().size(),
+                    LANGUAGES, languages.join().size(),
+                    LANGUAGE_LEVELS, languageLevels.join().size(),
+                    SPEAKING_TEST_QUESTIONS, speakingTestQuestions.join().size(),
+                    SPEAKING_TESTS, speakingTests.join().size(),
+                    CONVERSATIONS, conversations.join().size(),
+                    SCENARIOS, scenarios.join().size(),
+                    USER_LANGUAGES, userLanguages.join().size(),
+                    USER_CONVERSATIONS, userConversations.join().size(),
+                    DELETIONS, deletions.join().size());
+        }
+
+        /**
+         * IDs of the documents deleted online per local table, only valid once loaded
+         */
+        private Map<String, List<String>> deletedIds() {
+            return deletions.join().stream()
+                    .filter(tombstone -> TOMBSTONE_TABLES.containsKey(tombstone.getCollection()))
+                    .collect(Collectors.groupingBy(tombstone -> TOMBSTONE_TABLES.get(tombstone.getCollection()),
+                            Collectors.mapping(FirestoreChangeLog.Tombstone::getDocumentId, Collectors.toList())));
+        }
+
+        /**
+         * IDs of the changed and deleted records per outbox entity type, including the embedded messages and evaluations
+         */
+        private Map<String, Collection<String>> pulledIds() {
+            List<UserConversation> changedUserConversations = userConversations.join();
+            Map<String, Collection<String>> ids = new HashMap<>();
+            ids.put(SyncOutboxDAO.LANGUAGE_SYSTEMS, languageSystems.join().stream().map(LanguageLevelSystem::getId).toList());
+            ids.put(SyncOutboxDAO.LANGUAGES, languages.join().stream().map(Language::getId).toList());
+            ids.put(SyncOutboxDAO.LANGUAGE_LEVELS, languageLevels.join().stream().map(LanguageLevel::getId).toList());
+            ids.put(SyncOutboxDAO.SPEAKING_TEST_QUESTIONS, speakingTestQuestions.join().stream().map(SpeakingTestQuestion::getId).toList());
+            ids.put(SyncOutboxDAO.SPEAKING_TESTS, speakingTests.join().stream().map(SpeakingTest::getId).toList());
+            ids.put(SyncOutboxDAO.CONVERSATIONS, conversations.join().stream().map(Conversation::getId).toList());
+            ids.put(SyncOutboxDAO.SCENARIOS, scenarios.join().stream().map(Scenario::getId).toList());
+            ids.put(SyncOutboxDAO.USER_LANGUAGES, userLanguages.join().stream().map(UserLanguage::getId).toList());
+            ids.put(SyncOutboxDAO.USER_CONVERSATIONS, changedUserConversations.stream().map(UserConversation::getId).toList());
+            ids.put(SyncOutboxDAO.MESSAGES, changedUserConversations.stream()
+                    .filter(userConversation -> userConversation.getMessages() != null)
+                    .flatMap(userConversation -> userConversation.getMessages().stream())
+                    .map(Message::getId)
+                    .toList());
+            ids.put(SyncOutboxDAO.EVALUATIONS, changedUserConversations.stream()
+                    .map(UserConversation::getEvaluation)
+                    .filter(Objects::nonNull)
+                    .map(Evaluation::getId)
+                    .toList());
+            deletedIds().forEach((table, deleted) -> {
+                List<String> merged = new ArrayList<>(ids.getOrDefault(table, List.of()));
+                merged.addAll(deleted);
+                ids.put(table, merged);
+            });
+            return ids;
+        }
+
+        private int size() {
+            return sizes().values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        /**
+         * The changed records per table keyed by ID, only valid once loaded
+         */
+        private Map<String, Map<String, ?>> byId() {
+            return Map.of(
+                    LANGUAGE_SYSTEMS, languageSystems.join().stream().collect(Collectors.toMap(LanguageLevelSystem::getId, Function.identity())),
+                    LANGUAGES, languages.join().stream().collect(Collectors.toMap(Language::getId, Function.identity())),
+                    LANGUAGE_LEVELS, languageLevels.join().stream().collect(Collectors.toMap(LanguageLevel::getId, Function.identity())),
+                    SPEAKING_TEST_QUESTIONS, speakingTestQuestions.join().stream().collect(Collectors.toMap(SpeakingTestQuestion::getId, Function.identity())),
+                    SPEAKING_TESTS, speakingTests.join().stream().collect(Collectors.toMap(SpeakingTest::getId, Function.identity())),
+                    CONVERSATIONS, conversations.join().stream().collect(Collectors.toMap(Conversation::getId, Function.identity())),
+                    SCENARIOS, scenarios.join().stream().collect(Collectors.toMap(Scenario::getId, Function.identity())),
+                    USER_LANGUAGES, userLanguages.join().stream().collect(Collectors.toMap(UserLanguage::getId, Function.identity())),
+                    USER_CONVERSATIONS, userConversations.join().stream().collect(Collectors.toMap(UserConversation::getId, Function.identity())));
+        }
+
+        /**
+         * Newest server change time per collection, the epoch for collections without changes
+         */
+        private Map<String, Date> newest() {
+            return Map.of(
+                    LANGUAGE_SYSTEMS, DataSynchronizeService.newest(languageSystems.join(), LanguageLevelSystem::getServerUpdatedAt),
+                    LANGUAGES, DataSynchronizeService.newest(languages.join(), Language::getServerUpdatedAt),
+                    LANGUAGE_LEVELS, DataSynchronizeService.newest(languageLevels.join(), LanguageLevel::getServerUpdatedAt),
+                    SPEAKING_TEST_QUESTIONS, DataSynchronizeService.newest(speakingTestQuestions.join(), SpeakingTestQuestion::getServerUpdatedAt),
+                    SPEAKING_TESTS, DataSynchronizeService.newest(speakingTests.join(), SpeakingTest::getServerUpdatedAt),
+                    CONVERSATIONS, DataSynchronizeService.newest(conversations.join(), Conversation::getServerUpdatedAt),
+                    SCENARIOS, DataSynchronizeService.newest(scenarios.join(), Scenario::getServerUpdatedAt),
+                    USER_LANGUAGES, DataSynchronizeService.newest(userLanguages.join(), UserLanguage::getServerUpdatedAt),
+                    USER_CONVERSATIONS, DataSynchronizeService.newest(userConversations.join(), UserConversation::getServerUpdatedAt),
+                    DELETIONS, DataSynchronizeService.newest(deletions.join(), FirestoreChangeLog.Tombstone::getServerUpdatedAt));
+        }
+    }
+
+    /**
+     * The repositories of the current {@link RepositoryFactory} mode, taken before the writes are handed to a
+     * pipeline that starts them later
+     */
+    private static class Repositories {
+        private final ILanguageRepository languages = RepositoryFactory.getLanguageRepository();
+        private final IScenarioRepository scenarios = RepositoryFactory.getScenarioRepository();
+        private final IConversationRepository conversations = RepositoryFactory.getConversationRepository();
+        private final ISpeakingTestRepository speakingTests = RepositoryFactory.getSpeakingTestRepository();
+        private final IQuestionRepository questions = RepositoryFactory.getQuestionRepository();
+        private final IUserRepository users = RepositoryFactory.getUserRepository();
+        private final ISettingsRepository settings = RepositoryFactory.getSettingsRepository();
+        private final IUserLanguageRepository userLanguages = RepositoryFactory.getUserLanguageRepository();
+        private final IUserConversationsRepository userConversations = RepositoryFactory.getUserConversationsRepository();
+        private final IMessageRepository messages = RepositoryFactory.getMessageRepository();
+        private final IEvaluationRepository evaluations = RepositoryFactory.getEvaluationRepository();
+    }
+
+    /**
+     * The stages of a synchronization, each one waits for the entity types its records reference
+     */
+    private static class SyncStages {
+        private final SyncPipeline pipeline;
+        private final SyncPipeline.Stage languageSystems;
+        private final SyncPipeline.Stage languages;
+        private final SyncPipeline.Stage languageLevels;
+        private final SyncPipeline.Stage scenarios;
+        private final SyncPipeline.Stage users;
+        private final SyncPipeline.Stage userDocuments;
+        private final SyncPipeline.Stage conversations;
+        private final SyncPipeline.Stage speakingTests;
+        private final SyncPipeline.Stage speakingTestQuestions;
+        private final SyncPipeline.Stage userLanguages;
+        private final SyncPipeline.Stage userConversations;
+        private final SyncPipeline.Stage messages;
+        private final SyncPipeline.Stage evaluations;
+
+        private SyncStages(SyncPipeline pipeline) {
+            this.pipeline = pipeline;
+            this.languageSystems = pipeline.stage("LanguageLevelSystems");
+            this.languages = pipeline.stage("Languages", languageSystems);
+            this.languageLevels = pipeline.stage("LanguageLevels", languageSystems);
+            this.scenarios = pipeline.stage("Scenarios");
+            this.users = pipeline.stage("User");
+            this.userDocuments = pipeline.stage("UserStats and Settings", users, languages);
+            this.conversations = pipeline.stage("Conversations", languages, languageLevels, scenarios);
+            this.speakingTests = pipeline.stage("SpeakingTests", languages, languageLevels);
+            this.speakingTestQuestions = pipeline.stage("SpeakingTestQuestions", speakingTests);
+            this.userLanguages = pipeline.stage("UserLanguages", users, languages, languageLevels);
+            this.userConversations = pipeline.stage("UserConversations", users, conversations);
+            this.messages = pipeline.stage("Messages", userConversations);
+            this.evaluations = pipeline.stage("Evaluations", userConversations);
+        }
+    }
 }
@@ -173,9 +173,6 @@ public class EvaluationService {
      * Request an evaluation from the AI
      */
     public Optional<Evaluation> evaluateConversation(UserConversation userConversation) throws IOException {
-        // Set up the conversation history in the repository
-        ChatGPTService.resetMessageHistory();
-
         List<Map<String, String>> totalPrompt = new ArrayList<>();
 
         // Generate the structured evaluation prompt
@@ -160,8 +160,8 @@ public class SpeakingTestService {
             // Prepare AI evaluation prompt
             String evaluationPrompt = createEvaluationPrompt(response, question, language);
 
-            // Send to AI for evaluation
-            Optional<String> aiResponse = ChatGPTService.sendMessage(evaluationPrompt, AIModels.EVALUATION);
+            // Send to AI for evaluation, every response is evaluated on its own
+            Optional<String> aiResponse = ChatGPTService.sendMessage(new ChatSession(), evaluationPrompt, AIModels.EVALUATION);
 
             if(aiResponse.isPresent()) {
                 System.out.println("AI evaluation: " + aiResponse);
@@ -445,10 +445,8 @@ public class SpeakingTestService {
                 .append("order_index: what is the index of the question\n")
                 .append("}\n");
 
-        ChatGPTService.resetMessageHistory();
-
         // 3. --- AI Service Call ---
-        Optional<String> aiResponse = ChatGPTService.sendMessage(promptBuilder.toString(), AIModels.CONVERSATION);
+        Optional<String> aiResponse = ChatGPTService.sendMessage(new ChatSession(), promptBuilder.toString(), AIModels.CONVERSATION);
 
         // 4. --- Delegation and Return ---
         if (aiResponse.isPresent()) {
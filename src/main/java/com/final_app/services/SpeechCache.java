@@ -0,0 +1,204 @@
+package com.final_app.services;
+
+import com.final_app.globals.AIModels;
+import com.final_app.tools.ContentHash;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of synthesized speech, so a text that was spoken before is played without calling the API.
+ * <p>
+ * An entry is a file named after the hash of everything that shapes the audio: text, voice, model, instructions
+ * and format. Entries are written to a temporary file and moved in place, so a reader never sees a partial one.
+ * The folder (-Dlingualeap.tts.cache, default data/tts) is kept below -Dlingualeap.tts.cacheMaxBytes (default
+ * 200 MB) by removing the least recently used entries, a hit counts as a use.
+ */
+public class SpeechCache {
+    private static final Path CACHE_FOLDER = Path.of(System.getProperty("lingualeap.tts.cache", "data/tts"));
+    private static final long MAX_BYTES = Long.getLong("lingualeap.tts.cacheMaxBytes", 200L * 1024 * 1024);
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static volatile SpeechCache instance;
+
+    private final Path folder;
+    private final long maxBytes;
+    // One synthesis per entry, concurrent requests for the same text wait for it
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    // Bytes in the folder, -1 until it was counted. Guarded by this.
+    private long size = -1;
+
+    public SpeechCache(Path folder, long maxBytes) {
+        this.folder = folder;
+        this.maxBytes = maxBytes;
+    }
+
+    public static SpeechCache getInstance() {
+        if (instance == null) {
+            synchronized (SpeechCache.class) {
+                if (instance == null) {
+                    instance = new SpeechCache(CACHE_FOLDER, MAX_BYTES);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * The entry with the speech of the text, synthesized when it is not cached yet
+     */
+    public Path get(String text, String voice, String format) throws IOException {
+        String key = ContentHash.ofText(text, voice, AIModels.SPEECH.getModel(), ChatGPTService.SPEECH_INSTRUCTIONS, format);
+        Path entry = folder.resolve(key + "." + format);
+        if (Files.exists(entry)) {
+            touch(entry);
+            return entry;
+        }
+
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            // Another request may have finished it in the meantime
+            if (!Files.exists(entry)) {
+                write(key, entry, ChatGPTService.synthesizeSpeech(text, voice, format));
+            }
+            created.complete(entry);
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    private static Path await(CompletableFuture<Path> running) throws IOException {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Speech synthesis failed", e.getCause());
+        }
+    }
+
+    private void write(String key, Path entry, byte[] audio) throws IOException {
+        Files.createDirectories(folder);
+        Path temp = Files.createTempFile(folder, key, TEMP_SUFFIX);
+        try {
+            Files.write(temp, audio);
+            try {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        added(audio.length);
+    }
+
+    /**
+     * Mark the entry as used, the least recently used ones are removed first
+     */
+    private void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Removed in the meantime, or not writable: it is only removed earlier
+        }
+    }
+
+    private synchronized void added(long bytes) {
+        if (size < 0) {
+            // The new entry is counted with the folder
+            size = count();
+        } else {
+            size += bytes;
+        }
+        if (size > maxBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Bytes of the entries in the folder. Temporary files left by an interrupted write are removed.
+     */
+    private long count() {
+        long total = 0;
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : files.toList()) {
+                try {
+                    if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                        // Older ones are left over, newer ones may still be written
+                        if (Files.getLastModifiedTime(file).toMillis() < System.currentTimeMillis() - 60_000) {
+                            Files.deleteIfExists(file);
+                        }
+                    } else {
+                        total += Files.size(file);
+                    }
+                } catch (IOException e) {
+                    // Removed in the meantime
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading the speech cache " + folder + ": " + e.getMessage());
+        }
+        return total;
+    }
+
+    /**
+     * Remove the least recently used entries until the cache is at 90% of its limit
+     */
+    private void evict() {
+        long target = maxBytes / 10 * 9;
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : files.toList()) {
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) continue;
+                try {
+                    entries.add(new Entry(file, Files.getLastModifiedTime(file).toMillis(), Files.size(file)));
+                } catch (IOException e) {
+                    // Removed in the meantime
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading the speech cache " + folder + ": " + e.getMessage());
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(Entry::lastUsed));
+        size = entries.stream().mapToLong(Entry::bytes).sum();
+        int removed = 0;
+        // The newest entry is kept, it is about to be played
+        for (int i = 0; i < entries.size() - 1 && size > target; i++) {
+            try {
+                Files.deleteIfExists(entries.get(i).file());
+                size -= entries.get(i).bytes();
+                removed++;
+            } catch (IOException e) {
+                // Still being played on a system that locks open files, removed later
+            }
+        }
+        System.out.println("Removed " + removed + " entries from the speech cache, " + size + " bytes left");
+    }
+
+    private record Entry(Path file, long lastUsed, long bytes) {
+    }
+}
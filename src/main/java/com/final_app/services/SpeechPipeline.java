@@ -0,0 +1,171 @@
+package com.final_app.services;
+
+import com.final_app.tools.AudioPlayer;
+import com.final_app.tools.SentenceSplitter;
+
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Speaks a reply while it is still being generated.
+ * <p>
+ * The text is split into sentences and every complete sentence is synthesized right away, at most
+ * -Dlingualeap.tts.maxParallel (default 3) sentences at the same time over all pipelines. The sentences are
+ * played from the {@link SpeechCache} one by one in the order of the text, so speech starts once the first
+ * sentence is synthesized instead of the whole reply, and right away for a sentence that was spoken before.
+ * A sentence that fails to synthesize is skipped.
+ */
+public class SpeechPipeline {
+    private static final int MAX_PARALLEL = Integer.getInteger("lingualeap.tts.maxParallel", 3);
+
+    private static final ExecutorService synthesisExecutor = Executors.newFixedThreadPool(MAX_PARALLEL, runnable -> {
+        Thread thread = new Thread(runnable, "speech-synthesis");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Marks the end of the text in the segment queue
+    private static final CompletableFuture<Path> END = CompletableFuture.completedFuture(null);
+
+    private final String voice;
+    private final SentenceSplitter splitter = new SentenceSplitter();
+    // Cache entries of the sentences in text order, each completes when its synthesis finished
+    private final BlockingQueue<CompletableFuture<Path>> segments = new LinkedBlockingQueue<>();
+    private final CompletableFuture<Void> played = new CompletableFuture<>();
+    private final Thread player;
+    private volatile boolean cancelled;
+    private boolean finished;
+
+    public SpeechPipeline() {
+        this(ChatGPTService.SPEECH_VOICE);
+    }
+
+    public SpeechPipeline(String voice) {
+        this.voice = voice;
+        this.player = new Thread(this::play, "speech-playback");
+        this.player.setDaemon(true);
+        this.player.start();
+    }
+
+    /**
+     * Add the next piece of text, the sentences it completes are synthesized right away
+     */
+    public synchronized void accept(String text) {
+        if (finished) {
+            return;
+        }
+        for (String sentence : splitter.accept(text)) {
+            synthesize(sentence);
+        }
+    }
+
+    /**
+     * End of the text: the rest is synthesized and playback stops after the last sentence
+     */
+    public synchronized void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        String rest = splitter.finish();
+        if (!rest.isBlank()) {
+            synthesize(rest);
+        }
+        segments.add(END);
+    }
+
+    /**
+     * Stop playing and drop the sentences that were not played yet
+     */
+    public void cancel() {
+        cancelled = true;
+        synchronized (this) {
+            finished = true;
+        }
+        segments.forEach(segment -> segment.cancel(false));
+        segments.add(END);
+        player.interrupt();
+    }
+
+    /**
+     * Completes once the last sentence was played or the pipeline was cancelled
+     */
+    public CompletableFuture<Void> getPlayed() {
+        return played;
+    }
+
+    private void synthesize(String sentence) {
+        segments.add(CompletableFuture.supplyAsync(() -> {
+            if (cancelled) {
+                return null;
+            }
+            try {
+                return SpeechCache.getInstance().get(sentence, voice, "pcm");
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, synthesisExecutor));
+    }
+
+    private void play() {
+        SourceDataLine line = null;
+        try {
+            while (!cancelled) {
+                CompletableFuture<Path> segment = segments.take();
+                if (segment == END) {
+                    break;
+                }
+
+                Path audio;
+                try {
+                    // Interrupted by a cancel while the sentence is still synthesized
+                    audio = segment.get();
+                } catch (ExecutionException | CancellationException e) {
+                    if (!cancelled) {
+                        System.err.println("Skipping a sentence, speech synthesis failed: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+                    }
+                    continue;
+                }
+
+                if (audio == null) {
+                    continue;
+                }
+                if (line == null) {
+                    line = AudioPlayer.openSpeechLine();
+                }
+                try {
+                    AudioPlayer.writeSpeech(line, audio, () -> cancelled);
+                } catch (IOException e) {
+                    System.err.println("Skipping a sentence, error reading " + audio + ": " + e.getMessage());
+                }
+            }
+            if (line != null && !cancelled) {
+                line.drain();
+            }
+        } catch (InterruptedException e) {
+            // Cancelled while waiting for a sentence
+            Thread.currentThread().interrupt();
+        } catch (LineUnavailableException e) {
+            System.err.println("Error opening the audio line for speech: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (line != null) {
+                if (cancelled) {
+                    line.flush();
+                }
+                line.close();
+            }
+            played.complete(null);
+        }
+    }
+}
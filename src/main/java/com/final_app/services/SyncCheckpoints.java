@@ -0,0 +1,102 @@
+package com.final_app.services;
+
+import com.final_app.db.dao.SyncCheckpointDAO;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The persisted state of a full synchronization of one user in one direction. It is kept until the
+ * synchronization finished, so one interrupted by closing the application resumes on the next start: the stages
+ * skip the writes up to their cursor and the outbox version and start time of the first attempt stay in use.
+ * <p>
+ * Storing a checkpoint never fails the synchronization, at worst the next attempt redoes more writes.
+ */
+public class SyncCheckpoints {
+    private final SyncCheckpointDAO checkpointDAO;
+    private final String userId;
+    private final String direction;
+    private final SyncCheckpointDAO.Run run;
+    private final boolean resumed;
+    private final Map<String, SyncCheckpointDAO.Checkpoint> checkpoints;
+
+    private SyncCheckpoints(SyncCheckpointDAO checkpointDAO, String userId, String direction, SyncCheckpointDAO.Run run,
+                            boolean resumed, Map<String, SyncCheckpointDAO.Checkpoint> checkpoints) {
+        this.checkpointDAO = checkpointDAO;
+        this.userId = userId;
+        this.direction = direction;
+        this.run = run;
+        this.resumed = resumed;
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * Resume the unfinished synchronization of the user in that direction, or record a new one
+     *
+     * @param outboxVersion the outbox version the local reads of a new synchronization cover
+     * @param resume        false to drop an unfinished synchronization and start over
+     */
+    public static SyncCheckpoints begin(String userId, String direction, Date startedAt, long outboxVersion, boolean resume) throws SQLException {
+        SyncCheckpointDAO checkpointDAO = new SyncCheckpointDAO();
+        SyncCheckpointDAO.Run run = checkpointDAO.findRun(userId, direction);
+        if (run != null && resume) {
+            return new SyncCheckpoints(checkpointDAO, userId, direction, run, true, checkpointDAO.findCheckpoints(userId, direction));
+        }
+        if (run != null) {
+            checkpointDAO.deleteRun(userId, direction);
+        }
+        run = new SyncCheckpointDAO.Run(startedAt, outboxVersion);
+        checkpointDAO.saveRun(userId, direction, run);
+        return new SyncCheckpoints(checkpointDAO, userId, direction, run, false, new HashMap<>());
+    }
+
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    /**
+     * Start of the first attempt, changes made after it are picked up by the next synchronization
+     */
+    public Date getStartedAt() {
+        return run.getStartedAt();
+    }
+
+    /**
+     * Outbox version the local reads of the first attempt covered, later changes stay in the outbox
+     */
+    public long getOutboxVersion() {
+        return run.getOutboxVersion();
+    }
+
+    /**
+     * The checkpoint of the stage from the interrupted attempt, null when it did not get that far
+     */
+    public synchronized SyncCheckpointDAO.Checkpoint get(String stageName) {
+        return checkpoints.get(stageName);
+    }
+
+    public synchronized void save(String stageName, String cursor, int written, boolean completed) {
+        SyncCheckpointDAO.Checkpoint checkpoint = new SyncCheckpointDAO.Checkpoint(cursor, written, completed);
+        try {
+            checkpointDAO.saveCheckpoint(userId, direction, stageName, checkpoint);
+            checkpoints.put(stageName, checkpoint);
+        } catch (SQLException e) {
+            System.err.println("Error saving the sync checkpoint of " + stageName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forget the synchronization once every stage completed
+     */
+    public void finish() {
+        try {
+            checkpointDAO.deleteRun(userId, direction);
+        } catch (SQLException e) {
+            // A later full synchronization resumes it with every stage completed, a forced one starts over
+            System.err.println("Error removing the sync checkpoints: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.final_app.services;
+
+import com.final_app.db.dao.SyncCheckpointDAO;
+import com.final_app.tools.ContentHash;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * The writes of one synchronization, grouped into stages that follow the foreign keys between the entity types.
+ * <p>
+ * A stage starts once every stage it depends on completed, so independent stages run in parallel. Within a stage
+ * at most -Dlingualeap.sync.maxInFlight (default 16) writes run at the same time, the next one starts when one
+ * completes. When a write fails its stage fails after the running writes finished, and the dependent stages are
+ * skipped.
+ * <p>
+ * With {@link SyncCheckpoints} a stage runs its keyed writes in key order and stores the key up to which every
+ * write is done, a resumed synchronization skips those writes.
+ */
+public class SyncPipeline {
+    private static final int MAX_IN_FLIGHT_PER_STAGE = Integer.getInteger("lingualeap.sync.maxInFlight", 16);
+    // Completed writes between two stored checkpoints of a stage
+    private static final int CHECKPOINT_INTERVAL = 100;
+
+    private final String name;
+    private final int maxInFlight;
+    private final SyncProgress progress;
+    private final SyncCheckpoints checkpoints;
+    private final List<Stage> stages = new ArrayList<>();
+
+    public SyncPipeline(String name) {
+        this(name, new SyncProgress(name), null);
+    }
+
+    /**
+     * @param checkpoints null to run every write without storing checkpoints
+     */
+    public SyncPipeline(String name, SyncProgress progress, SyncCheckpoints checkpoints) {
+        this(name, MAX_IN_FLIGHT_PER_STAGE, progress, checkpoints);
+    }
+
+    public SyncPipeline(String name, int maxInFlight, SyncProgress progress, SyncCheckpoints checkpoints) {
+        this.name = name;
+        this.maxInFlight = maxInFlight;
+        this.progress = progress;
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * Add a stage that starts once the given stages completed
+     */
+    public Stage stage(String stageName, Stage... dependencies) {
+        Stage stage = new Stage(stageName, List.of(dependencies));
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Start every stage, the future completes once all of them completed and fails when one of them failed
+     */
+    public CompletableFuture<Void> run() {
+        progress.setPhase("Writing");
+        List<CompletableFuture<Void>> completions = new ArrayList<>();
+        for (Stage stage : stages) {
+            CompletableFuture<Void> dependencies = CompletableFuture.allOf(stage.dependencies.stream()
+                    .map(dependency -> dependency.completion)
+                    .toArray(CompletableFuture[]::new));
+            dependencies.whenComplete((result, ex) -> {
+                if (ex != null) {
+                    stage.completion.completeExceptionally(new IllegalStateException("Skipped " + stage.name + ", a stage it depends on failed", ex));
+                } else {
+                    stage.start();
+                }
+            });
+            completions.add(stage.completion);
+        }
+        return CompletableFuture.allOf(completions.toArray(new CompletableFuture[0]))
+                .whenComplete((result, ex) -> System.out.println(progress.summary() + (ex != null ? System.lineSeparator() + "Sync pipeline " + name + " finished with failures" : "")));
+    }
+
+    /**
+     * The writes of one entity type
+     */
+    public class Stage {
+        private final String name;
+        private final List<Stage> dependencies;
+        private final SyncProgress.StageMetrics metrics;
+        private final List<Write> writes = new ArrayList<>();
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        // Guarded by this
+        private int next;
+        private int running;
+        private Throwable failure;
+        private boolean[] done;
+        // Writes before this index are all done, the checkpoint cursor is the key of the last one
+        private int donePrefix;
+        private int checkpointedPrefix;
+        private boolean completed;
+
+        private Stage(String name, List<Stage> dependencies) {
+            this.name = name;
+            this.dependencies = dependencies;
+            this.metrics = progress.stage(name);
+        }
+
+        /**
+         * Add a write, it is only started once the stage runs. Without a key it is repeated when an interrupted
+         * synchronization resumes, unless the whole stage completed.
+         */
+        public void add(Supplier<CompletableFuture<Void>> write) {
+            writes.add(new Write(null, 0, write));
+        }
+
+        /**
+         * Add the write of one record, the key orders the writes for the checkpoints
+         */
+        public void add(String key, Object record, Supplier<CompletableFuture<Void>> write) {
+            writes.add(new Write(key, ContentHash.size(record), write));
+        }
+
+        /**
+         * Count records that were compared for this stage, whether they needed a write or not
+         */
+        public void scanned(int count) {
+            metrics.scanned(count);
+        }
+
+        public int size() {
+            return writes.size();
+        }
+
+        private void start() {
+            metrics.started(writes.size());
+            if (checkpoints != null) {
+                // Keyed writes first and in key order, so the done writes form a prefix
+                writes.sort(Comparator.comparing(Write::key, Comparator.nullsLast(Comparator.naturalOrder())));
+                skipCheckpointed(checkpoints.get(name));
+            }
+            done = new boolean[writes.size()];
+            if (writes.size() > next) {
+                System.out.println("Synchronizing " + name + " (" + (writes.size() - next) + " writes)");
+            }
+            pump();
+        }
+
+        /**
+         * Skip the writes an interrupted attempt already did
+         */
+        private void skipCheckpointed(SyncCheckpointDAO.Checkpoint checkpoint) {
+            if (checkpoint == null) {
+                return;
+            }
+            if (checkpoint.isCompleted()) {
+                next = writes.size();
+            } else if (checkpoint.getCursor() != null) {
+                while (next < writes.size() && writes.get(next).key() != null && writes.get(next).key().compareTo(checkpoint.getCursor()) <= 0) {
+                    next++;
+                }
+            }
+            donePrefix = next;
+            checkpointedPrefix = next;
+            if (next > 0) {
+                metrics.skipped(next);
+            }
+        }
+
+        /**
+         * Start writes until the limit is reached. Writes that complete right away (e.g. local writes without
+         * the write-behind queue) are handled in the loop, so long stages do not recurse.
+         */
+        private void pump() {
+            while (true) {
+                Write write;
+                int index;
+                synchronized (this) {
+                    if (failure != null || next >= writes.size() || running >= maxInFlight) {
+                        break;
+                    }
+                    index = next++;
+                    write = writes.get(index);
+                    running++;
+                }
+
+                CompletableFuture<Void> future;
+                try {
+                    future = write.call().get();
+                } catch (RuntimeException e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                if (future.isDone()) {
+                    finished(index, future.handle((result, ex) -> ex).join());
+                } else {
+                    future.whenComplete((result, ex) -> {
+                        finished(index, ex);
+                        pump();
+                    });
+                }
+            }
+
+            Throwable failed;
+            synchronized (this) {
+                // Writes that complete together all get here, only the first one completes the stage
+                if (completed || running > 0 || (failure == null && next < writes.size())) {
+                    return;
+                }
+                completed = true;
+                failed = failure;
+            }
+            metrics.finished();
+            if (failed != null) {
+                completion.completeExceptionally(failed);
+            } else {
+                if (checkpoints != null) {
+                    checkpoints.save(name, cursor(writes.size()), (int) metrics.getWritten(), true);
+                }
+                completion.complete(null);
+            }
+        }
+
+        private void finished(int index, Throwable ex) {
+            // Counted before the write stops running, so the stage is complete in its metrics when it completes
+            if (ex == null) {
+                metrics.written(writes.get(index).bytes());
+            } else {
+                metrics.failed();
+            }
+            String checkpointCursor = null;
+            synchronized (this) {
+                running--;
+                // No further writes start after a failure, the stage fails anyway
+                if (ex != null && failure == null) {
+                    failure = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                }
+                if (ex == null) {
+                    done[index] = true;
+                    while (donePrefix < done.length && done[donePrefix]) {
+                        donePrefix++;
+                    }
+                    if (checkpoints != null && donePrefix - checkpointedPrefix >= CHECKPOINT_INTERVAL) {
+                        checkpointedPrefix = donePrefix;
+                        checkpointCursor = cursor(donePrefix);
+                    }
+                }
+            }
+            if (checkpointCursor != null) {
+                checkpoints.save(name, checkpointCursor, (int) metrics.getWritten(), false);
+            }
+        }
+
+        /**
+         * Key of the last keyed write before the index, null when there is none
+         */
+        private String cursor(int prefix) {
+            for (int i = prefix - 1; i >= 0; i--) {
+                if (writes.get(i).key() != null) {
+                    return writes.get(i).key();
+                }
+            }
+            return null;
+        }
+    }
+
+    private record Write(String key, long bytes, Supplier<CompletableFuture<Void>> call) {
+    }
+}
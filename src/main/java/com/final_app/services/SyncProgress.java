@@ -0,0 +1,219 @@
+package com.final_app.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and metrics of one synchronization: per stage the records compared, the writes planned, done and
+ * skipped, the approximate bytes written and how long the stage took.
+ * <p>
+ * Listeners run on the thread that made the change, UI listeners have to hand over to the FX thread.
+ */
+public class SyncProgress {
+    private final String name;
+    private final long startedAt = System.currentTimeMillis();
+    // Guarded by itself, kept in creation order for the summary
+    private final Map<String, StageMetrics> stages = new LinkedHashMap<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile String phase = "Waiting";
+    private volatile boolean finished;
+
+    public SyncProgress(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public StageMetrics stage(String stageName) {
+        synchronized (stages) {
+            return stages.computeIfAbsent(stageName, StageMetrics::new);
+        }
+    }
+
+    public List<StageMetrics> getStages() {
+        synchronized (stages) {
+            return new ArrayList<>(stages.values());
+        }
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+        changed();
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void finish() {
+        this.finished = true;
+        this.phase = "Done";
+        changed();
+    }
+
+    public long getScanned() {
+        return getStages().stream().mapToLong(StageMetrics::getScanned).sum();
+    }
+
+    public long getPlanned() {
+        return getStages().stream().mapToLong(StageMetrics::getPlanned).sum();
+    }
+
+    public long getWritten() {
+        return getStages().stream().mapToLong(StageMetrics::getWritten).sum();
+    }
+
+    public long getSkipped() {
+        return getStages().stream().mapToLong(StageMetrics::getSkipped).sum();
+    }
+
+    public long getBytes() {
+        return getStages().stream().mapToLong(StageMetrics::getBytes).sum();
+    }
+
+    /**
+     * Share of the planned writes that are done or skipped, -1 while nothing is planned yet (indeterminate)
+     */
+    public double getFraction() {
+        if (finished) {
+            return 1;
+        }
+        long planned = getPlanned();
+        if (planned == 0) {
+            return -1;
+        }
+        long done = getStages().stream().mapToLong(stage -> stage.getWritten() + stage.getSkipped() + stage.getFailed()).sum();
+        return Math.min(1, (double) done / planned);
+    }
+
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    void changed() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * One line per stage with its counters and duration, for the log
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder("Sync ").append(name).append(" took ")
+                .append(System.currentTimeMillis() - startedAt).append(" ms");
+        for (StageMetrics stage : getStages()) {
+            summary.append(System.lineSeparator()).append("  ").append(stage);
+        }
+        return summary.toString();
+    }
+
+    /**
+     * The counters of one stage
+     */
+    public class StageMetrics {
+        private final String stageName;
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong planned = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile long stageStartedAt;
+        private volatile long stageFinishedAt;
+
+        private StageMetrics(String stageName) {
+            this.stageName = stageName;
+        }
+
+        public String getStageName() {
+            return stageName;
+        }
+
+        /**
+         * Count records that were compared, whether they needed a write or not
+         */
+        public void scanned(long count) {
+            scanned.addAndGet(count);
+            changed();
+        }
+
+        void started(long plannedWrites) {
+            stageStartedAt = System.currentTimeMillis();
+            planned.addAndGet(plannedWrites);
+            changed();
+        }
+
+        void written(long writeBytes) {
+            written.incrementAndGet();
+            bytes.addAndGet(writeBytes);
+            changed();
+        }
+
+        void skipped(long count) {
+            skipped.addAndGet(count);
+            changed();
+        }
+
+        void failed() {
+            failed.incrementAndGet();
+            changed();
+        }
+
+        void finished() {
+            stageFinishedAt = System.currentTimeMillis();
+            changed();
+        }
+
+        public long getScanned() {
+            return scanned.get();
+        }
+
+        public long getPlanned() {
+            return planned.get();
+        }
+
+        public long getWritten() {
+            return written.get();
+        }
+
+        public long getSkipped() {
+            return skipped.get();
+        }
+
+        public long getFailed() {
+            return failed.get();
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        /**
+         * Duration in milliseconds, up to now while the stage runs and 0 before it started
+         */
+        public long getDuration() {
+            if (stageStartedAt == 0) {
+                return 0;
+            }
+            return (stageFinishedAt != 0 ? stageFinishedAt : System.currentTimeMillis()) - stageStartedAt;
+        }
+
+        @Override
+        public String toString() {
+            return stageName + ": scanned " + getScanned() + ", written " + getWritten() + "/" + getPlanned()
+                    + ", skipped " + getSkipped() + ", failed " + getFailed() + ", " + getBytes() + " bytes, "
+                    + getDuration() + " ms";
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.final_app.services;
+
+import com.final_app.db.dao.TranslationMemoryDAO;
+import com.final_app.factories.RepositoryFactory;
+import com.final_app.models.TranslationMemoryEntry;
+import com.final_app.repositories.firebase.FBTranslationMemoryRepository;
+import com.final_app.tools.ContentHash;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Machine translations that were made before, consulted before a text is sent to the model.
+ * <p>
+ * Entries are keyed by the hash of the source text and the instructions, the source and target language and the
+ * model. They are kept in the local database. With -Dlingualeap.translationMemory.sync=true they are also shared
+ * through Firestore while online: a local miss is looked up there before the model is asked, and new entries are
+ * uploaded. The memory never fails a translation, at worst the model is asked again.
+ */
+public class TranslationMemory {
+    private static final boolean SYNC = Boolean.getBoolean("lingualeap.translationMemory.sync");
+    // Longest wait for the shared memory, the model is asked when it takes longer
+    private static final long SYNC_TIMEOUT_MS = 2000;
+
+    private static volatile TranslationMemory instance;
+
+    private final TranslationMemoryDAO memoryDAO = new TranslationMemoryDAO();
+
+    public static TranslationMemory getInstance() {
+        if (instance == null) {
+            synchronized (TranslationMemory.class) {
+                if (instance == null) {
+                    instance = new TranslationMemory();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * The remembered translation of the text, null when there is none
+     *
+     * @param instructions extra instructions the translation was made with, null for none
+     */
+    public String find(String text, String instructions, String sourceLanguage, String targetLanguage, String model) {
+        return findAll(List.of(text), instructions, sourceLanguage, targetLanguage, model).get(text);
+    }
+
+    /**
+     * The remembered translations of the texts, keyed by text. Texts without one are left out.
+     */
+    public Map<String, String> findAll(List<String> texts, String instructions, String sourceLanguage, String targetLanguage, String model) {
+        Map<String, String> hashes = new LinkedHashMap<>();
+        for (String text : texts) {
+            hashes.put(sourceHash(text, instructions), text);
+        }
+
+        Map<String, TranslationMemoryEntry> entries = new HashMap<>();
+        try {
+            entries.putAll(memoryDAO.find(hashes.keySet(), sourceLanguage, targetLanguage, model));
+        } catch (SQLException e) {
+            System.err.println("Error reading the translation memory: " + e.getMessage());
+        }
+
+        List<String> missing = hashes.keySet().stream().filter(hash -> !entries.containsKey(hash)).toList();
+        if (!missing.isEmpty() && isShared()) {
+            try {
+                Map<String, TranslationMemoryEntry> shared = FBTranslationMemoryRepository.getInstance()
+                        .find(missing, sourceLanguage, targetLanguage, model)
+                        .get(SYNC_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (!shared.isEmpty()) {
+                    memoryDAO.save(shared.values());
+                    entries.putAll(shared);
+                }
+            } catch (Exception e) {
+                System.err.println("Error reading the shared translation memory: " + e.getMessage());
+            }
+        }
+
+        Map<String, String> translations = new HashMap<>();
+        entries.forEach((hash, entry) -> {
+            String text = hashes.get(hash);
+            // Guard against a hash collision
+            if (text != null && text.equals(entry.getSourceText())) {
+                translations.put(text, entry.getTranslatedText());
+            }
+        });
+        return translations;
+    }
+
+    public void remember(String text, String instructions, String sourceLanguage, String targetLanguage, String model, String translation) {
+        rememberAll(Map.of(text, translation), instructions, sourceLanguage, targetLanguage, model);
+    }
+
+    /**
+     * Remember the translations (text to translation)
+     */
+    public void rememberAll(Map<String, String> translations, String instructions, String sourceLanguage, String targetLanguage, String model) {
+        List<TranslationMemoryEntry> entries = new ArrayList<>();
+        translations.forEach((text, translation) -> {
+            if (text != null && translation != null && !translation.isBlank()) {
+                entries.add(new TranslationMemoryEntry(sourceHash(text, instructions), sourceLanguage, targetLanguage, model, text, translation));
+            }
+        });
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try {
+            memoryDAO.save(entries);
+        } catch (SQLException e) {
+            System.err.println("Error saving to the translation memory: " + e.getMessage());
+        }
+        if (isShared()) {
+            try {
+                // Not waited for, other devices get it a little later
+                FBTranslationMemoryRepository.getInstance().save(entries);
+            } catch (RuntimeException e) {
+                System.err.println("Error saving to the shared translation memory: " + e.getMessage());
+            }
+        }
+    }
+
+    private static String sourceHash(String text, String instructions) {
+        return ContentHash.ofText(text, instructions);
+    }
+
+    private static boolean isShared() {
+        return SYNC && RepositoryFactory.getInstance().getState() == RepositoryFactory.State.ONLINE;
+    }
+}
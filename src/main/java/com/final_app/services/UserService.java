@@ -168,6 +168,13 @@ public class UserService {
         }
     }
 
+    /**
+     * Get the conversation and speaking test counts of a user, in total and within [weekStart, weekEnd)
+     */
+    public ActivityStats getActivityStats(String userId, Date weekStart, Date weekEnd) throws ExecutionException, InterruptedException {
+        return RepositoryFactory.getUserRepository().getActivityStats(userId, weekStart, weekEnd).get();
+    }
+
     /**
      * Update user statistics
      */
@@ -0,0 +1,109 @@
+package com.final_app.tests;
+
+import com.final_app.factories.RepositoryFactory;
+import com.final_app.globals.FetchPlan;
+import com.final_app.globals.Sender;
+import com.final_app.interfaces.IUserConversationsRepository;
+import com.final_app.models.Message;
+import com.final_app.models.User;
+import com.final_app.models.UserConversation;
+import com.final_app.repositories.firebase.FBUserConversationsRepository;
+import com.final_app.repositories.firebase.FirebaseManager;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-heavy benchmark for {@link FBUserConversationsRepository}: lists the user conversations of a user
+ * several times and counts how many documents were written meanwhile (by comparing their update times).
+ * Reads must not write, so the expected write count is 0.
+ *
+ * Only run against the Firestore emulator, e.g. with FIRESTORE_EMULATOR_HOST=localhost:8080
+ * (serviceAccount.json is still needed to initialize the SDK, the emulator ignores it).
+ */
+public class FirestoreReadWriteBenchmark {
+    private static final String USER_ID = "bench-user";
+    private static final String COLLECTION = "userConversations";
+    private static final int USER_CONVERSATION_COUNT = 200;
+    private static final int MESSAGES_PER_USER_CONVERSATION = 20;
+    private static final int READ_ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        if (System.getenv("FIRESTORE_EMULATOR_HOST") == null) {
+            System.err.println("FIRESTORE_EMULATOR_HOST is not set, refusing to run against a real project.");
+            return;
+        }
+
+        RepositoryFactory.getInstance().changeToOnline();
+        Firestore db = FirebaseManager.getDb();
+        CollectionReference collection = db.collection(COLLECTION);
+        seedLegacyDocuments(db, collection);
+
+        IUserConversationsRepository repository = FBUserConversationsRepository.getInstance();
+        for (FetchPlan fetchPlan : FetchPlan.values()) {
+            Map<String, Timestamp> before = updateTimes(collection);
+
+            long start = System.nanoTime();
+            int read = 0;
+            for (int round = 0; round < READ_ROUNDS; round++) {
+                for (UserConversation ignored : repository.getAllUserConversationsFromUser(USER_ID, fetchPlan).get()) {
+                    read++;
+                }
+            }
+            long elapsedNs = System.nanoTime() - start;
+
+            Map<String, Timestamp> after = updateTimes(collection);
+            long written = after.entrySet().stream()
+                    .filter(entry -> !entry.getValue().equals(before.get(entry.getKey())))
+                    .count();
+
+            System.out.printf("%s: %d user conversations read, %d documents written, %.1f ms%n",
+                    fetchPlan, read, written, elapsedNs / 1_000_000.0);
+        }
+    }
+
+    /**
+     * Documents in the shape the repository used to write: user, conversation and messages embedded
+     */
+    private static void seedLegacyDocuments(Firestore db, CollectionReference collection) throws Exception {
+        User user = new User(USER_ID, "bench", "bench@example.com", "x", null);
+        db.collection("users").document(USER_ID).set(user).get();
+
+        List<WriteBatch> batches = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        for (int i = 0; i < USER_CONVERSATION_COUNT; i++) {
+            UserConversation userConversation = new UserConversation("uc-" + i, USER_ID, "conv-" + i, "COMPLETED");
+            userConversation.setUser(user);
+            List<Message> messages = new ArrayList<>();
+            for (int m = 0; m < MESSAGES_PER_USER_CONVERSATION; m++) {
+                messages.add(new Message(m, userConversation.getId(), "Message " + m, (m % 2 == 0 ? Sender.USER : Sender.AI).name()));
+            }
+            userConversation.setMessages(messages);
+            batch.set(collection.document(userConversation.getId()), userConversation);
+
+            if ((i + 1) % 100 == 0) {
+                batches.add(batch);
+                batch = db.batch();
+            }
+        }
+        batches.add(batch);
+        for (WriteBatch pending : batches) {
+            pending.commit().get();
+        }
+    }
+
+    private static Map<String, Timestamp> updateTimes(CollectionReference collection) throws Exception {
+        Map<String, Timestamp> updateTimes = new HashMap<>();
+        for (QueryDocumentSnapshot snapshot : collection.whereEqualTo("userId", USER_ID).select("userId").get().get().getDocuments()) {
+            updateTimes.put(snapshot.getId(), snapshot.getUpdateTime());
+        }
+        return updateTimes;
+    }
+}
@@ -0,0 +1,89 @@
+package com.final_app.tests;
+
+import com.final_app.db.DatabaseManager;
+import com.final_app.services.DataService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Small benchmark for the database work done at startup, before the login screen appears.
+ *
+ * Cold: a new database gets all migrations and the default data.
+ * Warm: the schema version and the seed marker are current, so both steps are skipped.
+ * Warm (unversioned): clears schema_version and data_seed first, which replays the old behaviour
+ * of running every CREATE ... IF NOT EXISTS and all seeding checks on each start.
+ *
+ * Uses a scratch database in a temporary folder, so the real data folder is never touched.
+ * Run from the project root (the .env file is needed for the repositories).
+ */
+public class StartupBenchmark {
+    public static void main(String[] args) throws Exception {
+        Path folder = Files.createTempDirectory("lingualeap-startup");
+        System.setProperty("lingualeap.db.url", "jdbc:h2:" + folder.resolve("startup").toAbsolutePath());
+
+        long start = System.nanoTime();
+        DatabaseManager.getInstance();
+        new DataService().initializeDefaultData();
+        report("cold", start, -1);
+
+        for (int run = 1; run <= 3; run++) {
+            resetQueryStatistics();
+            start = System.nanoTime();
+            DatabaseManager.getInstance().migrateSchema();
+            new DataService().initializeDefaultData();
+            report("warm #" + run, start, executedQueries());
+        }
+
+        for (int run = 1; run <= 3; run++) {
+            clearVersionMarkers();
+            resetQueryStatistics();
+            start = System.nanoTime();
+            DatabaseManager.getInstance().migrateSchema();
+            new DataService().initializeDefaultData();
+            report("warm #" + run + " (unversioned)", start, executedQueries());
+        }
+
+        DatabaseManager.shutdown();
+    }
+
+    private static void report(String label, long startNanos, long queries) {
+        double ms = (System.nanoTime() - startNanos) / 1_000_000.0;
+        if (queries >= 0) {
+            System.out.printf("%-24s %8.1f ms, %d statements%n", label, ms, queries);
+        } else {
+            System.out.printf("%-24s %8.1f ms%n", label, ms);
+        }
+    }
+
+    private static void clearVersionMarkers() throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM schema_version");
+            stmt.executeUpdate("DELETE FROM data_seed");
+        }
+    }
+
+    private static void resetQueryStatistics() throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SET QUERY_STATISTICS FALSE");
+            stmt.execute("SET QUERY_STATISTICS_MAX_ENTRIES 10000");
+            stmt.execute("SET QUERY_STATISTICS TRUE");
+        }
+    }
+
+    private static long executedQueries() throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             // Skip the pool's connection test query and the statistics query itself
+             ResultSet rs = stmt.executeQuery("SELECT SUM(EXECUTION_COUNT) FROM INFORMATION_SCHEMA.QUERY_STATISTICS " +
+                     "WHERE SQL_STATEMENT <> 'SELECT 1' AND SQL_STATEMENT NOT LIKE '%QUERY_STATISTICS%'")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
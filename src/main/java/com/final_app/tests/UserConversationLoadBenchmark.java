@@ -0,0 +1,316 @@
+package com.final_app.tests;
+
+import com.final_app.db.DatabaseManager;
+import com.final_app.db.dao.UserConversationDAO;
+import com.final_app.models.Conversation;
+import com.final_app.models.Evaluation;
+import com.final_app.models.Language;
+import com.final_app.models.LanguageLevel;
+import com.final_app.models.LanguageLevelSystem;
+import com.final_app.models.Message;
+import com.final_app.models.Scenario;
+import com.final_app.models.User;
+import com.final_app.models.UserConversation;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark comparing the old per-row loading of user conversations ({@link PerRowUserConversationLoader}, a
+ * copy of the N+1 code it replaced) with the set-based loading used by {@link UserConversationDAO#findByUserId(String)}.
+ *
+ * Runs against a seeded in-memory H2 database, so the real data folder is never touched.
+ * Run from the project root (the .env file is needed when languages get mapped).
+ */
+public class UserConversationLoadBenchmark {
+    private static final String USER_ID = "bench-user";
+    // Distinct conversations the user conversations point to, so related rows are not all the same few
+    private static final int CONVERSATION_COUNT = 500;
+    private static final int MESSAGES_PER_USER_CONVERSATION = 10;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("lingualeap.db.url", "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+        DatabaseManager.getInstance();
+
+        seedReferenceData();
+
+        int seeded = 0;
+        for (int size : new int[]{1_000, 10_000}) {
+            seedUserConversations(seeded, size);
+            seeded = size;
+
+            System.out.println("=== " + size + " user conversations ===");
+            UserConversationDAO dao = new UserConversationDAO();
+
+            resetQueryStatistics();
+            long start = System.nanoTime();
+            List<UserConversation> setBased = dao.findByUserId(USER_ID);
+            long setBasedNs = System.nanoTime() - start;
+            long setBasedQueries = executedQueries();
+
+            resetQueryStatistics();
+            start = System.nanoTime();
+            List<UserConversation> perRow = new PerRowUserConversationLoader().findByUserId(USER_ID);
+            long perRowNs = System.nanoTime() - start;
+            long perRowQueries = executedQueries();
+
+            System.out.printf("set-based: %d rows, %d queries, %.1f ms%n", setBased.size(), setBasedQueries, setBasedNs / 1_000_000.0);
+            System.out.printf("per-row:   %d rows, %d queries, %.1f ms%n", perRow.size(), perRowQueries, perRowNs / 1_000_000.0);
+        }
+
+        DatabaseManager.shutdown();
+    }
+
+    private static void seedReferenceData() throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO users (id, user_name, email, password) VALUES ('" + USER_ID + "', 'bench', 'bench@example.com', 'x')");
+            stmt.executeUpdate("INSERT INTO language_systems (id, name, description) VALUES ('sys', 'CEFR', 'bench')");
+            stmt.executeUpdate("INSERT INTO languages (id, system_id, name, iso, color, max_xp) VALUES ('lang-fr', 'sys', 'French', 'fr', '#000000', 1000)");
+            stmt.executeUpdate("INSERT INTO languages (id, system_id, name, iso, color, max_xp) VALUES ('lang-en', 'sys', 'English', 'en', '#000000', 1000)");
+            stmt.executeUpdate("INSERT INTO language_levels (id, system_id, name, \"value\") VALUES ('lvl-a1', 'sys', 'A1', 1)");
+            stmt.executeUpdate("INSERT INTO scenarios (id, description, role) VALUES ('scn', 'bench scenario', 'FRIEND')");
+            stmt.executeUpdate("INSERT INTO scenario_key_points (id, scenario_id, key_point) VALUES ('kp', 'scn', 'bench key point')");
+
+            for (int i = 0; i < CONVERSATION_COUNT; i++) {
+                stmt.executeUpdate("INSERT INTO conversations (id, title, description, language_id, language_from_id, level_id, scenario_id, start_prompt, model) " +
+                        "VALUES ('conv-" + i + "', 'Conversation " + i + "', 'bench', 'lang-fr', 'lang-en', 'lvl-a1', 'scn', 'prompt', 'model')");
+            }
+        }
+    }
+
+    private static void seedUserConversations(int from, int to) throws SQLException {
+        String ucSql = "INSERT INTO user_conversations (id, user_id, conversation_id, status, created_at, updated_at) VALUES (?, ?, ?, 'COMPLETED', ?, ?)";
+        String messageSql = "INSERT INTO messages (id, user_conversation_id, message_index, text, sender, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+        String evaluationSql = "INSERT INTO evaluations (id, user_conversation_id, score, max_score, vocab, grammar, feedback) VALUES (?, ?, 80, 100, 8, 8, 'ok')";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ucStmt = conn.prepareStatement(ucSql);
+             PreparedStatement messageStmt = conn.prepareStatement(messageSql);
+             PreparedStatement evaluationStmt = conn.prepareStatement(evaluationSql)) {
+            conn.setAutoCommit(false);
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+
+            for (int i = from; i < to; i++) {
+                String ucId = "uc-" + i;
+                ucStmt.setString(1, ucId);
+                ucStmt.setString(2, USER_ID);
+                ucStmt.setString(3, "conv-" + (i % CONVERSATION_COUNT));
+                ucStmt.setTimestamp(4, now);
+                ucStmt.setTimestamp(5, now);
+                ucStmt.addBatch();
+
+                for (int m = 0; m < MESSAGES_PER_USER_CONVERSATION; m++) {
+                    messageStmt.setString(1, ucId + "-m" + m);
+                    messageStmt.setString(2, ucId);
+                    messageStmt.setInt(3, m);
+                    messageStmt.setString(4, "Message " + m);
+                    messageStmt.setString(5, m % 2 == 0 ? "USER" : "AI");
+                    messageStmt.setTimestamp(6, now);
+                    messageStmt.addBatch();
+                }
+
+                if (i % 2 == 0) {
+                    evaluationStmt.setString(1, ucId + "-eval");
+                    evaluationStmt.setString(2, ucId);
+                    evaluationStmt.addBatch();
+                }
+            }
+
+            ucStmt.executeBatch();
+            messageStmt.executeBatch();
+            evaluationStmt.executeBatch();
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * The user conversation loading as it was before the set-based rewrite, kept as the baseline. Every row loads
+     * its user, its conversation, both languages of the conversation with their language system and all levels,
+     * the level, the scenario with its key points, the messages and the evaluation with queries of its own.
+     * There was no reference cache then, so none is used.
+     */
+    private static class PerRowUserConversationLoader {
+        List<UserConversation> findByUserId(String userId) throws SQLException {
+            String sql = "SELECT * FROM user_conversations WHERE user_id = ?";
+            List<UserConversation> userConversations = new ArrayList<>();
+
+            try (Connection conn = DatabaseManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+                pstmt.setString(1, userId);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        UserConversation userConversation = new UserConversation();
+                        userConversation.setId(rs.getString("id"));
+                        userConversation.setUserId(rs.getString("user_id"));
+                        userConversation.setConversationId(rs.getString("conversation_id"));
+                        userConversation.setStatus(rs.getString("status"));
+                        userConversation.setCreatedAt(rs.getTimestamp("created_at"));
+                        userConversation.setUpdatedAt(rs.getTimestamp("updated_at"));
+                        loadRelatedObjects(userConversation);
+                        userConversations.add(userConversation);
+                    }
+                }
+            }
+            return userConversations;
+        }
+
+        private void loadRelatedObjects(UserConversation userConversation) throws SQLException {
+            userConversation.setUser(queryOne("SELECT * FROM users WHERE id = ?", userConversation.getUserId(), rs -> {
+                User user = new User();
+                user.setId(rs.getString("id"));
+                user.setUserName(rs.getString("user_name"));
+                user.setEmail(rs.getString("email"));
+                return user;
+            }));
+            userConversation.setConversation(findConversation(userConversation.getConversationId()));
+            userConversation.setMessages(queryList("SELECT * FROM messages WHERE user_conversation_id = ? ORDER BY timestamp", userConversation.getId(), rs -> {
+                Message message = new Message();
+                message.setId(rs.getString("id"));
+                message.setUserConversationId(rs.getString("user_conversation_id"));
+                message.setIndex(rs.getInt("message_index"));
+                message.setText(rs.getString("text"));
+                message.setSender(rs.getString("sender"));
+                message.setTimestamp(rs.getTimestamp("timestamp"));
+                return message;
+            }));
+            userConversation.setEvaluation(queryOne("SELECT * FROM evaluations WHERE user_conversation_id = ?", userConversation.getId(), rs -> {
+                Evaluation evaluation = new Evaluation();
+                evaluation.setId(rs.getString("id"));
+                evaluation.setUserConversationId(rs.getString("user_conversation_id"));
+                evaluation.setScore(rs.getInt("score"));
+                evaluation.setMaxScore(rs.getInt("max_score"));
+                evaluation.setFeedback(rs.getString("feedback"));
+                return evaluation;
+            }));
+        }
+
+        private Conversation findConversation(String id) throws SQLException {
+            Conversation conversation = queryOne("SELECT * FROM conversations WHERE id = ?", id, rs -> {
+                Conversation row = new Conversation();
+                row.setId(rs.getString("id"));
+                row.setTitle(rs.getString("title"));
+                row.setDescription(rs.getString("description"));
+                row.setLanguageId(rs.getString("language_id"));
+                row.setLanguageFromId(rs.getString("language_from_id"));
+                row.setLevelId(rs.getString("level_id"));
+                row.setScenarioId(rs.getString("scenario_id"));
+                return row;
+            });
+            if (conversation == null) {
+                return null;
+            }
+            conversation.setLanguage(findLanguage(conversation.getLanguageId()));
+            conversation.setLanguageFrom(findLanguage(conversation.getLanguageFromId()));
+            conversation.setLanguageLevel(queryOne("SELECT * FROM language_levels WHERE id = ?", conversation.getLevelId(), PerRowUserConversationLoader::mapLanguageLevel));
+            Scenario scenario = queryOne("SELECT * FROM scenarios WHERE id = ?", conversation.getScenarioId(), rs -> {
+                Scenario row = new Scenario();
+                row.setId(rs.getString("id"));
+                row.setDescription(rs.getString("description"));
+                row.setRole(rs.getString("role"));
+                return row;
+            });
+            if (scenario != null) {
+                scenario.setKeyPoints(queryList("SELECT * FROM scenario_key_points WHERE scenario_id = ?", scenario.getId(), rs -> rs.getString("key_point")));
+            }
+            conversation.setScenario(scenario);
+            return conversation;
+        }
+
+        private Language findLanguage(String id) throws SQLException {
+            Language language = queryOne("SELECT * FROM languages WHERE id = ?", id, rs -> {
+                Language row = new Language();
+                row.setId(rs.getString("id"));
+                row.setSystemId(rs.getString("system_id"));
+                row.setName(rs.getString("name"));
+                row.setIso(rs.getString("iso"));
+                row.setColor(rs.getString("color"));
+                row.setMaxXp(rs.getLong("max_xp"));
+                return row;
+            });
+            if (language == null) {
+                return null;
+            }
+            LanguageLevelSystem system = queryOne("SELECT * FROM language_systems WHERE id = ?", language.getSystemId(), rs -> {
+                LanguageLevelSystem row = new LanguageLevelSystem();
+                row.setId(rs.getString("id"));
+                row.setName(rs.getString("name"));
+                row.setDescription(rs.getString("description"));
+                return row;
+            });
+            if (system != null) {
+                // The old system mapping read every level and kept the ones of the system
+                List<LanguageLevel> levels = queryList("SELECT * FROM language_levels ORDER BY \"value\"", null, PerRowUserConversationLoader::mapLanguageLevel);
+                system.setLevels(levels.stream().filter(level -> level.getSystemId().equals(system.getId())).toList());
+            }
+            language.setLanguageLevelSystem(system);
+            return language;
+        }
+
+        private static LanguageLevel mapLanguageLevel(ResultSet rs) throws SQLException {
+            LanguageLevel level = new LanguageLevel();
+            level.setId(rs.getString("id"));
+            level.setSystemId(rs.getString("system_id"));
+            level.setName(rs.getString("name"));
+            level.setValue(rs.getInt("value"));
+            return level;
+        }
+
+        private static <T> T queryOne(String sql, String id, RowMapper<T> mapper) throws SQLException {
+            List<T> rows = queryList(sql, id, mapper);
+            return rows.isEmpty() ? null : rows.getFirst();
+        }
+
+        /**
+         * Run the query on a connection of its own, with the ID as its only parameter (none when null)
+         */
+        private static <T> List<T> queryList(String sql, String id, RowMapper<T> mapper) throws SQLException {
+            List<T> rows = new ArrayList<>();
+            try (Connection conn = DatabaseManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                if (id != null) {
+                    pstmt.setString(1, id);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(mapper.map(rs));
+                    }
+                }
+            }
+            return rows;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private static void resetQueryStatistics() throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SET QUERY_STATISTICS FALSE");
+            stmt.execute("SET QUERY_STATISTICS_MAX_ENTRIES 10000");
+            stmt.execute("SET QUERY_STATISTICS TRUE");
+        }
+    }
+
+    private static long executedQueries() throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             // Skip the pool's connection test query and the statistics query itself
+             ResultSet rs = stmt.executeQuery("SELECT SUM(EXECUTION_COUNT) FROM INFORMATION_SCHEMA.QUERY_STATISTICS " +
+                     "WHERE SQL_STATEMENT <> 'SELECT 1' AND SQL_STATEMENT NOT LIKE '%QUERY_STATISTICS%'")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
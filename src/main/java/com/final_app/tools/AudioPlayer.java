@@ -1,17 +1,45 @@
 package com.final_app.tools;
 
-import javafx.scene.media.Media;
-import javafx.scene.media.MediaPlayer;
-
-import java.io.File;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
 
 public class AudioPlayer {
-    private static MediaPlayer mediaPlayer;
+    // Raw audio of the speech API ("pcm" format): 24 kHz, 16-bit, mono, signed, little-endian
+    public static final AudioFormat SPEECH_FORMAT = new AudioFormat(24000f, 16, 1, true, false);
+
+    // Bytes written to a speech line at once, 100 ms of speech, so a stop takes effect quickly
+    private static final int SPEECH_CHUNK = 4800;
+
+    /**
+     * Play a raw speech file (see {@link #SPEECH_FORMAT}) on the line, returns once it was written or when stop
+     * returns true
+     */
+    public static void writeSpeech(SourceDataLine line, Path file, BooleanSupplier stop) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[SPEECH_CHUNK];
+            int read;
+            while (!stop.getAsBoolean() && (read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                // Whole samples only
+                line.write(buffer, 0, read - read % 2);
+            }
+        }
+    }
 
-    public static void playAudio(String filePath){
-        Media sound = new Media(new File(filePath).toURI().toString());
-        mediaPlayer = new MediaPlayer(sound);
-        mediaPlayer.setOnEndOfMedia(() -> System.out.println("✅ Audio is volledig afgespeeld"));
-        mediaPlayer.play();
+    /**
+     * Open and start a line that plays raw speech audio written to it, segments written one after the other
+     * play without gaps. The caller closes it.
+     */
+    public static SourceDataLine openSpeechLine() throws LineUnavailableException {
+        SourceDataLine line = AudioSystem.getSourceDataLine(SPEECH_FORMAT);
+        line.open(SPEECH_FORMAT);
+        line.start();
+        return line;
     }
 }
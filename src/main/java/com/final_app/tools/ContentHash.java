@@ -0,0 +1,145 @@
+package com.final_app.tools;
+
+import com.final_app.models.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Canonical content hashes of the synchronized entities.
+ * <p>
+ * The hash covers the persisted fields in a fixed order and leaves out the change times, so two copies of a
+ * record with the same content have the same hash whatever their clocks said. Related objects only count with
+ * their ID, except the evaluation that is embedded in the user conversation document. Hashes are lowercase hex.
+ */
+public class ContentHash {
+    private static final char FIELD_SEPARATOR = '\u001f';
+    private static final char ITEM_SEPARATOR = '\u001e';
+    private static final String NULL = "\u0000";
+
+    /**
+     * Hash of any synchronized entity, null for types without a content hash
+     */
+    public static String ofEntity(Object entity) {
+        Object[] fields = fields(entity);
+        return fields == null ? null : sha256(canonical(fields));
+    }
+
+    /**
+     * Size in bytes of the canonical content, an estimate of the payload of a write. 0 for types without a content hash.
+     */
+    public static int size(Object entity) {
+        Object[] fields = fields(entity);
+        return fields == null ? 0 : canonical(fields).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Digest of a whole collection from the content hashes of its records (ID to hash), independent of their order
+     */
+    public static String digest(Map<String, String> contentHashes) {
+        StringBuilder canonical = new StringBuilder();
+        new TreeMap<>(contentHashes).forEach((id, contentHash) ->
+                canonical.append(id).append(FIELD_SEPARATOR).append(contentHash).append(ITEM_SEPARATOR));
+        return sha256(canonical.toString());
+    }
+
+    /**
+     * Hash of text parts as lowercase hex, safe for file names and keys. The parts are separated, so ("ab", "c")
+     * and ("a", "bc") differ.
+     */
+    public static String ofText(String... parts) {
+        StringBuilder canonical = new StringBuilder();
+        for (String part : parts) {
+            canonical.append(part == null ? NULL : part).append(FIELD_SEPARATOR);
+        }
+        return sha256(canonical.toString());
+    }
+
+    /**
+     * The hashed fields of the entity, related objects only with their ID. The user conversation covers the
+     * fields of its document, the messages live in their own collection.
+     */
+    private static Object[] fields(Object entity) {
+        if (entity instanceof LanguageLevelSystem languageLevelSystem) {
+            return new Object[]{languageLevelSystem.getId(), languageLevelSystem.getName(), languageLevelSystem.getDescription()};
+        }
+        if (entity instanceof Language language) {
+            return new Object[]{language.getId(), language.getSystemId(), language.getName(), language.getIso(), language.getColor(),
+                    language.getMaxXp()};
+        }
+        if (entity instanceof LanguageLevel languageLevel) {
+            return new Object[]{languageLevel.getId(), languageLevel.getSystemId(), languageLevel.getName(), languageLevel.getValue()};
+        }
+        if (entity instanceof SpeakingTestQuestion question) {
+            return new Object[]{question.getId(), question.getTestId(), question.getQuestionText(), question.getExpectedResponsePattern(),
+                    question.getExpectedResponseLanguageIso(), question.getRequiredVocabulary(), question.getDifficultyLevel(),
+                    question.getOrderIndex()};
+        }
+        if (entity instanceof SpeakingTest speakingTest) {
+            return new Object[]{speakingTest.getId(), speakingTest.getTitle(), speakingTest.getDescription(), speakingTest.getExplanation(),
+                    speakingTest.getLanguageId(), speakingTest.getLanguageFromId(), speakingTest.getLevelId(),
+                    speakingTest.getGrammarFocus(), speakingTest.getVocabularyTheme(), speakingTest.getMaxScore()};
+        }
+        if (entity instanceof Conversation conversation) {
+            return new Object[]{conversation.getId(), conversation.getTitle(), conversation.getDescription(), conversation.getLanguageId(),
+                    conversation.getLanguageFromId(), conversation.getLevelId(), conversation.getScenarioId(),
+                    conversation.getStartPrompt(), conversation.getModel()};
+        }
+        if (entity instanceof Scenario scenario) {
+            return new Object[]{scenario.getId(), scenario.getDescription(), scenario.getRole(), scenario.getKeyPoints()};
+        }
+        if (entity instanceof UserLanguage userLanguage) {
+            return new Object[]{userLanguage.getId(), userLanguage.getUserId(), userLanguage.getLanguageId(), userLanguage.getLevelId(),
+                    userLanguage.getXp()};
+        }
+        if (entity instanceof UserConversation userConversation) {
+            Evaluation evaluation = userConversation.getEvaluation();
+            return new Object[]{userConversation.getId(), userConversation.getUserId(), userConversation.getConversationId(),
+                    userConversation.getStatus(), userConversation.getCreatedAt(), userConversation.getCompletedAt(),
+                    evaluation == null ? null : sha256(canonical(new Object[]{evaluation.getId(), evaluation.getScore(), evaluation.getMaxScore(),
+                            evaluation.getVocab(), evaluation.getGrammar(), evaluation.getCorrectness(),
+                            evaluation.getDuration(), evaluation.getPurpose(), evaluation.getFeedback()}))};
+        }
+        return null;
+    }
+
+    private static String canonical(Object[] fields) {
+        StringBuilder canonical = new StringBuilder();
+        for (Object field : fields) {
+            canonical.append(canonical(field)).append(FIELD_SEPARATOR);
+        }
+        return canonical.toString();
+    }
+
+    private static String canonical(Object field) {
+        if (field == null) {
+            return NULL;
+        }
+        if (field instanceof Date date) {
+            return Long.toString(date.getTime());
+        }
+        if (field instanceof List<?> items) {
+            StringBuilder canonical = new StringBuilder();
+            for (Object item : items) {
+                canonical.append(canonical(item)).append(ITEM_SEPARATOR);
+            }
+            return canonical.toString();
+        }
+        return field.toString();
+    }
+
+    private static String sha256(String canonical) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error hashing content", e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.final_app.tools;
+
+/**
+ * Removes an end marker from text that arrives in chunks, like a streamed chat completion.
+ * <p>
+ * The marker can be split over several chunks, so the end of a chunk that could be the start of the marker is
+ * held back until the next chunk shows whether it is. Everything from the marker on is dropped. The marker is
+ * matched ignoring case.
+ */
+public class EndKeyFilter {
+    private final String key;
+    private final StringBuilder text = new StringBuilder();
+    // Received but not released yet, it could be the start of the key
+    private final StringBuilder pending = new StringBuilder();
+    private boolean keyFound;
+    private boolean finished;
+
+    public EndKeyFilter(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Add the next chunk
+     *
+     * @return the text that can be shown now, empty when everything is held back
+     */
+    public String accept(String chunk) {
+        if (keyFound || finished || chunk == null || chunk.isEmpty()) {
+            return "";
+        }
+        pending.append(chunk);
+
+        int keyIndex = indexOfKey();
+        if (keyIndex >= 0) {
+            keyFound = true;
+            String released = release(keyIndex);
+            pending.setLength(0);
+            return released;
+        }
+        return release(pending.length() - heldBack());
+    }
+
+    /**
+     * End of the text, releases what was held back when it did not turn out to be the key
+     */
+    public String finish() {
+        finished = true;
+        return release(pending.length());
+    }
+
+    /**
+     * Whether the key was found
+     */
+    public boolean isKeyFound() {
+        return keyFound;
+    }
+
+    /**
+     * The text released so far, without the key
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    private String release(int length) {
+        String released = pending.substring(0, length);
+        pending.delete(0, length);
+        text.append(released);
+        return released;
+    }
+
+    private int indexOfKey() {
+        for (int i = 0; i + key.length() <= pending.length(); i++) {
+            if (matchesKey(i, key.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Length of the longest end of the pending text that is a start of the key
+     */
+    private int heldBack() {
+        for (int length = Math.min(key.length() - 1, pending.length()); length > 0; length--) {
+            if (matchesKey(pending.length() - length, length)) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    private boolean matchesKey(int offset, int length) {
+        return pending.toString().regionMatches(true, offset, key, 0, length);
+    }
+}
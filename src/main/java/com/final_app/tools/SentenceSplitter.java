@@ -0,0 +1,88 @@
+package com.final_app.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits text that arrives in chunks into sentences, so each one can be handled as soon as it is complete.
+ * <p>
+ * A sentence ends at a line break or at an end mark (. ! ? and the like, with closing quotes or brackets)
+ * followed by white space. Sentences shorter than {@link #MIN_LENGTH} are joined with the next one, so a short
+ * greeting is not spoken on its own.
+ */
+public class SentenceSplitter {
+    public static final int MIN_LENGTH = 12;
+
+    private static final String END_MARKS = ".!?…。！？";
+    private static final String CLOSING_MARKS = "\"'”’»)]";
+
+    // Text of the sentence that is not complete yet
+    private final StringBuilder pending = new StringBuilder();
+    // Position up to which the pending text was searched for a sentence end
+    private int scanned;
+
+    /**
+     * Add the next chunk
+     *
+     * @return the sentences it completed, trimmed
+     */
+    public List<String> accept(String chunk) {
+        List<String> sentences = new ArrayList<>();
+        if (chunk == null || chunk.isEmpty()) {
+            return sentences;
+        }
+        pending.append(chunk);
+
+        int end;
+        while ((end = nextEnd()) >= 0) {
+            String sentence = pending.substring(0, end).trim();
+            if (sentence.length() >= MIN_LENGTH) {
+                sentences.add(sentence);
+                pending.delete(0, end);
+                scanned = 0;
+            } else {
+                scanned = end;
+            }
+        }
+        return sentences;
+    }
+
+    /**
+     * End of the text
+     *
+     * @return the rest that did not end a sentence, trimmed and possibly empty
+     */
+    public String finish() {
+        String rest = pending.toString().trim();
+        pending.setLength(0);
+        scanned = 0;
+        return rest;
+    }
+
+    /**
+     * Index after the first sentence end from the scanned position on, -1 when there is none yet. An end mark at
+     * the end of the pending text does not count, the next chunk may continue it (e.g. "3." followed by "5").
+     */
+    private int nextEnd() {
+        for (int i = scanned; i < pending.length(); i++) {
+            char c = pending.charAt(i);
+            if (c == '\n') {
+                return i + 1;
+            }
+            if (END_MARKS.indexOf(c) >= 0) {
+                int next = i + 1;
+                while (next < pending.length() && (END_MARKS.indexOf(pending.charAt(next)) >= 0 || CLOSING_MARKS.indexOf(pending.charAt(next)) >= 0)) {
+                    next++;
+                }
+                if (next >= pending.length()) {
+                    return -1;
+                }
+                if (Character.isWhitespace(pending.charAt(next))) {
+                    return next;
+                }
+                i = next - 1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,92 @@
+package com.final_app.tools;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Immutable snapshot of all translations of one locale, tagged with the translations table version it was read at.
+ * Bundles are also kept on disk as properties files, so an unchanged locale is never read from the database again.
+ */
+public final class TranslationBundle {
+    private static final String VERSION_PROPERTY = "__version";
+
+    private final String locale;
+    private final long version;
+    private final Map<String, String> texts;
+
+    public TranslationBundle(String locale, long version, Map<String, String> texts) {
+        this.locale = locale;
+        this.version = version;
+        this.texts = Map.copyOf(texts);
+    }
+
+    public String getLocale() {
+        return locale;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, String> getTexts() {
+        return texts;
+    }
+
+    /**
+     * Read the cached bundle of a locale, empty when there is no (readable) cache file
+     */
+    public static Optional<TranslationBundle> readFrom(Path folder, String locale) {
+        Path file = fileFor(folder, locale);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            long version = Long.parseLong(properties.getProperty(VERSION_PROPERTY, "-1"));
+            properties.remove(VERSION_PROPERTY);
+
+            Map<String, String> texts = new HashMap<>();
+            properties.stringPropertyNames().forEach(key -> texts.put(key, properties.getProperty(key)));
+            return Optional.of(new TranslationBundle(locale, version, texts));
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Ignoring unreadable translation cache " + file + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Write the bundle to the cache folder, replacing the previous file atomically
+     */
+    public void writeTo(Path folder) {
+        Path file = fileFor(folder, locale);
+        Properties properties = new Properties();
+        properties.putAll(texts);
+        properties.setProperty(VERSION_PROPERTY, Long.toString(version));
+
+        try {
+            Files.createDirectories(folder);
+            Path temp = Files.createTempFile(folder, locale, ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, "Translations for " + locale);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to write translation cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static Path fileFor(Path folder, String locale) {
+        return folder.resolve(locale.toLowerCase() + ".properties");
+    }
+}
@@ -12,13 +12,17 @@ import javafx.scene.control.Alert;
 
 import javax.sql.DataSource;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Manages translations in-memory with language switching, listeners, and dynamic updates.
@@ -26,10 +30,23 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class TranslationManager {
     private static volatile TranslationManager instance;
 
+    // On-disk bundle cache, can be moved with -Dlingualeap.translations.cache
+    private static final Path BUNDLE_CACHE_FOLDER = Path.of(System.getProperty("lingualeap.translations.cache", "data/translations"));
+
+    // Keys sent per translation request and the amount of requests running at the same time
+    private static final int TRANSLATION_BATCH_SIZE = 40;
+    private static final int MAX_PARALLEL_BATCHES = 3;
+
     private final TranslationDAO dao;
-    private final Map<Language, Map<String, StringProperty>> cache = new ConcurrentHashMap<>();
+    private final ExecutorService translationExecutor = Executors.newFixedThreadPool(MAX_PARALLEL_BATCHES, runnable -> {
+        Thread thread = new Thread(runnable, "translation-batch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Loaded bundles keyed by locale (ISO code), dropped when a translation of the locale changes
+    private final Map<String, TranslationBundle> bundles = new ConcurrentHashMap<>();
     private final List<LanguageChangeListener> listeners = new CopyOnWriteArrayList<>();
-    private Language currentLanguage;
+    private volatile Language currentLanguage;
     private Map<String, StringProperty> translations;
     private Map<String, String> defaultTranslations;
 
@@ -39,8 +56,9 @@ public class TranslationManager {
         this.dao = new TranslationDAO(ds);
         setLanguage(initialLanguage);
         defaultTranslations = new HashMap<>();
+        Map<String, String> initialTranslations = bundle(initialLanguage).getTexts();
         for (TKey key : TKey.values()) {
-            defaultTranslations.put(key.name(), dao.loadTranslations(initialLanguage).getOrDefault(key.name(), key.name()));
+            defaultTranslations.put(key.name(), initialTranslations.getOrDefault(key.name(), key.name()));
         }
     }
 
@@ -65,7 +83,7 @@ public class TranslationManager {
 
     public void updateDefaultTranslations(){
             try {
-                Map<String, String> tempMap = dao.loadTranslations(defaultLanguage);
+                Map<String, String> tempMap = bundle(defaultLanguage).getTexts();
                 for(TKey key : TKey.values()) {
                     defaultTranslations.put(key.name(), tempMap.getOrDefault(key.name(), key.name()));
                 }
@@ -74,6 +92,30 @@ public class TranslationManager {
             }
     }
 
+    /**
+     * Translations of a language: from memory, else from the on-disk cache when its version is current,
+     * else loaded from the database with a single query and cached again.
+     */
+    private TranslationBundle bundle(Language language) throws Exception {
+        String locale = language.getIso().toLowerCase();
+        TranslationBundle bundle = bundles.get(locale);
+        if (bundle != null) {
+            return bundle;
+        }
+
+        long version = dao.loadVersion(language);
+        bundle = TranslationBundle.readFrom(BUNDLE_CACHE_FOLDER, locale)
+                .filter(cached -> cached.getVersion() == version)
+                .orElse(null);
+        if (bundle == null) {
+            bundle = new TranslationBundle(locale, version, dao.loadTranslations(language));
+            bundle.writeTo(BUNDLE_CACHE_FOLDER);
+        }
+
+        bundles.put(locale, bundle);
+        return bundle;
+    }
+
     /**
      * Register a listener to be notified when the language changes.
      */
@@ -96,70 +138,104 @@ public class TranslationManager {
         if (!language.equals(this.currentLanguage)) {
             this.currentLanguage = language;
 
-            Map<String, String> dbTranslations= dao.loadTranslations(language);
+            Map<String, String> dbTranslations = bundle(language).getTexts();
 
 
             translations = translations == null ? new HashMap<>() : translations;
 
-            Map<String, String> tempTranslations = new HashMap<>();
-
             if(defaultTranslations != null){
+                Map<String, String> stored = new HashMap<>();
+                Map<String, String> missing = new LinkedHashMap<>();
                 for(TKey key : TKey.values()){
                     if(!translations.containsKey(key.name())){
                        translations.put(key.name(), new SimpleStringProperty(defaultTranslations.get(key.name())));
                     }
-                    if(dbTranslations.containsKey(key.name()) && !dbTranslations.get(key.name()).equals(key.name())){
-                        Platform.runLater(()->{
-                            translations.get(key.name()).set(dbTranslations.get(key.name()));
-                        });
-                        continue;
-                    }else{
-                        generateTranslation(key.name(), defaultTranslations.get(key.name()))
-                                .thenAccept(result -> {
-                                    result.ifPresent(translation -> {
-                                        Platform.runLater(()->{
-                                            if(translations.containsKey(key.name())){
-                                                translations.get(key.name()).set(translation);
-                                            }else{
-                                                translations.put(key.name(), new SimpleStringProperty(translation));
-                                            }
-                                        });
-                                    });
-
-                                });
+                    String text = dbTranslations.get(key.name());
+                    if(text != null && !text.equals(key.name())){
+                        stored.put(key.name(), text);
+                    }else if(defaultTranslations.get(key.name()) != null){
+                        missing.put(key.name(), defaultTranslations.get(key.name()));
                     }
                 }
+
+                applyTranslations(language, stored);
+                if(!missing.isEmpty()){
+                    generateTranslations(language, missing)
+                            .thenAccept(generated -> applyTranslations(language, generated));
+                }
             }
 
             // Notify listeners
             listeners.forEach(l -> l.onLanguageChanged(language));
         }
     }
-    private CompletableFuture<Optional<String>> generateTranslation(String key, String text) {
-        return CompletableFuture.supplyAsync(()->{
-            try {
-                if(text != null){
-                    Optional<String> translation = ChatGPTService.translateMessage(text, "English", currentLanguage.getName());
-                    translation.ifPresentOrElse(t -> {
-                        try {
-                            dao.addOrUpdateTranslation(currentLanguage, key, t);
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
-                    }, ()->{
-                        Alert alert = new Alert(Alert.AlertType.ERROR);
-                        alert.setTitle("Error");
-                        alert.setHeaderText("Translation Failed");
-                        alert.setContentText("Error encountered while generating translation");
-                    });
-                    return translation;
+
+    /**
+     * Set all given texts on their properties in a single UI pulse, skipped when the language changed meanwhile
+     */
+    private void applyTranslations(Language language, Map<String, String> texts) {
+        if (texts.isEmpty()) {
+            return;
+        }
+        Platform.runLater(() -> {
+            if (!language.equals(currentLanguage)) {
+                return;
+            }
+            texts.forEach((key, text) -> {
+                StringProperty property = translations.get(key);
+                if (property != null) {
+                    property.set(text);
+                } else {
+                    translations.put(key, new SimpleStringProperty(text));
                 }
-                return null;
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+            });
+        });
+    }
+
+    /**
+     * Machine translate the missing texts in chunks of {@link #TRANSLATION_BATCH_SIZE} keys, at most
+     * {@link #MAX_PARALLEL_BATCHES} requests at a time, and store all results in one transaction.
+     */
+    private CompletableFuture<Map<String, String>> generateTranslations(Language language, Map<String, String> texts) {
+        List<CompletableFuture<Map<String, String>>> batches = new ArrayList<>();
+        List<Map.Entry<String, String>> entries = new ArrayList<>(texts.entrySet());
+        for (int i = 0; i < entries.size(); i += TRANSLATION_BATCH_SIZE) {
+            Map<String, String> chunk = new LinkedHashMap<>();
+            entries.subList(i, Math.min(i + TRANSLATION_BATCH_SIZE, entries.size()))
+                    .forEach(entry -> chunk.put(entry.getKey(), entry.getValue()));
+
+            batches.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return ChatGPTService.translateBatch(chunk, "English", language.getName());
+                } catch (IOException e) {
+                    System.err.println("Translation batch failed: " + e.getMessage());
+                    return Map.<String, String>of();
+                }
+            }, translationExecutor));
+        }
+
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            Map<String, String> generated = new HashMap<>();
+            batches.forEach(batch -> generated.putAll(batch.join()));
+
+            if (generated.size() < texts.size()) {
+                System.err.println("Missing " + (texts.size() - generated.size()) + " translations for " + language.getIso());
+                Platform.runLater(() -> {
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle("Error");
+                    alert.setHeaderText("Translation Failed");
+                    alert.setContentText("Error encountered while generating translation");
+                    alert.show();
+                });
+            }
+
+            try {
+                dao.addOrUpdateTranslations(language, generated);
+                bundles.remove(language.getIso().toLowerCase());
             } catch (Exception e) {
-                throw new RuntimeException(e);
+                e.printStackTrace();
             }
+            return generated;
         });
     }
 
@@ -185,7 +261,7 @@ public class TranslationManager {
      */
     public void addTranslation(Language language, TKey key, String text) throws Exception {
         dao.addOrUpdateTranslation(language, key.name(), text);
-        cache.remove(language);
+        bundles.remove(language.getIso().toLowerCase());
         if (language.equals(this.currentLanguage)) {
             setLanguage(language);
         }
@@ -10,7 +10,7 @@ import com.final_app.models.Settings;
 import com.final_app.models.UserConversation;
 import com.final_app.services.ChatGPTService;
 import com.final_app.services.*;
-import com.final_app.tools.AudioPlayer;
+import com.final_app.tools.EndKeyFilter;
 import com.final_app.views.pages.ChatView;
 import de.saxsys.mvvmfx.InjectScope;
 import com.final_app.scopes.ChatScope;
@@ -24,6 +24,7 @@ import javafx.beans.property.StringProperty;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -47,11 +48,28 @@ public class ChatViewModel extends BaseViewModel {
 
     private Consumer<Void> onMessagesChanged;
     private Consumer<String> onResponse;
+    private Consumer<Void> onResponseStarted;
+    private Consumer<String> onResponseDelta;
     private Consumer<Evaluation> onEvaluationReceived;
     private Consumer<UserService.XpTransaction> onXpEarned;
 
     private Settings settings;
 
+    // History sent to the model, owned by this conversation so evaluations and other chats never share it
+    private volatile ChatSession chatSession;
+
+    // Show the reply of the AI while it is generated, -Dlingualeap.chat.streaming=false waits for the whole reply
+    private static final boolean STREAMING = Boolean.parseBoolean(System.getProperty("lingualeap.chat.streaming", "true"));
+    // True from the first streamed word until the reply is saved
+    private volatile boolean responseStreaming = false;
+    // Speech of the latest reply, a new reply or leaving the chat stops it
+    private volatile SpeechPipeline speech;
+
+    // Transcript of a completed conversation, paged in from the repository (oldest first)
+    private static final int MESSAGE_PAGE_SIZE = 30;
+    private final List<Message> pagedTranscript = new ArrayList<>();
+    private boolean transcriptComplete = false;
+
     public void setOnMessagesChanged(Consumer<Void> listener) {
         this.onMessagesChanged = listener;
     }
@@ -60,6 +78,27 @@ public class ChatViewModel extends BaseViewModel {
         this.onResponse = onResponse;
     }
 
+    /**
+     * Called on a background thread when a streamed reply starts, before its first text
+     */
+    public void setOnResponseStarted(Consumer<Void> onResponseStarted) {
+        this.onResponseStarted = onResponseStarted;
+    }
+
+    /**
+     * Called on a background thread with every new piece of text of a streamed reply, the end key left out
+     */
+    public void setOnResponseDelta(Consumer<String> onResponseDelta) {
+        this.onResponseDelta = onResponseDelta;
+    }
+
+    /**
+     * Whether a reply is being streamed that is not saved yet, the view shows it after the saved messages
+     */
+    public boolean isResponseStreaming() {
+        return responseStreaming;
+    }
+
     public void setOnEvaluationReceived(Consumer<Evaluation> onEvaluationReceived) {
         this.onEvaluationReceived = onEvaluationReceived;
     }
@@ -69,6 +108,11 @@ public class ChatViewModel extends BaseViewModel {
     }
 
     public void setUserConversation(UserConversation userConversation) {
+        synchronized (pagedTranscript) {
+            pagedTranscript.clear();
+            transcriptComplete = false;
+        }
+        chatSession = null;
         this.userConversation.set(userConversation);
     }
 
@@ -92,6 +136,33 @@ public class ChatViewModel extends BaseViewModel {
         return userConversation.get().getMessages().stream().sorted((a, b) -> a.getIndex() - b.getIndex()).toList();
     }
 
+    /**
+     * The newest count messages, oldest first. Fewer are returned when the conversation has no more.
+     * A completed conversation that is only reviewed is paged in from the repository,
+     * an active one needs its full history for the AI anyway.
+     */
+    public List<Message> getLatestMessages(int count) throws ExecutionException, InterruptedException {
+        UserConversation current = userConversation.get();
+        if (current == null) {
+            return List.of();
+        }
+
+        if (current.hasLoadedMessages() || current.getStatusEnum() != ConversationStatus.COMPLETED) {
+            List<Message> sorted = sortMessages();
+            return sorted.subList(Math.max(0, sorted.size() - count), sorted.size());
+        }
+
+        synchronized (pagedTranscript) {
+            while (pagedTranscript.size() < count && !transcriptComplete) {
+                Integer beforeIndex = pagedTranscript.isEmpty() ? null : pagedTranscript.getFirst().getIndex();
+                List<Message> page = conversationService.getConversationMessagesPage(current.getId(), beforeIndex, MESSAGE_PAGE_SIZE);
+                pagedTranscript.addAll(0, page);
+                transcriptComplete = page.size() < MESSAGE_PAGE_SIZE;
+            }
+            return new ArrayList<>(pagedTranscript.subList(Math.max(0, pagedTranscript.size() - count), pagedTranscript.size()));
+        }
+    }
+
     public void initialize(){
         try {
             appService.getUserService().getUserSettings(appService.getCurrentUser().getId())
@@ -128,8 +199,7 @@ public class ChatViewModel extends BaseViewModel {
 //                    String response = ChatGPTRepository.sendMessage(text,
 //                            userConversation.get().getConversation().getAIModel());
 
-                    Optional<String> response = ChatGPTService.sendMessage(text,
-                            AIModels.CONVERSATION);
+                    Optional<String> response = requestResponse(getChatSession(), text);
 
                     if(response.isPresent()){
                         if(response.get().toLowerCase().contains(GlobalVariables.endConversationKey)){
@@ -204,13 +274,11 @@ public class ChatViewModel extends BaseViewModel {
                                 response.get(),
                                 Sender.AI
                         );
+                        responseStreaming = false;
 
-                        // Convert to speech and play
-                        ChatGPTService.convertTextToSpeech(response.get());
-
+                        // Show the saved message, a streamed reply is replaced by it. It is already being spoken.
                         loadMessages();
                         //this.userConversation.get().addMessage(new Message(this.userConversation.get().getId(), response, Sender.AI));
-                        AudioPlayer.playAudio("output.mp3");
 
                         // Notify UI of changes
                         if (onMessagesChanged != null) {
@@ -224,6 +292,8 @@ public class ChatViewModel extends BaseViewModel {
 
                 } catch (Exception e) {
                     e.printStackTrace();
+                } finally {
+                    endResponseStream();
                 }
             });
             t.start();
@@ -241,14 +311,14 @@ public class ChatViewModel extends BaseViewModel {
         Thread t = new Thread(() -> {
             try {
                 // Set up scenario in ChatGPT
-                ChatGPTService.setScenario(userConversation.get());
+                ChatSession session = ChatGPTService.createScenarioSession(userConversation.get());
+                chatSession = session;
 
                 // Get initial message from AI
 //                String response = ChatGPTRepository.sendMessage("start conversation",
 //                        userConversation.get().getConversation().getAIModel());
 
-                Optional<String> response = ChatGPTService.sendMessage("start conversation",
-                        AIModels.CONVERSATION);
+                Optional<String> response = requestResponse(session, "start conversation");
 
                 if(response.isPresent()){
                     if(response.get().contains(GlobalVariables.endConversationKey)){
@@ -262,12 +332,8 @@ public class ChatViewModel extends BaseViewModel {
                             response.get(),
                             Sender.AI
                     );
-
-
-                    // Convert to speech and play
-                    ChatGPTService.convertTextToSpeech(response.get());
+                    responseStreaming = false;
                     loadMessages();
-                    AudioPlayer.playAudio("output.mp3");
 
                     // Notify UI of changes
                     if (onMessagesChanged != null) {
@@ -287,13 +353,87 @@ public class ChatViewModel extends BaseViewModel {
 
             } catch (Exception e) {
                 e.printStackTrace();
+            } finally {
+                endResponseStream();
             }
         });
         t.start();
     }
 
+    /**
+     * Get the reply of the AI to the input. While streaming, its text is passed to the view as it arrives
+     * with the end key held back, even when the key is split over several chunks. The reply is spoken
+     * sentence by sentence as soon as each sentence is complete. The returned reply still contains the key,
+     * the caller removes it once.
+     */
+    private Optional<String> requestResponse(ChatSession session, String input) throws IOException {
+        EndKeyFilter filter = new EndKeyFilter(GlobalVariables.endConversationKey);
+        SpeechPipeline replySpeech = startSpeech();
+        try {
+            Optional<String> response;
+            if (STREAMING) {
+                responseStreaming = true;
+                if (onResponseStarted != null) {
+                    onResponseStarted.accept(null);
+                }
+                response = ChatGPTService.streamMessage(session, input, AIModels.CONVERSATION,
+                        delta -> showResponseDelta(filter.accept(delta), replySpeech));
+            } else {
+                response = ChatGPTService.sendMessage(session, input, AIModels.CONVERSATION);
+                response.ifPresent(reply -> replySpeech.accept(filter.accept(reply)));
+            }
+            showResponseDelta(filter.finish(), replySpeech);
+            replySpeech.finish();
+            return response;
+        } catch (IOException | RuntimeException e) {
+            replySpeech.cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * Stop the speech of the previous reply and start one for the next
+     */
+    private SpeechPipeline startSpeech() {
+        SpeechPipeline previous = speech;
+        if (previous != null) {
+            previous.cancel();
+        }
+        SpeechPipeline next = new SpeechPipeline();
+        speech = next;
+        return next;
+    }
+
+    private void showResponseDelta(String text, SpeechPipeline replySpeech) {
+        replySpeech.accept(text);
+        if (STREAMING && !text.isEmpty() && onResponseDelta != null) {
+            onResponseDelta.accept(text);
+        }
+    }
+
+    /**
+     * Drop a streamed reply that was not saved, e.g. because the request failed
+     */
+    private void endResponseStream() {
+        if (responseStreaming) {
+            responseStreaming = false;
+            if (onMessagesChanged != null) {
+                onMessagesChanged.accept(null);
+            }
+        }
+    }
+
     public void setScenario(){
-        ChatGPTService.setScenario(userConversation.get());
+        chatSession = ChatGPTService.createScenarioSession(userConversation.get());
+    }
+
+    private ChatSession getChatSession() {
+        ChatSession session = chatSession;
+        if (session == null) {
+            session = ChatGPTService.createScenarioSession(userConversation.get());
+            chatSession = session;
+        }
+        return session;
     }
 
     public void loadMessages() {
@@ -365,6 +505,10 @@ public class ChatViewModel extends BaseViewModel {
 
     @Override
     public void onNavigatedFrom() {
+        SpeechPipeline current = speech;
+        if (current != null) {
+            current.cancel();
+        }
 
     }
 }
\ No newline at end of file
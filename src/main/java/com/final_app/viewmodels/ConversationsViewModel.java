@@ -7,6 +7,7 @@ import com.final_app.services.ConversationService;
 import com.final_app.services.UserService;
 import com.final_app.tools.PerformanceTimer;
 import com.final_app.tools.TranslationManager;
+import com.final_app.views.components.custom.table.CustomTableController;
 import com.final_app.views.pages.ChatView;
 import de.saxsys.mvvmfx.ViewModel;
 import javafx.application.Platform;
@@ -30,9 +31,9 @@ public class ConversationsViewModel extends BaseViewModel {
     private final UserService userService = appService.getUserService();
     private final ConversationService conversationService = appService.getConversationService();
 
-    private final ObservableList<UserConversation> userConversations = FXCollections.observableArrayList();
     private final ObservableList<ConversationChain> userConversationChains = FXCollections.observableArrayList();
-    private final ObservableMap<String, List<UserConversation>> groupedUserConversations = FXCollections.observableHashMap();
+    // Per attempted conversation ID the latest attempt and the totals, the attempts are paged in by the history table
+    private final ObservableMap<String, UserConversationGroup> userConversationGroups = FXCollections.observableHashMap();
     private final ObservableList<Conversation> availableConversations = FXCollections.observableArrayList();
     private final ObservableList<ConversationChain> availableConversationChains = FXCollections.observableArrayList();
 
@@ -53,9 +54,9 @@ public class ConversationsViewModel extends BaseViewModel {
                 if (appService.isAuthenticated()) {
                     String userId = appService.getCurrentUser().getId();
 
-                    // Load all necessary data in bulk
-                    List<UserConversation> userConvos = appService.getConversationService()
-                            .getUserConversations(userId);
+                    // One row per attempted conversation with the totals the cards and pills show, computed by the
+                    // repository instead of loading every attempt
+                    List<UserConversationGroup> groups = conversationService.getUserConversationGroups(userId);
 
                     List<Conversation> allConversations = conversationService.getAllConversations();
                     List<ConversationChain> allChains = conversationService.getAllConversationChains();
@@ -68,18 +69,14 @@ public class ConversationsViewModel extends BaseViewModel {
                     languages.setAll(userLanguages.stream().map(UserLanguage::getLanguage).toList());
 
                     // Map conversations to user conversations
-                    for (UserConversation uc : userConvos) {
-                        uc.setConversation(conversationMap.get(uc.getConversationId()));
+                    Map<String, UserConversationGroup> groupedConvos = new HashMap<>();
+                    for (UserConversationGroup group : groups) {
+                        group.getLatest().setConversation(conversationMap.get(group.getConversationId()));
+                        groupedConvos.put(group.getConversationId(), group);
                     }
 
-                    // Group user conversations by conversation ID
-                    Map<String, List<UserConversation>> groupedConvos = userConvos.stream()
-                            .collect(Collectors.groupingBy(UserConversation::getConversationId));
-
                     // Find available conversations user hasn't started yet
-                    List<String> startedConversationIds = userConvos.stream()
-                            .map(UserConversation::getConversationId)
-                            .toList();
+                    Set<String> startedConversationIds = groupedConvos.keySet();
 
                     List<Conversation> availableConvos = allConversations.stream()
                             .filter(c -> !startedConversationIds.contains(c.getId()) &&
@@ -107,9 +104,8 @@ public class ConversationsViewModel extends BaseViewModel {
 
                     // Apply everything to UI thread
                     Platform.runLater(() -> {
-                        userConversations.setAll(userConvos);
-                        groupedUserConversations.clear();
-                        groupedUserConversations.putAll(groupedConvos);
+                        userConversationGroups.clear();
+                        userConversationGroups.putAll(groupedConvos);
                         availableConversations.setAll(availableConvos);
                         userConversationChains.setAll(userChains);
                         availableConversationChains.setAll(availableChains);
@@ -132,12 +128,25 @@ public class ConversationsViewModel extends BaseViewModel {
         });
     }
 
-    public ObservableList<UserConversation> getUserConversations() {
-        return userConversations;
+    /**
+     * Pages of the user's attempts of the conversation for the history table, read from the repository
+     */
+    public CustomTableController.PageLoader<UserConversation> historyPageLoader(String conversationId) {
+        String userId = getCurrentUser().getId();
+        return (after, pageSize) -> {
+            try {
+                return conversationService.getUserConversationsPage(userId, conversationId, after, pageSize);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        };
     }
 
-    public ObservableMap<String, List<UserConversation>> getGroupedUserConversations() {
-        return groupedUserConversations;
+    public ObservableMap<String, UserConversationGroup> getUserConversationGroups() {
+        return userConversationGroups;
     }
 
     public ObservableList<Conversation> getAvailableConversations() {
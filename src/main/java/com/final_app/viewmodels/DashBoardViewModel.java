@@ -17,7 +17,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.sql.SQLException;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.temporal.WeekFields;
 import java.util.ArrayList;
@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 public class DashBoardViewModel extends BaseViewModel {
@@ -50,6 +51,11 @@ public class DashBoardViewModel extends BaseViewModel {
 
     public enum SyncState { SYNCING, SYNCED, NOT_SYNCED }
     public final ObjectProperty<SyncState> syncState = new SimpleObjectProperty<>(SyncState.NOT_SYNCED);
+    // Share of the synchronization that is done, -1 while it is unknown
+    public final DoubleProperty syncProgress = new SimpleDoubleProperty(-1);
+    public final StringProperty syncMessage = new SimpleStringProperty("");
+    // Set while an update of the sync properties waits for the FX thread, so a burst of changes posts one update
+    private final AtomicBoolean syncUpdatePending = new AtomicBoolean();
 
     public DashBoardViewModel() {
         // Subscribe once to login events
@@ -73,8 +79,10 @@ public class DashBoardViewModel extends BaseViewModel {
             if (RepositoryFactory.getInstance().getState() == RepositoryFactory.State.ONLINE
                     && currentUser != null && syncState.get() != SyncState.SYNCING) {
                 syncState.set(SyncState.SYNCING);
+                SyncProgress progress = new SyncProgress(DataSynchronizeService.SyncType.ONLINE_TO_LOCAL.name());
+                progress.addListener(() -> showSyncProgress(progress));
                 appService.getDataSynchronizeService()
-                        .synchronizeDB(currentUser, DataSynchronizeService.SyncType.ONLINE_TO_LOCAL)
+                        .synchronizeDB(currentUser, DataSynchronizeService.SyncType.ONLINE_TO_LOCAL, progress)
                         .thenCompose(result -> {
                             RepositoryFactory.getInstance().changeToOffline();
                             AppService.setTimesSynchronizedForUser(1);
@@ -92,6 +100,20 @@ public class DashBoardViewModel extends BaseViewModel {
 
     }
 
+    private void showSyncProgress(SyncProgress progress) {
+        if (!syncUpdatePending.compareAndSet(false, true)) {
+            return;
+        }
+        Platform.runLater(() -> {
+            syncUpdatePending.set(false);
+            syncProgress.set(progress.getFraction());
+            long planned = progress.getPlanned();
+            syncMessage.set(planned == 0
+                    ? progress.getPhase() + "..."
+                    : progress.getPhase() + ": " + (progress.getWritten() + progress.getSkipped()) + " / " + planned);
+        });
+    }
+
     private void refreshAllData() {
         PerformanceTimer.start("refreshUserData");
         User user = appService.getCurrentUser();
@@ -158,16 +180,15 @@ public class DashBoardViewModel extends BaseViewModel {
                 int streak = appService.getUserService().getUserStreak(user.getId());
                 temp.add(new SimpleStat(TranslationManager.get().t(TKey.DDAYSTREAK).get(), streak, TranslationManager.get().t(TKey.DAYS).get(), "stat_up.svg"));
 
-                List<UserConversation> convs = appService.getConversationService().getUserConversations(user.getId());
-                long thisWeekConvs = convs.stream().filter(u -> isInCurrentWeek(u.getUpdatedAt())).count();
-                temp.add(new SimpleStat(TranslationManager.get().t(TKey.CONVERSATIONS).get(), convs.size(), thisWeekConvs + " "+ TranslationManager.get().t(TKey.THISWEEK).get(), "conversation.svg"));
+                // Counted by the database, so this does not grow with the history size
+                LocalDate weekStart = LocalDate.now(zoneId).with(weekFields.dayOfWeek(), 1);
+                ActivityStats activity = appService.getUserService().getActivityStats(user.getId(),
+                        Date.from(weekStart.atStartOfDay(zoneId).toInstant()),
+                        Date.from(weekStart.plusWeeks(1).atStartOfDay(zoneId).toInstant()));
 
-                List<UserSpeakingTest> tests = appService.getSpeakingTestService().getUserSpeakingTests(user.getId());
-                long thisWeekTests = tests.stream().filter(u -> isInCurrentWeek(u.getCompletedAt())).count();
-                temp.add(new SimpleStat(TranslationManager.get().t(TKey.SPEAKINGTESTS).get(), tests.size(), thisWeekTests + " "+ TranslationManager.get().t(TKey.THISWEEK).get(), "microphone_light.svg"));
+                temp.add(new SimpleStat(TranslationManager.get().t(TKey.CONVERSATIONS).get(), (int) activity.getTotalConversations(), activity.getConversationsThisWeek() + " "+ TranslationManager.get().t(TKey.THISWEEK).get(), "conversation.svg"));
+                temp.add(new SimpleStat(TranslationManager.get().t(TKey.SPEAKINGTESTS).get(), (int) activity.getTotalSpeakingTests(), activity.getSpeakingTestsThisWeek() + " "+ TranslationManager.get().t(TKey.THISWEEK).get(), "microphone_light.svg"));
 
-            } catch (SQLException e) {
-                throw new CompletionException(e);
             } catch (ExecutionException e) {
                 throw new RuntimeException(e);
             } catch (InterruptedException e) {
@@ -177,15 +198,6 @@ public class DashBoardViewModel extends BaseViewModel {
         });
     }
 
-    private boolean isInCurrentWeek(Date date) {
-        if (date == null) return false;
-        LocalDateTime dt = date.toInstant().atZone(zoneId).toLocalDateTime();
-        int week  = dt.get(weekFields.weekOfWeekBasedYear());
-        int year  = dt.get(weekFields.weekBasedYear());
-        LocalDateTime now = LocalDateTime.now(zoneId);
-        return week == now.get(weekFields.weekOfWeekBasedYear()) && year == now.get(weekFields.weekBasedYear());
-    }
-
     public void addUserLanguage(UserLanguage userLanguage) {
         executor.submit(() -> {
             User user = appService.getCurrentUser();
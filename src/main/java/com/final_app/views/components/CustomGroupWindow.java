@@ -7,6 +7,7 @@ import com.final_app.models.UserConversation;
 import com.final_app.models.UserSpeakingTest;
 import com.final_app.tools.SVGUtil;
 import com.final_app.tools.TranslationManager;
+import com.final_app.views.components.custom.table.CustomTableController;
 import com.final_app.views.components.custom.table.CustomTableView;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -101,59 +102,57 @@ public class CustomGroupWindow<T> extends VBox {
     public void initializeRow(List<T> items){
         setBindings(items.getFirst());
         tblItems.setConversations(items);
+        initializePills(items);
+    }
+
+    /**
+     * Like {@link #initializeRow(List)}, but the table pages its rows in from the loader and the pills show the
+     * given totals, so the attempts do not have to be in memory
+     */
+    public void initializeRow(T first, int completed, int averageScore, CustomTableController.PageLoader<T> pageLoader){
+        setBindings(first);
+        tblItems.setPageLoader(pageLoader);
+        showPills(completed, averageScore);
+    }
+
+    private void initializePills(List<T> items){
         pillBox.getChildren().clear();
 
         if(!items.isEmpty()){
             if(items.getFirst() instanceof UserConversation){
-                // Hbox pills
-                pillBox.getChildren().clear();
-
                 List<UserConversation> completedConvos = ((List<UserConversation>) items).stream().filter(uc -> uc.getStatusEnum() == ConversationStatus.COMPLETED).toList();
 
                 int completed = completedConvos.size();
                 int averageScore = (int) (completedConvos.stream().map(uc -> ((double)uc.getEvaluation().getScore() / uc.getEvaluation().getMaxScore()) * 100).reduce(0.0, Double::sum) / completed);
-
-                Label lblFirst = new Label(Integer.toString(completed) + " " + TranslationManager.get().t(TKey.COMPLETED).get().toLowerCase());
-                Label lblSecond = new Label(Integer.toString(averageScore) + " " + TranslationManager.get().t(TKey.AVERAGESCORE).get().toLowerCase());
-                lblFirst.getStyleClass().addAll("primary");
-                lblSecond.getStyleClass().addAll("primary");
-
-                ImageView icon1 = new ImageView(SVGUtil.loadSVG(GlobalVariables.ICONS + "check_light.svg", 13, 13));
-                ImageView icon2 = new ImageView(SVGUtil.loadSVG(GlobalVariables.ICONS + "star_light.svg", 13, 13));
-
-                HBox hbox1 = new HBox(icon1, lblFirst);
-                HBox hbox2 = new HBox(icon2, lblSecond);
-
-                hbox1.setSpacing(5);
-                hbox2.setSpacing(5);
-                hbox1.getStyleClass().addAll("pill");
-                hbox2.getStyleClass().addAll("pill");
-                pillBox.getChildren().addAll(hbox1, hbox2);
+                showPills(completed, averageScore);
             }else if(items.getFirst() instanceof UserSpeakingTest){
-                pillBox.getChildren().clear();
-
                 List<UserSpeakingTest> completedTests = ((List<UserSpeakingTest>) items).stream().filter(uc -> uc.getStatusEnum() == ConversationStatus.COMPLETED).toList();
 
                 int completed = completedTests.size();
                 int averageScore = (int) (completedTests.stream().map(us -> (double)us.getResponses().stream().map( e -> (double)e.getOverallScore() / e.maxScore).reduce(0.0, Double::sum) / us.getResponses().size() * 100).reduce(0.0, Double::sum) / completed);
+                showPills(completed, averageScore);
+            }
+        }
+    }
 
-                Label lblFirst = new Label(Integer.toString(completed) + " " + TranslationManager.get().t(TKey.COMPLETED).get().toLowerCase());
-                Label lblSecond = new Label(Integer.toString(averageScore) + " " + TranslationManager.get().t(TKey.AVERAGESCORE).get().toLowerCase());
-                lblFirst.getStyleClass().addAll("primary");
-                lblSecond.getStyleClass().addAll("primary");
+    private void showPills(int completed, int averageScore){
+        pillBox.getChildren().clear();
 
-                ImageView icon1 = new ImageView(SVGUtil.loadSVG(GlobalVariables.ICONS + "check_light.svg", 13, 13));
-                ImageView icon2 = new ImageView(SVGUtil.loadSVG(GlobalVariables.ICONS + "star_light.svg", 13, 13));
+        Label lblFirst = new Label(Integer.toString(completed) + " " + TranslationManager.get().t(TKey.COMPLETED).get().toLowerCase());
+        Label lblSecond = new Label(Integer.toString(averageScore) + " " + TranslationManager.get().t(TKey.AVERAGESCORE).get().toLowerCase());
+        lblFirst.getStyleClass().addAll("primary");
+        lblSecond.getStyleClass().addAll("primary");
 
-                HBox hbox1 = new HBox(icon1, lblFirst);
-                HBox hbox2 = new HBox(icon2, lblSecond);
+        ImageView icon1 = new ImageView(SVGUtil.loadSVG(GlobalVariables.ICONS + "check_light.svg", 13, 13));
+        ImageView icon2 = new ImageView(SVGUtil.loadSVG(GlobalVariables.ICONS + "star_light.svg", 13, 13));
 
-                hbox1.setSpacing(5);
-                hbox2.setSpacing(5);
-                hbox1.getStyleClass().addAll("pill");
-                hbox2.getStyleClass().addAll("pill");
-                pillBox.getChildren().addAll(hbox1, hbox2);
-            }
-        }
+        HBox hbox1 = new HBox(icon1, lblFirst);
+        HBox hbox2 = new HBox(icon2, lblSecond);
+
+        hbox1.setSpacing(5);
+        hbox2.setSpacing(5);
+        hbox1.getStyleClass().addAll("pill");
+        hbox2.getStyleClass().addAll("pill");
+        pillBox.getChildren().addAll(hbox1, hbox2);
     }
 }
@@ -18,6 +18,7 @@ public class LoadingScreen {
 
     private final Stage dialogStage;
     private final Label messageLabel;
+    private final ProgressIndicator progressIndicator;
 
     public LoadingScreen(Stage owner, String message) {
         dialogStage = new Stage();
@@ -25,7 +26,7 @@ public class LoadingScreen {
         dialogStage.initModality(Modality.APPLICATION_MODAL);
         dialogStage.initStyle(StageStyle.TRANSPARENT);
 
-        ProgressIndicator progressIndicator = new ProgressIndicator();
+        progressIndicator = new ProgressIndicator();
         progressIndicator.setPrefSize(100, 100);
 
         messageLabel = new Label(message);
@@ -55,5 +56,12 @@ public class LoadingScreen {
     public void setMessage(String message) {
         messageLabel.setText(message);
     }
+
+    /**
+     * Show how much is done, between 0 and 1, or a negative value while it is unknown
+     */
+    public void setProgress(double progress) {
+        progressIndicator.setProgress(progress < 0 ? ProgressIndicator.INDETERMINATE_PROGRESS : progress);
+    }
 }
 
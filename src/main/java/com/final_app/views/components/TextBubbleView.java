@@ -27,6 +27,13 @@ public class TextBubbleView extends Label {
         }
     }
 
+    /**
+     * Add text at the end, for a message that is shown while it arrives
+     */
+    public void appendText(String text){
+        this.lblText.setText(this.lblText.getText() == null ? text : this.lblText.getText() + text);
+    }
+
     public void setBackgroundColor(String color){
         this.lblText.setStyle("-fx-background-color: " + color);
     }
@@ -17,6 +17,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
+import javafx.geometry.Orientation;
 import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -31,6 +32,9 @@ import javafx.util.Callback;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class CustomTableController<T> {
     @FXML private TableView<T> table;
@@ -42,10 +46,37 @@ public class CustomTableController<T> {
 
     private double fixedRowHeight = 70;
 
+    // Rows are paged in while scrolling instead of being rendered all at once
+    private static final int PAGE_SIZE = 20;
+    private static final int VISIBLE_ROWS = 10;
+
+    // Page loads block on the repository, so they get their own threads instead of the common ForkJoinPool
+    private static final ExecutorService pageExecutor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "table-page-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Supplies the page of rows that follows after (null for the first page)
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        List<T> loadPage(T after, int pageSize);
+    }
+
     private final ObservableList<T> data = FXCollections.observableArrayList();
+    private PageLoader<T> pageLoader;
+    private boolean lastPageLoaded = true;
+    private boolean loadingPage = false;
+    // Incremented for every new page loader, so pages of a previous loader are dropped
+    private int loaderGeneration = 0;
 
     public void initialize() {
         data.addListener((ListChangeListener<? super T>) c -> adaptHeight());
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            if (newSkin != null) Platform.runLater(this::configurePaging);
+        });
 
         // Configure Status column
         statusCol.setCellValueFactory(new PropertyValueFactory<>("statusEnum"));
@@ -272,24 +303,71 @@ public class CustomTableController<T> {
         double headerHeight = 0;
         if (header instanceof Region) {
             headerHeight = ((Region) header).getHeight();
-            System.out.println("Header height: " + headerHeight);
-        } else {
-            System.out.println("Header node not found or is not a Region.");
-            // Handle the case where the header isn't found, maybe use an estimated height
         }
+        // Without a header node (not laid out yet) the height is adapted again with the next rows
 
-        System.out.println("Header height: " + headerHeight);
         table.setFixedCellSize(fixedRowHeight);
         table.prefHeightProperty().bind(table.fixedCellSizeProperty().multiply(fixedRowHeight).add(headerHeight));
-        table.maxHeightProperty().bind(table.fixedCellSizeProperty().multiply(data.size()).add(headerHeight + 1.4));
-        System.out.println("Table cell height: " + table.getFixedCellSize());
-        System.out.println("Table height: " + table.getMaxHeight());
+        table.maxHeightProperty().bind(table.fixedCellSizeProperty().multiply(Math.min(data.size(), VISIBLE_ROWS)).add(headerHeight + 1.4));
     }
 
+    /**
+     * Replace the rows by a list that is already in memory, the table renders only the visible ones
+     */
     public void setConversations(List<T> list) {
+        pageLoader = null;
+        loaderGeneration++;
+        loadingPage = false;
+        lastPageLoaded = true;
         data.setAll(list);
     }
 
+    /**
+     * Replace the rows by the pages of the given loader; the first page is loaded right away,
+     * the next ones when the table is scrolled to the bottom.
+     */
+    public void setPageLoader(PageLoader<T> pageLoader) {
+        this.pageLoader = pageLoader;
+        loaderGeneration++;
+        loadingPage = false;
+        lastPageLoaded = false;
+        data.clear();
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (pageLoader == null || loadingPage || lastPageLoaded) return;
+        loadingPage = true;
+
+        int generation = loaderGeneration;
+        PageLoader<T> loader = pageLoader;
+        T after = data.isEmpty() ? null : data.getLast();
+        CompletableFuture.supplyAsync(() -> loader.loadPage(after, PAGE_SIZE), pageExecutor)
+                .thenAccept(page -> Platform.runLater(() -> {
+                    if (generation != loaderGeneration) return;
+                    data.addAll(page);
+                    lastPageLoaded = page.size() < PAGE_SIZE;
+                    loadingPage = false;
+                }))
+                .exceptionally(ex -> {
+                    ex.printStackTrace();
+                    Platform.runLater(() -> loadingPage = false);
+                    return null;
+                });
+    }
+
+    private void configurePaging() {
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                bar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= bar.getMax()) {
+                        loadNextPage();
+                    }
+                });
+            }
+        }
+    }
+
     private void onReview(T item) {
         if(item instanceof UserConversation){
             RootViewModel.getInstance().getNavigationService().navigateTo(ChatView.class, vm -> {
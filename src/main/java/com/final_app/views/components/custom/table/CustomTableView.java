@@ -46,6 +46,13 @@ public class CustomTableView<T> extends VBox {
         controller.setConversations(list);
     }
 
+    /**
+     * Page the rows in from the loader while the table is scrolled
+     */
+    public void setPageLoader(CustomTableController.PageLoader<T> pageLoader) {
+        controller.setPageLoader(pageLoader);
+    }
+
     /**
      * Access the raw TableView for further customizations.
      */
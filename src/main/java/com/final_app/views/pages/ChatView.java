@@ -36,7 +36,9 @@ import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ChatView implements FxmlView<ChatViewModel> {
     @FXML private StackPane root;
@@ -68,6 +70,16 @@ public class ChatView implements FxmlView<ChatViewModel> {
 
     private int btnSize = 30;
 
+    // Only the newest messages are rendered, older pages are added when scrolling to the top
+    private static final int MESSAGE_PAGE_SIZE = 30;
+    private int renderedMessageCount = MESSAGE_PAGE_SIZE;
+    private boolean allMessagesRendered = false;
+    private final AtomicInteger refreshGeneration = new AtomicInteger();
+
+    // The AI reply that is streamed in and not saved yet
+    private HBox liveResponseLine;
+    private TextBubbleView liveResponseBubble;
+
     public void initialize() {
         Platform.runLater(() -> {
             UserConversation userConversation = viewModel.getUserConversation();
@@ -115,6 +127,14 @@ public class ChatView implements FxmlView<ChatViewModel> {
                 refreshMessages();
             });
 
+            // Show a streamed reply while it arrives
+            viewModel.setOnResponseStarted(e -> Platform.runLater(this::showLiveResponse));
+            viewModel.setOnResponseDelta(text -> Platform.runLater(() -> {
+                if (liveResponseBubble != null) {
+                    liveResponseBubble.appendText(text);
+                }
+            }));
+
             // Set XP transaction handler
             viewModel.setOnXpEarned(transaction -> {
                 lastXpTransaction = transaction;
@@ -293,87 +313,160 @@ public class ChatView implements FxmlView<ChatViewModel> {
                 scrollPane.vvalueProperty().unbind();
             }
         });
+
+        // Page in older messages when the user scrolls to the top
+        scrollPane.vvalueProperty().addListener((obs, oldValue, newValue) -> {
+            if (!scrollPane.vvalueProperty().isBound() && !allMessagesRendered
+                    && newValue.doubleValue() <= scrollPane.getVmin() && oldValue.doubleValue() > scrollPane.getVmin()) {
+                renderedMessageCount += MESSAGE_PAGE_SIZE;
+                double previousHeight = contentBox.getHeight();
+                refreshMessages(() -> {
+                    // Keep the message that was at the top in view
+                    contentBox.applyCss();
+                    contentBox.layout();
+                    double scrollable = contentBox.getHeight() - scrollPane.getViewportBounds().getHeight();
+                    if (scrollable > 0) {
+                        scrollPane.setVvalue((contentBox.getHeight() - previousHeight) / scrollable * scrollPane.getVmax());
+                    }
+                });
+            }
+        });
     }
 
     private void refreshMessages() {
-        Platform.runLater(() -> {
-            messageBox.getChildren().clear();
+        refreshMessages(() -> {
+            if (!scrollPane.vvalueProperty().isBound()) {
+                scrollPane.vvalueProperty().bind(contentBox.heightProperty());
+            }
+        });
+    }
 
-            UserConversation userConversation = viewModel.getUserConversation();
-            if (userConversation == null || userConversation.getMessages() == null) {
-                System.out.println("Userconversation or messages is null");
-                return;
+    private void refreshMessages(Runnable afterRender) {
+        int generation = refreshGeneration.incrementAndGet();
+        int count = renderedMessageCount;
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return viewModel.getLatestMessages(count);
+            } catch (ExecutionException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }).thenAccept(messages -> Platform.runLater(() -> {
+            // A newer refresh was started in the meantime
+            if (generation != refreshGeneration.get()) return;
+
+            renderMessages(messages);
+            allMessagesRendered = messages.size() < count;
+            if (afterRender != null) {
+                afterRender.run();
             }
+        })).exceptionally(ex -> {
+            ex.printStackTrace();
+            return null;
+        });
+    }
 
-            List<Message> messages = userConversation.getMessages().stream().sorted((e, b) -> e.getIndex() - b.getIndex()).toList();
-            for (Message message : messages) {
-                var newBubble = new TextBubbleView();
-                newBubble.setText(message.getText());
-                newBubble.getStyleClass().addAll("b1");
+    private void showLiveResponse() {
+        if (liveResponseLine != null) {
+            messageBox.getChildren().remove(liveResponseLine);
+        }
 
-                HBox messageLine = new HBox();
-                messageLine.setSpacing(20);
-                if (Sender.USER.name().equals(message.getSender())) {
-                    messageLine.setAlignment(Pos.CENTER_LEFT);
-                    newBubble.getStyleClass().addAll("left");
+        liveResponseBubble = new TextBubbleView();
+        liveResponseBubble.setText("");
+        liveResponseBubble.getStyleClass().addAll("b1", "right");
 
-                    messageLine.getChildren().add(newBubble);
-                } else {
-                    messageLine.setAlignment(Pos.CENTER_RIGHT);
+        liveResponseLine = new HBox(liveResponseBubble);
+        liveResponseLine.setSpacing(20);
+        liveResponseLine.setAlignment(Pos.CENTER_RIGHT);
+        messageBox.getChildren().add(liveResponseLine);
 
+        // Follow the reply while it grows
+        if (!scrollPane.vvalueProperty().isBound()) {
+            scrollPane.vvalueProperty().bind(contentBox.heightProperty());
+        }
+    }
 
+    private void renderMessages(List<Message> messages) {
+        messageBox.getChildren().clear();
 
-                    VBox translateBtn = new VBox();
+        UserConversation userConversation = viewModel.getUserConversation();
+        if (userConversation == null || messages == null) {
+            System.out.println("Userconversation or messages is null");
+            return;
+        }
 
-                    translateBtn.setPrefSize(30, 30);
-                    translateBtn.getStyleClass().addAll("border-radius-1", "border-light", "border-1", "align-center");
-                    ImageView icon = new ImageView(SVGUtil.loadSVG("/com/final_app/icons/translation_light.svg", 20, 20));
-                    translateBtn.getChildren().add(icon);
-                    translateBtn.setVisible(false);
-                    translateBtn.setManaged(false);
+        for (Message message : messages) {
+            var newBubble = new TextBubbleView();
+            newBubble.setText(message.getText());
+            newBubble.getStyleClass().addAll("b1");
+
+            HBox messageLine = new HBox();
+            messageLine.setSpacing(20);
+            if (Sender.USER.name().equals(message.getSender())) {
+                messageLine.setAlignment(Pos.CENTER_LEFT);
+                newBubble.getStyleClass().addAll("left");
+
+                messageLine.getChildren().add(newBubble);
+            } else {
+                messageLine.setAlignment(Pos.CENTER_RIGHT);
 
-                    translateBtn.setOnMouseEntered(e ->{
-                        icon.setImage(SVGUtil.loadSVG("/com/final_app/icons/translation_dark.svg", 20,20));
-                        translateBtn.getStyleClass().add("bg-light");
-                    });
-                    translateBtn.setOnMouseExited(e -> {
-                        icon.setImage(SVGUtil.loadSVG("/com/final_app/icons/translation_light.svg", 20, 20));
-                        translateBtn.getStyleClass().remove("bg-light");
-                    });
-                    translateBtn.setOnMouseClicked(e -> {
-                        viewModel.translateMessage(message);
-                    });
 
-                    messageLine.setOnMouseEntered(e ->{
-                        int index = messages.indexOf(message);
-                        if (messages.getLast() != message && messages.get(index + 1).getSenderEnum() != Sender.TRANSLATION){
-                            translateBtn.setManaged(true);
-                            translateBtn.setVisible(true);
-                        }else if(messages.getLast() == message){
-                            translateBtn.setManaged(true);
-                            translateBtn.setVisible(true);
-                        }
-                    });
-                    messageLine.setOnMouseExited(e -> {
-                        translateBtn.setVisible(false);
-                        translateBtn.setManaged(false);
-                    });
 
-                    messageLine.getChildren().add(newBubble);
-                    if(message.getSenderEnum() != Sender.TRANSLATION) {
-                        messageLine.getChildren().add(translateBtn);
-                        newBubble.getStyleClass().addAll("right");
-                    }else{
-                        newBubble.getStyleClass().addAll("translation");
+                VBox translateBtn = new VBox();
+
+                translateBtn.setPrefSize(30, 30);
+                translateBtn.getStyleClass().addAll("border-radius-1", "border-light", "border-1", "align-center");
+                ImageView icon = new ImageView(SVGUtil.loadSVG("/com/final_app/icons/translation_light.svg", 20, 20));
+                translateBtn.getChildren().add(icon);
+                translateBtn.setVisible(false);
+                translateBtn.setManaged(false);
+
+                translateBtn.setOnMouseEntered(e ->{
+                    icon.setImage(SVGUtil.loadSVG("/com/final_app/icons/translation_dark.svg", 20,20));
+                    translateBtn.getStyleClass().add("bg-light");
+                });
+                translateBtn.setOnMouseExited(e -> {
+                    icon.setImage(SVGUtil.loadSVG("/com/final_app/icons/translation_light.svg", 20, 20));
+                    translateBtn.getStyleClass().remove("bg-light");
+                });
+                translateBtn.setOnMouseClicked(e -> {
+                    viewModel.translateMessage(message);
+                });
+
+                messageLine.setOnMouseEntered(e ->{
+                    int index = messages.indexOf(message);
+                    if (messages.getLast() != message && messages.get(index + 1).getSenderEnum() != Sender.TRANSLATION){
+                        translateBtn.setManaged(true);
+                        translateBtn.setVisible(true);
+                    }else if(messages.getLast() == message){
+                        translateBtn.setManaged(true);
+                        translateBtn.setVisible(true);
                     }
-                }
+                });
+                messageLine.setOnMouseExited(e -> {
+                    translateBtn.setVisible(false);
+                    translateBtn.setManaged(false);
+                });
 
-                messageBox.getChildren().add(messageLine);
+                messageLine.getChildren().add(newBubble);
+                if(message.getSenderEnum() != Sender.TRANSLATION) {
+                    messageLine.getChildren().add(translateBtn);
+                    newBubble.getStyleClass().addAll("right");
+                }else{
+                    newBubble.getStyleClass().addAll("translation");
+                }
             }
 
-            if (!scrollPane.vvalueProperty().isBound()) {
-                scrollPane.vvalueProperty().bind(contentBox.heightProperty());
+            messageBox.getChildren().add(messageLine);
+        }
+
+        // Keep the streamed reply below the saved messages until it is saved itself
+        if (liveResponseLine != null) {
+            if (viewModel.isResponseStreaming()) {
+                messageBox.getChildren().add(liveResponseLine);
+            } else {
+                liveResponseLine = null;
+                liveResponseBubble = null;
             }
-        });
+        }
     }
 }
\ No newline at end of file
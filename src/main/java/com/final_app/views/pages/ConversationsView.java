@@ -1,7 +1,6 @@
 package com.final_app.views.pages;
 
 import com.final_app.converters.LanguageConverter;
-import com.final_app.globals.ConversationStatus;
 import com.final_app.globals.GlobalVariables;
 import com.final_app.globals.TKey;
 import com.final_app.models.*;
@@ -70,7 +69,7 @@ public class ConversationsView implements FxmlView<ConversationsViewModel> {
 
     private BooleanProperty showAvailableCards = new SimpleBooleanProperty(false);
 
-    private List<UserConversation> selectedCluster = new ArrayList<>();
+    private UserConversationGroup selectedGroup;
 
     private List<Language> selectedLanguages = new ArrayList<>();
 
@@ -96,34 +95,16 @@ public class ConversationsView implements FxmlView<ConversationsViewModel> {
         bindUIText();
 
 
-        viewModel.getUserConversations().addListener((ListChangeListener<? super UserConversation>) e -> {
-            System.out.println("UserConversations changed");
+        viewModel.getUserConversationGroups().addListener((MapChangeListener<? super String, ? super UserConversationGroup>) e -> {
+            if(e.wasAdded() && conversationGroupWindow.isVisible() && selectedGroup != null
+                    && e.getKey().equals(selectedGroup.getConversationId())){
+                System.out.println("UserConversationGroups changed");
+                selectedGroup = e.getValueAdded();
+                showGroupWindow(selectedGroup);
+            }
             loadUserConversationLists();
             setUpEmptyComponents();
         });
-        viewModel.getGroupedUserConversations().addListener((MapChangeListener<? super String, ? super List<UserConversation>>) e -> {
-            if(e.wasAdded()){
-                if(conversationGroupWindow.isVisible() && !viewModel.getGroupedUserConversations().isEmpty() && selectedCluster != null){
-                    System.out.println("GroupedUserConversations changed");
-                    var firstSelect = selectedCluster.getFirst();
-//                    if(viewModel.getGroupedUserConversations().get(firstSelect.getConversationId()) != null && selectedCluster.size() > 1){
-//                        System.out.println("Updating grouped window");
-//                        selectedCluster = viewModel.getGroupedUserConversations().get(firstSelect.getConversationId());
-//                        conversationGroupWindow.initializeRow(selectedCluster);
-//                    }
-                    if(viewModel.getGroupedUserConversations().containsKey(firstSelect.getConversationId())) selectedCluster = viewModel.getGroupedUserConversations().get(firstSelect.getConversationId());
-                    if(selectedCluster != null){
-                        conversationGroupWindow.initializeRow(selectedCluster);
-
-                        conversationGroupWindow.setVisible(true);
-                    }
-
-                }
-                loadUserConversationLists();
-                setUpEmptyComponents();
-            }
-
-        });
         viewModel.getAvailableConversations().addListener((ListChangeListener<? super Conversation>) e -> {
             loadConversationLists();
             setUpEmptyComponents();
@@ -195,7 +176,7 @@ public class ConversationsView implements FxmlView<ConversationsViewModel> {
         noUserConversationsChain.setMaxWidth(userConversationChainCards.getMaxWidth());
         noUserConversationsChain.setPrefWidth(userConversationChainCards.getMaxWidth());
 
-        if(viewModel.getUserConversations().isEmpty()){
+        if(viewModel.getUserConversationGroups().isEmpty()){
             noUserConversations.setVisible(true);
             noUserConversations.setManaged(true);
         }else{
@@ -323,16 +304,15 @@ public class ConversationsView implements FxmlView<ConversationsViewModel> {
             // Clear the cards
             cards.getChildren().clear();
             userConversationChainCards.getChildren().clear();
-            viewModel.getGroupedUserConversations().forEach((key, list) -> {
-                if(filteredList(list) == null || filteredList(list).isEmpty()) return;
-                ConversationCard card = new ConversationCard(list.getFirst());
+            viewModel.getUserConversationGroups().forEach((key, group) -> {
+                if(filteredList(List.of(group.getLatest())).isEmpty()) return;
+                ConversationCard card = new ConversationCard(group.getLatest());
                 cards.getChildren().add(card);
                 card.setOnButtonClick(obj->{
                     if(obj instanceof UserConversation){
-                        if(list.size() > 1 || list.stream().map(us -> us.getStatusEnum()).toList().contains(ConversationStatus.COMPLETED)){
-                            conversationGroupWindow.initializeRow(list);
-                            selectedCluster = list;
-                            conversationGroupWindow.setVisible(true);
+                        if(group.getAttempts() > 1 || group.getCompleted() > 0){
+                            selectedGroup = group;
+                            showGroupWindow(group);
                             conversationGroupWindow.setOnCreateButtonClicked(us -> {
                                 viewModel.startNewConversation(us.getConversation());
                             });
@@ -357,6 +337,15 @@ public class ConversationsView implements FxmlView<ConversationsViewModel> {
         });
     }
 
+    /**
+     * Show the attempts of the group, the history table pages them in
+     */
+    private void showGroupWindow(UserConversationGroup group){
+        conversationGroupWindow.initializeRow(group.getLatest(), group.getCompleted(), group.getAverageScore(),
+                viewModel.historyPageLoader(group.getConversationId()));
+        conversationGroupWindow.setVisible(true);
+    }
+
     private List<?> filteredList(List<?> list){
         if(list.isEmpty()) return list;
         if(list.getFirst() instanceof Conversation){
@@ -173,6 +173,8 @@ public class DashBoardView implements FxmlView<DashBoardViewModel> {
         root.sceneProperty().addListener((observable, oldValue, newValue) -> {
             if(newValue != null) {
                 loadingScreen = new LoadingScreen((Stage) root.getScene().getWindow(), "Loading...");
+                viewModel.syncMessage.addListener((obs, oldMessage, message) -> loadingScreen.setMessage(message.isEmpty() ? "Loading..." : message));
+                viewModel.syncProgress.addListener((obs, oldProgress, progress) -> loadingScreen.setProgress(progress.doubleValue()));
             }
         });
 